@@ -1,7 +1,9 @@
 package com.roboentregador.backend;
 
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 /**
  * Classe principal da aplicação Spring Boot
@@ -9,9 +11,10 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  */
 @SpringBootApplication
 public class BackendApplication {
-    
+
     public static void main(String[] args) {
-        SpringApplication.run(BackendApplication.class, args);
-        System.out.println("🚀 Backend Grafo Tracer Pro iniciado na porta 8080");
+        ConfigurableApplicationContext contexto = SpringApplication.run(BackendApplication.class, args);
+        LoggerFactory.getLogger(BackendApplication.class).info("Backend Grafo Tracer Pro iniciado na porta {}",
+                contexto.getEnvironment().getProperty("local.server.port"));
     }
 }
@@ -2,12 +2,13 @@ package com.roboentregador.backend.controller;
 
 import com.roboentregador.backend.model.Aresta;
 import com.roboentregador.backend.repository.ArestaRepository;
+import com.roboentregador.backend.service.CatalogoService;
+import com.roboentregador.backend.service.MatrizDistanciaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * Controller REST para gerenciamento de arestas do grafo
  */
@@ -17,20 +18,27 @@ import java.util.List;
 public class ArestaController {
     
     private final ArestaRepository arestaRepository;
+    private final MatrizDistanciaService matrizDistanciaService;
+    private final CatalogoService catalogoService;
     
     @Autowired
-    public ArestaController(ArestaRepository arestaRepository) {
+    public ArestaController(ArestaRepository arestaRepository, MatrizDistanciaService matrizDistanciaService,
+                            CatalogoService catalogoService) {
         this.arestaRepository = arestaRepository;
+        this.matrizDistanciaService = matrizDistanciaService;
+        this.catalogoService = catalogoService;
     }
     
     /**
      * GET /api/arestas
      * Lista todas as arestas do grafo
+     * JSON pré-renderizado com ETag: If-None-Match responde 304 sem corpo
      */
     @GetMapping
-    public ResponseEntity<List<Aresta>> listarArestas() {
-        List<Aresta> arestas = arestaRepository.findAll();
-        return ResponseEntity.ok(arestas);
+    public ResponseEntity<byte[]> listarArestas(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return RespostaCacheada.responder(catalogoService.listarArestas(), ifNoneMatch, acceptEncoding);
     }
     
     /**
@@ -43,4 +51,32 @@ public class ArestaController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+    
+    /**
+     * POST /api/arestas
+     * Adiciona ou atualiza uma aresta: {"origem":"A","destino":"B","distancia":49.0}
+     * A matriz de distâncias é recalculada em segundo plano
+     */
+    @PostMapping
+    public ResponseEntity<Aresta> salvarAresta(@RequestBody Aresta aresta) {
+        if (aresta.getOrigem() == null || aresta.getDestino() == null || aresta.getDistancia() <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Aresta salva = arestaRepository.salvar(aresta);
+        matrizDistanciaService.agendarAtualizacao();
+        return ResponseEntity.ok(salva);
+    }
+    
+    /**
+     * DELETE /api/arestas/{id}
+     * Remove uma aresta do grafo
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> removerAresta(@PathVariable String id) {
+        if (!arestaRepository.remover(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        matrizDistanciaService.agendarAtualizacao();
+        return ResponseEntity.noContent().build();
+    }
 }
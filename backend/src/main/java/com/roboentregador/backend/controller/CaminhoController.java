@@ -0,0 +1,94 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.dto.ExecucaoResponseDTO;
+import com.roboentregador.backend.dto.RotaDTO;
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.service.CaminhoService;
+import com.roboentregador.backend.service.MatrizDistanciaService;
+import com.roboentregador.backend.service.RotaService;
+import com.roboentregador.backend.service.TemposService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller REST para cálculo de caminhos sob demanda
+ * Permite obter a rota mínima entre quaisquer dois nós sem uma classe Rota dedicada
+ */
+@RestController
+@RequestMapping("/api/caminho")
+@CrossOrigin(origins = "*")
+public class CaminhoController {
+    
+    private final CaminhoService caminhoService;
+    private final MatrizDistanciaService matrizDistanciaService;
+    private final RotaService rotaService;
+    private final TemposService temposService;
+    
+    @Autowired
+    public CaminhoController(CaminhoService caminhoService, MatrizDistanciaService matrizDistanciaService,
+                             RotaService rotaService, TemposService temposService) {
+        this.caminhoService = caminhoService;
+        this.matrizDistanciaService = matrizDistanciaService;
+        this.rotaService = rotaService;
+        this.temposService = temposService;
+    }
+    
+    /**
+     * GET /api/caminho?origem=A&destino=G
+     * Calcula o caminho mais rápido entre dois nós do grafo, pelos tempos de percurso aprendidos
+     */
+    @GetMapping
+    public ResponseEntity<RotaDTO> calcularCaminho(@RequestParam String origem,
+                                                   @RequestParam String destino) {
+        return caminhoService.calcularCaminho(origem, destino)
+                .map(caminhoService::converterParaDTO)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * GET /api/caminho/distancia?origem=A&destino=G
+     * Distância mínima consultada na matriz pré-calculada e tempo estimado ao longo desse caminho
+     */
+    @GetMapping("/distancia")
+    public ResponseEntity<Map<String, Object>> consultarDistancia(@RequestParam String origem,
+                                                                  @RequestParam String destino) {
+        Optional<Caminho> caminho = matrizDistanciaService.caminho(origem, destino);
+        if (caminho.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("origem", origem);
+        response.put("destino", destino);
+        response.put("distancia", caminho.get().getDistancia());
+        response.put("unidade", "cm");
+        response.put("tempoEstimado", temposService.estimar(caminho.get()));
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * POST /api/caminho/executar?origem=A&destino=G
+     * Compila o caminho mínimo em um programa de motor e o envia a um robô livre
+     * (ou ao robô de ?robo=), sem precisar de uma rota gravada no firmware
+     */
+    @PostMapping("/executar")
+    public CompletableFuture<ResponseEntity<ExecucaoResponseDTO>> executarCaminho(
+            @RequestParam String origem,
+            @RequestParam String destino,
+            @RequestParam(required = false) String robo) {
+        return rotaService.executarCaminho(origem, destino, robo)
+                .map(execucao -> execucao.thenApply(response -> response.isSucesso()
+                        ? ResponseEntity.ok(response)
+                        : ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response)))
+                .orElseGet(() -> CompletableFuture.completedFuture(ResponseEntity.notFound().build()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.dto.EntregaDTO;
+import com.roboentregador.backend.dto.EntregaRequestDTO;
+import com.roboentregador.backend.model.Entrega;
+import com.roboentregador.backend.service.EntregaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller REST da fila de entregas
+ * Os pedidos entram na fila de um robô e são despachados quando ele fica livre
+ */
+@RestController
+@RequestMapping("/api/entregas")
+@CrossOrigin(origins = "*")
+public class EntregaController {
+    
+    @Value("${entregas.retry-after:5}")
+    private int retryAfter;
+    
+    private final EntregaService entregaService;
+    
+    @Autowired
+    public EntregaController(EntregaService entregaService) {
+        this.entregaService = entregaService;
+    }
+    
+    /**
+     * POST /api/entregas
+     * Enfileira uma entrega: {"destino":"G","prioridade":"ALTA"} ou {"rotaId":3,"roboId":"robo-1"}
+     * 202 com a entrega na fila, 400 se o pedido for inválido, 404 se o robô não existir
+     * e 429 (com Retry-After) quando a fila estiver cheia
+     */
+    @PostMapping
+    public ResponseEntity<EntregaDTO> enviarEntrega(@RequestBody EntregaRequestDTO pedido) {
+        EntregaService.Admissao admissao = entregaService.enviar(pedido);
+        
+        return switch (admissao.resultado()) {
+            case ACEITA -> ResponseEntity.status(HttpStatus.ACCEPTED).body(admissao.entrega());
+            case INVALIDA -> ResponseEntity.badRequest().build();
+            case ROBO_INEXISTENTE -> ResponseEntity.notFound().build();
+            case FILA_CHEIA -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .build();
+        };
+    }
+    
+    /**
+     * GET /api/entregas?estado=PENDENTE
+     * Lista as entregas na fila e o histórico recente
+     */
+    @GetMapping
+    public ResponseEntity<List<EntregaDTO>> listarEntregas(@RequestParam(required = false) Entrega.Estado estado) {
+        return ResponseEntity.ok(entregaService.listar(estado));
+    }
+    
+    /**
+     * GET /api/entregas/filas
+     * Ocupação da fila de cada robô
+     */
+    @GetMapping("/filas")
+    public ResponseEntity<List<Map<String, Object>>> listarFilas() {
+        return ResponseEntity.ok(entregaService.listarFilas());
+    }
+    
+    /**
+     * GET /api/entregas/{id}
+     * Situação de uma entrega
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<EntregaDTO> buscarEntrega(@PathVariable long id) {
+        return entregaService.buscar(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * DELETE /api/entregas/{id}
+     * Cancela uma entrega; se já estiver em execução, o robô recebe STOP
+     * 409 se a entrega já tinha terminado
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<EntregaDTO> cancelarEntrega(@PathVariable long id) {
+        return entregaService.cancelar(id)
+                .map(entrega -> entrega.getEstado() == Entrega.Estado.CANCELADA
+                        ? ResponseEntity.ok(entrega)
+                        : ResponseEntity.status(HttpStatus.CONFLICT).body(entrega))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,12 +1,15 @@
 package com.roboentregador.backend.controller;
 
-import com.roboentregador.backend.service.Esp8266Service;
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.model.SaudeRobo;
+import com.roboentregador.backend.repository.RoboRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller para gerenciar a comunicação com a ESP8266
@@ -16,26 +19,40 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class Esp8266Controller {
     
-    private final Esp8266Service esp8266Service;
+    private final RoboRepository roboRepository;
     
     @Autowired
-    public Esp8266Controller(Esp8266Service esp8266Service) {
-        this.esp8266Service = esp8266Service;
+    public Esp8266Controller(RoboRepository roboRepository) {
+        this.roboRepository = roboRepository;
     }
     
     /**
      * GET /api/esp8266/status
      * Verifica se a ESP8266 está conectada
+     * Responde a partir do heartbeat em memória, sem comunicar com o robô
+     * Parâmetro opcional ?robo= escolhe o robô; sem ele, usa o principal da frota
      */
     @GetMapping("/status")
-    public ResponseEntity<Map<String, Object>> verificarStatus() {
-        boolean conectada = esp8266Service.verificarConexao();
+    public ResponseEntity<Map<String, Object>> verificarStatus(@RequestParam(required = false) String robo) {
+        Optional<Robo> alvo = robo != null ? roboRepository.findById(robo) : roboRepository.findPrincipal();
+        if (alvo.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        SaudeRobo saude = alvo.get().getSaude();
+        boolean conectada = saude.isConectado();
         
         Map<String, Object> response = new HashMap<>();
         response.put("conectada", conectada);
         response.put("mensagem", conectada ? 
                 "ESP8266 conectada e pronta" : 
                 "ESP8266 não conectada (modo simulação)");
+        response.put("roboId", alvo.get().getId());
+        response.put("estado", alvo.get().getEstado());
+        response.put("executando", saude.isExecutando());
+        response.put("ultimoContato", saude.getUltimoContato());
+        response.put("rttMs", saude.getRttMs());
+        response.put("falhasConsecutivas", saude.getFalhasConsecutivas());
         
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,80 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.service.EntregaService;
+import com.roboentregador.backend.service.EventosService;
+import com.roboentregador.backend.service.FrotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller do canal de eventos em tempo real (Server-Sent Events)
+ * Substitui o polling dos painéis: o estado chega por push, sem nenhuma consulta aos robôs por cliente
+ */
+@RestController
+@RequestMapping("/api/eventos")
+@CrossOrigin(origins = "*")
+public class EventosController {
+
+    private final EventosService eventosService;
+    private final FrotaService frotaService;
+    private final EntregaService entregaService;
+    
+    @Autowired
+    public EventosController(EventosService eventosService, FrotaService frotaService,
+                             EntregaService entregaService) {
+        this.eventosService = eventosService;
+        this.frotaService = frotaService;
+        this.entregaService = entregaService;
+    }
+    
+    /**
+     * GET /api/eventos
+     * Abre o fluxo de eventos. Na conexão chegam "frota" (lista de robôs) e "filas" (ocupação das filas);
+     * depois, a cada mudança:
+     * - "robo": estado de um robô mudou (heartbeat ou reserva)
+     * - "execucao": trajeto iniciado, concluído, parado ou perdido
+     * - "entrega": mudança de estado de uma entrega da fila
+     * - "frota": robô registrado ou removido
+     * - "mapa": snapshot do mapa recarregado (grafo e catálogo de rotas trocados)
+     * Com Last-Event-ID (reconexão automática do EventSource), reenvia só os eventos perdidos
+     * 503 quando o limite de clientes foi atingido
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> assinar(
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        return eventosService.conectar(lerId(ultimoEventoId), this::estadoAtual)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * GET /api/eventos/estatisticas
+     * Clientes conectados e eventos publicados/descartados
+     */
+    @GetMapping("/estatisticas")
+    public ResponseEntity<Map<String, Long>> estatisticas() {
+        return ResponseEntity.ok(eventosService.estatisticas());
+    }
+    
+    private Map<String, Object> estadoAtual() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("frota", frotaService.listarRobos());
+        estado.put("filas", entregaService.listarFilas());
+        return estado;
+    }
+    
+    private static Long lerId(String valor) {
+        try {
+            return valor != null ? Long.valueOf(valor.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.dto.RoboDTO;
+import com.roboentregador.backend.service.FrotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller REST para gerenciamento da frota de robôs
+ */
+@RestController
+@RequestMapping("/api/frota")
+@CrossOrigin(origins = "*")
+public class FrotaController {
+
+    private final FrotaService frotaService;
+    
+    @Autowired
+    public FrotaController(FrotaService frotaService) {
+        this.frotaService = frotaService;
+    }
+    
+    /**
+     * GET /api/frota
+     * Lista todos os robôs com estado e saúde
+     */
+    @GetMapping
+    public ResponseEntity<List<RoboDTO>> listarRobos() {
+        return ResponseEntity.ok(frotaService.listarRobos());
+    }
+    
+    /**
+     * GET /api/frota/{id}
+     * Busca um robô específico
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<RoboDTO> buscarRoboPorId(@PathVariable String id) {
+        return frotaService.buscarRoboPorId(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * POST /api/frota
+     * Registra um robô: {"id":"robo-2","host":"192.168.15.182","porta":80}
+     */
+    @PostMapping
+    public ResponseEntity<RoboDTO> registrarRobo(@RequestBody RoboDTO robo) {
+        if (robo.getId() == null || robo.getId().isBlank() || robo.getHost() == null || robo.getHost().isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(frotaService.registrarRobo(robo));
+    }
+    
+    /**
+     * DELETE /api/frota/{id}
+     * Remove um robô da frota
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> removerRobo(@PathVariable String id) {
+        return frotaService.removerRobo(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
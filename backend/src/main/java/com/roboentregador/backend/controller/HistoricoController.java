@@ -0,0 +1,103 @@
+package com.roboentregador.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roboentregador.backend.dto.RegistroHistoricoDTO;
+import com.roboentregador.backend.model.DiarioExecucoes;
+import com.roboentregador.backend.service.HistoricoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Controller do histórico de execuções gravado em disco (historico.* no application.properties)
+ * Tipos de registro: "comando" (envio à ESP8266), "execucao" (rota ou caminho pedido) e "trajeto"
+ * (início e fim do trajeto no robô); períodos em epoch ms
+ */
+@RestController
+@RequestMapping("/api/historico")
+@CrossOrigin(origins = "*")
+public class HistoricoController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    @Value("${historico.limite-consulta:100000}")
+    private int limiteConsulta;
+    
+    private final HistoricoService historicoService;
+    private final ObjectMapper objectMapper;
+    
+    @Autowired
+    public HistoricoController(HistoricoService historicoService, ObjectMapper objectMapper) {
+        this.historicoService = historicoService;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * GET /api/historico?desde=&ate=&robo=&tipo=&limite=1000
+     * Registros do período em ordem de gravação, um JSON por linha (NDJSON), escritos à medida
+     * que são lidos do disco; limite até historico.limite-consulta
+     * 404 se o histórico estiver desativado
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> consultar(
+            @RequestParam(required = false) Long desde,
+            @RequestParam(required = false) Long ate,
+            @RequestParam(required = false) String robo,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(defaultValue = "1000") int limite) {
+        int maximo = Math.max(0, Math.min(limite, limiteConsulta));
+        return historicoService.consultar(desde != null ? desde : 0, ate != null ? ate : Long.MAX_VALUE, robo, tipo)
+                .map(cursor -> ResponseEntity.ok().contentType(NDJSON).body(escrever(cursor, maximo)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * GET /api/historico/reproducao?desde=&ate=&robo=&tipo=&velocidade=1
+     * Reproduz o período como Server-Sent Events no ritmo original (velocidade 10 = 10x mais rápido,
+     * 0 = sem espera); 503 se o histórico estiver desativado ou com historico.limite-reproducoes em andamento
+     */
+    @GetMapping(value = "/reproducao", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> reproduzir(
+            @RequestParam(required = false) Long desde,
+            @RequestParam(required = false) Long ate,
+            @RequestParam(required = false) String robo,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(defaultValue = "1") double velocidade) {
+        return historicoService.reproduzir(desde != null ? desde : 0, ate != null ? ate : Long.MAX_VALUE,
+                        robo, tipo, velocidade)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * GET /api/historico/estatisticas
+     * Segmentos, bytes em disco e registros gravados/descartados
+     */
+    @GetMapping("/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(historicoService.estatisticas());
+    }
+    
+    private StreamingResponseBody escrever(DiarioExecucoes.Cursor cursor, int maximo) {
+        return saida -> {
+            try (cursor) {
+                OutputStream buffer = new BufferedOutputStream(saida, 64 * 1024);
+                for (int i = 0; i < maximo && cursor.hasNext(); i++) {
+                    RegistroHistoricoDTO registro = cursor.next();
+                    buffer.write(objectMapper.writeValueAsBytes(registro));
+                    buffer.write('\n');
+                }
+                buffer.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.service.MapaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Controller do snapshot binário do mapa (mapa.arquivo no application.properties)
+ */
+@RestController
+@RequestMapping("/api/mapa")
+@CrossOrigin(origins = "*")
+public class MapaController {
+
+    private final MapaService mapaService;
+    
+    @Autowired
+    public MapaController(MapaService mapaService) {
+        this.mapaService = mapaService;
+    }
+    
+    /**
+     * GET /api/mapa
+     * Arquivo observado, versão do mapa carregado, tamanho do grafo e contadores de recarga
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(mapaService.estatisticas());
+    }
+    
+    /**
+     * GET /api/mapa/snapshot?versao=N
+     * Baixa o mapa e o catálogo atuais no formato do SnapshotMapa, para publicar em outros backends
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<byte[]> baixarSnapshot(@RequestParam(required = false) Long versao) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"mapa.rmap\"")
+                .body(mapaService.exportar(versao));
+    }
+    
+    /**
+     * POST /api/mapa/snapshot?versao=N
+     * Grava o mapa atual em mapa.arquivo (400 se não estiver configurado)
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> salvarSnapshot(@RequestParam(required = false) Long versao)
+            throws IOException {
+        try {
+            return ResponseEntity.ok(mapaService.salvar(versao));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * POST /api/mapa/recarregar
+     * Relê mapa.arquivo na hora, sem esperar o observador (ex: sistemas de arquivos de rede sem eventos)
+     */
+    @PostMapping("/recarregar")
+    public ResponseEntity<Map<String, Object>> recarregar() {
+        mapaService.carregar();
+        return ResponseEntity.ok(mapaService.estatisticas());
+    }
+}
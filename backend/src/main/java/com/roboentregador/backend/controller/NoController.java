@@ -0,0 +1,71 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.dto.NoProximoDTO;
+import com.roboentregador.backend.model.Posicao;
+import com.roboentregador.backend.repository.ArestaRepository;
+import com.roboentregador.backend.service.LocalizacaoService;
+import com.roboentregador.backend.service.MatrizDistanciaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller REST das posições dos nós na planta
+ */
+@RestController
+@RequestMapping("/api/nos")
+@CrossOrigin(origins = "*")
+public class NoController {
+
+    private final ArestaRepository arestaRepository;
+    private final LocalizacaoService localizacaoService;
+    private final MatrizDistanciaService matrizDistanciaService;
+    
+    @Autowired
+    public NoController(ArestaRepository arestaRepository, LocalizacaoService localizacaoService,
+                        MatrizDistanciaService matrizDistanciaService) {
+        this.arestaRepository = arestaRepository;
+        this.localizacaoService = localizacaoService;
+        this.matrizDistanciaService = matrizDistanciaService;
+    }
+    
+    /**
+     * GET /api/nos
+     * Posições conhecidas dos nós em centímetros: {"A":{"x":0.0,"y":0.0}, ...}
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Posicao>> listarPosicoes() {
+        return ResponseEntity.ok(arestaRepository.findAllPosicoes());
+    }
+    
+    /**
+     * PUT /api/nos/{no}/posicao
+     * Define a posição de um nó: {"x":51.0,"y":41.0}
+     */
+    @PutMapping("/{no}/posicao")
+    public ResponseEntity<Posicao> salvarPosicao(@PathVariable String no, @RequestBody Posicao posicao) {
+        if (!Double.isFinite(posicao.getX()) || !Double.isFinite(posicao.getY())) {
+            return ResponseEntity.badRequest().build();
+        }
+        arestaRepository.salvarPosicao(no, posicao);
+        matrizDistanciaService.agendarAtualizacao();
+        return ResponseEntity.ok(posicao);
+    }
+    
+    /**
+     * GET /api/nos/proximo?x=40&y=95
+     * Nó e aresta mais próximos de um ponto da planta (ex: o local de uma entrega)
+     * 404 se nenhum nó do mapa tem posição
+     */
+    @GetMapping("/proximo")
+    public ResponseEntity<NoProximoDTO> buscarProximo(@RequestParam double x, @RequestParam double y) {
+        if (!Double.isFinite(x) || !Double.isFinite(y)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return localizacaoService.localizar(x, y)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
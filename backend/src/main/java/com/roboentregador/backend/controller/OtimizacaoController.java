@@ -0,0 +1,45 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.dto.OtimizacaoRequestDTO;
+import com.roboentregador.backend.dto.OtimizacaoResponseDTO;
+import com.roboentregador.backend.service.OtimizadorEntregasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller REST para otimizar a ordem de uma rodada de entregas com várias paradas
+ */
+@RestController
+@RequestMapping("/api/otimizar")
+@CrossOrigin(origins = "*")
+public class OtimizacaoController {
+
+    @Value("${otimizador.limite-paradas:1000}")
+    private int limiteParadas;
+    
+    private final OtimizadorEntregasService otimizadorEntregasService;
+    
+    @Autowired
+    public OtimizacaoController(OtimizadorEntregasService otimizadorEntregasService) {
+        this.otimizadorEntregasService = otimizadorEntregasService;
+    }
+    
+    /**
+     * POST /api/otimizar
+     * Recebe {"origem":"A","paradas":["G","C","E"],"retornarAOrigem":false}
+     * e devolve a melhor ordem de visita, o trajeto concatenado e as métricas da solução
+     * 404 se algum nó não existir ou não houver ligação entre as paradas
+     */
+    @PostMapping
+    public ResponseEntity<OtimizacaoResponseDTO> otimizar(@RequestBody OtimizacaoRequestDTO pedido) {
+        if (pedido.getParadas() == null || pedido.getParadas().isEmpty()
+                || pedido.getParadas().size() > limiteParadas) {
+            return ResponseEntity.badRequest().build();
+        }
+        return otimizadorEntregasService.otimizar(pedido)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,71 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.dto.JsonPreRenderizado;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Monta respostas HTTP a partir de JSON pré-renderizado
+ * - If-None-Match igual à ETag → 304 sem corpo
+ * - Accept-Encoding com gzip → corpo já comprimido, com ETag própria ("...-gz"): com Vary: Accept-Encoding,
+ *   representações diferentes não podem compartilhar a mesma ETag forte
+ */
+final class RespostaCacheada {
+
+    private RespostaCacheada() {
+    }
+    
+    static ResponseEntity<byte[]> responder(JsonPreRenderizado json, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? etagGzip(json.getEtag()) : json.getEtag();
+        
+        if (etagCorresponde(ifNoneMatch, json.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        
+        if (gzip) {
+            return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(json.getGzip());
+        }
+        return resposta.body(json.getJson());
+    }
+    
+    /**
+     * ETag da variante gzip: "abc" → "abc-gz" (o sufixo fica dentro das aspas)
+     */
+    private static String etagGzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+    
+    /**
+     * Aceita "*", uma lista separada por vírgulas, o prefixo W/ (comparação fraca)
+     * e a ETag de qualquer uma das duas representações (o conteúdo é o mesmo)
+     */
+    private static boolean etagCorresponde(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidata : ifNoneMatch.split(",")) {
+            String valor = candidata.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag) || valor.equals(etagGzip(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,16 +1,20 @@
 package com.roboentregador.backend.controller;
 
 import com.roboentregador.backend.dto.ExecucaoResponseDTO;
-import com.roboentregador.backend.dto.RotaDTO;
 import com.roboentregador.backend.dto.RotaResumoDTO;
+import com.roboentregador.backend.service.CatalogoService;
+import com.roboentregador.backend.service.GeradorRotasService;
+import com.roboentregador.backend.service.IdempotenciaService;
 import com.roboentregador.backend.service.RotaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller REST para gerenciamento de rotas
@@ -21,25 +25,34 @@ import java.util.Optional;
 @RequestMapping("/api/rotas")
 @CrossOrigin(origins = "*") // Permite requisições do frontend
 public class RotaController {
-    
+
     private final RotaService rotaService;
+    private final CatalogoService catalogoService;
+    private final GeradorRotasService geradorRotasService;
+    private final IdempotenciaService idempotenciaService;
     
     /**
      * Injeção de dependência via construtor
      */
     @Autowired
-    public RotaController(RotaService rotaService) {
+    public RotaController(RotaService rotaService, CatalogoService catalogoService,
+                          GeradorRotasService geradorRotasService, IdempotenciaService idempotenciaService) {
         this.rotaService = rotaService;
+        this.catalogoService = catalogoService;
+        this.geradorRotasService = geradorRotasService;
+        this.idempotenciaService = idempotenciaService;
     }
     
     /**
      * GET /api/rotas
      * Lista todas as rotas disponíveis (resumo)
+     * JSON pré-renderizado com ETag: If-None-Match responde 304 sem corpo
      */
     @GetMapping
-    public ResponseEntity<List<RotaResumoDTO>> listarRotas() {
-        List<RotaResumoDTO> rotas = rotaService.listarRotasResumo();
-        return ResponseEntity.ok(rotas);
+    public ResponseEntity<byte[]> listarRotas(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return RespostaCacheada.responder(catalogoService.listarRotas(), ifNoneMatch, acceptEncoding);
     }
     
     /**
@@ -47,10 +60,12 @@ public class RotaController {
      * Busca detalhes completos de uma rota específica
      */
     @GetMapping("/{id}")
-    public ResponseEntity<RotaDTO> buscarRotaPorId(@PathVariable Long id) {
-        Optional<RotaDTO> rota = rotaService.buscarRotaPorId(id);
-        
-        return rota.map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> buscarRotaPorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogoService.buscarRota(id)
+                .map(json -> RespostaCacheada.responder(json, ifNoneMatch, acceptEncoding))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -58,15 +73,60 @@ public class RotaController {
      * POST /api/rotas/{id}/executar
      * Executa uma rota específica
      * Demonstra POLIMORFISMO: cada rota executa de forma diferente
+     * Retorna um Future para não prender a thread do servlet durante o envio
+     * Parâmetro opcional ?robo= escolhe o robô; sem ele, usa o primeiro livre
+     * Com Idempotency-Key, repetições com a mesma chave recebem a resposta da primeira sem um novo envio
      */
     @PostMapping("/{id}/executar")
-    public ResponseEntity<ExecucaoResponseDTO> executarRota(@PathVariable Long id) {
-        ExecucaoResponseDTO response = rotaService.executarRota(id);
+    public CompletableFuture<ResponseEntity<ExecucaoResponseDTO>> executarRota(
+            @PathVariable Long id,
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return idempotenciaService.executar("rota:" + id + ":" + robo, chave,
+                () -> rotaService.executarRota(id, robo)).thenApply(response -> {
+            if (response.isSucesso()) {
+                return ResponseEntity.ok(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        });
+    }
+    
+    /**
+     * GET /api/rotas/{id}/programa
+     * Programa de motor compilado da rota, no formato binário enviado à ESP8266
+     */
+    @GetMapping(value = "/{id}/programa", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> compilarRota(@PathVariable Long id) {
+        return rotaService.compilarRota(id)
+                .map(programa -> ResponseEntity.ok(programa.codificar()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * POST /api/rotas/gerar?origem=A&destino=G&k=5
+     * Gera as k menores rotas entre dois nós (ou todas, com todos=true) e as inclui no catálogo
+     */
+    @PostMapping("/gerar")
+    public ResponseEntity<List<RotaResumoDTO>> gerarRotas(
+            @RequestParam String origem,
+            @RequestParam String destino,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(defaultValue = "false") boolean todos) {
+        List<RotaResumoDTO> rotas = rotaService.gerarRotas(origem, destino, k, todos);
         
-        if (response.isSucesso()) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        if (rotas.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(rotas);
+    }
+    
+    /**
+     * GET /api/rotas/validacao
+     * Lista as inconsistências entre as distâncias do catálogo e as arestas
+     */
+    @GetMapping("/validacao")
+    public ResponseEntity<List<String>> validarCatalogo() {
+        return ResponseEntity.ok(geradorRotasService.validarCatalogo());
     }
 }
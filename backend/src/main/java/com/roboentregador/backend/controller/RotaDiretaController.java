@@ -1,104 +1,163 @@
 package com.roboentregador.backend.controller;
 
-import com.roboentregador.backend.service.Esp8266Service;
+import com.roboentregador.backend.log.ContextoLog;
+import com.roboentregador.backend.model.RotaCompacta;
+import com.roboentregador.backend.repository.RotaRepository;
+import com.roboentregador.backend.service.DespachoService;
+import com.roboentregador.backend.service.HistoricoService;
+import com.roboentregador.backend.service.IdempotenciaService;
+import com.roboentregador.backend.service.MetricasService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class RotaDiretaController {
+
+    private static final Logger log = LoggerFactory.getLogger(RotaDiretaController.class);
     
-    private final Esp8266Service esp8266Service;
+    private final DespachoService despachoService;
+    private final RotaRepository rotaRepository;
+    private final MetricasService metricasService;
+    private final HistoricoService historicoService;
+    private final IdempotenciaService idempotenciaService;
     
     @Autowired
-    public RotaDiretaController(Esp8266Service esp8266Service) {
-        this.esp8266Service = esp8266Service;
+    public RotaDiretaController(DespachoService despachoService, RotaRepository rotaRepository,
+                                MetricasService metricasService, HistoricoService historicoService,
+                                IdempotenciaService idempotenciaService) {
+        this.despachoService = despachoService;
+        this.rotaRepository = rotaRepository;
+        this.metricasService = metricasService;
+        this.historicoService = historicoService;
+        this.idempotenciaService = idempotenciaService;
     }
     
     @PostMapping("/rota1")
-    public ResponseEntity<Map<String, Object>> executarRota1() {
-        System.out.println("🚀 Executando ROTA 1 (A → B → E → G)");
-        boolean sucesso = esp8266Service.enviarComando("ROTA_1");
-        return criarResposta(sucesso, "ROTA_1", "A → B → E → G", 157.5, 1);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executarRota1(
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return executarRotaFirmware(1L, robo, chave);
     }
     
     @PostMapping("/rota2")
-    public ResponseEntity<Map<String, Object>> executarRota2() {
-        System.out.println("🚀 Executando ROTA 2 (A → B → D → E → G)");
-        boolean sucesso = esp8266Service.enviarComando("ROTA_2");
-        return criarResposta(sucesso, "ROTA_2", "A → B → D → E → G", 198.0, 2);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executarRota2(
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return executarRotaFirmware(2L, robo, chave);
     }
     
     @PostMapping("/rota3")
-    public ResponseEntity<Map<String, Object>> executarRota3() {
-        System.out.println("🚀 Executando ROTA 3 (A → C → F → G)");
-        boolean sucesso = esp8266Service.enviarComando("ROTA_3");
-        return criarResposta(sucesso, "ROTA_3", "A → C → F → G", 181.0, 3);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executarRota3(
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return executarRotaFirmware(3L, robo, chave);
     }
     
     @PostMapping("/rota4")
-    public ResponseEntity<Map<String, Object>> executarRota4() {
-        System.out.println("🚀 Executando ROTA 4 (A → C → D → E → G)");
-        boolean sucesso = esp8266Service.enviarComando("ROTA_4");
-        return criarResposta(sucesso, "ROTA_4", "A → C → D → E → G", 216.0, 4);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executarRota4(
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return executarRotaFirmware(4L, robo, chave);
     }
     
     @PostMapping("/rota5")
-    public ResponseEntity<Map<String, Object>> executarRota5() {
-        System.out.println("🚀 Executando ROTA 5 (A → B → D → C → F → G)");
-        boolean sucesso = esp8266Service.enviarComando("ROTA_5");
-        return criarResposta(sucesso, "ROTA_5", "A → B → D → C → F → G", 287.0, 5);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executarRota5(
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return executarRotaFirmware(5L, robo, chave);
     }
     
     @PostMapping("/rota6")
-    public ResponseEntity<Map<String, Object>> executarRota6() {
-        System.out.println("🚀 Executando ROTA 6 (A → C → D → B → E → G)");
-        boolean sucesso = esp8266Service.enviarComando("ROTA_6");
-        return criarResposta(sucesso, "ROTA_6", "A → C → D → B → E → G", 295.5, 6);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executarRota6(
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return executarRotaFirmware(6L, robo, chave);
     }
     
     @PostMapping("/rota7")
-    public ResponseEntity<Map<String, Object>> executarRota7() {
-        System.out.println("🚀 Executando ROTA 7 (A → B → E → D → C → F → G)");
-        boolean sucesso = esp8266Service.enviarComando("ROTA_7");
-        return criarResposta(sucesso, "ROTA_7", "A → B → E → D → C → F → G", 336.5, 7);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executarRota7(
+            @RequestParam(required = false) String robo,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return executarRotaFirmware(7L, robo, chave);
     }
     
     @PostMapping("/parar")
-    public ResponseEntity<Map<String, Object>> pararRobo() {
-        System.out.println("⏹️ Enviando comando STOP");
-        boolean sucesso = esp8266Service.enviarComando("STOP");
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> pararRobo(@RequestParam(required = false) String robo) {
+        log.info("Enviando STOP para {}", robo != null ? robo : "todos os robôs");
+        return despachoService.parar(robo).thenApply(sucesso -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("sucesso", sucesso);
+            response.put("mensagem", sucesso ? "Robô parado com sucesso" : "Erro ao parar robô");
+            response.put("comando", "STOP");
+            response.put("roboId", robo);
+            
+            return ResponseEntity.ok(response);
+        });
+    }
+    
+    /**
+     * Despacha uma das rotas gravadas no firmware
+     * Caminho, distância e comando vêm do catálogo, sem duplicar os dados das classes Rota
+     * Com Idempotency-Key, repetições com a mesma chave recebem a resposta da primeira sem um novo envio
+     */
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> executarRotaFirmware(Long rotaId, String robo,
+                                                                                        String chave) {
+        return idempotenciaService.executar("rota-firmware:" + rotaId + ":" + robo, chave,
+                () -> executarRotaFirmware(rotaId, robo));
+    }
+    
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> executarRotaFirmware(Long rotaId, String robo) {
+        Optional<RotaCompacta> rota = rotaRepository.findById(rotaId);
+        if (rota.isEmpty() || rota.get().getComando() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("sucesso", sucesso);
-        response.put("mensagem", sucesso ? "Robô parado com sucesso" : "Erro ao parar robô");
-        response.put("comando", "STOP");
+        String comando = rota.get().getComando();
+        String caminho = String.join(" → ", rota.get().getNosPercorridos());
         
-        return ResponseEntity.ok(response);
+        // Rota no MDC durante o despacho: os logs do envio à ESP8266 a levam junto
+        try (ContextoLog.Escopo escopo = ContextoLog.abrir(null, String.valueOf(rotaId), null)) {
+            log.debug("Executando {} ({})", comando, caminho);
+            return criarResposta(despachoService.despachar(comando, robo), comando, caminho,
+                    rota.get().getDistanciaTotal(), rotaId);
+        }
     }
     
-    private ResponseEntity<Map<String, Object>> criarResposta(
-            boolean sucesso, 
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> criarResposta(
+            CompletableFuture<DespachoService.Despacho> envio, 
             String comando, 
             String caminho, 
             double distancia,
-            int rotaId) {
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("sucesso", sucesso);
-        response.put("mensagem", sucesso ? 
-                "Rota executada com sucesso!" : 
-                "Erro ao enviar comando para ESP8266");
-        response.put("comando", comando);
-        response.put("caminho", caminho);
-        response.put("distancia", distancia);
-        response.put("rotaId", rotaId);
+            Long rotaId) {
         
-        return ResponseEntity.ok(response);
+        return envio.thenApply(despacho -> {
+            boolean sucesso = despacho.sucesso();
+            metricasService.registrarExecucaoRota(rotaId, sucesso, despacho.robo() != null);
+            historicoService.registrarExecucao(rotaId, despacho.robo() != null ? despacho.robo().getId() : null,
+                    comando, sucesso);
+            Map<String, Object> response = new HashMap<>();
+            response.put("sucesso", sucesso);
+            response.put("mensagem", despacho.robo() == null ? "Nenhum robô disponível" :
+                    sucesso ? 
+                    "Rota executada com sucesso!" : 
+                    "Erro ao enviar comando para ESP8266");
+            response.put("comando", comando);
+            response.put("caminho", caminho);
+            response.put("distancia", distancia);
+            response.put("rotaId", rotaId);
+            response.put("roboId", despacho.robo() != null ? despacho.robo().getId() : null);
+            
+            return ResponseEntity.ok(response);
+        });
     }
 }
@@ -0,0 +1,33 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.service.SimuladorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller da frota simulada (simulador.robos no application.properties)
+ */
+@RestController
+@RequestMapping("/api/simulador")
+@CrossOrigin(origins = "*")
+public class SimuladorController {
+
+    private final SimuladorService simuladorService;
+    
+    @Autowired
+    public SimuladorController(SimuladorService simuladorService) {
+        this.simuladorService = simuladorService;
+    }
+    
+    /**
+     * GET /api/simulador
+     * Por robô simulado: estado, trajetos iniciados e requisições recebidas, perdidas e recusadas
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(simuladorService.estatisticas());
+    }
+}
@@ -0,0 +1,93 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.dto.AmostraTelemetriaDTO;
+import com.roboentregador.backend.dto.JanelaTelemetriaDTO;
+import com.roboentregador.backend.service.TelemetriaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller REST da telemetria dos robôs
+ * Recebe lotes de amostras e devolve séries agregadas em janelas de tempo
+ */
+@RestController
+@RequestMapping("/api/telemetria")
+@CrossOrigin(origins = "*")
+public class TelemetriaController {
+
+    @Value("${telemetria.lote-maximo:1000}")
+    private int loteMaximo;
+    
+    @Value("${telemetria.limite-janelas:1000}")
+    private int limiteJanelas;
+    
+    private final TelemetriaService telemetriaService;
+    
+    @Autowired
+    public TelemetriaController(TelemetriaService telemetriaService) {
+        this.telemetriaService = telemetriaService;
+    }
+    
+    /**
+     * GET /api/telemetria
+     * Amostras recebidas por robô e datagramas UDP descartados
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(telemetriaService.estatisticas());
+    }
+    
+    /**
+     * POST /api/telemetria/{roboId}
+     * Recebe um lote: [{"instante":1700000000000,"x":12.5,"y":40,"direcao":0,"pwm":1023,"passo":2,"cicloUs":850}]
+     * 202 com o número de amostras gravadas, 400 se o lote for vazio ou maior que telemetria.lote-maximo,
+     * 404 se o robô não existir
+     */
+    @PostMapping("/{roboId}")
+    public ResponseEntity<Map<String, Integer>> registrar(@PathVariable String roboId,
+                                                          @RequestBody List<AmostraTelemetriaDTO> amostras) {
+        if (amostras == null || amostras.isEmpty() || amostras.size() > loteMaximo) {
+            return ResponseEntity.badRequest().build();
+        }
+        return telemetriaService.registrar(roboId, amostras)
+                .map(gravadas -> ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("gravadas", gravadas)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * GET /api/telemetria/{roboId}?desde=...&ate=...&intervalo=1000
+     * Série agregada em janelas de "intervalo" ms entre desde e ate (epoch em ms;
+     * padrão: último minuto). 400 se o período gerar mais que telemetria.limite-janelas janelas
+     */
+    @GetMapping("/{roboId}")
+    public ResponseEntity<List<JanelaTelemetriaDTO>> consultar(@PathVariable String roboId,
+                                                               @RequestParam(required = false) Long desde,
+                                                               @RequestParam(required = false) Long ate,
+                                                               @RequestParam(defaultValue = "1000") long intervalo) {
+        long fim = ate != null ? ate : System.currentTimeMillis();
+        long inicio = desde != null ? desde : fim - 60_000;
+        if (intervalo <= 0 || inicio >= fim || (fim - inicio) / intervalo >= limiteJanelas) {
+            return ResponseEntity.badRequest().build();
+        }
+        return telemetriaService.consultar(roboId, inicio, fim, intervalo)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * GET /api/telemetria/{roboId}/ultima
+     * Amostra mais recente do robô
+     */
+    @GetMapping("/{roboId}/ultima")
+    public ResponseEntity<AmostraTelemetriaDTO> ultima(@PathVariable String roboId) {
+        return telemetriaService.ultima(roboId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
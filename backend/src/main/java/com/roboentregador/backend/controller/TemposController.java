@@ -0,0 +1,44 @@
+package com.roboentregador.backend.controller;
+
+import com.roboentregador.backend.service.TemposService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller REST dos tempos de percurso aprendidos com as execuções
+ * São eles que definem o caminho mais rápido e o tempoEstimado das rotas e caminhos
+ */
+@RestController
+@RequestMapping("/api/tempos")
+@CrossOrigin(origins = "*")
+public class TemposController {
+
+    private final TemposService temposService;
+    
+    @Autowired
+    public TemposController(TemposService temposService) {
+        this.temposService = temposService;
+    }
+    
+    /**
+     * GET /api/tempos
+     * Por trecho (ex: "AB") e por lado de giro: valor da calibração, média aprendida, quantil, desvio e amostras
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(temposService.estatisticas());
+    }
+    
+    /**
+     * DELETE /api/tempos
+     * Descarta o que foi aprendido e volta aos tempos da calibração (ex: depois de trocar motores ou baterias)
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> esquecer() {
+        temposService.esquecer();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.roboentregador.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Amostra de telemetria de um robô (entrada em lote por HTTP e leitura do buffer)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmostraTelemetriaDTO {
+    private Long instante;      // epoch em ms; null na entrada = instante do recebimento
+    private Double x;           // posição em cm (null se o robô não sabe)
+    private Double y;
+    private Double rumo;        // graus, 0 = eixo x, anti-horário
+    private int direcao;        // 0=Frente, 1=Ré, 2=Direita, 3=Esquerda, 4=Parar
+    private int pwm;            // 0-1023
+    private int passo = -1;     // índice do passo do trajeto em execução (-1 se parado)
+    private int cicloUs;        // duração do último ciclo do loop do firmware em µs
+}
@@ -0,0 +1,28 @@
+package com.roboentregador.backend.dto;
+
+import com.roboentregador.backend.model.Entrega;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Situação de uma entrega na fila
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntregaDTO {
+    private long id;
+    private Long rotaId;
+    private String origem;
+    private String destino;
+    private Entrega.Prioridade prioridade;
+    private Entrega.Estado estado;
+    private String roboId;
+    private int posicaoNaFila;           // 1 = próxima do robô (0 quando já saiu da fila)
+    private int tentativas;
+    private String mensagem;
+    private long criadaEm;
+    private long iniciadaEm;
+    private long concluidaEm;
+}
@@ -0,0 +1,22 @@
+package com.roboentregador.backend.dto;
+
+import com.roboentregador.backend.model.Entrega;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pedido de entrega: {"destino":"G","prioridade":"ALTA"}, {"x":40,"y":95} ou {"rotaId":3}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntregaRequestDTO {
+    private Long rotaId;                 // rota do catálogo, ou
+    private String origem;               // origem do trajeto (vazio = entregas.origem)
+    private String destino;              // nó de entrega, ou
+    private Double x;                    // ponto de entrega na planta em cm (vira o nó mais próximo)
+    private Double y;
+    private Entrega.Prioridade prioridade = Entrega.Prioridade.NORMAL;
+    private String roboId;               // robô específico (vazio = o menos ocupado)
+}
@@ -0,0 +1,18 @@
+package com.roboentregador.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento "execucao" do canal /api/eventos: início ou fim de um trajeto em um robô
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoExecucaoDTO {
+    private String roboId;
+    private String comando;
+    private String estado;      // "iniciada", "concluida", "parada" (STOP) ou "perdida" (robô sem resposta)
+    private long instante;      // epoch em ms
+}
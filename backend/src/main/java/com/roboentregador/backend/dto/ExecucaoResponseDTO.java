@@ -11,9 +11,22 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ExecucaoResponseDTO {
+    
+    /**
+     * Desfecho do pedido: quem o reenvia (ex: a fila de entregas) decide por ele se tenta de novo
+     */
+    public enum Situacao {
+        INICIADA,       // o robô aceitou o trajeto
+        ROBO_OCUPADO,   // nenhum robô livre (ou o pedido estava reservado): tentar de novo sem contar falha
+        FALHA_ENVIO,    // o robô foi reservado mas não confirmou o comando: tentar de novo contando falha
+        INEXECUTAVEL    // rota inexistente ou trajeto não compilável: repetir não adianta
+    }
+    
     private boolean sucesso;
     private String mensagem;
     private String comandoEnviado;
     private Long rotaId;
     private String nomeRota;
+    private String roboId;      // robô que recebeu o comando (null se nenhum estava livre)
+    private Situacao situacao;
 }
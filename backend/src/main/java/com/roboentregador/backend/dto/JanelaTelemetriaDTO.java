@@ -0,0 +1,25 @@
+package com.roboentregador.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Telemetria agregada em uma janela de tempo [inicio, inicio + intervalo)
+ * Médias para posição, pwm e ciclo; último valor para estados discretos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JanelaTelemetriaDTO {
+    private long inicio;            // epoch em ms
+    private int amostras;
+    private Double x;               // média das amostras com posição (null se nenhuma tinha)
+    private Double y;
+    private Double rumo;            // último rumo conhecido na janela
+    private int direcao;            // última direção na janela
+    private int passo;              // último passo na janela
+    private double pwmMedio;
+    private double cicloMedioUs;
+    private int cicloMaximoUs;
+}
@@ -0,0 +1,16 @@
+package com.roboentregador.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resposta JSON já serializada, pronta para ser escrita no corpo HTTP
+ * Guarda também a versão gzip e a ETag forte calculada sobre o JSON
+ */
+@Getter
+@AllArgsConstructor
+public class JsonPreRenderizado {
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag; // com aspas, ex: "\"5f2c...\""
+}
@@ -0,0 +1,23 @@
+package com.roboentregador.backend.dto;
+
+import com.roboentregador.backend.model.Posicao;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nó e aresta do mapa mais próximos de um ponto da planta (GET /api/nos/proximo?x=&y=)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoProximoDTO {
+    private Posicao ponto;              // ponto consultado, em cm
+    private String no;                  // nó mais próximo em linha reta
+    private Posicao posicaoNo;
+    private double distanciaNo;         // do ponto até o nó, em cm
+    private String aresta;              // aresta mais próxima, com o id cadastrado (ex: "BD"), ou null
+    private Posicao projecao;           // ponto da aresta mais próximo do consultado
+    private double fracao;              // posição da projeção ao longo da aresta: 0 na origem, 1 no destino
+    private double distanciaAresta;     // do ponto até a projeção, em cm
+}
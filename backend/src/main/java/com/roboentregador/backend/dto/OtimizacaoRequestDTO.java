@@ -0,0 +1,21 @@
+package com.roboentregador.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Pedido de otimização de uma rodada de entregas
+ * Ex: {"origem":"A","paradas":["G","C","E"],"retornarAOrigem":true,"tempoLimiteMs":200}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtimizacaoRequestDTO {
+    private String origem;                   // ponto de partida (vazio = primeira parada)
+    private List<String> paradas;            // nós onde o robô precisa entregar
+    private boolean retornarAOrigem;         // fecha o ciclo voltando à origem
+    private Long tempoLimiteMs;              // orçamento das heurísticas (vazio = padrão)
+}
@@ -0,0 +1,29 @@
+package com.roboentregador.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado da otimização: ordem de visita, trajeto completo e métricas da solução
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtimizacaoResponseDTO {
+    private List<String> ordem;              // origem, paradas na ordem escolhida (e a origem de novo, se fechar o ciclo)
+    private List<String> nosPercorridos;     // caminhos mínimos entre paradas concatenados
+    private List<String> arestasPercorridas;
+    private double distanciaTotal;           // em centímetros
+    private String unidade = "cm";
+    private int tempoEstimado;
+    private String metodo;                   // "held-karp" (exato) ou "2-opt/or-opt" (heurístico)
+    private boolean otima;                   // true quando a ordem é comprovadamente a melhor
+    private double distanciaInicial;         // solução do vizinho mais próximo, antes da busca local
+    private double limiteInferior;           // árvore geradora mínima das paradas: nenhuma ordem é menor
+    private double gap;                      // % acima do limite inferior (0 na solução exata)
+    private long iteracoes;                  // estados do Held-Karp ou rodadas de busca local
+    private double tempoCalculoMs;
+}
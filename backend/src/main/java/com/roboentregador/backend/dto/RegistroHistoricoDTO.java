@@ -0,0 +1,22 @@
+package com.roboentregador.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Registro do histórico de execuções (GET /api/historico)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistroHistoricoDTO {
+    private long instante;          // epoch em ms
+    private String tipo;            // "comando" (envio à ESP8266), "execucao" (rota pedida) ou "trajeto" (evento do robô)
+    private String roboId;          // null se nenhum robô estava livre
+    private String comando;         // ex: "ROTA_1", "PROGRAMA_8", "STOP"
+    private String resultado;       // comando: sucesso, falha, timeout, erro; execucao: sucesso, falha, sem_robo,
+                                    // nao_compilavel; trajeto: iniciada, concluida, parada, perdida
+    private Long rotaId;            // só em "execucao"
+    private Double latenciaMs;      // só em "comando"
+}
@@ -0,0 +1,22 @@
+package com.roboentregador.backend.dto;
+
+import com.roboentregador.backend.model.SaudeRobo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para registro e consulta de robôs da frota
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoboDTO {
+    private String id;
+    private String host;
+    private int porta = 80;
+    private Integer portaCanal;     // canal binário; null = esp8266.canal.porta, 0 = só HTTP
+    private String estado;          // "parado", "executando" ou "desconectado"
+    private String comandoAtual;
+    private SaudeRobo saude;
+}
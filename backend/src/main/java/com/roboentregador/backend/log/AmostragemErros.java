@@ -0,0 +1,51 @@
+package com.roboentregador.backend.log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Amostragem de erros repetidos por chave (ex: id do robô)
+ * Em cada janela só os primeiros "rajada" erros de uma chave são logados; os seguintes apenas contados,
+ * e o próximo erro logado informa quantos foram suprimidos. Um robô desligado que falha a cada
+ * comando não inunda o log nem disputa a saída com os outros robôs
+ */
+public final class AmostragemErros {
+
+    private final long janelaNanos;
+    private final int rajada;
+    private final Map<String, Janela> janelas = new ConcurrentHashMap<>();
+    
+    public AmostragemErros(long janelaMs, int rajada) {
+        this.janelaNanos = janelaMs * 1_000_000;
+        this.rajada = rajada;
+    }
+    
+    /**
+     * Decide se um erro da chave deve ser logado
+     * @return -1 para suprimir; caso contrário, quantos erros da chave foram suprimidos desde o último logado
+     */
+    public long permitir(String chave) {
+        Janela janela = janelas.computeIfAbsent(chave, k -> new Janela());
+        synchronized (janela) {
+            long agora = System.nanoTime();
+            if (agora - janela.inicio >= janelaNanos) {
+                janela.inicio = agora;
+                janela.logados = 0;
+            }
+            if (janela.logados < rajada) {
+                janela.logados++;
+                long suprimidos = janela.suprimidos;
+                janela.suprimidos = 0;
+                return suprimidos;
+            }
+            janela.suprimidos++;
+            return -1;
+        }
+    }
+    
+    private static final class Janela {
+        private long inicio = System.nanoTime();
+        private int logados;
+        private long suprimidos;
+    }
+}
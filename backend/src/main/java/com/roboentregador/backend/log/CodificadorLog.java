@@ -0,0 +1,116 @@
+package com.roboentregador.backend.log;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Encoder do logback-spring.xml que escolhe o formato pela propriedade log.formato
+ * - "texto": linha legível com o padrão configurado (campos do MDC via %mdc)
+ * - "json": um objeto por linha com instante, nivel, thread, logger, mensagem já formatada,
+ *   os campos do MDC (robo, rota, requisicao) no primeiro nível e a pilha em "erro"
+ * A formatação roda na thread do AsyncAppender, fora da requisição
+ */
+public class CodificadorLog extends EncoderBase<ILoggingEvent> {
+
+    private String formato = "texto";
+    private String padrao;
+    private PatternLayoutEncoder texto;
+    
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+    
+    public void setPadrao(String padrao) {
+        this.padrao = padrao;
+    }
+    
+    @Override
+    public void start() {
+        if (!"json".equalsIgnoreCase(formato)) {
+            texto = new PatternLayoutEncoder();
+            texto.setPattern(padrao);
+            texto.setCharset(StandardCharsets.UTF_8);
+            texto.setContext(getContext());
+            texto.start();
+        }
+        super.start();
+    }
+    
+    @Override
+    public void stop() {
+        if (texto != null) {
+            texto.stop();
+        }
+        super.stop();
+    }
+    
+    @Override
+    public byte[] headerBytes() {
+        return texto != null ? texto.headerBytes() : null;
+    }
+    
+    @Override
+    public byte[] encode(ILoggingEvent evento) {
+        return texto != null ? texto.encode(evento) : json(evento);
+    }
+    
+    @Override
+    public byte[] footerBytes() {
+        return texto != null ? texto.footerBytes() : null;
+    }
+    
+    private static byte[] json(ILoggingEvent evento) {
+        StringBuilder saida = new StringBuilder(256);
+        saida.append("{\"instante\":\"").append(Instant.ofEpochMilli(evento.getTimeStamp())).append('"');
+        campo(saida, "nivel", evento.getLevel().toString());
+        campo(saida, "thread", evento.getThreadName());
+        campo(saida, "logger", evento.getLoggerName());
+        campo(saida, "mensagem", evento.getFormattedMessage());
+        for (Map.Entry<String, String> entrada : evento.getMDCPropertyMap().entrySet()) {
+            campo(saida, entrada.getKey(), entrada.getValue());
+        }
+        if (evento.getThrowableProxy() != null) {
+            campo(saida, "erro", ThrowableProxyUtil.asString(evento.getThrowableProxy()));
+        }
+        return saida.append("}\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static void campo(StringBuilder saida, String nome, String valor) {
+        saida.append(",\"");
+        escapar(saida, nome);
+        saida.append("\":");
+        if (valor == null) {
+            saida.append("null");
+            return;
+        }
+        saida.append('"');
+        escapar(saida, valor);
+        saida.append('"');
+    }
+    
+    private static void escapar(StringBuilder saida, String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> saida.append("\\\"");
+                case '\\' -> saida.append("\\\\");
+                case '\n' -> saida.append("\\n");
+                case '\r' -> saida.append("\\r");
+                case '\t' -> saida.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        saida.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        saida.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
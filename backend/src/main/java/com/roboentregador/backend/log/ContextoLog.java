@@ -0,0 +1,66 @@
+package com.roboentregador.backend.log;
+
+import org.slf4j.MDC;
+
+/**
+ * Campos do MDC usados nos logs (aparecem no padrão de texto e como "mdc" no formato JSON)
+ * - robo: robô da ESP8266 envolvida
+ * - rota: rota do catálogo em execução
+ * - requisicao: id da requisição HTTP (X-Request-Id), ver FiltroRequisicao
+ * O MDC é por thread: quem loga em callbacks do HttpClient captura os campos antes e os reabre com abrir()
+ */
+public final class ContextoLog {
+
+    public static final String ROBO = "robo";
+    public static final String ROTA = "rota";
+    public static final String REQUISICAO = "requisicao";
+    
+    private ContextoLog() {
+    }
+    
+    /**
+     * Coloca os campos no MDC da thread atual (null mantém o valor que já estava)
+     * e devolve os valores anteriores ao fechar o escopo
+     */
+    public static Escopo abrir(String robo, String rota, String requisicao) {
+        return new Escopo(robo, rota, requisicao);
+    }
+    
+    /**
+     * Campos colocados por abrir(); use com try-with-resources
+     */
+    public static final class Escopo implements AutoCloseable {
+        private final String roboAnterior;
+        private final String rotaAnterior;
+        private final String requisicaoAnterior;
+        
+        private Escopo(String robo, String rota, String requisicao) {
+            roboAnterior = trocar(ROBO, robo);
+            rotaAnterior = trocar(ROTA, rota);
+            requisicaoAnterior = trocar(REQUISICAO, requisicao);
+        }
+        
+        @Override
+        public void close() {
+            restaurar(ROBO, roboAnterior);
+            restaurar(ROTA, rotaAnterior);
+            restaurar(REQUISICAO, requisicaoAnterior);
+        }
+        
+        private static String trocar(String campo, String valor) {
+            String anterior = MDC.get(campo);
+            if (valor != null) {
+                MDC.put(campo, valor);
+            }
+            return anterior;
+        }
+        
+        private static void restaurar(String campo, String anterior) {
+            if (anterior != null) {
+                MDC.put(campo, anterior);
+            } else {
+                MDC.remove(campo);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.roboentregador.backend.log;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Id da requisição no MDC (campo "requisicao") durante o processamento de cada requisição HTTP
+ * Usa o X-Request-Id recebido (ex: de um proxy) ou gera um novo, e o devolve no cabeçalho da resposta
+ * para relacionar o log com o cliente. O id gerado é um prefixo sorteado na inicialização mais um
+ * contador em base 36: sem UUID nem SecureRandom por requisição
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FiltroRequisicao extends OncePerRequestFilter {
+
+    public static final String CABECALHO = "X-Request-Id";
+    
+    // Só ids curtos e sem espaços ou quebras de linha entram no log
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+    
+    private final String prefixo = Long.toString(ThreadLocalRandom.current().nextLong(36L * 36 * 36 * 36), 36);
+    private final AtomicLong sequencia = new AtomicLong();
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String recebido = request.getHeader(CABECALHO);
+        String id = recebido != null && ID_VALIDO.matcher(recebido).matches() ? recebido
+                : prefixo + "-" + Long.toString(sequencia.incrementAndGet(), 36);
+        response.setHeader(CABECALHO, id);
+        MDC.put(ContextoLog.REQUISICAO, id);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(ContextoLog.REQUISICAO);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.roboentregador.backend.model;
+
+import com.roboentregador.backend.dto.AmostraTelemetriaDTO;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular de amostras de telemetria de um robô, sem locks
+ * Vários produtores (threads HTTP e o receptor UDP) reservam posições com um único
+ * getAndIncrement; ao dar a volta, as amostras mais antigas são sobrescritas
+ * Cada posição tem uma versão no estilo seqlock (ímpar = em escrita, par = 2·(sequência+1)),
+ * então o leitor descarta amostras que foram sobrescritas durante a leitura em vez de bloquear
+ * Os campos ficam em arrays primitivos: memória fixa de ~36 bytes por posição
+ */
+public final class AnelTelemetria {
+
+    private final int mascara;
+    private final AtomicLong cursor = new AtomicLong();  // próxima sequência a reservar
+    private final AtomicLongArray versoes;
+    
+    private final long[] instantes;
+    private final float[] xs;
+    private final float[] ys;
+    private final float[] rumos;
+    private final int[] motores;         // direção (8 bits) | pwm (16 bits) << 8
+    private final int[] passos;
+    private final int[] ciclos;
+    
+    /**
+     * @param capacidade arredondada para a próxima potência de 2
+     */
+    public AnelTelemetria(int capacidade) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.mascara = tamanho - 1;
+        this.versoes = new AtomicLongArray(tamanho);
+        this.instantes = new long[tamanho];
+        this.xs = new float[tamanho];
+        this.ys = new float[tamanho];
+        this.rumos = new float[tamanho];
+        this.motores = new int[tamanho];
+        this.passos = new int[tamanho];
+        this.ciclos = new int[tamanho];
+    }
+    
+    /**
+     * Grava uma amostra; posição e rumo desconhecidos são NaN
+     */
+    public void gravar(long instante, float x, float y, float rumo, int direcao, int pwm, int passo, int cicloUs) {
+        long sequencia = cursor.getAndIncrement();
+        int i = (int) (sequencia & mascara);
+        
+        versoes.set(i, 2 * sequencia + 1);
+        VarHandle.releaseFence(); // os campos não podem ser escritos antes da marca de escrita
+        instantes[i] = instante;
+        xs[i] = x;
+        ys[i] = y;
+        rumos[i] = rumo;
+        motores[i] = (direcao & 0xFF) | ((pwm & 0xFFFF) << 8);
+        passos[i] = passo;
+        ciclos[i] = cicloUs;
+        versoes.setRelease(i, 2 * sequencia + 2);
+    }
+    
+    /**
+     * Percorre as amostras ainda presentes com instante em [desde, ate), em ordem de chegada
+     * A mesma instância de AmostraTelemetriaDTO é reutilizada em cada chamada do consumidor
+     */
+    public void ler(long desde, long ate, Consumer<AmostraTelemetriaDTO> consumidor) {
+        AmostraTelemetriaDTO amostra = new AmostraTelemetriaDTO();
+        long fim = cursor.get();
+        for (long sequencia = Math.max(0, fim - capacidade()); sequencia < fim; sequencia++) {
+            if (copiar(sequencia, amostra) && amostra.getInstante() >= desde && amostra.getInstante() < ate) {
+                consumidor.accept(amostra);
+            }
+        }
+    }
+    
+    /**
+     * Última amostra gravada por completo, ou null se não houver nenhuma
+     */
+    public AmostraTelemetriaDTO ultima() {
+        AmostraTelemetriaDTO amostra = new AmostraTelemetriaDTO();
+        long fim = cursor.get();
+        for (long sequencia = fim - 1; sequencia >= Math.max(0, fim - capacidade()); sequencia--) {
+            if (copiar(sequencia, amostra)) {
+                return amostra;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Total de amostras recebidas desde a criação (as que excedem a capacidade foram sobrescritas)
+     */
+    public long getRecebidas() {
+        return cursor.get();
+    }
+    
+    public int capacidade() {
+        return mascara + 1;
+    }
+    
+    /**
+     * Copia a amostra de uma sequência
+     * @return false se ela ainda está em escrita ou foi sobrescrita (antes ou durante a cópia)
+     */
+    private boolean copiar(long sequencia, AmostraTelemetriaDTO destino) {
+        int i = (int) (sequencia & mascara);
+        long versao = versoes.getAcquire(i);
+        if (versao != 2 * sequencia + 2) {
+            return false;
+        }
+        
+        long instante = instantes[i];
+        float x = xs[i];
+        float y = ys[i];
+        float rumo = rumos[i];
+        int motor = motores[i];
+        int passo = passos[i];
+        int ciclo = ciclos[i];
+        
+        VarHandle.acquireFence(); // as leituras acima terminam antes de conferir a versão de novo
+        if (versoes.get(i) != versao) {
+            return false;
+        }
+        
+        destino.setInstante(instante);
+        destino.setX(Float.isNaN(x) ? null : (double) x);
+        destino.setY(Float.isNaN(y) ? null : (double) y);
+        destino.setRumo(Float.isNaN(rumo) ? null : (double) rumo);
+        destino.setDirecao(motor & 0xFF);
+        destino.setPwm(motor >>> 8);
+        destino.setPasso(passo);
+        destino.setCicloUs(ciclo);
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package com.roboentregador.backend.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de uma busca de caminho no Grafo
+ * Guarda apenas os índices dos nós visitados e a distância acumulada
+ */
+public final class Caminho {
+
+    private final Grafo grafo;
+    private final int[] nos;
+    private final double distancia; // em centímetros
+    
+    public Caminho(Grafo grafo, int[] nos, double distancia) {
+        this.grafo = grafo;
+        this.nos = nos;
+        this.distancia = distancia;
+    }
+    
+    public Grafo getGrafo() {
+        return grafo;
+    }
+    
+    public int tamanho() {
+        return nos.length;
+    }
+    
+    public int no(int posicao) {
+        return nos[posicao];
+    }
+    
+    public double getDistancia() {
+        return distancia;
+    }
+    
+    /**
+     * Cópia dos índices dos nós percorridos
+     */
+    public int[] nos() {
+        return nos.clone();
+    }
+    
+    /**
+     * Nomes dos nós percorridos (ex: ["A", "B", "E", "G"])
+     */
+    public List<String> nomesDosNos() {
+        List<String> nomes = new ArrayList<>(nos.length);
+        for (int no : nos) {
+            nomes.add(grafo.nomeDe(no));
+        }
+        return nomes;
+    }
+    
+    /**
+     * IDs das arestas no sentido percorrido (ex: ["AB", "BE", "EG"])
+     */
+    public List<String> idsDasArestas() {
+        List<String> ids = new ArrayList<>(Math.max(0, nos.length - 1));
+        for (int i = 0; i + 1 < nos.length; i++) {
+            ids.add(grafo.idPercorrido(nos[i], nos[i + 1]));
+        }
+        return ids;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Caminho{nos=%s, distancia=%.1fcm}", nomesDosNos(), distancia);
+    }
+}
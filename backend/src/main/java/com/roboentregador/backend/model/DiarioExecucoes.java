@@ -0,0 +1,653 @@
+package com.roboentregador.backend.model;
+
+import com.roboentregador.backend.dto.RegistroHistoricoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diário de execuções em disco: somente anexação, dividido em segmentos de tamanho limitado
+ * O histórico não fica no heap: só um índice esparso por segmento, com uma entrada a cada ~4 KiB
+ * de registros (posição no arquivo, menor e maior instante e uma máscara de 64 bits dos robôs do bloco,
+ * um filtro de Bloom de um hash só), o bastante para uma consulta por período ou por robô ler apenas
+ * os blocos que podem conter registros dela
+ *
+ * Segmento historico-NNNNNNNNNNNN.log (little-endian): magic "RHST" | formato i32 | registros
+ * Registro: tamanho u16 | tipo u8 | resultado u8 | instante i64 | valor i32 | robô (u8 + UTF-8) |
+ *           comando (u8 + UTF-8) | CRC32C u32 (do tipo até o comando)
+ * valor = latência em µs (comando), id da rota ou -1 (execucao); tipo e resultado são índices de TIPOS e RESULTADOS
+ * Um segmento fechado ganha o índice em historico-NNNNNNNNNNNN.idx; o segmento ativo é varrido na abertura
+ * e truncado no primeiro registro incompleto ou com CRC inválido (queda no meio de uma gravação)
+ *
+ * Uma única thread grava (anexar, sincronizar); consultas podem rodar em paralelo com ela
+ */
+public final class DiarioExecucoes implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioExecucoes.class);
+    
+    public static final List<String> TIPOS = List.of("comando", "execucao", "trajeto");
+    public static final List<String> RESULTADOS = List.of("sucesso", "falha", "timeout", "erro", "sem_robo",
+            "nao_compilavel", "iniciada", "concluida", "parada", "perdida", "rejeitado"); // só acrescentar no fim
+    
+    private static final int MAGIC_SEGMENTO = 0x54534852;   // "RHST"
+    private static final int MAGIC_INDICE = 0x58444952;     // "RIDX"
+    private static final int FORMATO = 1;
+    private static final int CABECALHO_SEGMENTO = 8;
+    private static final int CABECALHO_INDICE = 24;
+    private static final int TAMANHO_BLOCO = 4096;
+    private static final int TAMANHO_FIXO = 16;             // tamanho, tipo, resultado, instante, valor
+    private static final int MAXIMO_TEXTO = 255;
+    private static final int MINIMO_REGISTRO = TAMANHO_FIXO + 2 + 4;
+    private static final int MAXIMO_REGISTRO = TAMANHO_FIXO + 2 * (1 + MAXIMO_TEXTO) + 4;
+    private static final int LEITURA_MAXIMA = 64 * 1024;
+    private static final Pattern NOME_SEGMENTO = Pattern.compile("historico-(\\d{12})\\.log");
+    
+    private final Path pasta;
+    private final long tamanhoSegmento;
+    private final List<Segmento> segmentos = new CopyOnWriteArrayList<>();
+    private final ByteBuffer escrita = ByteBuffer.allocateDirect(256 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+    private volatile Segmento ativo;
+    private FileChannel canal;
+    
+    private DiarioExecucoes(Path pasta, long tamanhoSegmento) {
+        this.pasta = pasta;
+        this.tamanhoSegmento = tamanhoSegmento;
+    }
+    
+    /**
+     * Abre (ou cria) o diário na pasta, reconstruindo os índices que faltarem
+     * @param tamanhoSegmento bytes a partir dos quais o segmento ativo é fechado e outro é aberto
+     */
+    public static DiarioExecucoes abrir(Path pasta, long tamanhoSegmento) throws IOException {
+        Files.createDirectories(pasta);
+        DiarioExecucoes diario = new DiarioExecucoes(pasta, tamanhoSegmento);
+        diario.recuperar();
+        return diario;
+    }
+    
+    private void recuperar() throws IOException {
+        List<Path> arquivos;
+        try (Stream<Path> lista = Files.list(pasta)) {
+            arquivos = lista.filter(arquivo -> NOME_SEGMENTO.matcher(arquivo.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        
+        long ultimoNumero = 0;
+        for (int i = 0; i < arquivos.size(); i++) {
+            Path arquivo = arquivos.get(i);
+            Matcher nome = NOME_SEGMENTO.matcher(arquivo.getFileName().toString());
+            nome.matches();
+            Segmento segmento = new Segmento(Long.parseLong(nome.group(1)), arquivo);
+            ultimoNumero = segmento.numero;
+            boolean ultimo = i == arquivos.size() - 1;
+            if (!ultimo && segmento.carregarIndice()) {
+                segmentos.add(segmento);
+                continue;
+            }
+            
+            try (FileChannel leitura = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (!cabecalhoValido(leitura)) {
+                    log.warn("Histórico: {} não é um segmento válido, ignorado", arquivo.getFileName());
+                    continue;
+                }
+                long valido = varrer(segmento, leitura);
+                if (valido < leitura.size()) {
+                    log.warn("Histórico: {} bytes incompletos descartados no fim de {}", leitura.size() - valido,
+                            arquivo.getFileName());
+                    leitura.truncate(valido);
+                }
+                segmento.tamanho = valido;
+            }
+            if (!ultimo) {
+                segmento.gravarIndice();
+            }
+            segmentos.add(segmento);
+        }
+        
+        Segmento ultimo = segmentos.isEmpty() ? null : segmentos.get(segmentos.size() - 1);
+        if (ultimo != null && ultimo.numero == ultimoNumero && ultimo.tamanho < tamanhoSegmento) {
+            canal = FileChannel.open(ultimo.arquivo, StandardOpenOption.WRITE);
+            canal.position(ultimo.tamanho);
+            ativo = ultimo;
+        } else {
+            if (ultimo != null && ultimo.numero == ultimoNumero) {
+                ultimo.gravarIndice();
+            }
+            criarSegmento(ultimoNumero + 1);
+        }
+    }
+    
+    private static boolean cabecalhoValido(FileChannel leitura) throws IOException {
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_SEGMENTO).order(ByteOrder.LITTLE_ENDIAN);
+        while (cabecalho.hasRemaining() && leitura.read(cabecalho, cabecalho.position()) > 0) {
+            // lê até completar o cabeçalho ou chegar ao fim do arquivo
+        }
+        return !cabecalho.hasRemaining() && cabecalho.getInt(0) == MAGIC_SEGMENTO && cabecalho.getInt(4) == FORMATO;
+    }
+    
+    /**
+     * Percorre os registros de um segmento montando o índice
+     * @return posição logo após o último registro válido
+     */
+    private static long varrer(Segmento segmento, FileChannel leitura) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LEITURA_MAXIMA).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C verificador = new CRC32C();
+        long posicao = CABECALHO_SEGMENTO;
+        long tamanho = leitura.size();
+        while (posicao < tamanho) {
+            buffer.clear();
+            ler(leitura, buffer, posicao);
+            buffer.flip();
+            while (buffer.remaining() >= 2) {
+                int inicio = buffer.position();
+                int comprimento = Short.toUnsignedInt(buffer.getShort(inicio));
+                if (comprimento > buffer.remaining() && comprimento <= MAXIMO_REGISTRO && buffer.limit() == buffer.capacity()) {
+                    break;  // registro cortado pelo fim do buffer: continua na próxima leitura
+                }
+                if (!valido(buffer, inicio, comprimento, verificador)) {
+                    return posicao + inicio;
+                }
+                segmento.registrar(posicao + inicio, buffer.getLong(inicio + 4), mascaraDe(lerTexto(buffer, inicio + TAMANHO_FIXO)));
+                buffer.position(inicio + comprimento);
+            }
+            if (buffer.position() == 0) {
+                return posicao;   // sobrou só um registro incompleto
+            }
+            posicao += buffer.position();
+        }
+        return posicao;
+    }
+    
+    private void criarSegmento(long numero) throws IOException {
+        Path arquivo = pasta.resolve(String.format("historico-%012d.log", numero));
+        FileChannel novo = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_SEGMENTO).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC_SEGMENTO).putInt(FORMATO).flip();
+        while (cabecalho.hasRemaining()) {
+            novo.write(cabecalho);
+        }
+        Segmento segmento = new Segmento(numero, arquivo);
+        segmento.tamanho = CABECALHO_SEGMENTO;
+        canal = novo;
+        segmentos.add(segmento);
+        ativo = segmento;
+    }
+    
+    /**
+     * Anexa um lote de registros ao segmento ativo (sem fsync; veja sincronizar())
+     * Fecha o segmento e abre o próximo quando ele passa do tamanho configurado
+     */
+    public synchronized void anexar(List<RegistroHistoricoDTO> registros) throws IOException {
+        escrita.clear();
+        for (RegistroHistoricoDTO registro : registros) {
+            if (escrita.remaining() < MAXIMO_REGISTRO) {
+                descarregar();
+            }
+            // O índice aponta para o registro antes dele chegar ao disco, mas as consultas só leem até ativo.tamanho
+            ativo.registrar(ativo.tamanho + escrita.position(), registro.getInstante(), mascaraDe(registro.getRoboId()));
+            codificar(registro, escrita, crc);
+        }
+        descarregar();
+        if (ativo.tamanho >= tamanhoSegmento) {
+            rolar();
+        }
+    }
+    
+    private void descarregar() throws IOException {
+        escrita.flip();
+        int bytes = escrita.remaining();
+        while (escrita.hasRemaining()) {
+            canal.write(escrita);
+        }
+        ativo.tamanho += bytes;
+        escrita.clear();
+    }
+    
+    private void rolar() throws IOException {
+        canal.force(false);
+        canal.close();
+        ativo.gravarIndice();
+        criarSegmento(ativo.numero + 1);
+    }
+    
+    /**
+     * Garante no disco tudo o que já foi anexado (um fsync por lote, não por registro)
+     */
+    public synchronized void sincronizar() throws IOException {
+        canal.force(false);
+    }
+    
+    /**
+     * Apaga os segmentos fechados mais antigos: os que só têm registros anteriores a limiteInstante
+     * e, enquanto o total passar de tamanhoMaximo bytes, os mais antigos mesmo dentro da retenção
+     * @return quantidade de segmentos apagados
+     */
+    public synchronized int apagarAntigos(long limiteInstante, long tamanhoMaximo) throws IOException {
+        long total = getTamanhoTotal();
+        int apagados = 0;
+        for (Segmento segmento : segmentos) {
+            if (segmento == ativo || (segmento.maiorInstante() >= limiteInstante && total <= tamanhoMaximo)) {
+                break;
+            }
+            // Consultas com o arquivo aberto continuam lendo; as novas não o encontram mais
+            segmentos.remove(segmento);
+            total -= segmento.tamanho;
+            Files.deleteIfExists(segmento.arquivo);
+            Files.deleteIfExists(segmento.indice());
+            apagados++;
+        }
+        return apagados;
+    }
+    
+    /**
+     * Percorre os registros de um período em ordem de gravação, lendo do disco sob demanda
+     * @param roboId null para todos os robôs
+     * @param tipo null para todos os tipos
+     */
+    public Cursor consultar(long desde, long ate, String roboId, String tipo) {
+        return new Cursor(new ArrayList<>(segmentos), desde, ate, roboId, tipo);
+    }
+    
+    public long getTamanhoTotal() {
+        long total = 0;
+        for (Segmento segmento : segmentos) {
+            total += segmento.tamanho;
+        }
+        return total;
+    }
+    
+    public int getNumeroDeSegmentos() {
+        return segmentos.size();
+    }
+    
+    /**
+     * Instante do registro mais antigo guardado, ou null se o diário está vazio
+     */
+    public Long getPrimeiroInstante() {
+        for (Segmento segmento : segmentos) {
+            long menor = segmento.menorInstante();
+            if (menor != Long.MAX_VALUE) {
+                return menor;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (canal.isOpen()) {
+            canal.force(false);
+            canal.close();
+        }
+    }
+    
+    private static void codificar(RegistroHistoricoDTO registro, ByteBuffer destino, CRC32C crc) {
+        int inicio = destino.position();
+        destino.putShort((short) 0);
+        destino.put((byte) codigo(TIPOS, registro.getTipo()));
+        destino.put((byte) codigo(RESULTADOS, registro.getResultado()));
+        destino.putLong(registro.getInstante());
+        destino.putInt(valorDe(registro));
+        escreverTexto(destino, registro.getRoboId());
+        escreverTexto(destino, registro.getComando());
+        crc.reset();
+        crc.update(destino.duplicate().position(inicio + 2).limit(destino.position()));
+        destino.putInt((int) crc.getValue());
+        destino.putShort(inicio, (short) (destino.position() - inicio));
+    }
+    
+    private static RegistroHistoricoDTO decodificar(ByteBuffer origem, int inicio) {
+        String tipo = nome(TIPOS, origem.get(inicio + 2));
+        String resultado = nome(RESULTADOS, origem.get(inicio + 3));
+        long instante = origem.getLong(inicio + 4);
+        int valor = origem.getInt(inicio + 12);
+        String roboId = lerTexto(origem, inicio + TAMANHO_FIXO);
+        int tamanhoRobo = Byte.toUnsignedInt(origem.get(inicio + TAMANHO_FIXO));
+        String comando = lerTexto(origem, inicio + TAMANHO_FIXO + 1 + tamanhoRobo);
+        
+        Long rotaId = "execucao".equals(tipo) && valor >= 0 ? (long) valor : null;
+        Double latenciaMs = "comando".equals(tipo) ? valor / 1000.0 : null;
+        return new RegistroHistoricoDTO(instante, tipo, roboId, comando, resultado, rotaId, latenciaMs);
+    }
+    
+    /**
+     * Confere o tamanho declarado, os tamanhos dos textos e o CRC32C do registro em [inicio, inicio + comprimento)
+     */
+    private static boolean valido(ByteBuffer buffer, int inicio, int comprimento, CRC32C verificador) {
+        if (comprimento < MINIMO_REGISTRO || comprimento > MAXIMO_REGISTRO || inicio + comprimento > buffer.limit()) {
+            return false;
+        }
+        int tamanhoRobo = Byte.toUnsignedInt(buffer.get(inicio + TAMANHO_FIXO));
+        if (TAMANHO_FIXO + 1 + tamanhoRobo + 1 + 4 > comprimento) {
+            return false;
+        }
+        int tamanhoComando = Byte.toUnsignedInt(buffer.get(inicio + TAMANHO_FIXO + 1 + tamanhoRobo));
+        if (TAMANHO_FIXO + 2 + tamanhoRobo + tamanhoComando + 4 != comprimento) {
+            return false;
+        }
+        int fim = inicio + comprimento - 4;
+        verificador.reset();
+        verificador.update(buffer.duplicate().position(inicio + 2).limit(fim));
+        return (int) verificador.getValue() == buffer.getInt(fim);
+    }
+    
+    private static int valorDe(RegistroHistoricoDTO registro) {
+        if ("comando".equals(registro.getTipo()) && registro.getLatenciaMs() != null) {
+            return (int) Math.min(Integer.MAX_VALUE, Math.round(registro.getLatenciaMs() * 1000));
+        }
+        if ("execucao".equals(registro.getTipo()) && registro.getRotaId() != null) {
+            return (int) Math.min(Integer.MAX_VALUE, registro.getRotaId());
+        }
+        return -1;
+    }
+    
+    private static int codigo(List<String> nomes, String nome) {
+        int codigo = nome != null ? nomes.indexOf(nome) : -1;
+        return codigo >= 0 ? codigo : 0xFF;
+    }
+    
+    private static String nome(List<String> nomes, byte codigo) {
+        int indice = Byte.toUnsignedInt(codigo);
+        return indice < nomes.size() ? nomes.get(indice) : null;
+    }
+    
+    /**
+     * Texto com prefixo de tamanho em um byte; null e "" viram tamanho 0 e voltam como null
+     */
+    private static void escreverTexto(ByteBuffer destino, String texto) {
+        byte[] bytes = texto != null ? texto.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int tamanho = Math.min(bytes.length, MAXIMO_TEXTO);
+        destino.put((byte) tamanho);
+        destino.put(bytes, 0, tamanho);
+    }
+    
+    private static String lerTexto(ByteBuffer origem, int posicao) {
+        int tamanho = Byte.toUnsignedInt(origem.get(posicao));
+        if (tamanho == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        origem.get(posicao + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Bit do robô na máscara dos blocos (0 para registros sem robô)
+     */
+    private static long mascaraDe(String roboId) {
+        return roboId == null ? 0 : 1L << (roboId.hashCode() & 63);
+    }
+    
+    private static void ler(FileChannel leitura, ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            int lidos = leitura.read(buffer, posicao + buffer.position());
+            if (lidos < 0) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Arquivo de um segmento e seu índice esparso em memória (uma entrada por bloco de ~4 KiB)
+     */
+    private static final class Segmento {
+        final long numero;
+        final Path arquivo;
+        volatile long tamanho;                  // bytes completos no arquivo (as consultas não leem além disso)
+        
+        private long[] inicios = new long[16];  // posição do primeiro registro de cada bloco
+        private long[] menores = new long[16];  // menor instante do bloco
+        private long[] maiores = new long[16];  // maior instante do bloco
+        private long[] mascaras = new long[16]; // robôs presentes no bloco (um bit por hash)
+        private int blocos;
+        
+        Segmento(long numero, Path arquivo) {
+            this.numero = numero;
+            this.arquivo = arquivo;
+        }
+        
+        Path indice() {
+            return arquivo.resolveSibling(arquivo.getFileName().toString().replace(".log", ".idx"));
+        }
+        
+        synchronized void registrar(long posicao, long instante, long mascara) {
+            if (blocos == 0 || posicao - inicios[blocos - 1] >= TAMANHO_BLOCO) {
+                if (blocos == inicios.length) {
+                    inicios = Arrays.copyOf(inicios, blocos * 2);
+                    menores = Arrays.copyOf(menores, blocos * 2);
+                    maiores = Arrays.copyOf(maiores, blocos * 2);
+                    mascaras = Arrays.copyOf(mascaras, blocos * 2);
+                }
+                inicios[blocos] = posicao;
+                menores[blocos] = Long.MAX_VALUE;
+                maiores[blocos] = Long.MIN_VALUE;
+                mascaras[blocos] = 0;
+                blocos++;
+            }
+            int b = blocos - 1;
+            menores[b] = Math.min(menores[b], instante);
+            maiores[b] = Math.max(maiores[b], instante);
+            mascaras[b] |= mascara;
+        }
+        
+        /**
+         * Trechos [início, fim) do arquivo que podem ter registros do período e do robô
+         * Blocos vizinhos são juntados em leituras de até 64 KiB
+         */
+        synchronized List<long[]> trechos(long desde, long ate, long mascara) {
+            long limite = tamanho;
+            List<long[]> trechos = new ArrayList<>();
+            for (int b = 0; b < blocos; b++) {
+                if (maiores[b] < desde || menores[b] > ate || (mascara != 0 && (mascaras[b] & mascara) == 0)) {
+                    continue;
+                }
+                long inicio = inicios[b];
+                long fim = Math.min(b + 1 < blocos ? inicios[b + 1] : limite, limite);
+                if (fim <= inicio) {
+                    continue;
+                }
+                long[] ultimo = trechos.isEmpty() ? null : trechos.get(trechos.size() - 1);
+                if (ultimo != null && ultimo[1] == inicio && fim - ultimo[0] <= LEITURA_MAXIMA) {
+                    ultimo[1] = fim;
+                } else {
+                    trechos.add(new long[]{inicio, fim});
+                }
+            }
+            return trechos;
+        }
+        
+        synchronized long menorInstante() {
+            long menor = Long.MAX_VALUE;
+            for (int b = 0; b < blocos; b++) {
+                menor = Math.min(menor, menores[b]);
+            }
+            return menor;
+        }
+        
+        synchronized long maiorInstante() {
+            long maior = Long.MIN_VALUE;
+            for (int b = 0; b < blocos; b++) {
+                maior = Math.max(maior, maiores[b]);
+            }
+            return maior;
+        }
+        
+        /**
+         * Índice (.idx): magic "RIDX" | formato i32 | blocos i32 | reservado i32 | tamanho do segmento i64 |
+         * inícios i64[] | menores i64[] | maiores i64[] | máscaras i64[]
+         */
+        synchronized void gravarIndice() throws IOException {
+            ByteBuffer dados = ByteBuffer.allocate(CABECALHO_INDICE + 32 * blocos).order(ByteOrder.LITTLE_ENDIAN);
+            dados.putInt(MAGIC_INDICE).putInt(FORMATO).putInt(blocos).putInt(0).putLong(tamanho);
+            for (long[] coluna : new long[][]{inicios, menores, maiores, mascaras}) {
+                dados.asLongBuffer().put(coluna, 0, blocos);
+                dados.position(dados.position() + 8 * blocos);
+            }
+            Files.write(indice(), dados.array());
+        }
+        
+        /**
+         * Carrega o índice gravado quando o segmento foi fechado
+         * @return false se ele não existir ou não corresponder ao arquivo (o segmento é varrido de novo)
+         */
+        synchronized boolean carregarIndice() throws IOException {
+            Path indice = indice();
+            if (!Files.exists(indice)) {
+                return false;
+            }
+            ByteBuffer dados = ByteBuffer.wrap(Files.readAllBytes(indice)).order(ByteOrder.LITTLE_ENDIAN);
+            if (dados.limit() < CABECALHO_INDICE || dados.getInt(0) != MAGIC_INDICE || dados.getInt(4) != FORMATO) {
+                return false;
+            }
+            int n = dados.getInt(8);
+            long tamanhoGravado = dados.getLong(16);
+            if (n < 0 || dados.limit() != CABECALHO_INDICE + 32L * n || tamanhoGravado != Files.size(arquivo)) {
+                return false;
+            }
+            long[][] colunas = new long[4][n];
+            dados.position(CABECALHO_INDICE);
+            for (long[] coluna : colunas) {
+                dados.asLongBuffer().get(coluna);
+                dados.position(dados.position() + 8 * n);
+            }
+            inicios = colunas[0];
+            menores = colunas[1];
+            maiores = colunas[2];
+            mascaras = colunas[3];
+            blocos = n;
+            tamanho = tamanhoGravado;
+            return true;
+        }
+    }
+    
+    /**
+     * Leitura sob demanda de uma consulta: lê um trecho candidato por vez, então a memória usada
+     * não depende do tamanho do histórico; feche-o ao terminar (libera o arquivo aberto)
+     */
+    public static final class Cursor implements Iterator<RegistroHistoricoDTO>, AutoCloseable {
+        private final Iterator<Segmento> restantes;
+        private final long desde;
+        private final long ate;
+        private final String roboId;
+        private final String tipo;
+        private final long mascara;
+        private final ByteBuffer buffer = ByteBuffer.allocate(LEITURA_MAXIMA).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C verificador = new CRC32C();
+        private final ArrayDeque<RegistroHistoricoDTO> pendentes = new ArrayDeque<>();
+        private Iterator<long[]> trechos = Collections.emptyIterator();
+        private FileChannel leitura;
+        
+        private Cursor(List<Segmento> segmentos, long desde, long ate, String roboId, String tipo) {
+            this.restantes = segmentos.iterator();
+            this.desde = desde;
+            this.ate = ate;
+            this.roboId = roboId;
+            this.tipo = tipo;
+            this.mascara = mascaraDe(roboId);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (pendentes.isEmpty()) {
+                if (!avancar()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public RegistroHistoricoDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pendentes.poll();
+        }
+        
+        /**
+         * Lê o próximo trecho candidato
+         * @return false quando não há mais trechos
+         */
+        private boolean avancar() {
+            try {
+                while (!trechos.hasNext()) {
+                    close();
+                    if (!restantes.hasNext()) {
+                        return false;
+                    }
+                    Segmento segmento = restantes.next();
+                    List<long[]> candidatos = segmento.trechos(desde, ate, mascara);
+                    if (candidatos.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        leitura = FileChannel.open(segmento.arquivo, StandardOpenOption.READ);
+                    } catch (NoSuchFileException e) {
+                        continue;   // apagado pela retenção depois do início da consulta
+                    }
+                    trechos = candidatos.iterator();
+                }
+                long[] trecho = trechos.next();
+                buffer.clear().limit((int) (trecho[1] - trecho[0]));
+                ler(leitura, buffer, trecho[0]);
+                buffer.flip();
+                decodificarTrecho();
+                return true;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        private void decodificarTrecho() {
+            int posicao = 0;
+            while (buffer.limit() - posicao >= 2) {
+                int comprimento = Short.toUnsignedInt(buffer.getShort(posicao));
+                if (!valido(buffer, posicao, comprimento, verificador)) {
+                    return;
+                }
+                long instante = buffer.getLong(posicao + 4);
+                if (instante >= desde && instante <= ate) {
+                    RegistroHistoricoDTO registro = decodificar(buffer, posicao);
+                    if ((roboId == null || roboId.equals(registro.getRoboId()))
+                            && (tipo == null || tipo.equals(registro.getTipo()))) {
+                        pendentes.add(registro);
+                    }
+                }
+                posicao += comprimento;
+            }
+        }
+        
+        @Override
+        public void close() {
+            if (leitura != null) {
+                try {
+                    leitura.close();
+                } catch (IOException ignorada) {
+                    // só leitura: nada a perder
+                }
+                leitura = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.roboentregador.backend.model;
+
+/**
+ * Pedido de entrega na fila de um robô
+ * Pode ser uma rota do catálogo (rotaId) ou um destino no grafo (origem → destino);
+ * entregas por destino com a mesma origem podem ser agrupadas numa única viagem
+ * O estado é alterado apenas pelo EntregaService, sob o seu lock
+ */
+public class Entrega {
+
+    public enum Prioridade { BAIXA, NORMAL, ALTA, URGENTE }
+    
+    public enum Estado { PENDENTE, ENVIANDO, EXECUTANDO, CONCLUIDA, FALHOU, CANCELADA }
+    
+    private final long id;
+    private final Long rotaId;
+    private final String origem;
+    private final String destino;
+    private final Prioridade prioridade;
+    private final String roboSolicitado;  // robô pedido pelo cliente (null = qualquer um)
+    private final long criadaEm;
+    
+    private String roboId;                // robô em cuja fila a entrega está
+    private Estado estado = Estado.PENDENTE;
+    private int tentativas;
+    private String mensagem;
+    private long iniciadaEm;
+    private long concluidaEm;
+    private long marcaReserva;            // início da reserva do robô que executa a entrega
+    
+    public Entrega(long id, Long rotaId, String origem, String destino,
+                   Prioridade prioridade, String roboSolicitado) {
+        this.id = id;
+        this.rotaId = rotaId;
+        this.origem = origem;
+        this.destino = destino;
+        this.prioridade = prioridade;
+        this.roboSolicitado = roboSolicitado;
+        this.criadaEm = System.currentTimeMillis();
+    }
+    
+    /**
+     * Entregas por destino podem ser agrupadas; rotas do catálogo seguem sozinhas
+     */
+    public boolean isAgrupavel() {
+        return rotaId == null;
+    }
+    
+    public boolean isFinalizada() {
+        return estado == Estado.CONCLUIDA || estado == Estado.FALHOU || estado == Estado.CANCELADA;
+    }
+    
+    public void iniciarEnvio() {
+        estado = Estado.ENVIANDO;
+    }
+    
+    /**
+     * Conta um envio que o robô não aceitou
+     */
+    public void registrarFalha() {
+        tentativas++;
+    }
+    
+    public void iniciarExecucao(long marcaReserva) {
+        this.estado = Estado.EXECUTANDO;
+        this.marcaReserva = marcaReserva;
+        this.iniciadaEm = System.currentTimeMillis();
+    }
+    
+    public void voltarParaFila(String mensagem) {
+        this.estado = Estado.PENDENTE;
+        this.mensagem = mensagem;
+    }
+    
+    public void finalizar(Estado estado, String mensagem) {
+        this.estado = estado;
+        this.mensagem = mensagem;
+        this.concluidaEm = System.currentTimeMillis();
+    }
+    
+    public long getId() {
+        return id;
+    }
+    
+    public Long getRotaId() {
+        return rotaId;
+    }
+    
+    public String getOrigem() {
+        return origem;
+    }
+    
+    public String getDestino() {
+        return destino;
+    }
+    
+    public Prioridade getPrioridade() {
+        return prioridade;
+    }
+    
+    public String getRoboSolicitado() {
+        return roboSolicitado;
+    }
+    
+    public long getCriadaEm() {
+        return criadaEm;
+    }
+    
+    public String getRoboId() {
+        return roboId;
+    }
+    
+    public void setRoboId(String roboId) {
+        this.roboId = roboId;
+    }
+    
+    public Estado getEstado() {
+        return estado;
+    }
+    
+    public int getTentativas() {
+        return tentativas;
+    }
+    
+    public String getMensagem() {
+        return mensagem;
+    }
+    
+    public long getIniciadaEm() {
+        return iniciadaEm;
+    }
+    
+    public long getConcluidaEm() {
+        return concluidaEm;
+    }
+    
+    public long getMarcaReserva() {
+        return marcaReserva;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Entrega{id=%d, %s, prioridade=%s, estado=%s, robo=%s}",
+                id, rotaId != null ? "rota " + rotaId : origem + "→" + destino, prioridade, estado, roboId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.roboentregador.backend.model;
+
+/**
+ * Estimativa em fluxo de um tempo observado (trecho ou giro), atualizada a cada amostra em O(1)
+ * e sem guardar as amostras:
+ * - média móvel exponencial (EWMA) com peso alfa; as primeiras amostras pesam 1/n, então a primeira
+ *   substitui o valor inicial (calibração) e as seguintes não ficam presas a ele
+ * - desvio médio absoluto, também exponencial
+ * - quantil aproximado por aproximação estocástica: sobe quantil·passo quando a amostra fica acima
+ *   e desce (1 - quantil)·passo quando fica abaixo; em equilíbrio, 1 - quantil das amostras ficam acima
+ *   O passo acompanha o desvio, então a estimativa se ajusta à escala do tempo medido
+ * Não é thread-safe: quem usa sincroniza
+ */
+public final class EstimadorTempo {
+
+    private final double alfa;
+    private final double quantil;
+    private double media;
+    private double desvio;
+    private double valorQuantil;
+    private long amostras;
+    
+    /**
+     * @param inicial valor usado até a primeira amostra (ex: tempo calculado pela calibração)
+     * @param alfa peso de cada amostra nova na média, entre 0 e 1
+     * @param quantil quantil acompanhado, entre 0 e 1 (ex: 0.9)
+     */
+    public EstimadorTempo(double inicial, double alfa, double quantil) {
+        this.alfa = alfa;
+        this.quantil = quantil;
+        this.media = inicial;
+        this.valorQuantil = inicial;
+    }
+    
+    public void registrar(double amostra) {
+        amostras++;
+        double peso = Math.max(alfa, 1.0 / amostras);
+        if (amostras == 1) {
+            media = amostra;
+            valorQuantil = amostra;
+            return;
+        }
+        
+        desvio += peso * (Math.abs(amostra - media) - desvio);
+        media += peso * (amostra - media);
+        
+        // Passo mínimo de 1% da média para o quantil sair do lugar enquanto as amostras são iguais
+        double passo = 2 * peso * Math.max(desvio, 0.01 * media);
+        valorQuantil += amostra > valorQuantil ? quantil * passo : -(1 - quantil) * passo;
+    }
+    
+    public double getMedia() {
+        return media;
+    }
+    
+    public double getDesvio() {
+        return desvio;
+    }
+    
+    public double getQuantil() {
+        return valorQuantil;
+    }
+    
+    public long getAmostras() {
+        return amostras;
+    }
+}
@@ -0,0 +1,295 @@
+package com.roboentregador.backend.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Representação compacta e imutável do grafo de entregas
+ * Os nós são indexados por inteiros e as adjacências ficam em formato CSR
+ * (Compressed Sparse Row) em arrays primitivos, sem boxing
+ * As arestas são bidirecionais: cada Aresta gera duas entradas de adjacência
+ * As posições dos nós (quando conhecidas) ficam em arrays x/y paralelos aos índices
+ * Com todas as posições conhecidas o grafo oferece uma estimativa admissível da distância restante
+ * (linha reta vezes a menor razão peso / comprimento em linha reta entre as arestas), usada pelo A*
+ */
+public final class Grafo {
+
+    private final String[] nomes;               // índice → nome do nó (ex: 0 → "A")
+    private final Map<String, Integer> indices; // nome do nó → índice (usado só na borda da API)
+    private final int[] inicio;                 // vizinhos de u ficam em [inicio[u], inicio[u + 1])
+    private final int[] vizinhos;               // nó de destino de cada entrada
+    private final double[] pesos;               // distância em centímetros de cada entrada
+    private final int[] arestas;                // índice da Aresta original de cada entrada
+    private final double[] xs;                  // posição x de cada nó em cm (NaN se desconhecida)
+    private final double[] ys;                  // posição y de cada nó em cm (NaN se desconhecida)
+    private final int numeroDeArestas;
+    private final double escalaEstimativa;      // 0 = sem estimativa (alguma posição desconhecida)
+    
+    private Grafo(String[] nomes, Map<String, Integer> indices, int[] inicio, int[] vizinhos,
+                  double[] pesos, int[] arestas, double[] xs, double[] ys, int numeroDeArestas) {
+        this.nomes = nomes;
+        this.indices = indices;
+        this.inicio = inicio;
+        this.vizinhos = vizinhos;
+        this.pesos = pesos;
+        this.arestas = arestas;
+        this.xs = xs;
+        this.ys = ys;
+        this.numeroDeArestas = numeroDeArestas;
+        this.escalaEstimativa = calcularEscalaEstimativa();
+    }
+    
+    /**
+     * Menor razão entre o peso e o comprimento em linha reta das entradas: multiplicada pela linha reta
+     * até o destino, nunca passa da distância real pelo grafo e é consistente (cada aresta cobre pelo
+     * menos a escala vezes o próprio comprimento). Pesos menores que a reta (medidas imprecisas)
+     * apenas reduzem a escala
+     */
+    private double calcularEscalaEstimativa() {
+        for (int u = 0; u < nomes.length; u++) {
+            if (Double.isNaN(xs[u])) {
+                return 0;
+            }
+        }
+        double escala = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < nomes.length; u++) {
+            for (int e = inicio[u]; e < inicio[u + 1]; e++) {
+                // Mesma conta de reta(), usada por estimativa(): a escala vale exatamente para ela
+                double reta = reta(u, vizinhos[e]);
+                if (reta > 0) {
+                    escala = Math.min(escala, pesos[e] / reta);
+                }
+            }
+        }
+        // Folga para arredondamentos: a consistência vale com igualdade na aresta mais "reta"
+        return Double.isInfinite(escala) ? 0 : escala * (1 - 1e-9);
+    }
+    
+    /**
+     * Constrói o grafo a partir do conjunto de arestas, sem posições
+     */
+    public static Grafo construir(Collection<Aresta> colecao) {
+        return construir(colecao, Map.of());
+    }
+    
+    /**
+     * Constrói o grafo a partir do conjunto de arestas e das posições conhecidas dos nós
+     * Custo O(V + E): conta os graus, acumula os offsets e preenche as entradas
+     */
+    public static Grafo construir(Collection<Aresta> colecao, Map<String, Posicao> posicoes) {
+        Aresta[] lista = colecao.toArray(new Aresta[0]);
+        Map<String, Integer> indices = new HashMap<>();
+        int[] origens = new int[lista.length];
+        int[] destinos = new int[lista.length];
+        
+        for (int i = 0; i < lista.length; i++) {
+            origens[i] = indices.computeIfAbsent(lista[i].getOrigem(), k -> indices.size());
+            destinos[i] = indices.computeIfAbsent(lista[i].getDestino(), k -> indices.size());
+        }
+        
+        int n = indices.size();
+        String[] nomes = new String[n];
+        indices.forEach((nome, indice) -> nomes[indice] = nome);
+        
+        // Grau de cada nó (cada aresta conta nos dois sentidos)
+        int[] inicio = new int[n + 1];
+        for (int i = 0; i < lista.length; i++) {
+            inicio[origens[i] + 1]++;
+            inicio[destinos[i] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            inicio[u + 1] += inicio[u];
+        }
+        
+        int total = inicio[n];
+        int[] vizinhos = new int[total];
+        double[] pesos = new double[total];
+        int[] arestas = new int[total];
+        int[] proximo = new int[n];
+        System.arraycopy(inicio, 0, proximo, 0, n);
+        
+        for (int i = 0; i < lista.length; i++) {
+            double distancia = lista[i].getDistancia();
+            int ida = proximo[origens[i]]++;
+            vizinhos[ida] = destinos[i];
+            pesos[ida] = distancia;
+            arestas[ida] = i;
+            
+            int volta = proximo[destinos[i]]++;
+            vizinhos[volta] = origens[i];
+            pesos[volta] = distancia;
+            arestas[volta] = i;
+        }
+        
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        Arrays.fill(xs, Double.NaN);
+        Arrays.fill(ys, Double.NaN);
+        for (int u = 0; u < n; u++) {
+            Posicao posicao = posicoes.get(nomes[u]);
+            if (posicao != null) {
+                xs[u] = posicao.getX();
+                ys[u] = posicao.getY();
+            }
+        }
+        
+        return new Grafo(nomes, indices, inicio, vizinhos, pesos, arestas, xs, ys, lista.length);
+    }
+    
+    /**
+     * Monta o grafo a partir de arrays CSR já prontos (lidos de um SnapshotMapa), sem copiá-los
+     * Só o mapa nome → índice é reconstruído
+     */
+    static Grafo deArrays(String[] nomes, int[] inicio, int[] vizinhos, double[] pesos, int[] arestas,
+                          double[] xs, double[] ys, int numeroDeArestas) {
+        Map<String, Integer> indices = new HashMap<>(nomes.length * 2);
+        for (int u = 0; u < nomes.length; u++) {
+            indices.put(nomes[u], u);
+        }
+        return new Grafo(nomes, indices, inicio, vizinhos, pesos, arestas, xs, ys, numeroDeArestas);
+    }
+    
+    /**
+     * Retorna o índice de um nó ou -1 se ele não existir no grafo
+     */
+    public int indiceDe(String no) {
+        Integer indice = indices.get(no);
+        return indice != null ? indice : -1;
+    }
+    
+    public String nomeDe(int no) {
+        return nomes[no];
+    }
+    
+    public int numeroDeNos() {
+        return nomes.length;
+    }
+    
+    public int numeroDeArestas() {
+        return numeroDeArestas;
+    }
+    
+    /**
+     * Total de entradas de adjacência (duas por aresta)
+     */
+    public int numeroDeEntradas() {
+        return vizinhos.length;
+    }
+    
+    /**
+     * Primeira entrada de adjacência do nó (inclusiva)
+     */
+    public int inicioAdjacencia(int no) {
+        return inicio[no];
+    }
+    
+    /**
+     * Última entrada de adjacência do nó (exclusiva)
+     */
+    public int fimAdjacencia(int no) {
+        return inicio[no + 1];
+    }
+    
+    public int vizinho(int entrada) {
+        return vizinhos[entrada];
+    }
+    
+    public double peso(int entrada) {
+        return pesos[entrada];
+    }
+    
+    /**
+     * Índice da Aresta original (na ordem de construção) de uma entrada
+     */
+    public int aresta(int entrada) {
+        return arestas[entrada];
+    }
+    
+    /**
+     * Procura a entrada de adjacência u → v, ou -1 se os nós não forem vizinhos
+     */
+    public int entrada(int u, int v) {
+        for (int e = inicio[u]; e < inicio[u + 1]; e++) {
+            if (vizinhos[e] == v) {
+                return e;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Indica se a posição do nó na planta é conhecida
+     */
+    public boolean temPosicao(int no) {
+        return !Double.isNaN(xs[no]);
+    }
+    
+    /**
+     * Coordenada x do nó em centímetros (NaN se desconhecida)
+     */
+    public double x(int no) {
+        return xs[no];
+    }
+    
+    /**
+     * Coordenada y do nó em centímetros (NaN se desconhecida)
+     */
+    public double y(int no) {
+        return ys[no];
+    }
+    
+    /**
+     * Indica se estimativa() pode guiar uma busca (todas as posições conhecidas)
+     */
+    public boolean temEstimativa() {
+        return escalaEstimativa > 0;
+    }
+    
+    /**
+     * Limite inferior da distância pelo grafo entre dois nós, em centímetros (0 sem estimativa)
+     */
+    public double estimativa(int no, int destino) {
+        if (escalaEstimativa == 0) {
+            return 0;
+        }
+        return escalaEstimativa * reta(no, destino);
+    }
+    
+    /**
+     * Distância em linha reta entre dois nós posicionados, em centímetros
+     */
+    public double reta(int a, int b) {
+        double dx = xs[a] - xs[b];
+        double dy = ys[a] - ys[b];
+        return Math.sqrt(dx * dx + dy * dy);    // hypot é bem mais lento e não precisa aqui
+    }
+    
+    /**
+     * Rumo de u para v em graus, a partir das posições (0 = eixo x, 90 = eixo y)
+     */
+    public double rumo(int u, int v) {
+        return Math.toDegrees(Math.atan2(ys[v] - ys[u], xs[v] - xs[u]));
+    }
+    
+    /**
+     * Giro para sair de um rumo e chegar em outro, em (-180°, 180°]: positivo à esquerda, negativo à direita
+     */
+    public static double giro(double de, double para) {
+        double angulo = (para - de) % 360.0;
+        if (angulo > 180.0) {
+            angulo -= 360.0;
+        } else if (angulo <= -180.0) {
+            angulo += 360.0;
+        }
+        return angulo;
+    }
+    
+    /**
+     * Identificador da aresta no sentido percorrido (ex: "DB" ao ir de D para B)
+     */
+    public String idPercorrido(int u, int v) {
+        return nomes[u] + nomes[v];
+    }
+}
@@ -0,0 +1,333 @@
+package com.roboentregador.backend.model;
+
+import java.util.Arrays;
+
+/**
+ * Índice espacial imutável sobre as posições dos nós de um Grafo: nó e aresta mais próximos de um ponto
+ * Grade uniforme com células de lado ~ √(área / nós), em média um nó por célula, em arrays CSR
+ * (célula → nós, célula → arestas). Cada nó fica na célula da sua posição; cada aresta, nas células
+ * que o segmento atravessa. A consulta percorre anéis de células em volta do ponto e para quando o
+ * próximo anel já fica mais longe que o melhor candidato: com os nós espalhados pela planta, poucas
+ * células por consulta, qualquer que seja o tamanho do mapa
+ * Nós sem posição (e arestas com alguma ponta sem posição) ficam fora do índice
+ */
+public final class IndiceEspacial {
+
+    private static final int CELULAS_POR_NO = 4;    // limite da grade em plantas muito alongadas
+    
+    private final Grafo grafo;
+    private final double minX;
+    private final double minY;
+    private final double lado;                      // lado da célula em cm
+    private final int colunas;
+    private final int linhas;
+    private final int[] inicioNos;                  // nós da célula c em [inicioNos[c], inicioNos[c + 1])
+    private final int[] nos;
+    private final int[] inicioArestas;              // arestas da célula c em [inicioArestas[c], inicioArestas[c + 1])
+    private final int[] arestas;                    // índice em origens/destinos
+    private final int[] origens;                    // pontas de cada aresta indexada
+    private final int[] destinos;
+    
+    private IndiceEspacial(Grafo grafo, double minX, double minY, double lado, int colunas, int linhas,
+                           int[] inicioNos, int[] nos, int[] inicioArestas, int[] arestas,
+                           int[] origens, int[] destinos) {
+        this.grafo = grafo;
+        this.minX = minX;
+        this.minY = minY;
+        this.lado = lado;
+        this.colunas = colunas;
+        this.linhas = linhas;
+        this.inicioNos = inicioNos;
+        this.nos = nos;
+        this.inicioArestas = inicioArestas;
+        this.arestas = arestas;
+        this.origens = origens;
+        this.destinos = destinos;
+    }
+    
+    /**
+     * Constrói o índice dos nós e arestas posicionados do grafo
+     * Custo O(V + células atravessadas pelas arestas)
+     */
+    public static IndiceEspacial construir(Grafo grafo) {
+        int n = grafo.numeroDeNos();
+        int posicionados = 0;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int u = 0; u < n; u++) {
+            if (grafo.temPosicao(u)) {
+                posicionados++;
+                minX = Math.min(minX, grafo.x(u));
+                minY = Math.min(minY, grafo.y(u));
+                maxX = Math.max(maxX, grafo.x(u));
+                maxY = Math.max(maxY, grafo.y(u));
+            }
+        }
+        if (posicionados == 0) {
+            return new IndiceEspacial(grafo, 0, 0, 1, 0, 0, new int[1], new int[0], new int[1], new int[0],
+                    new int[0], new int[0]);
+        }
+        
+        double largura = maxX - minX;
+        double altura = maxY - minY;
+        double lado = largura > 0 && altura > 0
+                ? Math.sqrt(largura * altura / posicionados)
+                : Math.max(largura, altura) / posicionados;
+        if (!(lado > 0)) {
+            lado = 1;   // todos os nós no mesmo ponto
+        }
+        long limiteCelulas = (long) CELULAS_POR_NO * posicionados + 16;
+        while (((long) (largura / lado) + 1) * ((long) (altura / lado) + 1) > limiteCelulas) {
+            lado *= 2;
+        }
+        int colunas = (int) (largura / lado) + 1;
+        int linhas = (int) (altura / lado) + 1;
+        int celulas = colunas * linhas;
+        
+        // Nós: conta por célula, acumula os offsets e preenche
+        int[] inicioNos = new int[celulas + 1];
+        int[] celulaDoNo = new int[n];
+        for (int u = 0; u < n; u++) {
+            if (grafo.temPosicao(u)) {
+                celulaDoNo[u] = celula(grafo.x(u), grafo.y(u), minX, minY, lado, colunas, linhas);
+                inicioNos[celulaDoNo[u] + 1]++;
+            }
+        }
+        for (int c = 0; c < celulas; c++) {
+            inicioNos[c + 1] += inicioNos[c];
+        }
+        int[] nos = new int[posicionados];
+        int[] proximo = Arrays.copyOf(inicioNos, celulas);
+        for (int u = 0; u < n; u++) {
+            if (grafo.temPosicao(u)) {
+                nos[proximo[celulaDoNo[u]]++] = u;
+            }
+        }
+        
+        // Arestas: uma vez cada (as duas entradas de adjacência apontam para a mesma Aresta)
+        boolean[] vistas = new boolean[grafo.numeroDeArestas()];
+        int[] origens = new int[grafo.numeroDeArestas()];
+        int[] destinos = new int[grafo.numeroDeArestas()];
+        int indexadas = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = grafo.inicioAdjacencia(u); e < grafo.fimAdjacencia(u); e++) {
+                int v = grafo.vizinho(e);
+                int a = grafo.aresta(e);
+                if (!vistas[a] && grafo.temPosicao(u) && grafo.temPosicao(v)) {
+                    vistas[a] = true;
+                    origens[indexadas] = u;
+                    destinos[indexadas] = v;
+                    indexadas++;
+                }
+            }
+        }
+        
+        IndiceEspacial parcial = new IndiceEspacial(grafo, minX, minY, lado, colunas, linhas, inicioNos, nos,
+                null, null, origens, destinos);
+        int[] inicioArestas = new int[celulas + 1];
+        for (int a = 0; a < indexadas; a++) {
+            parcial.atravessar(a, inicioArestas, null);
+        }
+        for (int c = 0; c < celulas; c++) {
+            inicioArestas[c + 1] += inicioArestas[c];
+        }
+        int[] arestas = new int[inicioArestas[celulas]];
+        int[] preenchidas = Arrays.copyOf(inicioArestas, celulas);
+        for (int a = 0; a < indexadas; a++) {
+            parcial.atravessar(a, preenchidas, arestas);
+        }
+        
+        return new IndiceEspacial(grafo, minX, minY, lado, colunas, linhas, inicioNos, nos, inicioArestas, arestas,
+                Arrays.copyOf(origens, indexadas), Arrays.copyOf(destinos, indexadas));
+    }
+    
+    /**
+     * Grafo ao qual os índices de nó se referem
+     */
+    public Grafo getGrafo() {
+        return grafo;
+    }
+    
+    /**
+     * Nós com posição no índice
+     */
+    public int numeroDeNos() {
+        return nos.length;
+    }
+    
+    /**
+     * Nó posicionado mais próximo do ponto (em linha reta)
+     * @return índice do nó no grafo, ou -1 se nenhum nó tem posição
+     */
+    public int noMaisProximo(double x, double y) {
+        if (nos.length == 0) {
+            return -1;
+        }
+        int coluna = coluna(x);
+        int linha = linha(y);
+        int escolhido = -1;
+        double melhor = Double.POSITIVE_INFINITY;   // distância ao quadrado
+        int ultimoAnel = Math.max(Math.max(coluna, colunas - 1 - coluna), Math.max(linha, linhas - 1 - linha));
+        
+        for (int anel = 0; anel <= ultimoAnel; anel++) {
+            for (int l = Math.max(0, linha - anel); l <= Math.min(linhas - 1, linha + anel); l++) {
+                boolean borda = l == linha - anel || l == linha + anel;
+                int passo = borda ? 1 : Math.max(1, 2 * anel);
+                for (int c = coluna - anel; c <= coluna + anel; c += passo) {
+                    if (c < 0 || c >= colunas) {
+                        continue;
+                    }
+                    int celula = l * colunas + c;
+                    for (int i = inicioNos[celula]; i < inicioNos[celula + 1]; i++) {
+                        int u = nos[i];
+                        double dx = grafo.x(u) - x;
+                        double dy = grafo.y(u) - y;
+                        double quadrado = dx * dx + dy * dy;
+                        if (quadrado < melhor) {
+                            melhor = quadrado;
+                            escolhido = u;
+                        }
+                    }
+                }
+            }
+            // O ponto está na célula central (ou além dela): o anel seguinte fica a pelo menos anel × lado
+            double alcance = anel * lado;
+            if (escolhido >= 0 && melhor <= alcance * alcance) {
+                break;
+            }
+        }
+        return escolhido;
+    }
+    
+    /**
+     * Aresta com o ponto mais próximo do ponto dado, e onde fica esse ponto ao longo dela
+     * @return null se nenhuma aresta tem as duas pontas posicionadas
+     */
+    public ArestaProxima arestaMaisProxima(double x, double y) {
+        if (origens.length == 0) {
+            return null;
+        }
+        int coluna = coluna(x);
+        int linha = linha(y);
+        int escolhida = -1;
+        double melhor = Double.POSITIVE_INFINITY;   // distância ao quadrado
+        int ultimoAnel = Math.max(Math.max(coluna, colunas - 1 - coluna), Math.max(linha, linhas - 1 - linha));
+        
+        for (int anel = 0; anel <= ultimoAnel; anel++) {
+            for (int l = Math.max(0, linha - anel); l <= Math.min(linhas - 1, linha + anel); l++) {
+                boolean borda = l == linha - anel || l == linha + anel;
+                int passo = borda ? 1 : Math.max(1, 2 * anel);
+                for (int c = coluna - anel; c <= coluna + anel; c += passo) {
+                    if (c < 0 || c >= colunas) {
+                        continue;
+                    }
+                    int celula = l * colunas + c;
+                    for (int i = inicioArestas[celula]; i < inicioArestas[celula + 1]; i++) {
+                        int a = arestas[i];
+                        double quadrado = quadradoAteSegmento(a, x, y);
+                        if (quadrado < melhor) {
+                            melhor = quadrado;
+                            escolhida = a;
+                        }
+                    }
+                }
+            }
+            double alcance = anel * lado;
+            if (escolhida >= 0 && melhor <= alcance * alcance) {
+                break;
+            }
+        }
+        
+        int u = origens[escolhida];
+        int v = destinos[escolhida];
+        double fracao = fracao(u, v, x, y);
+        double px = grafo.x(u) + fracao * (grafo.x(v) - grafo.x(u));
+        double py = grafo.y(u) + fracao * (grafo.y(v) - grafo.y(u));
+        return new ArestaProxima(u, v, fracao, px, py, Math.sqrt(melhor));
+    }
+    
+    /**
+     * Ponto de uma aresta mais próximo de um ponto da planta
+     * @param origem índice do nó em que fracao = 0
+     * @param destino índice do nó em que fracao = 1
+     * @param fracao posição da projeção ao longo da aresta, de 0 a 1
+     * @param x coordenada x da projeção em cm
+     * @param y coordenada y da projeção em cm
+     * @param distancia do ponto consultado até a projeção, em cm
+     */
+    public record ArestaProxima(int origem, int destino, double fracao, double x, double y, double distancia) {
+    }
+    
+    /**
+     * Passa pelas células que a aresta atravessa: sem destino, só conta; com destino, grava a aresta nelas
+     * Uma célula é atravessada se o segmento chega a meia diagonal do centro (inclui todas que ele cruza)
+     */
+    private void atravessar(int a, int[] contadores, int[] destino) {
+        int u = origens[a];
+        int v = destinos[a];
+        int c0 = coluna(Math.min(grafo.x(u), grafo.x(v)));
+        int c1 = coluna(Math.max(grafo.x(u), grafo.x(v)));
+        int l0 = linha(Math.min(grafo.y(u), grafo.y(v)));
+        int l1 = linha(Math.max(grafo.y(u), grafo.y(v)));
+        double meiaDiagonal2 = lado * lado / 2;
+        for (int l = l0; l <= l1; l++) {
+            for (int c = c0; c <= c1; c++) {
+                double centroX = minX + (c + 0.5) * lado;
+                double centroY = minY + (l + 0.5) * lado;
+                if ((c0 == c1 || l0 == l1) || quadradoAteSegmento(a, centroX, centroY) <= meiaDiagonal2) {
+                    int celula = l * colunas + c;
+                    if (destino == null) {
+                        contadores[celula + 1]++;
+                    } else {
+                        destino[contadores[celula]++] = a;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Quadrado da distância do ponto ao segmento da aresta (sem raiz nas comparações da busca)
+     */
+    private double quadradoAteSegmento(int a, double x, double y) {
+        int u = origens[a];
+        int v = destinos[a];
+        double t = fracao(u, v, x, y);
+        double dx = grafo.x(u) + t * (grafo.x(v) - grafo.x(u)) - x;
+        double dy = grafo.y(u) + t * (grafo.y(v) - grafo.y(u)) - y;
+        return dx * dx + dy * dy;
+    }
+    
+    /**
+     * Parâmetro da projeção do ponto no segmento u → v, limitado a [0, 1]
+     */
+    private double fracao(int u, int v, double x, double y) {
+        double dx = grafo.x(v) - grafo.x(u);
+        double dy = grafo.y(v) - grafo.y(u);
+        double comprimento2 = dx * dx + dy * dy;
+        if (comprimento2 == 0) {
+            return 0;
+        }
+        double t = ((x - grafo.x(u)) * dx + (y - grafo.y(u)) * dy) / comprimento2;
+        return Math.max(0, Math.min(1, t));
+    }
+    
+    private int coluna(double x) {
+        return limitar((int) Math.floor((x - minX) / lado), colunas);
+    }
+    
+    private int linha(double y) {
+        return limitar((int) Math.floor((y - minY) / lado), linhas);
+    }
+    
+    private static int celula(double x, double y, double minX, double minY, double lado, int colunas, int linhas) {
+        return limitar((int) Math.floor((y - minY) / lado), linhas) * colunas
+                + limitar((int) Math.floor((x - minX) / lado), colunas);
+    }
+    
+    private static int limitar(int valor, int tamanho) {
+        return Math.max(0, Math.min(tamanho - 1, valor));
+    }
+}
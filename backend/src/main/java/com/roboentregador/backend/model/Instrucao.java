@@ -16,6 +16,28 @@ public class Instrucao {
     private int distancia; // em centímetros
     private int duracao; // em milissegundos
     
+    // Códigos de direção usados pelo firmware (struct Comando): 0=Frente, 1=Ré, 2=Direita, 3=Esquerda, 4=Parar
+    private static final String[] DIRECOES = {"FRENTE", "TRAS", "DIREITA", "ESQUERDA", "PARAR"};
+    
+    /**
+     * Converte o nome da direção para o código numérico do firmware
+     */
+    public static int codigoDirecao(String direcao) {
+        for (int i = 0; i < DIRECOES.length; i++) {
+            if (DIRECOES[i].equals(direcao)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Direção desconhecida: " + direcao);
+    }
+    
+    /**
+     * Converte o código numérico do firmware para o nome da direção
+     */
+    public static String nomeDirecao(int codigo) {
+        return DIRECOES[codigo];
+    }
+    
     @Override
     public String toString() {
         return String.format("%s(%dcm, %dms)", direcao, distancia, duracao);
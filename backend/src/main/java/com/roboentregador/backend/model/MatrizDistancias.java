@@ -0,0 +1,53 @@
+package com.roboentregador.backend.model;
+
+/**
+ * Distâncias mínimas entre pares de nós de um Grafo
+ * Implementada como matriz completa (N²) ou por linhas calculadas sob demanda
+ */
+public interface MatrizDistancias {
+
+    /**
+     * Grafo ao qual os índices de nó se referem
+     */
+    Grafo getGrafo();
+    
+    /**
+     * Distância mínima em centímetros (infinito se não houver ligação)
+     */
+    double distancia(int origem, int destino);
+    
+    /**
+     * Nó imediatamente anterior ao destino no caminho mínimo a partir da origem (-1 se não houver)
+     * Guardar o anterior permite reconstruir o caminho inteiro usando só a linha da origem
+     */
+    int anterior(int origem, int destino);
+    
+    /**
+     * Próximo nó a visitar saindo da origem em direção ao destino (-1 se não houver)
+     * Como as arestas são bidirecionais, é o anterior da origem na árvore do destino
+     */
+    default int proximoSalto(int origem, int destino) {
+        return anterior(destino, origem);
+    }
+    
+    /**
+     * Reconstrói o caminho mínimo seguindo os anteriores a partir do destino
+     * @return null se o destino for inalcançável
+     */
+    default Caminho caminho(int origem, int destino) {
+        double distancia = distancia(origem, destino);
+        if (Double.isInfinite(distancia)) {
+            return null;
+        }
+        
+        int tamanho = 1;
+        for (int v = destino; v != origem; v = anterior(origem, v)) {
+            tamanho++;
+        }
+        int[] nos = new int[tamanho];
+        for (int v = destino, i = tamanho - 1; i >= 0; v = anterior(origem, v), i--) {
+            nos[i] = v;
+        }
+        return new Caminho(getGrafo(), nos, distancia);
+    }
+}
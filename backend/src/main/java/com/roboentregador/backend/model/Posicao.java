@@ -0,0 +1,22 @@
+package com.roboentregador.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Posição de um nó na planta, em centímetros
+ * O eixo y aponta para a frente do robô na partida (de A em direção a G)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Posicao {
+    private double x;   // em centímetros
+    private double y;   // em centímetros
+    
+    @Override
+    public String toString() {
+        return String.format("(%.1f, %.1f)", x, y);
+    }
+}
@@ -0,0 +1,121 @@
+package com.roboentregador.backend.model;
+
+/**
+ * Programa de motor compilado a partir de um caminho do grafo
+ * Sequência de passos (direção + duração) que o firmware executa sem precisar de
+ * uma rota gravada, enviada em formato binário para caber no buffer da ESP8266
+ *
+ * Formato (big-endian), 5 + 3·N bytes:
+ * - byte 0: versão do formato (1)
+ * - bytes 1-2: id do programa (uint16: id da rota, número da viagem de entrega ou 0 para caminhos avulsos)
+ * - bytes 3-4: número de passos N (uint16)
+ * - N passos de 3 bytes: direção nos 3 bits altos e duração em ms nos 21 bits baixos
+ * Passos mais longos que ~35 minutos são divididos em vários passos de mesma direção
+ */
+public final class ProgramaMotor {
+
+    public static final int VERSAO = 1;
+    public static final int TAMANHO_CABECALHO = 5;
+    public static final int TAMANHO_PASSO = 3;
+    public static final int MAX_PASSOS = 128;            // mesmo limite do buffer do firmware
+    public static final int MAX_DURACAO_PASSO = (1 << 21) - 1;
+    public static final int ID_MAXIMO = 0xFFFF;
+    
+    private final int id;
+    private final long[] instrucoes;     // empacotadas como em RotaCompacta
+    
+    /**
+     * @param id de 0 a ID_MAXIMO (o campo tem 16 bits; ids maiores não são truncados, são recusados)
+     */
+    public ProgramaMotor(int id, long[] instrucoes) {
+        if (id < 0 || id > ID_MAXIMO) {
+            throw new IllegalArgumentException("Id de programa fora de 0.." + ID_MAXIMO + ": " + id);
+        }
+        this.id = id;
+        this.instrucoes = instrucoes;
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Instruções empacotadas (direção, distância, duração), no formato de RotaCompacta
+     */
+    public long[] getInstrucoes() {
+        return instrucoes.clone();
+    }
+    
+    /**
+     * Nome com que o programa aparece como comando atual do robô (ex: "PROGRAMA_8")
+     */
+    public String getComando() {
+        return "PROGRAMA_" + id;
+    }
+    
+    /**
+     * Duração total em milissegundos (sem as pausas do firmware entre passos)
+     */
+    public long getDuracaoTotal() {
+        long total = 0;
+        for (long instrucao : instrucoes) {
+            total += RotaCompacta.duracaoDe(instrucao);
+        }
+        return total;
+    }
+    
+    /**
+     * Número de passos no formato binário (após dividir os passos muito longos)
+     */
+    public int getNumeroDePassos() {
+        int passos = 0;
+        for (long instrucao : instrucoes) {
+            passos += passosDe(RotaCompacta.duracaoDe(instrucao));
+        }
+        return passos;
+    }
+    
+    /**
+     * Indica se o programa cabe no buffer de passos do firmware
+     */
+    public boolean cabeNoFirmware() {
+        return getNumeroDePassos() <= MAX_PASSOS;
+    }
+    
+    /**
+     * Serializa o programa no formato binário descrito na classe
+     */
+    public byte[] codificar() {
+        int passos = getNumeroDePassos();
+        byte[] dados = new byte[TAMANHO_CABECALHO + passos * TAMANHO_PASSO];
+        dados[0] = (byte) VERSAO;
+        dados[1] = (byte) (id >>> 8);
+        dados[2] = (byte) id;
+        dados[3] = (byte) (passos >>> 8);
+        dados[4] = (byte) passos;
+        
+        int posicao = TAMANHO_CABECALHO;
+        for (long instrucao : instrucoes) {
+            int direcao = RotaCompacta.direcaoDe(instrucao);
+            int restante = RotaCompacta.duracaoDe(instrucao);
+            do {
+                int duracao = Math.min(restante, MAX_DURACAO_PASSO);
+                int passo = (direcao << 21) | duracao;
+                dados[posicao++] = (byte) (passo >>> 16);
+                dados[posicao++] = (byte) (passo >>> 8);
+                dados[posicao++] = (byte) passo;
+                restante -= duracao;
+            } while (restante > 0);
+        }
+        return dados;
+    }
+    
+    private static int passosDe(int duracao) {
+        return Math.max(1, (duracao + MAX_DURACAO_PASSO - 1) / MAX_DURACAO_PASSO);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Programa{id=%d, passos=%d, duracao=%dms}", id, getNumeroDePassos(), getDuracaoTotal());
+    }
+}
@@ -0,0 +1,131 @@
+package com.roboentregador.backend.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Quadros do canal binário entre o backend e a ESP8266 (conexão TCP persistente, ver firmware.ino)
+ * Substitui o POST /executar com JSON: o firmware decide pelo opcode, sem procurar texto no corpo
+ *
+ * Pedido (big-endian), 8 bytes mais a carga:
+ * - byte 0: 'R'
+ * - byte 1: opcode (ROTA, STOP, STATUS, PROGRAMA)
+ * - bytes 2-3: sequência (uint16), devolvida na resposta
+ * - bytes 4-5: argumento (número da rota ou id do programa)
+ * - bytes 6-7: tamanho da carga (PROGRAMA: o programa no formato de ProgramaMotor; 0 nos demais)
+ *
+ * Resposta, sempre 8 bytes:
+ * - byte 0: 'R'
+ * - byte 1: opcode | 0x80
+ * - bytes 2-3: sequência do pedido
+ * - byte 4: código (OK, DESCONHECIDO, INVALIDO, EXECUTANDO, GRANDE_DEMAIS)
+ * - byte 5: 1 se há trajeto em andamento
+ * - bytes 6-7: valor (rota iniciada, passos do programa ou passo atual no STATUS)
+ */
+public final class ProtocoloCanal {
+
+    public static final int MAGICO = 'R';
+    public static final int TAMANHO_QUADRO = 8;
+    public static final int RESPOSTA = 0x80;
+    
+    public static final int ROTA = 1;
+    public static final int STOP = 2;
+    public static final int STATUS = 3;
+    public static final int PROGRAMA = 4;
+    
+    public static final int OK = 0;
+    public static final int DESCONHECIDO = 1;
+    public static final int INVALIDO = 2;
+    public static final int EXECUTANDO = 3;
+    public static final int GRANDE_DEMAIS = 4;
+    
+    public static final int ROTAS_GRAVADAS = 7;     // rota1 … rota7 do firmware
+    
+    private ProtocoloCanal() {
+    }
+    
+    /**
+     * Opcode e argumento de um comando de texto ("ROTA_n" ou "STOP")
+     * @return opcode nos 16 bits altos e argumento nos baixos, ou -1 se o comando só existe via HTTP
+     */
+    public static int traduzirComando(String comando) {
+        if (comando.equals("STOP")) {
+            return STOP << 16;
+        }
+        if (comando.length() == 6 && comando.startsWith("ROTA_")) {
+            int rota = comando.charAt(5) - '0';
+            if (rota >= 1 && rota <= ROTAS_GRAVADAS) {
+                return (ROTA << 16) | rota;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Pedido completo (cabeçalho e carga) pronto para escrever no socket
+     */
+    public static ByteBuffer pedido(int opcode, int sequencia, int argumento, byte[] carga) {
+        int tamanhoCarga = carga != null ? carga.length : 0;
+        ByteBuffer quadro = ByteBuffer.allocate(TAMANHO_QUADRO + tamanhoCarga);
+        quadro.put((byte) MAGICO)
+                .put((byte) opcode)
+                .putShort((short) sequencia)
+                .putShort((short) argumento)
+                .putShort((short) tamanhoCarga);
+        if (carga != null) {
+            quadro.put(carga);
+        }
+        return quadro.flip();
+    }
+    
+    /**
+     * Resposta a um pedido, com a mesma sequência
+     */
+    public static ByteBuffer resposta(int opcode, int sequencia, int codigo, boolean executando, int valor) {
+        return ByteBuffer.allocate(TAMANHO_QUADRO)
+                .put((byte) MAGICO)
+                .put((byte) (opcode | RESPOSTA))
+                .putShort((short) sequencia)
+                .put((byte) codigo)
+                .put((byte) (executando ? 1 : 0))
+                .putShort((short) valor)
+                .flip();
+    }
+    
+    /**
+     * Lê uma resposta a partir da posição atual do buffer (avança TAMANHO_QUADRO bytes)
+     * @throws IllegalArgumentException se o quadro não começa com o byte mágico ou não é uma resposta
+     */
+    public static Resposta lerResposta(ByteBuffer buffer) {
+        int magico = buffer.get() & 0xFF;
+        int opcode = buffer.get() & 0xFF;
+        if (magico != MAGICO || (opcode & RESPOSTA) == 0) {
+            throw new IllegalArgumentException("Quadro inválido no canal binário: " + magico + "/" + opcode);
+        }
+        int sequencia = buffer.getShort() & 0xFFFF;
+        int codigo = buffer.get() & 0xFF;
+        boolean executando = buffer.get() != 0;
+        int valor = buffer.getShort() & 0xFFFF;
+        return new Resposta(opcode & ~RESPOSTA, sequencia, codigo, executando, valor);
+    }
+    
+    /**
+     * Nome do código de resposta para logs
+     */
+    public static String descreverCodigo(int codigo) {
+        return switch (codigo) {
+            case OK -> "ok";
+            case DESCONHECIDO -> "comando desconhecido";
+            case INVALIDO -> "programa inválido";
+            case EXECUTANDO -> "executando";
+            case GRANDE_DEMAIS -> "programa grande demais";
+            default -> "código " + codigo;
+        };
+    }
+    
+    public record Resposta(int opcode, int sequencia, int codigo, boolean executando, int valor) {
+        
+        public boolean isOk() {
+            return codigo == OK;
+        }
+    }
+}
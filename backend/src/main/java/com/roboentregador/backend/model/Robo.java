@@ -0,0 +1,142 @@
+package com.roboentregador.backend.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Representa um robô da frota e o endereço da sua ESP8266
+ * (porta HTTP e, se o firmware tiver, porta do canal binário; 0 = só HTTP)
+ * O estado de execução é controlado por operações atômicas para que
+ * vários despachos concorrentes nunca reservem o mesmo robô
+ */
+public class Robo {
+
+    private final String id;
+    private final String host;
+    private final int porta;
+    private final int portaCanal;
+    
+    // Comando em execução e instante da reserva; null quando o robô está livre
+    private final AtomicReference<Reserva> reserva = new AtomicReference<>();
+    private volatile SaudeRobo saude = SaudeRobo.desconhecida();
+    
+    public Robo(String id, String host, int porta) {
+        this(id, host, porta, 0);
+    }
+    
+    public Robo(String id, String host, int porta, int portaCanal) {
+        this.id = id;
+        this.host = host;
+        this.porta = porta;
+        this.portaCanal = portaCanal;
+    }
+    
+    /**
+     * Tenta reservar o robô para um comando
+     * @return true se o robô estava livre e agora pertence a quem chamou
+     */
+    public boolean reservar(String comando) {
+        return reserva.compareAndSet(null, new Reserva(comando, System.currentTimeMillis(), false));
+    }
+    
+    /**
+     * Marca que o firmware aceitou o comando reservado
+     * A partir daqui um status "parado" significa que o trajeto terminou
+     */
+    public void confirmarExecucao() {
+        Reserva atual = reserva.get();
+        if (atual != null && !atual.confirmada()) {
+            reserva.compareAndSet(atual, new Reserva(atual.comando(), System.currentTimeMillis(), true));
+        }
+    }
+    
+    /**
+     * Libera o robô para receber um novo comando
+     */
+    public void liberar() {
+        reserva.set(null);
+    }
+    
+    /**
+     * Libera o robô apenas se a execução foi confirmada antes do instante informado
+     * Evita que uma verificação antiga desfaça uma reserva feita depois dela
+     * @return true se a reserva foi liberada por esta chamada
+     */
+    public boolean liberarReservaAnterior(long instante) {
+        Reserva atual = reserva.get();
+        return atual != null && atual.confirmada() && atual.inicio() < instante
+                && reserva.compareAndSet(atual, null);
+    }
+    
+    /**
+     * Libera o robô apenas se a reserva atual (confirmada ou não) começou antes do instante informado
+     * Usado quando o robô para de responder: uma reserva feita depois da verificação é de outro despacho
+     * @return true se a reserva foi liberada por esta chamada
+     */
+    public boolean liberarReservaIniciadaAntes(long instante) {
+        Reserva atual = reserva.get();
+        return atual != null && atual.inicio() < instante && reserva.compareAndSet(atual, null);
+    }
+    
+    public boolean isOcupado() {
+        return reserva.get() != null;
+    }
+    
+    /**
+     * Livre e com heartbeat respondendo
+     */
+    public boolean isDisponivel() {
+        return !isOcupado() && saude.isConectado() && !saude.isExecutando();
+    }
+    
+    public String getEstado() {
+        if (isOcupado()) {
+            return "executando";
+        }
+        return saude.getEstado();
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getHost() {
+        return host;
+    }
+    
+    public int getPorta() {
+        return porta;
+    }
+    
+    public int getPortaCanal() {
+        return portaCanal;
+    }
+    
+    public String getComandoAtual() {
+        Reserva atual = reserva.get();
+        return atual != null ? atual.comando() : null;
+    }
+    
+    /**
+     * Instante (epoch em ms) em que o robô foi reservado, ou 0 se está livre
+     */
+    public long getInicioExecucao() {
+        Reserva atual = reserva.get();
+        return atual != null ? atual.inicio() : 0L;
+    }
+    
+    public SaudeRobo getSaude() {
+        return saude;
+    }
+    
+    public void setSaude(SaudeRobo saude) {
+        this.saude = saude;
+    }
+    
+    private record Reserva(String comando, long inicio, boolean confirmada) {
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Robo{id='%s', endereco=%s:%d, estado=%s}", id, host, porta, getEstado());
+    }
+}
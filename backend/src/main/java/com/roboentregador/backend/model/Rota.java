@@ -1,6 +1,7 @@
 package com.roboentregador.backend.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -98,7 +99,7 @@ public abstract class Rota {
     }
     
     public List<Instrucao> getInstrucoes() {
-        return new ArrayList<>(instrucoes); // Retorna cópia para proteger a lista original
+        return Collections.unmodifiableList(instrucoes); // Visão somente leitura, sem cópia
     }
     
     public double getDistanciaTotal() {
@@ -106,11 +107,11 @@ public abstract class Rota {
     }
     
     public List<String> getNosPercorridos() {
-        return new ArrayList<>(nosPercorridos); // Retorna cópia para proteger a lista original
+        return Collections.unmodifiableList(nosPercorridos); // Visão somente leitura, sem cópia
     }
     
     public List<String> getArestasPercorridas() {
-        return new ArrayList<>(arestasPercorridas);
+        return Collections.unmodifiableList(arestasPercorridas);
     }
     
     @Override
@@ -0,0 +1,213 @@
+package com.roboentregador.backend.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Forma imutável e compacta de uma rota, usada como armazenamento do catálogo
+ * - nós e arestas viram índices de uma TabelaSimbolos compartilhada (int[])
+ * - cada instrução é empacotada num long: direção (8 bits), distância (24 bits), duração (32 bits)
+ * - valores derivados (tempo total) são calculados uma vez na construção
+ * Os getters devolvem visões somente leitura sobre os arrays, sem cópias
+ */
+public final class RotaCompacta {
+
+    private static final long MASCARA_DISTANCIA = 0xFFFFFFL;
+    private static final long MASCARA_DURACAO = 0xFFFFFFFFL;
+    
+    private final Long id;
+    private final String nome;
+    private final String comando;       // comando enviado à ESP8266 (ex: "ROTA_1")
+    private final TabelaSimbolos simbolos;
+    private final int[] nos;
+    private final int[] arestas;
+    private final long[] instrucoes;
+    private final double distanciaTotal; // em centímetros
+    private final int tempoTotal;        // em milissegundos
+    
+    public RotaCompacta(Long id, String nome, String comando, TabelaSimbolos simbolos,
+                        int[] nos, int[] arestas, long[] instrucoes, double distanciaTotal) {
+        this.id = id;
+        this.nome = nome;
+        this.comando = comando;
+        this.simbolos = simbolos;
+        this.nos = nos;
+        this.arestas = arestas;
+        this.instrucoes = instrucoes;
+        this.distanciaTotal = distanciaTotal;
+        this.tempoTotal = calcularTempoTotal(instrucoes, distanciaTotal);
+    }
+    
+    /**
+     * Converte uma Rota (forma de autoria, com listas) para a forma compacta
+     * O comando é resolvido aqui, chamando o executar() POLIMÓRFICO da rota
+     */
+    public static RotaCompacta de(Rota rota, TabelaSimbolos simbolos) {
+        List<String> nosRota = rota.getNosPercorridos();
+        int[] nos = new int[nosRota.size()];
+        for (int i = 0; i < nos.length; i++) {
+            nos[i] = simbolos.internar(nosRota.get(i));
+        }
+        
+        List<String> arestasRota = rota.getArestasPercorridas();
+        int[] arestas = new int[arestasRota.size()];
+        for (int i = 0; i < arestas.length; i++) {
+            arestas[i] = simbolos.internar(arestasRota.get(i));
+        }
+        
+        List<Instrucao> instrucoesRota = rota.getInstrucoes();
+        long[] instrucoes = new long[instrucoesRota.size()];
+        for (int i = 0; i < instrucoes.length; i++) {
+            Instrucao instrucao = instrucoesRota.get(i);
+            instrucoes[i] = empacotar(Instrucao.codigoDirecao(instrucao.getDirecao()),
+                    instrucao.getDistancia(), instrucao.getDuracao());
+        }
+        
+        return new RotaCompacta(rota.getId(), rota.getNome(), rota.executar(), simbolos,
+                nos, arestas, instrucoes, rota.getDistanciaTotal());
+    }
+    
+    /**
+     * Empacota uma instrução: direção nos bits 56-63, distância (cm) nos bits 32-55, duração (ms) nos bits 0-31
+     */
+    public static long empacotar(int direcao, int distancia, int duracao) {
+        return ((long) (direcao & 0xFF) << 56)
+                | ((distancia & MASCARA_DISTANCIA) << 32)
+                | (duracao & MASCARA_DURACAO);
+    }
+    
+    public static int direcaoDe(long instrucao) {
+        return (int) (instrucao >>> 56);
+    }
+    
+    public static int distanciaDe(long instrucao) {
+        return (int) ((instrucao >>> 32) & MASCARA_DISTANCIA);
+    }
+    
+    public static int duracaoDe(long instrucao) {
+        return (int) (instrucao & MASCARA_DURACAO);
+    }
+    
+    /**
+     * Mesma regra de Rota.calcularTempoTotal: soma as durações das instruções,
+     * ou assume 10cm/s (100ms por cm) quando não há instruções temporizadas
+     */
+    private static int calcularTempoTotal(long[] instrucoes, double distanciaTotal) {
+        long soma = 0;
+        for (long instrucao : instrucoes) {
+            soma += duracaoDe(instrucao);
+        }
+        return soma > 0 ? (int) soma : (int) (distanciaTotal * 100);
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getNome() {
+        return nome;
+    }
+    
+    public String getComando() {
+        return comando;
+    }
+    
+    public double getDistanciaTotal() {
+        return distanciaTotal;
+    }
+    
+    public int getTempoTotal() {
+        return tempoTotal;
+    }
+    
+    public int getNumeroDeNos() {
+        return nos.length;
+    }
+    
+    public int getNumeroDeInstrucoes() {
+        return instrucoes.length;
+    }
+    
+    /**
+     * Índice (na TabelaSimbolos) do nó na posição informada
+     */
+    public int no(int posicao) {
+        return nos[posicao];
+    }
+    
+    public long instrucao(int posicao) {
+        return instrucoes[posicao];
+    }
+    
+    public TabelaSimbolos getSimbolos() {
+        return simbolos;
+    }
+    
+    /**
+     * Visão somente leitura dos nós percorridos (ex: ["A", "B", "E", "G"])
+     */
+    public List<String> getNosPercorridos() {
+        return new VisaoNomes(simbolos, nos);
+    }
+    
+    /**
+     * Visão somente leitura das arestas percorridas (ex: ["AB", "BE", "EG"])
+     */
+    public List<String> getArestasPercorridas() {
+        return new VisaoNomes(simbolos, arestas);
+    }
+    
+    /**
+     * Visão somente leitura das instruções, desempacotadas a cada acesso
+     */
+    public List<Instrucao> getInstrucoes() {
+        return new VisaoInstrucoes(instrucoes);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Rota{id=%d, nome='%s', distancia=%.1fcm, nos=%s}",
+                id, nome, distanciaTotal, getNosPercorridos());
+    }
+    
+    private static final class VisaoNomes extends AbstractList<String> implements RandomAccess {
+        private final TabelaSimbolos simbolos;
+        private final int[] indices;
+        
+        VisaoNomes(TabelaSimbolos simbolos, int[] indices) {
+            this.simbolos = simbolos;
+            this.indices = indices;
+        }
+        
+        @Override
+        public String get(int posicao) {
+            return simbolos.nomeDe(indices[posicao]);
+        }
+        
+        @Override
+        public int size() {
+            return indices.length;
+        }
+    }
+    
+    private static final class VisaoInstrucoes extends AbstractList<Instrucao> implements RandomAccess {
+        private final long[] instrucoes;
+        
+        VisaoInstrucoes(long[] instrucoes) {
+            this.instrucoes = instrucoes;
+        }
+        
+        @Override
+        public Instrucao get(int posicao) {
+            long instrucao = instrucoes[posicao];
+            return new Instrucao(Instrucao.nomeDirecao(direcaoDe(instrucao)),
+                    distanciaDe(instrucao), duracaoDe(instrucao));
+        }
+        
+        @Override
+        public int size() {
+            return instrucoes.length;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.roboentregador.backend.model;
+
+import lombok.Value;
+
+/**
+ * Fotografia do estado de saúde do robô obtida pelo heartbeat
+ * É substituída por inteiro a cada verificação, nunca alterada no lugar
+ */
+@Value
+public class SaudeRobo {
+    private boolean conectado;
+    private boolean executando;         // true enquanto o firmware percorre um trajeto
+    private Long ultimoContato;         // epoch em ms da última resposta válida (null se nunca respondeu)
+    private Long rttMs;                 // tempo de ida e volta da última verificação bem-sucedida
+    private long ultimaVerificacao;     // epoch em ms da última tentativa
+    private int falhasConsecutivas;
+    private long proximaVerificacaoMs;  // intervalo até a próxima verificação (backoff)
+    
+    /**
+     * Estado inicial, antes da primeira verificação
+     */
+    public static SaudeRobo desconhecida() {
+        return new SaudeRobo(false, false, null, null, 0L, 0, 0L);
+    }
+    
+    public String getEstado() {
+        if (!conectado) {
+            return "desconectado";
+        }
+        return executando ? "executando" : "parado";
+    }
+}
@@ -0,0 +1,539 @@
+package com.roboentregador.backend.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot binário do mapa: nós, posições, grafo CSR, arestas e rotas pré-calculadas
+ * Feito para ser carregado por mapeamento de memória (FileChannel.map): os números ficam em
+ * arrays contínuos, little-endian (ordem nativa de x86 e ARM) e alinhados em 8 bytes, então
+ * cada array é lido com uma cópia em bloco, sem interpretar texto nem reconstruir o CSR
+ *
+ * Layout (formato 1):
+ * - cabeçalho, 64 bytes: magic "RMAP" | formato u16 | reservado u16 | versão do mapa i64 |
+ *   nós i32 | arestas i32 | entradas i32 | rotas i32 | nomes i32 | bytes dos nomes i32 |
+ *   tamanho do arquivo i64 | CRC32 do corpo u32 | reservado (12 bytes)
+ * - nomes: fim de cada nome i32[nomes] | bytes UTF-8 (os nós ocupam os primeiros índices)
+ * - nós: x f64[nós] | y f64[nós] (NaN = posição desconhecida)
+ * - CSR: inicio i32[nós + 1] | vizinho i32[entradas] | aresta i32[entradas] | peso f64[entradas]
+ * - arestas: origem i32[arestas] | destino i32[arestas] | distância f64[arestas]
+ * - rotas, uma após a outra: id i64 | distância f64 | nome i32 | comando i32 (-1 = nenhum) |
+ *   nós i32 | arestas i32 | instruções i32 | reservado i32 | nós i32[] | arestas i32[] | instruções i64[]
+ * Cada array começa num múltiplo de 8 bytes; nós e arestas das rotas são índices da tabela de nomes
+ */
+public final class SnapshotMapa {
+
+    public static final int FORMATO = 1;
+    
+    private static final int MAGIC = 0x50414D52;   // bytes "RMAP" lidos em little-endian
+    private static final int CABECALHO = 64;
+    
+    private final long versao;
+    private final long crc;
+    private final Grafo grafo;
+    private final List<Aresta> arestas;
+    private final Map<String, Posicao> posicoes;
+    private final TabelaSimbolos simbolos;
+    private final List<RotaCompacta> rotas;
+    
+    private SnapshotMapa(long versao, long crc, Grafo grafo, List<Aresta> arestas, Map<String, Posicao> posicoes,
+                         TabelaSimbolos simbolos, List<RotaCompacta> rotas) {
+        this.versao = versao;
+        this.crc = crc;
+        this.grafo = grafo;
+        this.arestas = arestas;
+        this.posicoes = posicoes;
+        this.simbolos = simbolos;
+        this.rotas = rotas;
+    }
+    
+    /**
+     * Lê um snapshot mapeando o arquivo em memória
+     * Os arrays são copiados para o heap e o mapeamento é descartado em seguida, então o arquivo
+     * pode ser substituído logo depois (a próxima versão do mapa)
+     * @throws IOException se o arquivo não puder ser lido ou não for um snapshot válido e completo
+     */
+    public static SnapshotMapa ler(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            if (tamanho < CABECALHO || tamanho > Integer.MAX_VALUE) {
+                throw invalido("tamanho de " + tamanho + " bytes");
+            }
+            ByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho).order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                return ler(dados);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw invalido("seções maiores que o arquivo");
+            }
+        }
+    }
+    
+    private static SnapshotMapa ler(ByteBuffer dados) throws IOException {
+        if (dados.getInt(0) != MAGIC) {
+            throw invalido("o arquivo não é um snapshot de mapa");
+        }
+        int formato = Short.toUnsignedInt(dados.getShort(4));
+        if (formato != FORMATO) {
+            throw invalido("formato " + formato + " não suportado (esperado " + FORMATO + ")");
+        }
+        long versao = dados.getLong(8);
+        int numeroDeNos = dados.getInt(16);
+        int numeroDeArestas = dados.getInt(20);
+        int numeroDeEntradas = dados.getInt(24);
+        int numeroDeRotas = dados.getInt(28);
+        int numeroDeNomes = dados.getInt(32);
+        int bytesNomes = dados.getInt(36);
+        long tamanho = dados.getLong(40);
+        long crc = Integer.toUnsignedLong(dados.getInt(48));
+        
+        // Tamanho e CRC pegam arquivos ainda sendo gravados ou corrompidos antes de qualquer troca
+        if (tamanho != dados.limit()) {
+            throw invalido("tamanho declarado de " + tamanho + " bytes, arquivo com " + dados.limit() + " (gravação incompleta?)");
+        }
+        CRC32 calculado = new CRC32();
+        calculado.update(dados.slice(CABECALHO, dados.limit() - CABECALHO));
+        if (calculado.getValue() != crc) {
+            throw invalido("CRC32 não confere");
+        }
+        if (numeroDeNos < 0 || numeroDeArestas < 0 || numeroDeRotas < 0 || bytesNomes < 0
+                || numeroDeNomes < numeroDeNos || numeroDeEntradas != 2 * numeroDeArestas) {
+            throw invalido("contagens inconsistentes no cabeçalho");
+        }
+        
+        Leitor leitor = new Leitor(dados);
+        String[] nomes = lerNomes(leitor, numeroDeNomes, bytesNomes);
+        TabelaSimbolos simbolos = new TabelaSimbolos();
+        for (int i = 0; i < nomes.length; i++) {
+            if (simbolos.internar(nomes[i]) != i) {
+                throw invalido("nome repetido na tabela: " + nomes[i]);
+            }
+        }
+        
+        double[] xs = leitor.doubles(numeroDeNos);
+        double[] ys = leitor.doubles(numeroDeNos);
+        int[] inicio = leitor.ints(numeroDeNos + 1);
+        int[] vizinhos = leitor.ints(numeroDeEntradas);
+        int[] arestasEntradas = leitor.ints(numeroDeEntradas);
+        double[] pesos = leitor.doubles(numeroDeEntradas);
+        int[] origens = leitor.ints(numeroDeArestas);
+        int[] destinos = leitor.ints(numeroDeArestas);
+        double[] distancias = leitor.doubles(numeroDeArestas);
+        
+        // Uma passada linear nos índices: um snapshot mal gerado não pode derrubar as buscas depois da troca
+        if (inicio[0] != 0 || inicio[numeroDeNos] != numeroDeEntradas) {
+            throw invalido("CSR com limites inválidos");
+        }
+        for (int u = 0; u < numeroDeNos; u++) {
+            if (inicio[u + 1] < inicio[u]) {
+                throw invalido("CSR fora de ordem no nó " + nomes[u]);
+            }
+        }
+        for (int e = 0; e < numeroDeEntradas; e++) {
+            verificarIndice(vizinhos[e], numeroDeNos, "vizinho");
+            verificarIndice(arestasEntradas[e], numeroDeArestas, "aresta");
+        }
+        
+        List<Aresta> arestas = new ArrayList<>(numeroDeArestas);
+        for (int i = 0; i < numeroDeArestas; i++) {
+            verificarIndice(origens[i], numeroDeNos, "origem");
+            verificarIndice(destinos[i], numeroDeNos, "destino");
+            arestas.add(new Aresta(nomes[origens[i]], nomes[destinos[i]], distancias[i]));
+        }
+        
+        Map<String, Posicao> posicoes = new HashMap<>();
+        for (int u = 0; u < numeroDeNos; u++) {
+            if (!Double.isNaN(xs[u])) {
+                posicoes.put(nomes[u], new Posicao(xs[u], ys[u]));
+            }
+        }
+        
+        List<RotaCompacta> rotas = new ArrayList<>();
+        for (int r = 0; r < numeroDeRotas; r++) {
+            rotas.add(lerRota(leitor, nomes, simbolos));
+        }
+        
+        Grafo grafo = Grafo.deArrays(Arrays.copyOf(nomes, numeroDeNos), inicio, vizinhos, pesos, arestasEntradas,
+                xs, ys, numeroDeArestas);
+        return new SnapshotMapa(versao, crc, grafo, Collections.unmodifiableList(arestas),
+                Collections.unmodifiableMap(posicoes), simbolos, Collections.unmodifiableList(rotas));
+    }
+    
+    private static String[] lerNomes(Leitor leitor, int numeroDeNomes, int bytesNomes) throws IOException {
+        int[] fins = leitor.ints(numeroDeNomes);
+        byte[] bytes = leitor.bytes(bytesNomes);
+        String[] nomes = new String[numeroDeNomes];
+        int inicio = 0;
+        for (int i = 0; i < numeroDeNomes; i++) {
+            if (fins[i] < inicio || fins[i] > bytesNomes) {
+                throw invalido("tabela de nomes inválida");
+            }
+            nomes[i] = new String(bytes, inicio, fins[i] - inicio, StandardCharsets.UTF_8);
+            inicio = fins[i];
+        }
+        return nomes;
+    }
+    
+    private static RotaCompacta lerRota(Leitor leitor, String[] nomes, TabelaSimbolos simbolos) throws IOException {
+        long id = leitor.longo();
+        double distancia = leitor.duplo();
+        int[] campos = leitor.ints(6);     // nome, comando, nós, arestas, instruções, reservado
+        int nome = campos[0];
+        int comando = campos[1];
+        
+        int[] nos = leitor.ints(campos[2]);
+        int[] arestas = leitor.ints(campos[3]);
+        long[] instrucoes = leitor.longs(campos[4]);
+        
+        verificarIndice(nome, nomes.length, "nome de rota");
+        if (comando != -1) {
+            verificarIndice(comando, nomes.length, "comando de rota");
+        }
+        for (int no : nos) {
+            verificarIndice(no, nomes.length, "nó de rota");
+        }
+        for (int aresta : arestas) {
+            verificarIndice(aresta, nomes.length, "aresta de rota");
+        }
+        return new RotaCompacta(id, nomes[nome], comando == -1 ? null : nomes[comando], simbolos,
+                nos, arestas, instrucoes, distancia);
+    }
+    
+    /**
+     * Gera o snapshot de um mapa
+     * O grafo é reconstruído a partir das arestas para que os índices de aresta do CSR
+     * correspondam à ordem gravada na seção de arestas
+     * @param versao versão do mapa, escolhida por quem gera (ex: instante da exportação em ms)
+     */
+    public static byte[] gravar(long versao, Collection<Aresta> colecao, Map<String, Posicao> posicoes,
+                                Collection<RotaCompacta> rotas) {
+        List<Aresta> lista = new ArrayList<>(colecao);
+        Grafo grafo = Grafo.construir(lista, posicoes);
+        int n = grafo.numeroDeNos();
+        int entradas = grafo.numeroDeEntradas();
+        
+        // Tabela de nomes: nós primeiro (índice do nome = índice do nó), depois os nomes usados pelas rotas
+        Map<String, Integer> indices = new LinkedHashMap<>();
+        for (int u = 0; u < n; u++) {
+            indices.put(grafo.nomeDe(u), u);
+        }
+        List<int[]> nosRotas = new ArrayList<>(rotas.size());
+        List<int[]> arestasRotas = new ArrayList<>(rotas.size());
+        for (RotaCompacta rota : rotas) {
+            indice(indices, rota.getNome());
+            if (rota.getComando() != null) {
+                indice(indices, rota.getComando());
+            }
+            nosRotas.add(indices(indices, rota.getNosPercorridos()));
+            arestasRotas.add(indices(indices, rota.getArestasPercorridas()));
+        }
+        
+        int[] fins = new int[indices.size()];
+        byte[][] nomes = new byte[indices.size()][];
+        int bytesNomes = 0;
+        int i = 0;
+        for (String nome : indices.keySet()) {
+            nomes[i] = nome.getBytes(StandardCharsets.UTF_8);
+            bytesNomes += nomes[i].length;
+            fins[i++] = bytesNomes;
+        }
+        
+        Escritor escritor = new Escritor(CABECALHO + 8L * (3L * n + 3L * entradas + 3L * lista.size()) + bytesNomes);
+        byte[] bloco = new byte[bytesNomes];
+        for (int k = 0; k < nomes.length; k++) {
+            System.arraycopy(nomes[k], 0, bloco, k == 0 ? 0 : fins[k - 1], nomes[k].length);
+        }
+        escritor.ints(fins);
+        escritor.bytes(bloco);
+        
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] inicio = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            xs[u] = grafo.x(u);
+            ys[u] = grafo.y(u);
+            inicio[u + 1] = grafo.fimAdjacencia(u);
+        }
+        escritor.doubles(xs);
+        escritor.doubles(ys);
+        
+        int[] vizinhos = new int[entradas];
+        int[] arestasEntradas = new int[entradas];
+        double[] pesos = new double[entradas];
+        for (int e = 0; e < entradas; e++) {
+            vizinhos[e] = grafo.vizinho(e);
+            arestasEntradas[e] = grafo.aresta(e);
+            pesos[e] = grafo.peso(e);
+        }
+        escritor.ints(inicio);
+        escritor.ints(vizinhos);
+        escritor.ints(arestasEntradas);
+        escritor.doubles(pesos);
+        
+        int[] origens = new int[lista.size()];
+        int[] destinos = new int[lista.size()];
+        double[] distancias = new double[lista.size()];
+        for (int a = 0; a < lista.size(); a++) {
+            origens[a] = grafo.indiceDe(lista.get(a).getOrigem());
+            destinos[a] = grafo.indiceDe(lista.get(a).getDestino());
+            distancias[a] = lista.get(a).getDistancia();
+        }
+        escritor.ints(origens);
+        escritor.ints(destinos);
+        escritor.doubles(distancias);
+        
+        int r = 0;
+        for (RotaCompacta rota : rotas) {
+            long[] instrucoes = new long[rota.getNumeroDeInstrucoes()];
+            for (int k = 0; k < instrucoes.length; k++) {
+                instrucoes[k] = rota.instrucao(k);
+            }
+            escritor.longo(rota.getId());
+            escritor.duplo(rota.getDistanciaTotal());
+            escritor.ints(new int[]{
+                    indices.get(rota.getNome()),
+                    rota.getComando() != null ? indices.get(rota.getComando()) : -1,
+                    nosRotas.get(r).length,
+                    arestasRotas.get(r).length,
+                    instrucoes.length,
+                    0});
+            escritor.ints(nosRotas.get(r));
+            escritor.ints(arestasRotas.get(r));
+            escritor.longs(instrucoes);
+            r++;
+        }
+        
+        return escritor.concluir(versao, n, lista.size(), entradas, rotas.size(), indices.size(), bytesNomes);
+    }
+    
+    private static int indice(Map<String, Integer> indices, String nome) {
+        return indices.computeIfAbsent(nome, k -> indices.size());
+    }
+    
+    private static int[] indices(Map<String, Integer> indices, List<String> nomes) {
+        int[] resultado = new int[nomes.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = indice(indices, nomes.get(i));
+        }
+        return resultado;
+    }
+    
+    private static void verificarIndice(int indice, int limite, String campo) throws IOException {
+        if (indice < 0 || indice >= limite) {
+            throw invalido(campo + " com índice " + indice + " fora de [0, " + limite + ")");
+        }
+    }
+    
+    private static IOException invalido(String motivo) {
+        return new IOException("Snapshot de mapa inválido: " + motivo);
+    }
+    
+    /**
+     * Versão do mapa gravada por quem gerou o snapshot
+     */
+    public long getVersao() {
+        return versao;
+    }
+    
+    /**
+     * CRC32 do corpo: junto com a versão, identifica o conteúdo do snapshot
+     */
+    public long getCrc() {
+        return crc;
+    }
+    
+    public Grafo getGrafo() {
+        return grafo;
+    }
+    
+    /**
+     * Arestas na ordem de construção do grafo (a mesma de Grafo.aresta)
+     */
+    public List<Aresta> getArestas() {
+        return arestas;
+    }
+    
+    public Map<String, Posicao> getPosicoes() {
+        return posicoes;
+    }
+    
+    /**
+     * Tabela de nomes das rotas do snapshot (os índices gravados no arquivo)
+     */
+    public TabelaSimbolos getSimbolos() {
+        return simbolos;
+    }
+    
+    public List<RotaCompacta> getRotas() {
+        return rotas;
+    }
+    
+    /**
+     * Cursor de leitura sobre o buffer mapeado: cada array é alinhado em 8 bytes e lido numa cópia em bloco
+     */
+    private static final class Leitor {
+        private final ByteBuffer dados;
+        private int posicao = CABECALHO;
+        
+        Leitor(ByteBuffer dados) {
+            this.dados = dados;
+        }
+        
+        int[] ints(int n) {
+            int[] valores = new int[reservar(n, 4)];
+            dados.position(posicao).asIntBuffer().get(valores);
+            posicao += 4 * n;
+            return valores;
+        }
+        
+        long[] longs(int n) {
+            long[] valores = new long[reservar(n, 8)];
+            dados.position(posicao).asLongBuffer().get(valores);
+            posicao += 8 * n;
+            return valores;
+        }
+        
+        double[] doubles(int n) {
+            double[] valores = new double[reservar(n, 8)];
+            dados.position(posicao).asDoubleBuffer().get(valores);
+            posicao += 8 * n;
+            return valores;
+        }
+        
+        byte[] bytes(int n) {
+            byte[] valores = new byte[reservar(n, 1)];
+            dados.get(posicao, valores);
+            posicao += n;
+            return valores;
+        }
+        
+        long longo() {
+            long valor = dados.getLong(alinhar());
+            posicao += 8;
+            return valor;
+        }
+        
+        double duplo() {
+            double valor = dados.getDouble(alinhar());
+            posicao += 8;
+            return valor;
+        }
+        
+        /**
+         * Alinha o cursor e confere se n elementos cabem no arquivo antes de alocar o array
+         * (uma contagem corrompida não pode virar uma alocação gigante)
+         */
+        private int reservar(int n, int tamanhoElemento) {
+            alinhar();
+            if (n < 0 || (long) n * tamanhoElemento > dados.limit() - posicao) {
+                throw new BufferUnderflowException();
+            }
+            return n;
+        }
+        
+        private int alinhar() {
+            posicao = (posicao + 7) & ~7;
+            return posicao;
+        }
+    }
+    
+    /**
+     * Cursor de escrita: buffer no heap que cresce conforme necessário, com arrays alinhados em 8 bytes
+     * (o buffer novo vem zerado, então o alinhamento só avança a posição)
+     */
+    private static final class Escritor {
+        private ByteBuffer dados;
+        
+        Escritor(long estimativa) {
+            this.dados = ByteBuffer.allocate((int) Math.min(estimativa, Integer.MAX_VALUE - 8))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            dados.position(CABECALHO);
+        }
+        
+        void ints(int[] valores) {
+            reservar(4L * valores.length);
+            dados.asIntBuffer().put(valores);
+            dados.position(dados.position() + 4 * valores.length);
+        }
+        
+        void longs(long[] valores) {
+            reservar(8L * valores.length);
+            dados.asLongBuffer().put(valores);
+            dados.position(dados.position() + 8 * valores.length);
+        }
+        
+        void doubles(double[] valores) {
+            reservar(8L * valores.length);
+            dados.asDoubleBuffer().put(valores);
+            dados.position(dados.position() + 8 * valores.length);
+        }
+        
+        void bytes(byte[] valores) {
+            reservar(valores.length);
+            dados.put(valores);
+        }
+        
+        void longo(long valor) {
+            reservar(8);
+            dados.putLong(valor);
+        }
+        
+        void duplo(double valor) {
+            reservar(8);
+            dados.putDouble(valor);
+        }
+        
+        /**
+         * Preenche o cabeçalho (contagens, tamanho e CRC32 do corpo) e devolve o arquivo completo
+         */
+        byte[] concluir(long versao, int nos, int arestas, int entradas, int rotas, int nomes, int bytesNomes) {
+            int tamanho = dados.position();
+            dados.putInt(0, MAGIC);
+            dados.putShort(4, (short) FORMATO);
+            dados.putLong(8, versao);
+            dados.putInt(16, nos);
+            dados.putInt(20, arestas);
+            dados.putInt(24, entradas);
+            dados.putInt(28, rotas);
+            dados.putInt(32, nomes);
+            dados.putInt(36, bytesNomes);
+            dados.putLong(40, tamanho);
+            CRC32 crc = new CRC32();
+            crc.update(dados.array(), CABECALHO, tamanho - CABECALHO);
+            dados.putInt(48, (int) crc.getValue());
+            return Arrays.copyOf(dados.array(), tamanho);
+        }
+        
+        /**
+         * Alinha a posição em 8 bytes e garante espaço para o enchimento mais os dados
+         * (o buffer pode ter crescido até um tamanho que não é múltiplo de 8)
+         */
+        private void reservar(long bytes) {
+            int alinhada = (dados.position() + 7) & ~7;
+            garantir(alinhada - dados.position() + bytes);
+            dados.position(alinhada);
+        }
+        
+        private void garantir(long bytes) {
+            if (dados.remaining() >= bytes) {
+                return;
+            }
+            long necessario = dados.position() + bytes;
+            if (necessario > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Mapa grande demais para um snapshot (" + necessario + " bytes)");
+            }
+            ByteBuffer maior = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(necessario, 2L * dados.capacity()))).order(ByteOrder.LITTLE_ENDIAN);
+            int posicao = dados.position();
+            maior.put(dados.array(), 0, posicao);
+            dados = maior;
+        }
+    }
+}
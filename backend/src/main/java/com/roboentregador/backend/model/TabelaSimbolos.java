@@ -0,0 +1,59 @@
+package com.roboentregador.backend.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela de nomes internados (somente inclusão)
+ * Cada nome distinto (ex: "A", "AB") é guardado uma única vez e passa a ser
+ * referenciado por um índice inteiro nas rotas compactas
+ */
+public final class TabelaSimbolos {
+
+    private final Map<String, Integer> indices = new ConcurrentHashMap<>();
+    private volatile String[] nomes = new String[16];
+    private int tamanho;
+    
+    /**
+     * Retorna o índice do nome, incluindo-o na tabela se ainda não existir
+     */
+    public int internar(String nome) {
+        Integer indice = indices.get(nome);
+        if (indice != null) {
+            return indice;
+        }
+        
+        synchronized (this) {
+            indice = indices.get(nome);
+            if (indice != null) {
+                return indice;
+            }
+            
+            String[] atual = nomes;
+            if (tamanho == atual.length) {
+                atual = Arrays.copyOf(atual, atual.length * 2);
+            }
+            atual[tamanho] = nome;
+            nomes = atual; // publica o array (volatile) antes de expor o índice
+            indices.put(nome, tamanho);
+            return tamanho++;
+        }
+    }
+    
+    /**
+     * Retorna o índice de um nome já internado, ou -1
+     */
+    public int indiceDe(String nome) {
+        Integer indice = indices.get(nome);
+        return indice != null ? indice : -1;
+    }
+    
+    public String nomeDe(int indice) {
+        return nomes[indice];
+    }
+    
+    public int tamanho() {
+        return indices.size();
+    }
+}
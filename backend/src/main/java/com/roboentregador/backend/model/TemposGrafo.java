@@ -0,0 +1,130 @@
+package com.roboentregador.backend.model;
+
+/**
+ * Tempos de percurso de um Grafo em milissegundos, usados pela busca do caminho mais rápido
+ * e pelas durações estimadas (tempoEstimado)
+ * - tempo de cada entrada de adjacência: aprendido nas execuções ou, sem amostras, peso · ms por cm
+ * - giros em ms por grau, à esquerda e à direita, com a mesma geometria do compilador de rotas
+ *   (rumo inicial, giros menores que o ângulo mínimo ignorados)
+ * - estimativa para o A*: linha reta vezes a menor razão tempo / linha reta entre as entradas,
+ *   admissível e consistente como Grafo.estimativa para distâncias
+ * Imutável: cada aprendizado novo gera outro TemposGrafo
+ */
+public final class TemposGrafo {
+
+    private final Grafo grafo;
+    private final double[] tempos;              // ms de cada entrada de adjacência
+    private final double msPorGrauEsquerda;
+    private final double msPorGrauDireita;
+    private final double anguloMinimo;
+    private final double rumoInicial;
+    private final double escalaEstimativa;      // ms por cm de linha reta; 0 = sem estimativa
+    
+    public TemposGrafo(Grafo grafo, double[] tempos, double msPorGrauEsquerda, double msPorGrauDireita,
+                       double anguloMinimo, double rumoInicial) {
+        this.grafo = grafo;
+        this.tempos = tempos;
+        this.msPorGrauEsquerda = msPorGrauEsquerda;
+        this.msPorGrauDireita = msPorGrauDireita;
+        this.anguloMinimo = anguloMinimo;
+        this.rumoInicial = rumoInicial;
+        this.escalaEstimativa = calcularEscalaEstimativa();
+    }
+    
+    /**
+     * Mesma construção de Grafo.calcularEscalaEstimativa, com o tempo no lugar do peso
+     */
+    private double calcularEscalaEstimativa() {
+        if (!grafo.temEstimativa()) {
+            return 0;
+        }
+        double escala = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < grafo.numeroDeNos(); u++) {
+            for (int e = grafo.inicioAdjacencia(u); e < grafo.fimAdjacencia(u); e++) {
+                double reta = grafo.reta(u, grafo.vizinho(e));
+                if (reta > 0) {
+                    escala = Math.min(escala, tempos[e] / reta);
+                }
+            }
+        }
+        return Double.isInfinite(escala) ? 0 : escala * (1 - 1e-9);
+    }
+    
+    public Grafo getGrafo() {
+        return grafo;
+    }
+    
+    /**
+     * Tempo para percorrer uma entrada de adjacência, em ms
+     */
+    public double tempo(int entrada) {
+        return tempos[entrada];
+    }
+    
+    public double getMsPorGrauEsquerda() {
+        return msPorGrauEsquerda;
+    }
+    
+    public double getMsPorGrauDireita() {
+        return msPorGrauDireita;
+    }
+    
+    /**
+     * Indica se estimativa() pode guiar uma busca (todas as posições conhecidas)
+     */
+    public boolean temEstimativa() {
+        return escalaEstimativa > 0;
+    }
+    
+    /**
+     * Limite inferior do tempo pelo grafo entre dois nós, em ms (0 sem estimativa)
+     */
+    public double estimativa(int no, int destino) {
+        if (escalaEstimativa == 0) {
+            return 0;
+        }
+        return escalaEstimativa * grafo.reta(no, destino);
+    }
+    
+    /**
+     * Tempo de um giro em ms (positivo à esquerda, negativo à direita)
+     */
+    public double tempoGiro(double giro) {
+        return Math.abs(giro) * (giro > 0 ? msPorGrauEsquerda : msPorGrauDireita);
+    }
+    
+    /**
+     * Giro feito antes de cada trecho de uma sequência de nós, como o compilador de rotas os gera:
+     * 0 quando fica abaixo do ângulo mínimo ou algum dos nós não tem posição
+     */
+    public double[] giros(int[] nos) {
+        double[] giros = new double[Math.max(0, nos.length - 1)];
+        double rumo = rumoInicial;
+        for (int i = 0; i + 1 < nos.length; i++) {
+            if (grafo.temPosicao(nos[i]) && grafo.temPosicao(nos[i + 1])) {
+                double novoRumo = grafo.rumo(nos[i], nos[i + 1]);
+                double giro = Grafo.giro(rumo, novoRumo);
+                giros[i] = Math.abs(giro) >= anguloMinimo ? giro : 0;
+                rumo = novoRumo;
+            }
+        }
+        return giros;
+    }
+    
+    /**
+     * Duração estimada de uma sequência de nós em ms: trechos mais giros
+     * @return NaN se dois nós consecutivos não forem vizinhos
+     */
+    public double estimar(int[] nos) {
+        double[] giros = giros(nos);
+        double total = 0;
+        for (int i = 0; i + 1 < nos.length; i++) {
+            int entrada = grafo.entrada(nos[i], nos[i + 1]);
+            if (entrada < 0) {
+                return Double.NaN;
+            }
+            total += tempos[entrada] + tempoGiro(giros[i]);
+        }
+        return total;
+    }
+}
@@ -1,6 +1,8 @@
 package com.roboentregador.backend.repository;
 
 import com.roboentregador.backend.model.Aresta;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.Posicao;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
@@ -13,10 +15,17 @@ import java.util.*;
 public class ArestaRepository {
     
     private final Map<String, Aresta> arestas;
+    private final Map<String, Posicao> posicoes;
+    
+    // Visão compacta (CSR) das arestas, usada pelas buscas de caminho
+    private volatile Grafo grafo;
     
     public ArestaRepository() {
         this.arestas = new HashMap<>();
+        this.posicoes = new HashMap<>();
         inicializarArestas();
+        inicializarPosicoes();
+        this.grafo = Grafo.construir(arestas.values(), posicoes);
     }
     
     /**
@@ -34,6 +43,20 @@ public class ArestaRepository {
         adicionarAresta("E", "G", 44.0);    // EG - 44cm
     }
     
+    /**
+     * Posições dos nós na planta em centímetros, com A na origem e G à frente
+     * Medidas para reproduzir o comprimento de cada aresta (erro menor que 1cm)
+     */
+    private void inicializarPosicoes() {
+        posicoes.put("A", new Posicao(0, 0));
+        posicoes.put("B", new Posicao(-34, 36));
+        posicoes.put("C", new Posicao(51, 41));
+        posicoes.put("D", new Posicao(4, 82));
+        posicoes.put("E", new Posicao(-37, 100));
+        posicoes.put("F", new Posicao(47, 102));
+        posicoes.put("G", new Posicao(-2, 127));
+    }
+    
     /**
      * Adiciona uma aresta ao repositório
      */
@@ -42,10 +65,88 @@ public class ArestaRepository {
         arestas.put(aresta.getId(), aresta);
     }
     
+    /**
+     * Adiciona ou atualiza uma aresta e reconstrói o grafo compacto
+     * Quem guarda dados derivados do grafo detecta a troca pela referência de getGrafo()
+     */
+    public synchronized Aresta salvar(Aresta aresta) {
+        if (!arestas.containsKey(aresta.getId())) {
+            // Mesma ligação cadastrada no sentido oposto (ex: "BA" substitui "AB")
+            arestas.remove(aresta.getDestino() + aresta.getOrigem());
+        }
+        arestas.put(aresta.getId(), aresta);
+        this.grafo = Grafo.construir(arestas.values(), posicoes);
+        return aresta;
+    }
+    
+    /**
+     * Adiciona ou atualiza várias arestas e posições reconstruindo o grafo compacto uma única vez
+     * (salvar() reconstrói a cada aresta, o que fica quadrático em cargas grandes)
+     */
+    public synchronized void salvarTodas(Collection<Aresta> novas, Map<String, Posicao> novasPosicoes) {
+        for (Aresta aresta : novas) {
+            if (!arestas.containsKey(aresta.getId())) {
+                arestas.remove(aresta.getDestino() + aresta.getOrigem());  // mesma regra de salvar()
+            }
+            arestas.put(aresta.getId(), aresta);
+        }
+        posicoes.putAll(novasPosicoes);
+        this.grafo = Grafo.construir(arestas.values(), posicoes);
+    }
+    
+    /**
+     * Troca o mapa inteiro (arestas, posições e grafo já construído) numa única publicação
+     * Usado na recarga de um SnapshotMapa: quem está no meio de uma busca continua com o grafo antigo
+     * e as próximas chamadas de getGrafo() já recebem o novo
+     */
+    public synchronized void substituir(Collection<Aresta> novas, Map<String, Posicao> novasPosicoes, Grafo novoGrafo) {
+        arestas.clear();
+        for (Aresta aresta : novas) {
+            arestas.put(aresta.getId(), aresta);
+        }
+        posicoes.clear();
+        posicoes.putAll(novasPosicoes);
+        this.grafo = novoGrafo;
+    }
+    
+    /**
+     * Remove uma aresta pelo ID e reconstrói o grafo compacto
+     * @return true se a aresta existia
+     */
+    public synchronized boolean remover(String id) {
+        if (arestas.remove(id) == null) {
+            return false;
+        }
+        this.grafo = Grafo.construir(arestas.values(), posicoes);
+        return true;
+    }
+    
+    /**
+     * Define a posição de um nó na planta e reconstrói o grafo compacto
+     */
+    public synchronized void salvarPosicao(String no, Posicao posicao) {
+        posicoes.put(no, posicao);
+        this.grafo = Grafo.construir(arestas.values(), posicoes);
+    }
+    
+    /**
+     * Busca a posição de um nó (ex: "A")
+     */
+    public synchronized Optional<Posicao> findPosicao(String no) {
+        return Optional.ofNullable(posicoes.get(no));
+    }
+    
+    /**
+     * Retorna as posições conhecidas de todos os nós
+     */
+    public synchronized Map<String, Posicao> findAllPosicoes() {
+        return new HashMap<>(posicoes);
+    }
+    
     /**
      * Busca uma aresta pelo ID (ex: "AB")
      */
-    public Optional<Aresta> findById(String id) {
+    public synchronized Optional<Aresta> findById(String id) {
         return Optional.ofNullable(arestas.get(id));
     }
     
@@ -59,26 +160,39 @@ public class ArestaRepository {
     /**
      * Retorna todas as arestas
      */
-    public List<Aresta> findAll() {
+    public synchronized List<Aresta> findAll() {
         return new ArrayList<>(arestas.values());
     }
     
+    /**
+     * Retorna o grafo compacto construído a partir das arestas
+     */
+    public Grafo getGrafo() {
+        return grafo;
+    }
+    
     /**
      * Calcula a distância total de um caminho
+     * Usa os índices do grafo compacto: cada salto é uma varredura curta da adjacência,
+     * sem montar chaves String, e aceita arestas percorridas em qualquer sentido
      * @param caminho Lista de nós (ex: ["A", "B", "E", "G"])
      * @return Distância total em centímetros
      */
     public double calcularDistanciaTotal(List<String> caminho) {
+        Grafo atual = grafo;
         double distanciaTotal = 0.0;
         
-        for (int i = 0; i < caminho.size() - 1; i++) {
-            String origem = caminho.get(i);
-            String destino = caminho.get(i + 1);
+        int anterior = caminho.isEmpty() ? -1 : atual.indiceDe(caminho.get(0));
+        for (int i = 1; i < caminho.size(); i++) {
+            int proximo = atual.indiceDe(caminho.get(i));
             
-            Optional<Aresta> aresta = findByOrigemDestino(origem, destino);
-            if (aresta.isPresent()) {
-                distanciaTotal += aresta.get().getDistancia();
+            if (anterior >= 0 && proximo >= 0) {
+                int entrada = atual.entrada(anterior, proximo);
+                if (entrada >= 0) {
+                    distanciaTotal += atual.peso(entrada);
+                }
             }
+            anterior = proximo;
         }
         
         return distanciaTotal;
@@ -0,0 +1,113 @@
+package com.roboentregador.backend.repository;
+
+import com.roboentregador.backend.model.Robo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registro dos robôs da frota
+ * Cada robô é uma ESP8266 identificada por id e endereço (host:porta HTTP e porta do canal binário)
+ */
+@Repository
+public class RoboRepository {
+
+    private final Map<String, Robo> robos;
+    private final int portaCanalPadrao;
+    
+    /**
+     * Lê a frota de frota.robos (ex: "robo-1=192.168.15.181:80,robo-2=192.168.15.182:80:8266")
+     * A terceira parte é a porta do canal binário (padrão esp8266.canal.porta, 0 = só HTTP)
+     * Sem essa propriedade, registra um único robô a partir de esp8266.host/esp8266.port
+     */
+    public RoboRepository(@Value("${frota.robos:}") String frota,
+                          @Value("${esp8266.host:192.168.1.100}") String hostPadrao,
+                          @Value("${esp8266.port:80}") int portaPadrao,
+                          @Value("${esp8266.canal.porta:8266}") int portaCanalPadrao) {
+        this.robos = new ConcurrentSkipListMap<>();
+        this.portaCanalPadrao = portaCanalPadrao;
+        inicializarFrota(frota, hostPadrao, portaPadrao);
+    }
+    
+    private void inicializarFrota(String frota, String hostPadrao, int portaPadrao) {
+        for (String item : frota.split(",")) {
+            String definicao = item.trim();
+            if (definicao.isEmpty()) {
+                continue;
+            }
+            
+            String[] partes = definicao.split("=", 2);
+            if (partes.length < 2 || partes[0].isBlank() || partes[1].isBlank()) {
+                throw new IllegalStateException("frota.robos: entrada inválida '" + definicao
+                        + "' (esperado id=host[:porta[:portaCanal]])");
+            }
+            String[] endereco = partes[1].trim().split(":", 3);
+            if (endereco[0].isBlank()) {
+                throw new IllegalStateException("frota.robos: entrada sem host '" + definicao + "'");
+            }
+            int porta = endereco.length > 1 ? lerPorta(endereco[1], 1, definicao) : 80;
+            int portaCanal = endereco.length > 2 ? lerPorta(endereco[2], 0, definicao) : portaCanalPadrao;
+            save(new Robo(partes[0].trim(), endereco[0].trim(), porta, portaCanal));
+        }
+        
+        if (robos.isEmpty()) {
+            save(new Robo("robo-1", hostPadrao, portaPadrao, portaCanalPadrao));
+        }
+    }
+    
+    private static int lerPorta(String texto, int minima, String definicao) {
+        int porta;
+        try {
+            porta = Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            porta = -1;
+        }
+        if (porta < minima || porta > 65535) {
+            throw new IllegalStateException("frota.robos: porta inválida '" + texto.trim() + "' em '" + definicao + "'");
+        }
+        return porta;
+    }
+    
+    /**
+     * Porta do canal binário para robôs registrados sem informá-la
+     */
+    public int getPortaCanalPadrao() {
+        return portaCanalPadrao;
+    }
+    
+    /**
+     * Registra (ou substitui) um robô
+     */
+    public Robo save(Robo robo) {
+        robos.put(robo.getId(), robo);
+        return robo;
+    }
+    
+    /**
+     * Retorna todos os robôs ordenados por id
+     */
+    public List<Robo> findAll() {
+        return new ArrayList<>(robos.values());
+    }
+    
+    public Optional<Robo> findById(String id) {
+        return Optional.ofNullable(robos.get(id));
+    }
+    
+    public boolean existsById(String id) {
+        return robos.containsKey(id);
+    }
+    
+    /**
+     * Robô usado quando nenhum é especificado (o primeiro pela ordem de id)
+     */
+    public Optional<Robo> findPrincipal() {
+        return robos.values().stream().findFirst();
+    }
+    
+    public void deleteById(String id) {
+        robos.remove(id);
+    }
+}
@@ -4,23 +4,32 @@ import com.roboentregador.backend.model.*;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Repository para gerenciar as rotas
  * Demonstra ABSTRAÇÃO ao encapsular a lógica de acesso aos dados
  * Em um cenário real, poderia usar JPA/Hibernate com banco de dados
+ * As rotas são guardadas na forma compacta (RotaCompacta), com os nomes de nós
+ * e arestas internados numa única TabelaSimbolos
  */
 @Repository
 public class RotaRepository {
     
-    private final Map<Long, Rota> rotas;
+    // Trocados inteiros por substituir(); as leituras não bloqueiam
+    private volatile Map<Long, RotaCompacta> rotas;
+    private volatile TabelaSimbolos simbolos = new TabelaSimbolos();
+    
+    // Incrementada a cada alteração do catálogo, para invalidar caches derivados
+    private final AtomicLong versao = new AtomicLong();
     
     /**
      * Construtor que inicializa as rotas disponíveis
      * Demonstra POLIMORFISMO ao armazenar diferentes tipos de Rota
      */
     public RotaRepository() {
-        this.rotas = new HashMap<>();
+        this.rotas = new ConcurrentSkipListMap<>();
         inicializarRotas();
     }
     
@@ -37,26 +46,26 @@ public class RotaRepository {
         Rota rota6 = new Rota6();
         Rota rota7 = new Rota7();
         
-        rotas.put(rota1.getId(), rota1);
-        rotas.put(rota2.getId(), rota2);
-        rotas.put(rota3.getId(), rota3);
-        rotas.put(rota4.getId(), rota4);
-        rotas.put(rota5.getId(), rota5);
-        rotas.put(rota6.getId(), rota6);
-        rotas.put(rota7.getId(), rota7);
+        save(rota1);
+        save(rota2);
+        save(rota3);
+        save(rota4);
+        save(rota5);
+        save(rota6);
+        save(rota7);
     }
     
     /**
-     * Busca todas as rotas disponíveis
+     * Busca todas as rotas disponíveis (ordenadas por id)
      */
-    public List<Rota> findAll() {
+    public List<RotaCompacta> findAll() {
         return new ArrayList<>(rotas.values());
     }
     
     /**
      * Busca uma rota por ID
      */
-    public Optional<Rota> findById(Long id) {
+    public Optional<RotaCompacta> findById(Long id) {
         return Optional.ofNullable(rotas.get(id));
     }
     
@@ -66,4 +75,48 @@ public class RotaRepository {
     public boolean existsById(Long id) {
         return rotas.containsKey(id);
     }
+    
+    /**
+     * Adiciona ou substitui uma rota no catálogo, convertendo-a para a forma compacta
+     */
+    public RotaCompacta save(Rota rota) {
+        return save(RotaCompacta.de(rota, simbolos));
+    }
+    
+    /**
+     * Adiciona ou substitui uma rota já compacta no catálogo
+     */
+    public synchronized RotaCompacta save(RotaCompacta rota) {
+        rotas.put(rota.getId(), rota);
+        versao.incrementAndGet();
+        return rota;
+    }
+    
+    /**
+     * Troca o catálogo inteiro (recarga de um SnapshotMapa) numa única publicação
+     * As rotas novas já vêm compactas com a própria tabela de nomes, que passa a ser a do repositório
+     */
+    public synchronized void substituir(Collection<RotaCompacta> novas, TabelaSimbolos novosSimbolos) {
+        Map<Long, RotaCompacta> catalogo = new ConcurrentSkipListMap<>();
+        for (RotaCompacta rota : novas) {
+            catalogo.put(rota.getId(), rota);
+        }
+        this.simbolos = novosSimbolos;
+        this.rotas = catalogo;
+        versao.incrementAndGet();
+    }
+    
+    /**
+     * Tabela de nomes usada pelas rotas compactas deste repositório
+     */
+    public TabelaSimbolos getSimbolos() {
+        return simbolos;
+    }
+    
+    /**
+     * Versão atual do catálogo (muda a cada save e a cada substituição)
+     */
+    public long getVersao() {
+        return versao.get();
+    }
 }
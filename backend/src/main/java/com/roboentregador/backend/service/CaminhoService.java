@@ -0,0 +1,311 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.RotaDTO;
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.TemposGrafo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Serviço de busca de caminhos mínimos sobre o Grafo
+ * Usa Dijkstra com heap binário indexado em arrays primitivos; entre dois nós, quando o grafo conhece as
+ * posições de todos eles, a busca vira A*: o heap é ordenado pela distância percorrida mais a estimativa
+ * em linha reta até o destino (Grafo.estimativa), e os nós na direção oposta deixam de ser expandidos
+ * A mesma busca serve ao caminho mais rápido: os pesos viram os tempos de TemposGrafo (aprendidos nas execuções)
+ * e a estimativa, o limite inferior de tempo correspondente. Os giros ficam fora da busca (dependem do trecho
+ * de chegada) e entram só na duração estimada
+ * O espaço de trabalho é reaproveitado por thread para evitar alocações por consulta
+ */
+@Service
+public class CaminhoService {
+
+    private final TemposService temposService;
+    
+    private final ThreadLocal<EspacoBusca> espacos = ThreadLocal.withInitial(EspacoBusca::new);
+    
+    @Autowired
+    public CaminhoService(TemposService temposService) {
+        this.temposService = temposService;
+    }
+    
+    /**
+     * Calcula o caminho mais rápido entre dois nós pelo nome, com os tempos de percurso atuais
+     * Enquanto nada foi aprendido os tempos são proporcionais às distâncias e o caminho é o mínimo
+     * @return vazio se algum nó não existir ou se não houver ligação entre eles
+     */
+    public Optional<Caminho> calcularCaminho(String origem, String destino) {
+        TemposGrafo tempos = temposService.obterTempos();
+        Grafo grafo = tempos.getGrafo();
+        int o = grafo.indiceDe(origem);
+        int d = grafo.indiceDe(destino);
+        
+        if (o < 0 || d < 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(calcularCaminho(tempos, o, d));
+    }
+    
+    /**
+     * Calcula o caminho mínimo entre dois índices de nó de um grafo
+     * @return null se o destino for inalcançável
+     */
+    public Caminho calcularCaminho(Grafo grafo, int origem, int destino) {
+        return calcularCaminho(grafo, origem, destino, null, null);
+    }
+    
+    /**
+     * Calcula o caminho mínimo ignorando nós e entradas de adjacência bloqueados
+     * Usado pelo algoritmo de Yen para gerar caminhos alternativos
+     * @param nosBloqueados nós que não podem ser visitados (ou null)
+     * @param entradasBloqueadas entradas de adjacência que não podem ser usadas (ou null)
+     * @return null se o destino for inalcançável
+     */
+    public Caminho calcularCaminho(Grafo grafo, int origem, int destino,
+                                   boolean[] nosBloqueados, boolean[] entradasBloqueadas) {
+        return buscar(grafo, null, origem, destino, nosBloqueados, entradasBloqueadas);
+    }
+    
+    /**
+     * Calcula o caminho mais rápido entre dois índices de nó, pelos tempos de cada entrada
+     * A distância do Caminho continua em centímetros (soma dos pesos percorridos)
+     * @return null se o destino for inalcançável
+     */
+    public Caminho calcularCaminho(TemposGrafo tempos, int origem, int destino) {
+        return buscar(tempos.getGrafo(), tempos, origem, destino, null, null);
+    }
+    
+    /**
+     * Dijkstra / A* pelos pesos do grafo, ou pelos tempos quando tempos não é null
+     */
+    private Caminho buscar(Grafo grafo, TemposGrafo tempos, int origem, int destino,
+                           boolean[] nosBloqueados, boolean[] entradasBloqueadas) {
+        EspacoBusca espaco = espacos.get();
+        boolean estimar = tempos != null ? tempos.temEstimativa() : grafo.temEstimativa();
+        espaco.preparar(grafo.numeroDeNos(), estimar);
+        
+        espaco.relaxar(origem, 0.0, estimar ? estimativa(grafo, tempos, origem, destino) : 0.0, -1, -1);
+        
+        while (!espaco.heapVazio()) {
+            int u = espaco.extrairMinimo();
+            if (u == destino) {
+                break;
+            }
+            double base = espaco.distancia[u];
+            
+            for (int e = grafo.inicioAdjacencia(u); e < grafo.fimAdjacencia(u); e++) {
+                int v = grafo.vizinho(e);
+                if ((nosBloqueados != null && nosBloqueados[v])
+                        || (entradasBloqueadas != null && entradasBloqueadas[e])) {
+                    continue;
+                }
+                double nova = base + (tempos != null ? tempos.tempo(e) : grafo.peso(e));
+                boolean visitado = espaco.visitado(v);
+                if (!visitado || nova < espaco.distancia[v]) {
+                    // A estimativa de v não muda: depois da primeira vez, sai da prioridade já guardada
+                    double estimativa = !estimar ? 0.0 : visitado ? espaco.prioridade[v] - espaco.distancia[v]
+                            : estimativa(grafo, tempos, v, destino);
+                    espaco.relaxar(v, nova, nova + estimativa, u, e);
+                }
+            }
+        }
+        
+        if (!espaco.visitado(destino)) {
+            return null;
+        }
+        
+        // Reconstrói o caminho seguindo os predecessores
+        int tamanho = 1;
+        for (int v = destino; v != origem; v = espaco.anterior[v]) {
+            tamanho++;
+        }
+        int[] nos = new int[tamanho];
+        for (int v = destino, i = tamanho - 1; i >= 0; v = espaco.anterior[v], i--) {
+            nos[i] = v;
+        }
+        
+        // Pelos tempos, a distância soma os pesos das entradas que a busca de fato usou
+        // (com arestas paralelas, não necessariamente a primeira entre cada par de nós)
+        double distancia = espaco.distancia[destino];
+        if (tempos != null) {
+            distancia = 0;
+            for (int v = destino; v != origem; v = espaco.anterior[v]) {
+                distancia += grafo.peso(espaco.entradaAnterior[v]);
+            }
+        }
+        return new Caminho(grafo, nos, distancia);
+    }
+    
+    private static double estimativa(Grafo grafo, TemposGrafo tempos, int no, int destino) {
+        return tempos != null ? tempos.estimativa(no, destino) : grafo.estimativa(no, destino);
+    }
+    
+    /**
+     * Calcula as distâncias mínimas de uma origem para todos os nós (uma linha da matriz)
+     * @param distancias saída: distância até cada nó (infinito se inalcançável)
+     * @param anteriores saída: nó anterior a cada nó no caminho mínimo a partir da origem (-1 se não houver)
+     */
+    public void calcularArvore(Grafo grafo, int origem, double[] distancias, int[] anteriores) {
+        EspacoBusca espaco = espacos.get();
+        espaco.preparar(grafo.numeroDeNos(), false);
+        Arrays.fill(distancias, Double.POSITIVE_INFINITY);
+        Arrays.fill(anteriores, -1);
+        
+        espaco.relaxar(origem, 0.0, 0.0, -1, -1);
+        
+        while (!espaco.heapVazio()) {
+            int u = espaco.extrairMinimo();
+            double base = espaco.distancia[u];
+            distancias[u] = base;
+            anteriores[u] = espaco.anterior[u];
+            
+            for (int e = grafo.inicioAdjacencia(u); e < grafo.fimAdjacencia(u); e++) {
+                int v = grafo.vizinho(e);
+                double nova = base + grafo.peso(e);
+                if (!espaco.visitado(v) || nova < espaco.distancia[v]) {
+                    espaco.relaxar(v, nova, nova, u, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Converte um caminho calculado para o mesmo DTO usado pelas rotas cadastradas
+     */
+    public RotaDTO converterParaDTO(Caminho caminho) {
+        String origem = caminho.getGrafo().nomeDe(caminho.no(0));
+        String destino = caminho.getGrafo().nomeDe(caminho.no(caminho.tamanho() - 1));
+        
+        return new RotaDTO(
+                null,
+                "Caminho " + origem + " → " + destino,
+                caminho.getDistancia(),
+                "cm",
+                temposService.estimar(caminho),
+                caminho.nomesDosNos(),
+                caminho.idsDasArestas(),
+                new ArrayList<>()
+        );
+    }
+    
+    /**
+     * Arrays de trabalho do Dijkstra (e do A*)
+     * O heap é ordenado por prioridade: a própria distância no Dijkstra, distância mais estimativa no A*
+     * Usa um carimbo de geração para não precisar zerar os arrays a cada busca
+     */
+    private static final class EspacoBusca {
+        private int[] geracao = new int[0];
+        private int atual;
+        private double[] distancia = new double[0];
+        private double[] estimada = new double[0];  // distância + estimativa, só no A*
+        private double[] prioridade = distancia;    // estimada no A*, a própria distancia no Dijkstra
+        private int[] anterior = new int[0];
+        private int[] entradaAnterior = new int[0];  // entrada de adjacência anterior → v usada no relaxamento
+        private int[] heap = new int[0];
+        private int[] posicaoNoHeap = new int[0]; // -1 quando o nó já saiu do heap
+        private int tamanhoHeap;
+        
+        void preparar(int n, boolean estimar) {
+            if (geracao.length < n) {
+                geracao = new int[n];
+                distancia = new double[n];
+                estimada = new double[n];
+                anterior = new int[n];
+                entradaAnterior = new int[n];
+                heap = new int[n];
+                posicaoNoHeap = new int[n];
+                atual = 0;
+            }
+            prioridade = estimar ? estimada : distancia;
+            atual++;
+            if (atual == 0) { // estouro do contador: recomeça do zero
+                Arrays.fill(geracao, 0);
+                atual = 1;
+            }
+            tamanhoHeap = 0;
+        }
+        
+        boolean visitado(int v) {
+            return geracao[v] == atual;
+        }
+        
+        boolean heapVazio() {
+            return tamanhoHeap == 0;
+        }
+        
+        void relaxar(int v, double nova, double chave, int pai, int entrada) {
+            if (!visitado(v)) {
+                geracao[v] = atual;
+                distancia[v] = nova;
+                prioridade[v] = chave;
+                anterior[v] = pai;
+                entradaAnterior[v] = entrada;
+                heap[tamanhoHeap] = v;
+                posicaoNoHeap[v] = tamanhoHeap;
+                subir(tamanhoHeap++);
+            } else if (posicaoNoHeap[v] >= 0) {
+                distancia[v] = nova;
+                prioridade[v] = chave;
+                anterior[v] = pai;
+                entradaAnterior[v] = entrada;
+                subir(posicaoNoHeap[v]);
+            }
+        }
+        
+        int extrairMinimo() {
+            int minimo = heap[0];
+            posicaoNoHeap[minimo] = -1;
+            tamanhoHeap--;
+            if (tamanhoHeap > 0) {
+                heap[0] = heap[tamanhoHeap];
+                posicaoNoHeap[heap[0]] = 0;
+                descer(0);
+            }
+            return minimo;
+        }
+        
+        private void subir(int i) {
+            int v = heap[i];
+            double chave = prioridade[v];
+            while (i > 0) {
+                int pai = (i - 1) >>> 1;
+                int p = heap[pai];
+                if (prioridade[p] <= chave) {
+                    break;
+                }
+                heap[i] = p;
+                posicaoNoHeap[p] = i;
+                i = pai;
+            }
+            heap[i] = v;
+            posicaoNoHeap[v] = i;
+        }
+        
+        private void descer(int i) {
+            int v = heap[i];
+            double chave = prioridade[v];
+            while (true) {
+                int filho = 2 * i + 1;
+                if (filho >= tamanhoHeap) {
+                    break;
+                }
+                if (filho + 1 < tamanhoHeap && prioridade[heap[filho + 1]] < prioridade[heap[filho]]) {
+                    filho++;
+                }
+                int f = heap[filho];
+                if (prioridade[f] >= chave) {
+                    break;
+                }
+                heap[i] = f;
+                posicaoNoHeap[f] = i;
+                i = filho;
+            }
+            heap[i] = v;
+            posicaoNoHeap[v] = i;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.model.ProtocoloCanal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexões TCP persistentes com as ESP8266 pelo canal binário (quadros de ProtocoloCanal)
+ * Uma única thread ("canal-esp8266") abre as conexões e lê as respostas de todos os robôs com um Selector;
+ * os pedidos são escritos direto pela thread que envia, sem troca de thread no caminho de ida.
+ * Cada pedido leva uma sequência e a resposta com a mesma sequência completa o Future
+ * (na thread do canal: quem encadeia não deve bloquear). Sem resposta até o timeout a conexão é
+ * considerada perdida e fechada. Enquanto não há conexão pronta com o robô, enviar() devolve null
+ * para quem chama usar HTTP; a conexão é aberta em segundo plano e, se falhar, só é tentada de novo
+ * depois de esperaReconexaoMs (firmware sem o canal custa uma tentativa por intervalo)
+ */
+final class CanalBinario implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CanalBinario.class);
+    
+    private static final long INTERVALO_SELECAO_MS = 100;
+    
+    private final long tempoConexaoNanos;
+    private final long esperaReconexaoNanos;
+    private final Selector seletor;
+    private final Thread thread;
+    private final Queue<Runnable> tarefas = new ConcurrentLinkedQueue<>();
+    private final Map<String, Conexao> conexoes = new ConcurrentHashMap<>();
+    private volatile boolean ativo = true;
+    
+    CanalBinario(long tempoConexaoMs, long esperaReconexaoMs) throws IOException {
+        this.tempoConexaoNanos = TimeUnit.MILLISECONDS.toNanos(tempoConexaoMs);
+        this.esperaReconexaoNanos = TimeUnit.MILLISECONDS.toNanos(esperaReconexaoMs);
+        this.seletor = Selector.open();
+        this.thread = new Thread(this::executar, "canal-esp8266");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * Escreve um pedido na conexão com host:porta
+     * @return Future da resposta (falha com TimeoutException ou IOException se a conexão cair antes dela),
+     *         ou null se o pedido não foi escrito: ainda sem conexão, ou ela falhou na escrita
+     */
+    CompletableFuture<ProtocoloCanal.Resposta> enviar(String host, int porta, int opcode, int argumento,
+                                                      byte[] carga, long timeoutMs) {
+        Conexao conexao = conexaoPronta(host, porta);
+        return conexao != null ? conexao.enviar(opcode, argumento, carga, timeoutMs) : null;
+    }
+    
+    /**
+     * Conexões prontas no momento
+     */
+    int getConexoesAbertas() {
+        int abertas = 0;
+        for (Conexao conexao : conexoes.values()) {
+            if (conexao.pronta) {
+                abertas++;
+            }
+        }
+        return abertas;
+    }
+    
+    @Override
+    public void close() {
+        ativo = false;
+        seletor.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * A conexão com o endereço, se pronta; senão agenda a abertura (respeitando a espera após uma falha)
+     */
+    private Conexao conexaoPronta(String host, int porta) {
+        String chave = host + ":" + porta;
+        Conexao conexao = conexoes.get(chave);
+        if (conexao != null && conexao.pronta) {
+            return conexao;
+        }
+        if (!ativo) {
+            return null;
+        }
+        boolean abrir = conexao == null || (conexao.fechada
+                && System.nanoTime() - conexao.fechamento >= esperaReconexaoNanos);
+        if (abrir) {
+            Conexao nova = new Conexao(chave, host, porta);
+            boolean registrada = conexao == null ? conexoes.putIfAbsent(chave, nova) == null
+                    : conexoes.replace(chave, conexao, nova);
+            if (registrada) {
+                executarNoCanal(nova::conectar);
+            }
+        }
+        return null;
+    }
+    
+    private void executarNoCanal(Runnable tarefa) {
+        tarefas.add(tarefa);
+        seletor.wakeup();
+    }
+    
+    private void executar() {
+        while (ativo) {
+            try {
+                seletor.select(INTERVALO_SELECAO_MS);
+            } catch (IOException e) {
+                log.warn("Erro no seletor do canal binário: {}", e.toString());
+            }
+            Runnable tarefa;
+            while ((tarefa = tarefas.poll()) != null) {
+                tarefa.run();
+            }
+            Iterator<SelectionKey> selecionadas = seletor.selectedKeys().iterator();
+            while (selecionadas.hasNext()) {
+                SelectionKey chave = selecionadas.next();
+                selecionadas.remove();
+                Conexao conexao = (Conexao) chave.attachment();
+                try {
+                    if (chave.isValid() && chave.isConnectable()) {
+                        conexao.concluirConexao();
+                    }
+                    if (chave.isValid() && chave.isReadable()) {
+                        conexao.ler();
+                    }
+                    if (chave.isValid() && chave.isWritable()) {
+                        conexao.escreverPendentes();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    conexao.fechar(e);
+                }
+            }
+            long agora = System.nanoTime();
+            for (Conexao conexao : conexoes.values()) {
+                if (!conexao.pronta && !conexao.fechada && agora - conexao.inicio > tempoConexaoNanos) {
+                    conexao.fechar(new ConnectException("sem resposta à conexão"));
+                }
+            }
+        }
+        conexoes.values().forEach(conexao -> conexao.fechar(new IOException("canal encerrado")));
+        try {
+            seletor.close();
+        } catch (IOException e) {
+            // Encerrando
+        }
+    }
+    
+    /**
+     * Conexão com uma ESP8266; abertura, leitura e fechamento só na thread do canal
+     */
+    private final class Conexao {
+        private final String chave;
+        private final String host;
+        private final int porta;
+        private final Map<Integer, CompletableFuture<ProtocoloCanal.Resposta>> pendentes = new ConcurrentHashMap<>();
+        private final AtomicInteger sequencia = new AtomicInteger();
+        private final ByteBuffer entrada = ByteBuffer.allocate(64 * ProtocoloCanal.TAMANHO_QUADRO);
+        
+        // Quadros que não couberam no buffer do socket, protegidos por this
+        private final ArrayDeque<ByteBuffer> saida = new ArrayDeque<>();
+        
+        private SocketChannel canal;
+        private SelectionKey chaveSelecao;
+        private long inicio = System.nanoTime();
+        private volatile boolean pronta;
+        private volatile boolean fechada;
+        private volatile long fechamento;
+        
+        private Conexao(String chave, String host, int porta) {
+            this.chave = chave;
+            this.host = host;
+            this.porta = porta;
+        }
+        
+        private void conectar() {
+            inicio = System.nanoTime();
+            try {
+                canal = SocketChannel.open();
+                canal.configureBlocking(false);
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                canal.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+                if (canal.connect(new InetSocketAddress(host, porta))) {
+                    chaveSelecao = canal.register(seletor, SelectionKey.OP_READ, this);
+                    marcarPronta();
+                } else {
+                    chaveSelecao = canal.register(seletor, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (IOException | RuntimeException e) {
+                fechar(e);
+            }
+        }
+        
+        private void concluirConexao() throws IOException {
+            if (canal.finishConnect()) {
+                chaveSelecao.interestOps(SelectionKey.OP_READ);
+                marcarPronta();
+            }
+        }
+        
+        private void marcarPronta() {
+            pronta = true;
+            log.info("Canal binário conectado a {}", chave);
+        }
+        
+        private CompletableFuture<ProtocoloCanal.Resposta> enviar(int opcode, int argumento, byte[] carga,
+                                                                  long timeoutMs) {
+            int numero = sequencia.incrementAndGet() & 0xFFFF;
+            CompletableFuture<ProtocoloCanal.Resposta> resposta = new CompletableFuture<>();
+            pendentes.put(numero, resposta);
+            ByteBuffer quadro = ProtocoloCanal.pedido(opcode, numero, argumento, carga);
+            try {
+                synchronized (this) {
+                    if (saida.isEmpty()) {
+                        canal.write(quadro);
+                    }
+                    if (quadro.hasRemaining()) {
+                        saida.add(quadro);
+                        chaveSelecao.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        seletor.wakeup();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                pendentes.remove(numero);
+                executarNoCanal(() -> fechar(e));
+                return null;
+            }
+            return resposta.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((recebida, erro) -> {
+                        if (erro instanceof TimeoutException && pendentes.remove(numero, resposta)) {
+                            executarNoCanal(() -> fechar(erro));
+                        }
+                    });
+        }
+        
+        private void ler() throws IOException {
+            if (canal.read(entrada) < 0) {
+                throw new EOFException("conexão fechada pela ESP8266");
+            }
+            entrada.flip();
+            while (entrada.remaining() >= ProtocoloCanal.TAMANHO_QUADRO) {
+                ProtocoloCanal.Resposta resposta = ProtocoloCanal.lerResposta(entrada);
+                CompletableFuture<ProtocoloCanal.Resposta> pendente = pendentes.remove(resposta.sequencia());
+                if (pendente != null) {
+                    pendente.complete(resposta);
+                }
+            }
+            entrada.compact();
+        }
+        
+        private synchronized void escreverPendentes() throws IOException {
+            while (!saida.isEmpty()) {
+                ByteBuffer quadro = saida.peek();
+                canal.write(quadro);
+                if (quadro.hasRemaining()) {
+                    return;
+                }
+                saida.poll();
+            }
+            chaveSelecao.interestOps(SelectionKey.OP_READ);
+        }
+        
+        /**
+         * Fecha a conexão e falha os pedidos sem resposta; a próxima tentativa espera esperaReconexaoMs
+         */
+        private void fechar(Throwable erro) {
+            if (fechada) {
+                return;
+            }
+            boolean estavaPronta = pronta;
+            pronta = false;
+            fechamento = System.nanoTime();
+            fechada = true;
+            if (chaveSelecao != null) {
+                chaveSelecao.cancel();
+            }
+            try {
+                if (canal != null) {
+                    canal.close();
+                }
+            } catch (IOException e) {
+                // Já fechada
+            }
+            IOException causa = new IOException("Canal binário com " + chave + " fechado: " + erro, erro);
+            pendentes.values().forEach(pendente -> pendente.completeExceptionally(causa));
+            pendentes.clear();
+            if (estavaPronta && ativo) {
+                log.warn("Canal binário com {} perdido, usando HTTP até reconectar: {}", chave, erro.toString());
+            } else {
+                log.debug("Sem canal binário em {}, usando HTTP: {}", chave, erro.toString());
+            }
+        }
+    }
+}
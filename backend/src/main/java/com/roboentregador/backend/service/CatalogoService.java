@@ -0,0 +1,162 @@
+package com.roboentregador.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roboentregador.backend.dto.JsonPreRenderizado;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.repository.ArestaRepository;
+import com.roboentregador.backend.repository.RotaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache das respostas do catálogo (rotas e arestas) já serializadas em JSON
+ * O catálogo quase nunca muda, então cada resposta é renderizada uma única vez
+ * (JSON + gzip + ETag) e reaproveitada até a versão do repositório mudar
+ * As rotas trazem o tempo estimado, então também dependem da versão dos tempos aprendidos
+ */
+@Service
+public class CatalogoService {
+
+    private final RotaService rotaService;
+    private final RotaRepository rotaRepository;
+    private final ArestaRepository arestaRepository;
+    private final TemposService temposService;
+    private final ObjectMapper objectMapper;
+    
+    private volatile CacheRotas cacheRotas;
+    private volatile CacheArestas cacheArestas;
+    
+    @Autowired
+    public CatalogoService(RotaService rotaService, RotaRepository rotaRepository,
+                           ArestaRepository arestaRepository, TemposService temposService,
+                           ObjectMapper objectMapper) {
+        this.rotaService = rotaService;
+        this.rotaRepository = rotaRepository;
+        this.arestaRepository = arestaRepository;
+        this.temposService = temposService;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * JSON de GET /api/rotas
+     */
+    public JsonPreRenderizado listarRotas() {
+        CacheRotas cache = cacheDeRotas();
+        JsonPreRenderizado lista = cache.lista;
+        if (lista == null) {
+            lista = renderizar(rotaService.listarRotasResumo(), cache.versao, cache.versaoTempos);
+            cache.lista = lista;
+        }
+        return lista;
+    }
+    
+    /**
+     * JSON de GET /api/rotas/{id}
+     */
+    public Optional<JsonPreRenderizado> buscarRota(Long id) {
+        CacheRotas cache = cacheDeRotas();
+        JsonPreRenderizado rota = cache.porId.get(id);
+        if (rota == null) {
+            rota = rotaService.buscarRotaPorId(id)
+                    .map(valor -> renderizar(valor, cache.versao, cache.versaoTempos))
+                    .orElse(null);
+            if (rota != null) {
+                cache.porId.put(id, rota);
+            }
+        }
+        return Optional.ofNullable(rota);
+    }
+    
+    /**
+     * JSON de GET /api/arestas
+     */
+    public JsonPreRenderizado listarArestas() {
+        Grafo grafo = arestaRepository.getGrafo();
+        CacheArestas cache = cacheArestas;
+        if (cache == null || cache.grafo != grafo) {
+            cache = new CacheArestas(grafo, renderizar(arestaRepository.findAll()));
+            cacheArestas = cache;
+        }
+        return cache.lista;
+    }
+    
+    private CacheRotas cacheDeRotas() {
+        long versao = rotaRepository.getVersao();
+        long versaoTempos = temposService.getVersao();
+        CacheRotas cache = cacheRotas;
+        if (cache == null || cache.versao != versao || cache.versaoTempos != versaoTempos) {
+            cache = new CacheRotas(versao, versaoTempos);
+            cacheRotas = cache;
+        }
+        return cache;
+    }
+    
+    private JsonPreRenderizado renderizar(Object valor, long... versoes) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(valor);
+            return new JsonPreRenderizado(json, gzip(json), etag(json, versoes));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar catálogo", e);
+        }
+    }
+    
+    private static byte[] gzip(byte[] dados) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(dados.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+    
+    /**
+     * ETag forte: hash SHA-256 das versões de origem e do JSON (truncado em 128 bits)
+     */
+    private static String etag(byte[] dados, long... versoes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer prefixo = ByteBuffer.allocate(Long.BYTES * versoes.length);
+            for (long versao : versoes) {
+                prefixo.putLong(versao);
+            }
+            digest.update(prefixo.array());
+            byte[] hash = digest.digest(dados);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Respostas de rotas de uma versão do catálogo e dos tempos aprendidos
+     * Uma nova versão de qualquer um troca o objeto inteiro, descartando tudo de uma vez
+     */
+    private static final class CacheRotas {
+        private final long versao;
+        private final long versaoTempos;
+        private volatile JsonPreRenderizado lista;
+        private final Map<Long, JsonPreRenderizado> porId = new ConcurrentHashMap<>();
+        
+        CacheRotas(long versao, long versaoTempos) {
+            this.versao = versao;
+            this.versaoTempos = versaoTempos;
+        }
+    }
+    
+    private record CacheArestas(Grafo grafo, JsonPreRenderizado lista) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.roboentregador.backend.service;
+
+import java.io.IOException;
+
+/**
+ * Envio recusado sem tocar a rede: o circuito da ESP8266 está aberto (ver ResilienciaRobo)
+ */
+final class CircuitoAbertoException extends IOException {
+
+    CircuitoAbertoException(String endereco, int falhasSeguidas) {
+        super("circuito aberto para " + endereco + " após " + falhasSeguidas + " falhas seguidas");
+    }
+}
@@ -0,0 +1,117 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.Instrucao;
+import com.roboentregador.backend.model.ProgramaMotor;
+import com.roboentregador.backend.model.RotaCompacta;
+import com.roboentregador.backend.repository.ArestaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compila caminhos do grafo em programas de motor temporizados
+ * Para cada trecho u → v:
+ * - calcula o rumo a partir das posições dos nós e gira a diferença para o rumo atual
+ *   (ESQUERDA no sentido anti-horário, DIREITA no horário), com duração proporcional ao ângulo
+ * - anda em FRENTE pelo comprimento da aresta, com duração proporcional à distância
+ * As constantes de calibração ficam em robo.calibracao.* (10cm/s e ~90° em 500ms por padrão)
+ */
+@Service
+public class CompiladorRotasService {
+
+    private static final int FRENTE = Instrucao.codigoDirecao("FRENTE");
+    private static final int DIREITA = Instrucao.codigoDirecao("DIREITA");
+    private static final int ESQUERDA = Instrucao.codigoDirecao("ESQUERDA");
+    
+    @Value("${robo.calibracao.ms-por-cm:100}")
+    private double msPorCm;
+    
+    @Value("${robo.calibracao.ms-por-grau:5.6}")
+    private double msPorGrau;
+    
+    @Value("${robo.calibracao.angulo-minimo:10}")
+    private double anguloMinimo;
+    
+    @Value("${robo.calibracao.rumo-inicial:90}")
+    private double rumoInicial;
+    
+    private final ArestaRepository arestaRepository;
+    
+    @Autowired
+    public CompiladorRotasService(ArestaRepository arestaRepository) {
+        this.arestaRepository = arestaRepository;
+    }
+    
+    /**
+     * Compila uma rota do catálogo sobre o grafo atual
+     * O programa leva o id da rota; rotas com id acima de ProgramaMotor.ID_MAXIMO vão como programa avulso (id 0)
+     * @return vazio se algum trecho não existir, algum nó não tiver posição
+     *         ou o programa não couber no buffer do firmware
+     */
+    public Optional<ProgramaMotor> compilar(RotaCompacta rota) {
+        long id = rota.getId();
+        return compilar(rota.getNosPercorridos(), id <= ProgramaMotor.ID_MAXIMO ? (int) id : 0);
+    }
+    
+    /**
+     * Compila uma sequência de nós pelo nome sobre o grafo atual
+     * @param id de 0 a ProgramaMotor.ID_MAXIMO
+     */
+    public Optional<ProgramaMotor> compilar(List<String> nomes, int id) {
+        Grafo grafo = arestaRepository.getGrafo();
+        int[] nos = new int[nomes.size()];
+        for (int i = 0; i < nos.length; i++) {
+            nos[i] = grafo.indiceDe(nomes.get(i));
+            if (nos[i] < 0) {
+                return Optional.empty();
+            }
+        }
+        return compilar(grafo, nos, id);
+    }
+    
+    /**
+     * Compila um caminho calculado (programa avulso, id 0)
+     */
+    public Optional<ProgramaMotor> compilar(Caminho caminho) {
+        return compilar(caminho.getGrafo(), caminho.nos(), 0);
+    }
+    
+    /**
+     * Compila a sequência de nós de um grafo
+     */
+    public Optional<ProgramaMotor> compilar(Grafo grafo, int[] nos, int id) {
+        long[] instrucoes = new long[Math.max(0, 2 * (nos.length - 1))];
+        int total = 0;
+        double rumo = rumoInicial;
+        
+        for (int i = 0; i + 1 < nos.length; i++) {
+            int u = nos[i];
+            int v = nos[i + 1];
+            int entrada = grafo.entrada(u, v);
+            if (entrada < 0 || !grafo.temPosicao(u) || !grafo.temPosicao(v)) {
+                return Optional.empty();
+            }
+            
+            double novoRumo = grafo.rumo(u, v);
+            double giro = Grafo.giro(rumo, novoRumo);
+            if (Math.abs(giro) >= anguloMinimo) {
+                int duracao = (int) Math.round(Math.abs(giro) * msPorGrau);
+                instrucoes[total++] = RotaCompacta.empacotar(giro > 0 ? ESQUERDA : DIREITA, 0, duracao);
+            }
+            rumo = novoRumo;
+            
+            double distancia = grafo.peso(entrada);
+            instrucoes[total++] = RotaCompacta.empacotar(FRENTE, (int) Math.round(distancia),
+                    (int) Math.round(distancia * msPorCm));
+        }
+        
+        ProgramaMotor programa = new ProgramaMotor(id, Arrays.copyOf(instrucoes, total));
+        return programa.cabeNoFirmware() ? Optional.of(programa) : Optional.empty();
+    }
+}
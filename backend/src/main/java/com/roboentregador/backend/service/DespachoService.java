@@ -0,0 +1,227 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.EventoExecucaoDTO;
+import com.roboentregador.backend.model.ProgramaMotor;
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.repository.RoboRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Distribui comandos entre os robôs da frota
+ * Cada despacho reserva um robô livre de forma atômica, então execuções
+ * simultâneas seguem em paralelo para robôs diferentes
+ * O robô é liberado pelo heartbeat quando o firmware volta a ficar parado
+ * Pedidos idênticos (mesmo comando ou programa para o mesmo robô) compartilham o despacho em andamento e,
+ * se ele foi aceito, o seu resultado por mais despacho.agrupamento-ms: um clique duplo ou vários painéis não
+ * reiniciam o trajeto. Despachos sem robô livre ou não confirmados saem na hora, para que uma nova tentativa
+ * envie de fato. Pedidos para "qualquer robô" nunca são agrupados: dois pedidos iguais são duas entregas e
+ * ocupam dois robôs. STOP não é agrupado e descarta os resultados guardados do robô parado
+ */
+@Service
+public class DespachoService {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachoService.class);
+    
+    @Value("${despacho.agrupamento-ms:2000}")
+    private long agrupamentoMs;
+    
+    private final RoboRepository roboRepository;
+    private final Esp8266Service esp8266Service;
+    private final EventosService eventosService;
+    private final Counter agrupados;
+    
+    // Despachos em andamento (ou aceitos há menos de agrupamentoMs) por comando, ou conteúdo do programa, e robô
+    private final Map<String, CompletableFuture<Despacho>> emAndamento = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public DespachoService(RoboRepository roboRepository, Esp8266Service esp8266Service,
+                           EventosService eventosService, MeterRegistry registry) {
+        this.roboRepository = roboRepository;
+        this.esp8266Service = esp8266Service;
+        this.eventosService = eventosService;
+        this.agrupados = Counter.builder("despacho.agrupados")
+                .description("Despachos que aguardaram um pedido idêntico já em andamento")
+                .register(registry);
+    }
+    
+    /**
+     * Resultado de um despacho: o robô escolhido (null se nenhum estava livre) e o sucesso do envio
+     */
+    public record Despacho(Robo robo, boolean sucesso) {
+    }
+    
+    /**
+     * Envia um comando de rota para um robô
+     * @param roboId robô desejado, ou null para escolher o primeiro disponível
+     */
+    public CompletableFuture<Despacho> despachar(String comando, String roboId) {
+        return unico(comando, roboId,
+                () -> despachar(comando, roboId, robo -> esp8266Service.enviarComandoAsync(robo, comando)));
+    }
+    
+    /**
+     * Envia um programa de motor compilado para um robô
+     * @param roboId robô desejado, ou null para escolher o primeiro disponível
+     */
+    public CompletableFuture<Despacho> despacharPrograma(ProgramaMotor programa, String roboId) {
+        // Caminhos avulsos têm todos o id 0: o que identifica o pedido é o conteúdo do programa
+        String conteudo = new String(programa.codificar(), StandardCharsets.ISO_8859_1);
+        return unico(conteudo, roboId, () -> despachar(programa.getComando(), roboId,
+                robo -> esp8266Service.enviarProgramaAsync(robo, programa)));
+    }
+    
+    /**
+     * Junta pedidos idênticos para o mesmo robô ao que está em andamento ou foi aceito há menos de
+     * agrupamentoMs; depois disso (ou de uma falha) o próximo pedido é um novo despacho
+     */
+    private CompletableFuture<Despacho> unico(String pedido, String roboId,
+                                              Supplier<CompletableFuture<Despacho>> despacho) {
+        if (roboId == null) {
+            return despacho.get();
+        }
+        
+        String chave = pedido + "@" + roboId;
+        CompletableFuture<Despacho> resultado = new CompletableFuture<>();
+        CompletableFuture<Despacho> existente = emAndamento.putIfAbsent(chave, resultado);
+        if (existente != null) {
+            agrupados.increment();
+            return existente.copy();
+        }
+        
+        CompletableFuture<Despacho> execucao;
+        try {
+            execucao = despacho.get();
+        } catch (RuntimeException e) {
+            execucao = CompletableFuture.failedFuture(e);
+        }
+        execucao.whenComplete((valor, erro) -> {
+            if (erro == null && valor.sucesso() && agrupamentoMs > 0) {
+                CompletableFuture.delayedExecutor(agrupamentoMs, TimeUnit.MILLISECONDS)
+                        .execute(() -> emAndamento.remove(chave, resultado));
+            } else {
+                emAndamento.remove(chave, resultado);
+            }
+            if (erro != null) {
+                resultado.completeExceptionally(erro);
+            } else {
+                resultado.complete(valor);
+            }
+        });
+        return resultado.copy();
+    }
+    
+    /**
+     * Reserva o robô, faz o envio e confirma (ou desfaz) a reserva conforme o resultado
+     * Um erro no envio, síncrono ou no futuro, conta como envio não recebido e também libera o robô
+     */
+    private CompletableFuture<Despacho> despachar(String comando, String roboId,
+                                                  Function<Robo, CompletableFuture<Boolean>> envio) {
+        Optional<Robo> reservado = roboId != null
+                ? roboRepository.findById(roboId).filter(robo -> robo.reservar(comando))
+                : reservarLivre(comando);
+        
+        if (reservado.isEmpty()) {
+            return CompletableFuture.completedFuture(new Despacho(null, false));
+        }
+        
+        Robo robo = reservado.get();
+        CompletableFuture<Boolean> enviado;
+        try {
+            enviado = envio.apply(robo);
+        } catch (RuntimeException e) {
+            enviado = CompletableFuture.failedFuture(e); // ex: host inválido no cadastro do robô
+        }
+        return enviado.handle((sucesso, erro) -> {
+            if (erro != null) {
+                log.warn("Envio de {} para o robô {} falhou: {}", comando, robo.getId(), erro.toString());
+            }
+            if (erro == null && sucesso) {
+                robo.confirmarExecucao();
+                eventosService.publicar("execucao", new EventoExecucaoDTO(robo.getId(), comando,
+                        "iniciada", robo.getInicioExecucao()));
+                return new Despacho(robo, true);
+            }
+            robo.liberar(); // o firmware não recebeu a rota
+            return new Despacho(robo, false);
+        });
+    }
+    
+    /**
+     * Envia STOP para um robô específico, ou para todos quando roboId é null
+     * STOP não passa pela reserva: deve funcionar mesmo com o robô ocupado
+     * @return true se todos os robôs alvo confirmaram a parada
+     */
+    public CompletableFuture<Boolean> parar(String roboId) {
+        List<Robo> alvos = roboId != null
+                ? roboRepository.findById(roboId).stream().toList()
+                : roboRepository.findAll();
+        
+        if (alvos.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        List<CompletableFuture<Boolean>> envios = alvos.stream()
+                .map(robo -> esp8266Service.enviarComandoAsync(robo, "STOP")
+                        .thenApply(sucesso -> {
+                            String comando = robo.getComandoAtual();
+                            if (sucesso) {
+                                esquecerDespachos(robo);
+                                robo.liberar();
+                                if (comando != null) {
+                                    eventosService.publicar("execucao", new EventoExecucaoDTO(robo.getId(),
+                                            comando, "parada", System.currentTimeMillis()));
+                                }
+                            }
+                            return sucesso;
+                        }))
+                .toList();
+        
+        return CompletableFuture.allOf(envios.toArray(new CompletableFuture[0]))
+                .thenApply(v -> envios.stream().allMatch(CompletableFuture::join));
+    }
+    
+    /**
+     * Um pedido depois do STOP é um novo trajeto: não recebe o resultado guardado do anterior
+     */
+    private void esquecerDespachos(Robo robo) {
+        emAndamento.values().removeIf(despacho -> {
+            Despacho concluido = despacho.getNow(null);
+            return concluido != null && concluido.robo() != null && concluido.robo().getId().equals(robo.getId());
+        });
+    }
+    
+    /**
+     * Reserva um robô livre, priorizando os que o heartbeat confirma estarem parados
+     * Se nenhum respondeu ainda, tenta os demais robôs livres (o envio dirá se estão acessíveis)
+     */
+    private Optional<Robo> reservarLivre(String comando) {
+        List<Robo> candidatos = roboRepository.findAll().stream()
+                .filter(robo -> !robo.isOcupado())
+                .sorted(Comparator.comparing(Robo::isDisponivel).reversed())
+                .toList();
+        
+        for (Robo robo : candidatos) {
+            if (robo.reservar(comando)) {
+                return Optional.of(robo);
+            }
+        }
+        return Optional.empty();
+    }
+}
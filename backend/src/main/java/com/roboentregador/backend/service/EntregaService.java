@@ -0,0 +1,619 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.EntregaDTO;
+import com.roboentregador.backend.dto.EntregaRequestDTO;
+import com.roboentregador.backend.dto.ExecucaoResponseDTO;
+import com.roboentregador.backend.dto.OtimizacaoRequestDTO;
+import com.roboentregador.backend.dto.OtimizacaoResponseDTO;
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.model.Entrega;
+import com.roboentregador.backend.model.ProgramaMotor;
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.repository.RoboRepository;
+import com.roboentregador.backend.repository.RotaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Fila de entregas com prioridade, uma por robô
+ * - admissão limitada: cada fila aceita até entregas.capacidade-por-robo pedidos, com
+ *   entregas.reserva-urgente vagas guardadas para URGENTE; acima disso o pedido é recusado (429)
+ * - um despachante em segundo plano envia a próxima viagem assim que o robô fica livre,
+ *   agrupando entregas por destino com a mesma origem e prioridade numa única viagem
+ *   (ordem das paradas escolhida pelo OtimizadorEntregasService)
+ * - um robô ocioso com a fila vazia assume entregas sem robô fixo das filas dos outros
+ * A viagem termina quando o heartbeat libera a reserva do robô (firmware parado); o despachante
+ * acorda com os eventos de execução e de robô, e o ciclo de entregas.intervalo fica só como rede de segurança
+ * Cada mudança de estado de uma entrega é publicada como evento "entrega" em /api/eventos
+ * e o tamanho de cada fila é exposto na métrica entregas.fila (por robô)
+ */
+@Service
+public class EntregaService {
+
+    private static final Logger log = LoggerFactory.getLogger(EntregaService.class);
+    
+    private static final Comparator<Entrega> ORDEM = Comparator.comparing(Entrega::getPrioridade).reversed()
+            .thenComparingLong(Entrega::getId);
+    
+    @Value("${entregas.capacidade-por-robo:32}")
+    private int capacidade;
+    
+    @Value("${entregas.reserva-urgente:4}")
+    private int reservaUrgente;
+    
+    @Value("${entregas.lote-maximo:4}")
+    private int loteMaximo;
+    
+    @Value("${entregas.tentativas:3}")
+    private int maximoTentativas;
+    
+    @Value("${entregas.intervalo:1000}")
+    private long intervalo;
+    
+    @Value("${entregas.historico:1000}")
+    private int limiteHistorico;
+    
+    @Value("${entregas.origem:A}")
+    private String origemPadrao;
+    
+    private final RoboRepository roboRepository;
+    private final RotaRepository rotaRepository;
+    private final RotaService rotaService;
+    private final CaminhoService caminhoService;
+    private final OtimizadorEntregasService otimizadorEntregasService;
+    private final DespachoService despachoService;
+    private final EventosService eventosService;
+    private final LocalizacaoService localizacaoService;
+    private final MeterRegistry registry;
+    
+    // Todo o estado abaixo é protegido por "lock"
+    private final Object lock = new Object();
+    private final Map<String, PriorityQueue<Entrega>> filas = new HashMap<>();
+    private final Map<String, List<Entrega>> viagens = new HashMap<>(); // robô → entregas da viagem atual
+    private final Map<Long, Entrega> entregas = new LinkedHashMap<>();   // em ordem de criação
+    private boolean sinalizado;
+    
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicInteger programas = new AtomicInteger();   // ids dos programas das viagens
+    private Thread despachante;
+    
+    @Autowired
+    public EntregaService(RoboRepository roboRepository, RotaRepository rotaRepository, RotaService rotaService,
+                          CaminhoService caminhoService, OtimizadorEntregasService otimizadorEntregasService,
+                          DespachoService despachoService, EventosService eventosService,
+                          LocalizacaoService localizacaoService, MeterRegistry registry) {
+        this.roboRepository = roboRepository;
+        this.rotaRepository = rotaRepository;
+        this.rotaService = rotaService;
+        this.caminhoService = caminhoService;
+        this.otimizadorEntregasService = otimizadorEntregasService;
+        this.despachoService = despachoService;
+        this.eventosService = eventosService;
+        this.localizacaoService = localizacaoService;
+        this.registry = registry;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        despachante = new Thread(this::executarDespachante, "entregas-despacho");
+        despachante.setDaemon(true);
+        despachante.start();
+        
+        // Fim de trajeto ou robô que voltou a responder: pode haver uma viagem para encerrar ou enviar
+        eventosService.assinar(evento -> {
+            if (evento.tipo().equals("execucao") || evento.tipo().equals("robo")) {
+                synchronized (lock) {
+                    sinalizar();
+                }
+            }
+        });
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        despachante.interrupt();
+    }
+    
+    /**
+     * Resultado da admissão de um pedido
+     */
+    public enum Resultado { ACEITA, INVALIDA, ROBO_INEXISTENTE, FILA_CHEIA }
+    
+    public record Admissao(Resultado resultado, EntregaDTO entrega) {
+    }
+    
+    /**
+     * Admite um pedido de entrega na fila de um robô
+     * Sem roboId, escolhe a fila com menos entregas (preferindo robôs disponíveis)
+     */
+    public Admissao enviar(EntregaRequestDTO pedido) {
+        Entrega.Prioridade prioridade = pedido.getPrioridade() != null
+                ? pedido.getPrioridade() : Entrega.Prioridade.NORMAL;
+        String origem = pedido.getOrigem() != null && !pedido.getOrigem().isBlank()
+                ? pedido.getOrigem() : origemPadrao;
+        localizarDestino(pedido);
+        
+        if (!pedidoValido(pedido, origem)) {
+            return new Admissao(Resultado.INVALIDA, null);
+        }
+        if (pedido.getRoboId() != null && !roboRepository.existsById(pedido.getRoboId())) {
+            return new Admissao(Resultado.ROBO_INEXISTENTE, null);
+        }
+        
+        synchronized (lock) {
+            String roboId = pedido.getRoboId() != null ? pedido.getRoboId() : escolherRobo();
+            if (roboId == null) {
+                return new Admissao(Resultado.ROBO_INEXISTENTE, null);
+            }
+            
+            PriorityQueue<Entrega> fila = filaDe(roboId);
+            int limite = prioridade == Entrega.Prioridade.URGENTE ? capacidade : capacidade - reservaUrgente;
+            if (fila.size() >= limite) {
+                return new Admissao(Resultado.FILA_CHEIA, null);
+            }
+            
+            Entrega entrega = new Entrega(sequencia.incrementAndGet(),
+                    pedido.getRotaId(),
+                    pedido.getRotaId() == null ? origem : null,
+                    pedido.getRotaId() == null ? pedido.getDestino() : null,
+                    prioridade,
+                    pedido.getRoboId());
+            entrega.setRoboId(roboId);
+            fila.add(entrega);
+            entregas.put(entrega.getId(), entrega);
+            publicar(entrega);
+            sinalizar();
+            
+            return new Admissao(Resultado.ACEITA, converterParaDTO(entrega));
+        }
+    }
+    
+    /**
+     * Lista as entregas (pendentes e histórico recente), opcionalmente filtradas por estado
+     */
+    public List<EntregaDTO> listar(Entrega.Estado estado) {
+        synchronized (lock) {
+            return entregas.values().stream()
+                    .filter(entrega -> estado == null || entrega.getEstado() == estado)
+                    .map(this::converterParaDTO)
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    public Optional<EntregaDTO> buscar(long id) {
+        synchronized (lock) {
+            return Optional.ofNullable(entregas.get(id)).map(this::converterParaDTO);
+        }
+    }
+    
+    /**
+     * Ocupação da fila de cada robô
+     */
+    public List<Map<String, Object>> listarFilas() {
+        synchronized (lock) {
+            List<Map<String, Object>> resultado = new ArrayList<>();
+            for (Robo robo : roboRepository.findAll()) {
+                Map<String, Object> fila = new LinkedHashMap<>();
+                fila.put("roboId", robo.getId());
+                fila.put("pendentes", filaDe(robo.getId()).size());
+                fila.put("capacidade", capacidade);
+                fila.put("emViagem", viagens.getOrDefault(robo.getId(), List.of()).size());
+                resultado.add(fila);
+            }
+            return resultado;
+        }
+    }
+    
+    /**
+     * Cancela uma entrega
+     * Pendente: sai da fila. Em execução: o robô recebe STOP e as outras entregas
+     * da mesma viagem voltam para a fila
+     * @return vazio se a entrega não existir; a entrega inalterada se já estava finalizada
+     */
+    public Optional<EntregaDTO> cancelar(long id) {
+        String pararRobo = null;
+        EntregaDTO resultado;
+        
+        synchronized (lock) {
+            Entrega entrega = entregas.get(id);
+            if (entrega == null) {
+                return Optional.empty();
+            }
+            if (entrega.isFinalizada()) {
+                return Optional.of(converterParaDTO(entrega));
+            }
+            
+            if (entrega.getEstado() == Entrega.Estado.PENDENTE) {
+                filaDe(entrega.getRoboId()).remove(entrega);
+            } else if (entrega.getEstado() == Entrega.Estado.EXECUTANDO) {
+                pararRobo = entrega.getRoboId();
+                List<Entrega> viagem = viagens.remove(pararRobo);
+                for (Entrega outra : viagem != null ? viagem : List.<Entrega>of()) {
+                    if (outra != entrega && !outra.isFinalizada()) {
+                        outra.voltarParaFila("Viagem interrompida por cancelamento");
+                        filaDe(pararRobo).add(outra);
+                        publicar(outra);
+                    }
+                }
+            }
+            // ENVIANDO: o fim do envio percebe o cancelamento e manda STOP
+            
+            entrega.finalizar(Entrega.Estado.CANCELADA, "Cancelada pelo cliente");
+            resultado = converterParaDTO(entrega);
+            eventosService.publicar("entrega", resultado);
+            sinalizar();
+        }
+        
+        if (pararRobo != null) {
+            despachoService.parar(pararRobo);
+        }
+        return Optional.of(resultado);
+    }
+    
+    /**
+     * Pedido com o ponto de entrega (x, y) em vez do nó: o destino passa a ser o nó mais próximo
+     */
+    private void localizarDestino(EntregaRequestDTO pedido) {
+        if (pedido.getRotaId() == null && (pedido.getDestino() == null || pedido.getDestino().isBlank())
+                && pedido.getX() != null && pedido.getY() != null
+                && Double.isFinite(pedido.getX()) && Double.isFinite(pedido.getY())) {
+            localizacaoService.noMaisProximo(pedido.getX(), pedido.getY()).ifPresent(pedido::setDestino);
+        }
+    }
+    
+    private boolean pedidoValido(EntregaRequestDTO pedido, String origem) {
+        if (pedido.getRotaId() != null) {
+            return rotaRepository.findById(pedido.getRotaId()).isPresent();
+        }
+        return pedido.getDestino() != null && caminhoService.calcularCaminho(origem, pedido.getDestino()).isPresent();
+    }
+    
+    /**
+     * Robô com a menor fila; em caso de empate, um que esteja disponível agora
+     */
+    private String escolherRobo() {
+        return roboRepository.findAll().stream()
+                .min(Comparator.<Robo>comparingInt(robo -> filaDe(robo.getId()).size()
+                                + (viagens.containsKey(robo.getId()) ? 1 : 0))
+                        .thenComparing(robo -> !robo.isDisponivel()))
+                .map(Robo::getId)
+                .orElse(null);
+    }
+    
+    private PriorityQueue<Entrega> filaDe(String roboId) {
+        return filas.computeIfAbsent(roboId, id -> {
+            PriorityQueue<Entrega> fila = new PriorityQueue<>(ORDEM);
+            // Lido fora do lock na coleta das métricas: basta um valor aproximado
+            Gauge.builder("entregas.fila", fila, PriorityQueue::size)
+                    .description("Entregas pendentes na fila do robô")
+                    .tag("robo", id)
+                    .register(registry);
+            return fila;
+        });
+    }
+    
+    private void sinalizar() {
+        sinalizado = true;
+        lock.notifyAll();
+    }
+    
+    private void executarDespachante() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                synchronized (lock) {
+                    if (!sinalizado) {
+                        lock.wait(intervalo);
+                    }
+                    sinalizado = false;
+                }
+                despacharProntas();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Erro no despacho de entregas", e);
+            }
+        }
+    }
+    
+    /**
+     * Um ciclo do despachante: encerra viagens concluídas, redistribui filas de robôs removidos
+     * e monta uma nova viagem para cada robô livre
+     */
+    private void despacharProntas() {
+        Map<Robo, List<Entrega>> prontas = new LinkedHashMap<>();
+        
+        synchronized (lock) {
+            encerrarViagens();
+            redistribuirFilasOrfas();
+            
+            for (Robo robo : roboRepository.findAll()) {
+                if (viagens.containsKey(robo.getId()) || !robo.isDisponivel()) {
+                    continue;
+                }
+                List<Entrega> lote = retirarLote(robo.getId());
+                if (!lote.isEmpty()) {
+                    lote.forEach(entrega -> {
+                        entrega.iniciarEnvio();
+                        publicar(entrega);
+                    });
+                    viagens.put(robo.getId(), lote);
+                    prontas.put(robo, lote);
+                }
+            }
+        }
+        
+        // Montar o trajeto (otimizador + compilador) e enviar acontece fora do lock
+        prontas.forEach(this::enviarViagem);
+    }
+    
+    /**
+     * Uma viagem termina quando a reserva confirmada no envio deixa de existir no robô
+     */
+    private void encerrarViagens() {
+        Iterator<Map.Entry<String, List<Entrega>>> iterador = viagens.entrySet().iterator();
+        while (iterador.hasNext()) {
+            Map.Entry<String, List<Entrega>> viagem = iterador.next();
+            List<Entrega> lote = viagem.getValue();
+            if (lote.stream().anyMatch(entrega -> entrega.getEstado() == Entrega.Estado.ENVIANDO)) {
+                continue;
+            }
+            
+            Robo robo = roboRepository.findById(viagem.getKey()).orElse(null);
+            Entrega.Estado estado;
+            String mensagem;
+            if (robo == null) {
+                estado = Entrega.Estado.FALHOU;
+                mensagem = "Robô removido da frota durante a entrega";
+            } else if (lote.isEmpty() || robo.getInicioExecucao() != lote.get(0).getMarcaReserva()) {
+                estado = Entrega.Estado.CONCLUIDA;
+                mensagem = "Entrega concluída";
+            } else {
+                continue;
+            }
+            
+            for (Entrega entrega : lote) {
+                if (!entrega.isFinalizada()) {
+                    entrega.finalizar(estado, mensagem);
+                    publicar(entrega);
+                }
+            }
+            iterador.remove();
+            podarHistorico();
+        }
+    }
+    
+    /**
+     * Entregas na fila de um robô que saiu da frota vão para outro robô
+     * (ou falham, se o cliente pediu aquele robô)
+     */
+    private void redistribuirFilasOrfas() {
+        List<String> orfas = filas.keySet().stream()
+                .filter(roboId -> !roboRepository.existsById(roboId))
+                .toList();
+        
+        for (String roboId : orfas) {
+            PriorityQueue<Entrega> fila = filas.remove(roboId);
+            Optional.ofNullable(registry.find("entregas.fila").tag("robo", roboId).gauge()).ifPresent(registry::remove);
+            for (Entrega entrega : fila) {
+                String destino = entrega.getRoboSolicitado() == null ? escolherRobo() : null;
+                if (destino == null) {
+                    entrega.finalizar(Entrega.Estado.FALHOU, "Robô " + roboId + " removido da frota");
+                } else {
+                    entrega.setRoboId(destino);
+                    filaDe(destino).add(entrega); // já admitida: não conta contra a capacidade
+                }
+                publicar(entrega);
+            }
+        }
+    }
+    
+    /**
+     * Retira a próxima viagem da fila do robô (ou, se ela estiver vazia, de outro robô)
+     * Entregas por destino com a mesma origem e prioridade são agrupadas até entregas.lote-maximo
+     */
+    private List<Entrega> retirarLote(String roboId) {
+        PriorityQueue<Entrega> fila = filaDe(roboId);
+        if (fila.isEmpty()) {
+            fila = filaParaAssumir(roboId);
+            if (fila == null) {
+                return List.of();
+            }
+        }
+        
+        Entrega primeira = fila.peek();
+        List<Entrega> lote = new ArrayList<>();
+        if (primeira.isAgrupavel()) {
+            fila.stream()
+                    .filter(entrega -> entrega.isAgrupavel()
+                            && entrega.getPrioridade() == primeira.getPrioridade()
+                            && entrega.getOrigem().equals(primeira.getOrigem())
+                            && (entrega.getRoboSolicitado() == null || entrega.getRoboSolicitado().equals(roboId)))
+                    .sorted(ORDEM)
+                    .limit(loteMaximo)
+                    .forEach(lote::add);
+        } else {
+            lote.add(primeira);
+        }
+        
+        for (Entrega entrega : lote) {
+            fila.remove(entrega);
+            entrega.setRoboId(roboId);
+        }
+        return lote;
+    }
+    
+    /**
+     * Fila de outro robô cuja entrega mais prioritária pode ser assumida (sem robô fixo)
+     */
+    private PriorityQueue<Entrega> filaParaAssumir(String roboId) {
+        PriorityQueue<Entrega> escolhida = null;
+        for (Map.Entry<String, PriorityQueue<Entrega>> outra : filas.entrySet()) {
+            Entrega primeira = outra.getValue().peek();
+            if (outra.getKey().equals(roboId) || primeira == null || primeira.getRoboSolicitado() != null) {
+                continue;
+            }
+            if (escolhida == null || ORDEM.compare(primeira, escolhida.peek()) < 0) {
+                escolhida = outra.getValue();
+            }
+        }
+        return escolhida;
+    }
+    
+    /**
+     * Monta o trajeto da viagem e envia ao robô
+     */
+    private void enviarViagem(Robo robo, List<Entrega> lote) {
+        CompletableFuture<ExecucaoResponseDTO> execucao;
+        try {
+            execucao = iniciarViagem(robo, lote);
+        } catch (RuntimeException e) {
+            execucao = CompletableFuture.failedFuture(e);
+        }
+        execucao.whenComplete((resposta, erro) -> concluirEnvio(robo, lote, resposta, erro));
+    }
+    
+    private CompletableFuture<ExecucaoResponseDTO> iniciarViagem(Robo robo, List<Entrega> lote) {
+        Entrega primeira = lote.get(0);
+        if (primeira.getRotaId() != null) {
+            return rotaService.executarRota(primeira.getRotaId(), robo.getId());
+        }
+        
+        List<String> destinos = lote.stream().map(Entrega::getDestino).distinct().toList();
+        Optional<List<String>> trajeto;
+        if (destinos.size() == 1) {
+            trajeto = caminhoService.calcularCaminho(primeira.getOrigem(), destinos.get(0)).map(Caminho::nomesDosNos);
+        } else {
+            trajeto = otimizadorEntregasService
+                    .otimizar(new OtimizacaoRequestDTO(primeira.getOrigem(), destinos, false, null))
+                    .map(OtimizacaoResponseDTO::getNosPercorridos);
+        }
+        
+        String nome = "Entrega " + primeira.getOrigem() + " → " + String.join(", ", destinos);
+        return trajeto
+                .flatMap(nos -> rotaService.executarTrajeto(nos, proximoPrograma(), nome, robo.getId()))
+                .orElseGet(() -> CompletableFuture.completedFuture(new ExecucaoResponseDTO(
+                        false, "Trajeto da entrega não pôde ser compilado", null, null, nome, null,
+                        ExecucaoResponseDTO.Situacao.INEXECUTAVEL)));
+    }
+    
+    /**
+     * Id do programa de uma viagem: contador de 1 a ProgramaMotor.ID_MAXIMO que volta ao início,
+     * separado dos ids das entregas (que não cabem nos 16 bits do programa)
+     */
+    private int proximoPrograma() {
+        return 1 + Math.floorMod(programas.getAndIncrement(), ProgramaMotor.ID_MAXIMO);
+    }
+    
+    /**
+     * Resultado do envio: a viagem passa a executar, ou as entregas voltam para a fila
+     * (até entregas.tentativas envios com erro); rota inexistente ou trajeto não compilável falha de vez
+     */
+    private void concluirEnvio(Robo robo, List<Entrega> lote, ExecucaoResponseDTO resposta, Throwable erro) {
+        boolean pararRobo = false;
+        
+        synchronized (lock) {
+            boolean sucesso = erro == null && resposta.isSucesso();
+            
+            if (sucesso) {
+                long marca = robo.getInicioExecucao();
+                for (Entrega entrega : lote) {
+                    if (!entrega.isFinalizada()) {
+                        entrega.iniciarExecucao(marca);
+                        publicar(entrega);
+                    }
+                }
+                // Todas as entregas foram canceladas durante o envio
+                pararRobo = lote.stream().allMatch(Entrega::isFinalizada);
+            } else {
+                viagens.remove(robo.getId());
+                String mensagem = erro != null ? erro.getMessage() : resposta.getMensagem();
+                ExecucaoResponseDTO.Situacao situacao = erro == null ? resposta.getSituacao() : null;
+                // Outro cliente reservou o robô antes: não conta como tentativa
+                boolean roboOcupado = situacao == ExecucaoResponseDTO.Situacao.ROBO_OCUPADO;
+                // Repetir não muda o resultado: a entrega falha sem voltar para a fila
+                boolean inexecutavel = situacao == ExecucaoResponseDTO.Situacao.INEXECUTAVEL;
+                
+                for (Entrega entrega : lote) {
+                    if (entrega.isFinalizada()) {
+                        continue;
+                    }
+                    if (!roboOcupado) {
+                        entrega.registrarFalha();
+                    }
+                    if (inexecutavel || entrega.getTentativas() >= maximoTentativas) {
+                        entrega.finalizar(Entrega.Estado.FALHOU, mensagem);
+                    } else {
+                        entrega.voltarParaFila(mensagem);
+                        filaDe(entrega.getRoboId()).add(entrega);
+                    }
+                    publicar(entrega);
+                }
+                podarHistorico();
+            }
+            sinalizar();
+        }
+        
+        if (pararRobo) {
+            despachoService.parar(robo.getId());
+        }
+    }
+    
+    /**
+     * Mantém no máximo entregas.historico entregas finalizadas (descarta as mais antigas)
+     */
+    private void podarHistorico() {
+        long finalizadas = entregas.values().stream().filter(Entrega::isFinalizada).count();
+        Iterator<Entrega> iterador = entregas.values().iterator();
+        while (finalizadas > limiteHistorico && iterador.hasNext()) {
+            if (iterador.next().isFinalizada()) {
+                iterador.remove();
+                finalizadas--;
+            }
+        }
+    }
+    
+    private void publicar(Entrega entrega) {
+        eventosService.publicar("entrega", converterParaDTO(entrega));
+    }
+    
+    private EntregaDTO converterParaDTO(Entrega entrega) {
+        int posicao = 0;
+        if (entrega.getEstado() == Entrega.Estado.PENDENTE) {
+            posicao = 1;
+            for (Entrega outra : filaDe(entrega.getRoboId())) {
+                if (ORDEM.compare(outra, entrega) < 0) {
+                    posicao++;
+                }
+            }
+        }
+        
+        return new EntregaDTO(
+                entrega.getId(),
+                entrega.getRotaId(),
+                entrega.getOrigem(),
+                entrega.getDestino(),
+                entrega.getPrioridade(),
+                entrega.getEstado(),
+                entrega.getRoboId(),
+                posicao,
+                entrega.getTentativas(),
+                entrega.getMensagem(),
+                entrega.getCriadaEm(),
+                entrega.getIniciadaEm(),
+                entrega.getConcluidaEm()
+        );
+    }
+}
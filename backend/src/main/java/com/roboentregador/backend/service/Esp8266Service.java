@@ -1,95 +1,512 @@
 package com.roboentregador.backend.service;
 
+import com.roboentregador.backend.log.AmostragemErros;
+import com.roboentregador.backend.log.ContextoLog;
+import com.roboentregador.backend.model.ProgramaMotor;
+import com.roboentregador.backend.model.ProtocoloCanal;
+import com.roboentregador.backend.model.Robo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
+/**
+ * Envio de comandos e programas para as ESP8266 dos robôs
+ * Robôs com porta do canal binário usam a conexão TCP persistente do CanalBinario (quadros de 8 bytes,
+ * sem JSON nem uma requisição HTTP por comando); enquanto ela não está aberta, ou para comandos que
+ * o canal não conhece, o envio é feito por HTTP como antes
+ * Resiliência por endereço (ResilienciaRobo): o timeout de cada envio acompanha o RTT observado do robô
+ * no mesmo meio (HTTP ou canal), entre esp8266.timeout-minimo e esp8266.timeout; depois de esp8266.circuito.falhas falhas seguidas o
+ * circuito abre e os envios falham na hora (CircuitoAbertoException) até uma sonda ser respondida.
+ * STOP, que pode ser repetido sem efeito colateral, é reenviado por HTTP se não houver resposta no
+ * tempo normal do robô no meio do primeiro envio (esp8266.reenvio.stop), e vale a primeira confirmação;
+ * o reenvio não ocupa a vaga de sonda nem conta no disjuntor
+ * Logs: envios bem-sucedidos só em DEBUG (nada é formatado com o nível desligado);
+ * recusas e falhas em WARN, amostradas por robô (log.amostragem.* no application.properties)
+ */
 @Service
 public class Esp8266Service {
-    
-    @Value("${esp8266.host:192.168.1.100}")
-    private String esp8266Host;
-    
-    @Value("${esp8266.port:80}")
-    private int esp8266Port;
+
+    private static final Logger log = LoggerFactory.getLogger(Esp8266Service.class);
     
     @Value("${esp8266.timeout:5000}")
     private int timeout;
     
-    private final HttpClient httpClient;
+    @Value("${esp8266.timeout-minimo:300}")
+    private long timeoutMinimo;
+    
+    @Value("${esp8266.circuito.falhas:3}")
+    private int falhasCircuito;
+    
+    @Value("${esp8266.circuito.abertura-ms:2000}")
+    private long aberturaCircuitoMs;
+    
+    @Value("${esp8266.circuito.abertura-maxima-ms:30000}")
+    private long aberturaMaximaCircuitoMs;
+    
+    @Value("${esp8266.reenvio.stop:true}")
+    private boolean reenvioStop;
+    
+    @Value("${esp8266.canal.reconexao-ms:30000}")
+    private long reconexaoCanalMs;
+    
+    @Value("${log.amostragem.janela-ms:10000}")
+    private long janelaAmostragemMs;
+    
+    @Value("${log.amostragem.rajada:3}")
+    private int rajadaAmostragem;
+    
     private final ObjectMapper objectMapper;
+    private final MetricasService metricasService;
+    private final HistoricoService historicoService;
+    private final MeterRegistry registry;
+    private final Map<String, ResilienciaRobo> resiliencias = new ConcurrentHashMap<>();   // host:porta → estado
+    private HttpClient httpClient;
+    private AmostragemErros amostragem;
+    private CanalBinario canal;
     
-    public Esp8266Service() {
-        // ✅ CORREÇÃO: Use valor padrão no construtor
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofMillis(5000)) // Valor padrão
-                .build();
+    @Autowired
+    public Esp8266Service(MetricasService metricasService, HistoricoService historicoService,
+                          MeterRegistry registry) {
+        this.metricasService = metricasService;
+        this.historicoService = historicoService;
+        this.registry = registry;
         this.objectMapper = new ObjectMapper();
     }
     
+    @PostConstruct
+    public void iniciar() {
+        // Teto da conexão; cada requisição ainda usa o timeout adaptativo do robô
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeout))
+                .build();
+        amostragem = new AmostragemErros(janelaAmostragemMs, rajadaAmostragem);
+        try {
+            canal = new CanalBinario(timeout, reconexaoCanalMs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o seletor do canal binário", e);
+        }
+        Gauge.builder("robo.canal.conexoes", canal, CanalBinario::getConexoesAbertas)
+                .description("Conexões abertas do canal binário com as ESP8266")
+                .register(registry);
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        canal.close();
+    }
+    
     /**
-     * Envia um comando para a ESP8266 via HTTP
+     * Envia um comando para a ESP8266 de um robô sem bloquear a thread chamadora
+     * ROTA_n e STOP vão pelo canal binário quando ele está aberto; o resto, por HTTP
+     * Com o circuito do robô aberto completa na hora com false, sem tocar a rede
+     * @return Future que completa com true quando a ESP8266 aceita o comando (HTTP 200 ou código ok)
      */
-    public boolean enviarComando(String comando) {
+    public CompletableFuture<Boolean> enviarComandoAsync(Robo robo, String comando) {
+        ResilienciaRobo resiliencia = resiliencia(robo);
+        if (!resiliencia.permitir()) {
+            return rejeitar(robo, resiliencia, comando, "Comando");
+        }
+        try {
+            ResilienciaRobo.Meio meio = ResilienciaRobo.Meio.CANAL;
+            CompletableFuture<Boolean> envio = enviarComandoPeloCanal(robo, resiliencia, comando);
+            if (envio == null) {
+                meio = ResilienciaRobo.Meio.HTTP;
+                envio = enviarComandoPorHttp(robo, resiliencia, comando, true);
+            }
+            if (reenvioStop && comando.equals("STOP")) {
+                return comReenvio(robo, comando, envio, resiliencia.getAtrasoReenvioMs(meio),
+                        () -> enviarComandoPorHttp(robo, resiliencia, comando, false));
+            }
+            return envio;
+        } catch (RuntimeException e) {
+            resiliencia.cancelar();
+            throw e;
+        }
+    }
+    
+    /**
+     * Envio do comando pelo canal binário
+     * @return null se o robô não tem canal, o canal não está aberto ou o comando não tem opcode
+     */
+    private CompletableFuture<Boolean> enviarComandoPeloCanal(Robo robo, ResilienciaRobo resiliencia,
+                                                              String comando) {
+        int traducao = robo.getPortaCanal() > 0 ? ProtocoloCanal.traduzirComando(comando) : -1;
+        if (traducao < 0) {
+            return null;
+        }
+        return enviarPeloCanal(robo, resiliencia, traducao >>> 16, traducao & 0xFFFF, null, comando, "Comando");
+    }
+    
+    /**
+     * Envio do comando por HTTP
+     * @param disjuntor false para o reenvio do STOP, que não passou por permitir(): a resposta só
+     *                  entra na estimativa de RTT
+     */
+    private CompletableFuture<Boolean> enviarComandoPorHttp(Robo robo, ResilienciaRobo resiliencia, String comando,
+                                                            boolean disjuntor) {
+        String url = String.format("http://%s:%d/executar", robo.getHost(), robo.getPorta());
+        String jsonString;
+        
         try {
-            String url = String.format("http://%s:%d/executar", esp8266Host, esp8266Port);
-            
             // Cria JSON no formato {"comando":"ROTA_1"}
             Map<String, String> jsonBody = new HashMap<>();
             jsonBody.put("comando", comando);
-            String jsonString = objectMapper.writeValueAsString(jsonBody);
-            
-            System.out.println("📡 Enviando para ESP8266: " + url);
-            System.out.println("📦 Payload: " + jsonString);
-            
-            // ✅ CORREÇÃO: Use o timeout injetado aqui
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofMillis(timeout))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonString))
-                    .build();
-            
-            HttpResponse<String> response = httpClient.send(request, 
-                    HttpResponse.BodyHandlers.ofString());
-            
-            boolean sucesso = response.statusCode() == 200;
-            
-            System.out.println(sucesso ? 
-                "✅ Comando enviado com sucesso!" : 
-                "❌ Erro HTTP: " + response.statusCode());
-            System.out.println("📥 Resposta: " + response.body());
+            jsonString = objectMapper.writeValueAsString(jsonBody);
+        } catch (JsonProcessingException e) {
+            log.error("Erro ao serializar o comando {}: {}", comando, e.getMessage());
+            if (disjuntor) {
+                resiliencia.cancelar();
+            }
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        log.debug("Enviando para {} ({}): {}", robo.getId(), url, jsonString);
+        
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMillis(resiliencia.getTimeoutMs(ResilienciaRobo.Meio.HTTP)))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonString))
+                .build();
+        
+        return enviar(robo, resiliencia, request, comando, "Comando", disjuntor);
+    }
+    
+    /**
+     * Envia um programa de motor compilado para POST /programa da ESP8266
+     * O corpo é binário (application/octet-stream, 5 + 3 bytes por passo) e o
+     * firmware começa a executá-lo assim que o recebe por completo
+     * Pelo canal binário o mesmo conteúdo vai como carga do opcode PROGRAMA
+     * @return Future que completa com true quando a ESP8266 aceita o programa
+     */
+    public CompletableFuture<Boolean> enviarProgramaAsync(Robo robo, ProgramaMotor programa) {
+        ResilienciaRobo resiliencia = resiliencia(robo);
+        if (!resiliencia.permitir()) {
+            return rejeitar(robo, resiliencia, programa.getComando(), "Programa");
+        }
+        try {
+            return enviarPrograma(robo, resiliencia, programa);
+        } catch (RuntimeException e) {
+            resiliencia.cancelar();
+            throw e;
+        }
+    }
+    
+    private CompletableFuture<Boolean> enviarPrograma(Robo robo, ResilienciaRobo resiliencia, ProgramaMotor programa) {
+        byte[] dados = programa.codificar();
+        if (robo.getPortaCanal() > 0) {
+            CompletableFuture<Boolean> envio = enviarPeloCanal(robo, resiliencia, ProtocoloCanal.PROGRAMA,
+                    programa.getId(), dados, programa.getComando(), "Programa");
+            if (envio != null) {
+                return envio;
+            }
+        }
+        
+        String url = String.format("http://%s:%d/programa", robo.getHost(), robo.getPorta());
+        log.debug("Enviando programa para {} ({}): {} em {} bytes", robo.getId(), url, programa, dados.length);
+        
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMillis(resiliencia.getTimeoutMs(ResilienciaRobo.Meio.HTTP)))
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(dados))
+                .build();
+        
+        return enviar(robo, resiliencia, request, programa.getComando(), "Programa", true);
+    }
+    
+    /**
+     * Envia a requisição sem bloquear e trata a resposta da ESP8266
+     * A resposta é tratada pelo executor do HttpClient, liberando o worker do Tomcat
+     */
+    private CompletableFuture<Boolean> enviar(Robo robo, ResilienciaRobo resiliencia, HttpRequest request,
+                                              String comando, String descricao, boolean disjuntor) {
+        Envio envio = new Envio(robo, resiliencia, comando, descricao, ResilienciaRobo.Meio.HTTP, robo.getPorta(),
+                disjuntor);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> response.statusCode() == 200
+                        ? envio.concluir(true, response.body())
+                        : envio.concluir(false, "HTTP " + response.statusCode()))
+                .exceptionally(envio::falhar);
+    }
+    
+    /**
+     * Escreve o pedido na conexão persistente com o robô
+     * @return null se o canal não está aberto (quem chama envia por HTTP)
+     */
+    private CompletableFuture<Boolean> enviarPeloCanal(Robo robo, ResilienciaRobo resiliencia, int opcode,
+                                                       int argumento, byte[] carga, String comando, String descricao) {
+        Envio envio = new Envio(robo, resiliencia, comando, descricao, ResilienciaRobo.Meio.CANAL,
+                robo.getPortaCanal(), true);
+        CompletableFuture<ProtocoloCanal.Resposta> resposta = canal.enviar(robo.getHost(), robo.getPortaCanal(),
+                opcode, argumento, carga, resiliencia.getTimeoutMs(ResilienciaRobo.Meio.CANAL));
+        if (resposta == null) {
+            return null;
+        }
+        return resposta
+                .thenApply(recebida -> envio.concluir(recebida.isOk(), ProtocoloCanal.descreverCodigo(recebida.codigo())))
+                .exceptionally(envio::falhar);
+    }
+    
+    /**
+     * Repete o envio se o primeiro não tiver resposta em atrasoMs; completa com true na primeira confirmação
+     * e com false só quando todos os envios feitos falharam. Uma recusa ou erro do primeiro antes do atraso
+     * encerra sem reenviar
+     */
+    private CompletableFuture<Boolean> comReenvio(Robo robo, String comando, CompletableFuture<Boolean> primeiro,
+                                                  long atrasoMs, Supplier<CompletableFuture<Boolean>> reenvio) {
+        CompletableFuture<Boolean> resultado = new CompletableFuture<>();
+        AtomicInteger emAndamento = new AtomicInteger(1);
+        BiConsumer<Boolean, Throwable> concluir = (aceito, erro) -> {
+            if (Boolean.TRUE.equals(aceito)) {
+                resultado.complete(true);
+            } else if (emAndamento.decrementAndGet() == 0) {
+                resultado.complete(false);
+            }
+        };
+        primeiro.whenComplete(concluir);
+        
+        String rota = MDC.get(ContextoLog.ROTA);
+        String requisicao = MDC.get(ContextoLog.REQUISICAO);
+        CompletableFuture.delayedExecutor(atrasoMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (resultado.isDone() || emAndamento.getAndIncrement() == 0) {
+                return;
+            }
+            metricasService.registrarReenvio(robo.getId(), comando);
+            CompletableFuture<Boolean> segundo;
+            try (ContextoLog.Escopo escopo = ContextoLog.abrir(robo.getId(), rota, requisicao)) {
+                log.debug("{} sem resposta de {} em {} ms, reenviando por HTTP", comando, robo.getId(), atrasoMs);
+                segundo = reenvio.get();
+            } catch (RuntimeException e) {
+                segundo = CompletableFuture.completedFuture(false);
+            }
+            segundo.whenComplete(concluir);
+        });
+        return resultado;
+    }
+    
+    /**
+     * Envio recusado com o circuito aberto: entra nas métricas e no histórico como "rejeitado"
+     */
+    private CompletableFuture<Boolean> rejeitar(Robo robo, ResilienciaRobo resiliencia, String comando,
+                                                String descricao) {
+        Envio envio = new Envio(robo, resiliencia, comando, descricao, null, robo.getPorta(), true);
+        return CompletableFuture.completedFuture(
+                envio.falhar(new CircuitoAbertoException(endereco(robo), resiliencia.getFalhasSeguidas())));
+    }
+    
+    private ResilienciaRobo resiliencia(Robo robo) {
+        return resiliencias.computeIfAbsent(endereco(robo), endereco -> new ResilienciaRobo(timeoutMinimo, timeout,
+                falhasCircuito, aberturaCircuitoMs, aberturaMaximaCircuitoMs));
+    }
+    
+    private static String endereco(Robo robo) {
+        return robo.getHost() + ":" + robo.getPorta();
+    }
+    
+    /**
+     * Informa o desfecho de um envio permitido ao estado do robô e registra as mudanças do circuito
+     * @param erro null se a ESP8266 respondeu, mesmo recusando
+     */
+    private void registrarDesfecho(Robo robo, ResilienciaRobo resiliencia, ResilienciaRobo.Meio meio,
+                                   Throwable erro, long nanos) {
+        if (erro == null) {
+            if (resiliencia.registrarResposta(meio, nanos)) {
+                metricasService.registrarCircuito(robo.getId(), "fechado");
+                log.info("Circuito da ESP8266 {} ({}) fechado: respondeu em {} ms", robo.getId(), endereco(robo),
+                        nanos / 1_000_000);
+            }
+            return;
+        }
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        if (causa instanceof CircuitoAbertoException) {
+            return;
+        }
+        boolean esgotou = causa instanceof HttpTimeoutException || causa instanceof TimeoutException;
+        if (resiliencia.registrarFalha(meio, esgotou)) {
+            metricasService.registrarCircuito(robo.getId(), "aberto");
+            log.warn("Circuito da ESP8266 {} ({}) aberto após {} falhas seguidas ({}): envios recusados por {} ms",
+                    robo.getId(), endereco(robo), resiliencia.getFalhasSeguidas(), causa.toString(),
+                    resiliencia.getAberturaMs());
+        }
+    }
+    
+    /**
+     * Um envio em andamento, pelo HTTP ou pelo canal
+     * O tempo até a resposta (ou o erro) entra na métrica robo.comando.latencia e no histórico
+     * Rota e requisição vêm do MDC da thread chamadora e são reabertos no callback só se algo for logado
+     * Fora do disjuntor (reenvio do STOP), só a resposta entra no estado do robô, como amostra de RTT
+     */
+    private final class Envio {
+        private final Robo robo;
+        private final ResilienciaRobo resiliencia;
+        private final String comando;
+        private final String descricao;
+        private final ResilienciaRobo.Meio meio;   // null: recusado sem tocar a rede
+        private final int porta;
+        private final boolean disjuntor;
+        private final long inicio = System.nanoTime();
+        private final String rota = MDC.get(ContextoLog.ROTA);
+        private final String requisicao = MDC.get(ContextoLog.REQUISICAO);
+        
+        private Envio(Robo robo, ResilienciaRobo resiliencia, String comando, String descricao,
+                      ResilienciaRobo.Meio meio, int porta, boolean disjuntor) {
+            this.robo = robo;
+            this.resiliencia = resiliencia;
+            this.comando = comando;
+            this.descricao = descricao;
+            this.meio = meio;
+            this.porta = porta;
+            this.disjuntor = disjuntor;
+        }
+        
+        private String tag() {
+            return meio != null ? meio.tag : "nenhum";
+        }
+        
+        /**
+         * @param detalhe corpo da resposta, ou o motivo da recusa (ex: "HTTP 409", "executando")
+         */
+        private boolean concluir(boolean sucesso, String detalhe) {
+            long nanos = System.nanoTime() - inicio;
+            if (disjuntor) {
+                registrarDesfecho(robo, resiliencia, meio, null, nanos);
+            } else {
+                resiliencia.registrarAmostra(meio, nanos);
+            }
+            metricasService.registrarComando(robo.getId(), comando, tag(), sucesso, null, nanos);
+            historicoService.registrarComando(robo.getId(), comando, sucesso, null, nanos);
             
+            if (sucesso) {
+                if (log.isDebugEnabled()) {
+                    try (ContextoLog.Escopo escopo = ContextoLog.abrir(robo.getId(), rota, requisicao)) {
+                        log.debug("{} {} aceito em {} ms ({}): {}", descricao, comando, nanos / 1_000_000, tag(),
+                                detalhe);
+                    }
+                }
+            } else if (log.isWarnEnabled()) {
+                long suprimidos = amostragem.permitir(robo.getId());
+                if (suprimidos >= 0) {
+                    try (ContextoLog.Escopo escopo = ContextoLog.abrir(robo.getId(), rota, requisicao)) {
+                        log.warn("{} {} recusado pela ESP8266: {}{}", descricao, comando, detalhe,
+                                suprimidosTexto(suprimidos));
+                    }
+                }
+            }
             return sucesso;
-            
-        } catch (IOException | InterruptedException e) {
-            System.err.println("❌ Erro de comunicação com ESP8266: " + e.getMessage());
-            System.err.println("💡 Verifique:");
-            System.err.println("   - ESP está ligado e na rede");
-            System.err.println("   - IP correto: " + esp8266Host + ":" + esp8266Port);
-            System.err.println("   - WiFi funcionando");
+        }
+        
+        private boolean falhar(Throwable e) {
+            long nanos = System.nanoTime() - inicio;
+            if (disjuntor) {
+                registrarDesfecho(robo, resiliencia, meio, e, nanos);
+            }
+            metricasService.registrarComando(robo.getId(), comando, tag(), false, e, nanos);
+            historicoService.registrarComando(robo.getId(), comando, false, e, nanos);
+            if (log.isWarnEnabled()) {
+                long suprimidos = amostragem.permitir(robo.getId());
+                if (suprimidos >= 0) {
+                    Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    try (ContextoLog.Escopo escopo = ContextoLog.abrir(robo.getId(), rota, requisicao)) {
+                        log.warn("Erro de comunicação com a ESP8266 em {}:{} ({} {}): {} "
+                                        + "(verifique se ela está ligada, na rede e com esse IP){}",
+                                robo.getHost(), porta, descricao, comando, causa.toString(),
+                                suprimidosTexto(suprimidos));
+                    }
+                }
+            }
             return false;
         }
     }
     
+    private static String suprimidosTexto(long suprimidos) {
+        return suprimidos > 0 ? " (+" + suprimidos + " erros suprimidos deste robô)" : "";
+    }
+    
     /**
-     * Verifica se a ESP8266 está conectada
+     * Consulta o endpoint GET /status da ESP8266 (ou o opcode STATUS, se o canal binário estiver aberto)
+     * Diferente de enviar STOP, não interfere em uma entrega em andamento
+     * Com o circuito aberto falha na hora com CircuitoAbertoException; passado o tempo de abertura,
+     * a próxima consulta do heartbeat é a sonda que pode fechá-lo
+     * @return Future com o corpo JSON (ex: {"status":"parado","conectado":true})
      */
-    public boolean verificarConexao() {
+    public CompletableFuture<String> consultarStatusAsync(Robo robo) {
+        ResilienciaRobo resiliencia = resiliencia(robo);
+        if (!resiliencia.permitir()) {
+            CircuitoAbertoException erro = new CircuitoAbertoException(endereco(robo), resiliencia.getFalhasSeguidas());
+            metricasService.registrarStatus(robo.getId(), "nenhum", erro, 0);
+            return CompletableFuture.failedFuture(erro);
+        }
         try {
-            // Tenta enviar um comando de teste
-            return enviarComando("STOP"); // STOP é seguro para teste
-        } catch (Exception e) {
-            return false;
+            return consultarStatus(robo, resiliencia);
+        } catch (RuntimeException e) {
+            resiliencia.cancelar();
+            throw e;
         }
     }
+    
+    private CompletableFuture<String> consultarStatus(Robo robo, ResilienciaRobo resiliencia) {
+        long inicio = System.nanoTime();
+        if (robo.getPortaCanal() > 0) {
+            CompletableFuture<ProtocoloCanal.Resposta> resposta = canal.enviar(robo.getHost(), robo.getPortaCanal(),
+                    ProtocoloCanal.STATUS, 0, null, resiliencia.getTimeoutMs(ResilienciaRobo.Meio.CANAL));
+            if (resposta != null) {
+                return resposta
+                        .whenComplete((recebida, erro) -> registrarDesfecho(robo, resiliencia,
+                                ResilienciaRobo.Meio.CANAL, erro, System.nanoTime() - inicio))
+                        .thenApply(recebida -> "{\"status\":\"" + (recebida.executando() ? "executando" : "parado")
+                                + "\",\"conectado\":true}")
+                        .whenComplete((corpo, erro) ->
+                                metricasService.registrarStatus(robo.getId(), "binario", erro, System.nanoTime() - inicio));
+            }
+        }
+        
+        String url = String.format("http://%s:%d/status", robo.getHost(), robo.getPorta());
+        
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMillis(resiliencia.getTimeoutMs(ResilienciaRobo.Meio.HTTP)))
+                .GET()
+                .build();
+        
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, erro) -> registrarDesfecho(robo, resiliencia,
+                        ResilienciaRobo.Meio.HTTP, erro, System.nanoTime() - inicio))
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+                    }
+                    return response.body();
+                })
+                .whenComplete((corpo, erro) ->
+                        metricasService.registrarStatus(robo.getId(), "http", erro, System.nanoTime() - inicio));
+    }
 }
@@ -0,0 +1,358 @@
+package com.roboentregador.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Canal de eventos em tempo real (Server-Sent Events) para os painéis
+ * Os serviços publicam mudanças de estado (execução, heartbeat, fila de entregas) sem bloquear;
+ * uma única thread serializa cada evento uma vez e o repassa a todos os clientes, então
+ * o custo por evento não depende de consultar os robôs e não cresce com serialização por cliente
+ * - cada cliente tem uma fila própria esvaziada por um pool pequeno: um cliente lento não atrasa os outros
+ *   e é desconectado quando acumula mais de eventos.limite-pendentes eventos
+ * - os últimos eventos.historico eventos ficam guardados para reenviar após reconexão (Last-Event-ID)
+ */
+@Service
+public class EventosService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventosService.class);
+    
+    @Value("${eventos.limite-clientes:500}")
+    private int limiteClientes;
+    
+    @Value("${eventos.limite-pendentes:256}")
+    private int limitePendentes;
+    
+    @Value("${eventos.historico:256}")
+    private int tamanhoHistorico;
+    
+    @Value("${eventos.keepalive:15000}")
+    private long intervaloKeepalive;
+    
+    @Value("${eventos.timeout:1800000}")
+    private long timeout;
+    
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Publicacao> publicados = new ArrayBlockingQueue<>(10_000);
+    private final AtomicLong sequencia = new AtomicLong();   // só a thread de distribuição incrementa
+    private final AtomicLong descartados = new AtomicLong();
+    private final List<Consumer<Evento>> assinantes = new CopyOnWriteArrayList<>();
+    
+    // Clientes e histórico são protegidos por "lock" (a distribuição só enfileira, nunca escreve na rede)
+    private final Object lock = new Object();
+    private final Map<SseEmitter, Cliente> clientes = new ConcurrentHashMap<>();
+    private final Deque<Quadro> historico = new ArrayDeque<>();
+    private long ultimoDistribuido;
+    
+    private final ExecutorService envio;
+    private final ScheduledExecutorService agendador;
+    private Thread distribuidor;
+    
+    @Autowired
+    public EventosService(ObjectMapper objectMapper, MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        Gauge.builder("eventos.clientes", clientes, Map::size)
+                .description("Clientes SSE conectados")
+                .register(registry);
+        Gauge.builder("eventos.fila", publicados, BlockingQueue::size)
+                .description("Eventos publicados aguardando a distribuição")
+                .register(registry);
+        FunctionCounter.builder("eventos.descartados", descartados, AtomicLong::get)
+                .description("Eventos descartados com a fila interna cheia")
+                .register(registry);
+        AtomicInteger contador = new AtomicInteger();
+        this.envio = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "eventos-envio-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "eventos-keepalive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        distribuidor = new Thread(this::distribuir, "eventos-distribuidor");
+        distribuidor.setDaemon(true);
+        distribuidor.start();
+        agendador.scheduleAtFixedRate(this::enviarKeepalive, intervaloKeepalive, intervaloKeepalive,
+                TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        distribuidor.interrupt();
+        agendador.shutdownNow();
+        envio.shutdownNow();
+        clientes.keySet().forEach(SseEmitter::complete);
+    }
+    
+    /**
+     * Evento publicado: tipo (nome do evento SSE) e dados serializados como JSON
+     */
+    public record Evento(long id, String tipo, Object dados) {
+    }
+    
+    /**
+     * Evento ainda sem id: o id é dado na distribuição, na ordem em que sai da fila,
+     * para que os ids que os clientes veem nunca voltem atrás
+     */
+    private record Publicacao(String tipo, Object dados) {
+    }
+    
+    /**
+     * Publica um evento para todos os clientes conectados
+     * Nunca bloqueia: pode ser chamado com locks de outros serviços adquiridos
+     * Os dados devem ser uma cópia imutável do estado (a serialização acontece depois)
+     */
+    public void publicar(String tipo, Object dados) {
+        if (!publicados.offer(new Publicacao(tipo, dados))) {
+            descartados.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Registra um ouvinte interno, chamado na thread de distribuição para cada evento
+     * O ouvinte deve ser rápido e não pode publicar eventos de forma bloqueante
+     */
+    public void assinar(Consumer<Evento> assinante) {
+        assinantes.add(assinante);
+    }
+    
+    /**
+     * Conecta um novo cliente SSE
+     * Com Last-Event-ID ainda presente no histórico, reenvia apenas os eventos perdidos;
+     * caso contrário envia a fotografia atual produzida por "estadoAtual" (tipo → dados)
+     * @return vazio se o limite de clientes foi atingido
+     */
+    public Optional<SseEmitter> conectar(Long ultimoEventoId, Supplier<Map<String, Object>> estadoAtual) {
+        if (clientes.size() >= limiteClientes) {
+            return Optional.empty();
+        }
+        
+        SseEmitter emitter = new SseEmitter(timeout);
+        Cliente cliente = new Cliente(emitter);
+        emitter.onCompletion(() -> clientes.remove(emitter));
+        emitter.onTimeout(() -> clientes.remove(emitter));
+        emitter.onError(erro -> clientes.remove(emitter));
+        
+        boolean reenviado;
+        long ultimoId;
+        synchronized (lock) {
+            reenviado = ultimoEventoId != null && !historico.isEmpty()
+                    && ultimoEventoId >= historico.peekFirst().id() - 1
+                    && ultimoEventoId <= ultimoDistribuido; // id maior: o servidor reiniciou
+            if (reenviado) {
+                for (Quadro quadro : historico) {
+                    if (quadro.id() > ultimoEventoId) {
+                        cliente.pendentes.add(quadro.conteudo());
+                    }
+                }
+            }
+            ultimoId = ultimoDistribuido;
+            clientes.put(emitter, cliente);
+        }
+        
+        // A fotografia vai na frente dos eventos que chegarem enquanto ela é montada;
+        // um evento repetido só reafirma um estado, então a duplicação é inofensiva
+        List<Set<ResponseBodyEmitter.DataWithMediaType>> inicio = new ArrayList<>();
+        inicio.add(SseEmitter.event().reconnectTime(3000).comment("conectado").build());
+        if (!reenviado) {
+            estadoAtual.get().forEach((tipo, dados) -> {
+                String json = serializar(dados);
+                if (json != null) {
+                    inicio.add(SseEmitter.event().id(Long.toString(ultimoId)).name(tipo).data(json).build());
+                }
+            });
+        }
+        synchronized (cliente) {
+            for (int i = inicio.size() - 1; i >= 0; i--) {
+                cliente.pendentes.addFirst(inicio.get(i));
+            }
+            cliente.ativo = true;
+        }
+        agendarEnvio(cliente);
+        return Optional.of(emitter);
+    }
+    
+    /**
+     * Contadores do canal: clientes conectados, eventos publicados (já distribuídos) e descartados (fila interna cheia)
+     */
+    public Map<String, Long> estatisticas() {
+        return Map.of(
+                "clientes", (long) clientes.size(),
+                "publicados", sequencia.get(),
+                "descartados", descartados.get()
+        );
+    }
+    
+    private void distribuir() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Publicacao publicacao;
+            try {
+                publicacao = publicados.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Evento evento = new Evento(sequencia.incrementAndGet(), publicacao.tipo(), publicacao.dados());
+            
+            for (Consumer<Evento> assinante : assinantes) {
+                try {
+                    assinante.accept(evento);
+                } catch (RuntimeException e) {
+                    log.error("Erro em ouvinte de eventos", e);
+                }
+            }
+            
+            String json = serializar(evento.dados());
+            if (json == null) {
+                continue;
+            }
+            // Montado uma vez e compartilhado por todos os clientes
+            Set<ResponseBodyEmitter.DataWithMediaType> conteudo = SseEmitter.event()
+                    .id(Long.toString(evento.id()))
+                    .name(evento.tipo())
+                    .data(json)
+                    .build();
+            
+            synchronized (lock) {
+                ultimoDistribuido = evento.id();
+                historico.addLast(new Quadro(evento.id(), conteudo));
+                while (historico.size() > tamanhoHistorico) {
+                    historico.removeFirst();
+                }
+                clientes.values().forEach(cliente -> enfileirar(cliente, conteudo));
+            }
+        }
+    }
+    
+    private void enviarKeepalive() {
+        Set<ResponseBodyEmitter.DataWithMediaType> conteudo = SseEmitter.event().comment("keepalive").build();
+        clientes.values().forEach(cliente -> enfileirar(cliente, conteudo));
+    }
+    
+    /**
+     * Coloca um evento na fila do cliente; cliente com fila cheia é considerado lento e desconectado
+     */
+    private void enfileirar(Cliente cliente, Set<ResponseBodyEmitter.DataWithMediaType> conteudo) {
+        boolean lento;
+        synchronized (cliente) {
+            lento = cliente.pendentes.size() >= limitePendentes;
+            if (!lento) {
+                cliente.pendentes.addLast(conteudo);
+            }
+        }
+        if (lento) {
+            desconectar(cliente);
+        } else {
+            agendarEnvio(cliente);
+        }
+    }
+    
+    private void agendarEnvio(Cliente cliente) {
+        synchronized (cliente) {
+            if (!cliente.ativo || cliente.agendado || cliente.pendentes.isEmpty()) {
+                return;
+            }
+            cliente.agendado = true;
+        }
+        try {
+            envio.execute(() -> esvaziar(cliente));
+        } catch (RuntimeException e) {
+            desconectar(cliente); // pool encerrado
+        }
+    }
+    
+    /**
+     * Escreve os eventos pendentes do cliente (no máximo um envio em andamento por cliente)
+     */
+    private void esvaziar(Cliente cliente) {
+        while (true) {
+            Set<ResponseBodyEmitter.DataWithMediaType> conteudo;
+            synchronized (cliente) {
+                conteudo = cliente.pendentes.pollFirst();
+                if (conteudo == null) {
+                    cliente.agendado = false;
+                    return;
+                }
+            }
+            try {
+                cliente.emitter.send(conteudo);
+            } catch (Exception e) {
+                desconectar(cliente);
+                return;
+            }
+        }
+    }
+    
+    private void desconectar(Cliente cliente) {
+        if (clientes.remove(cliente.emitter) != null) {
+            synchronized (cliente) {
+                cliente.pendentes.clear();
+            }
+            cliente.emitter.complete();
+        }
+    }
+    
+    private String serializar(Object dados) {
+        try {
+            return objectMapper.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            log.error("Evento {} não serializável: {}", dados.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+    
+    private record Quadro(long id, Set<ResponseBodyEmitter.DataWithMediaType> conteudo) {
+    }
+    
+    /**
+     * Cliente conectado; a fila e as flags são protegidas pelo próprio objeto
+     */
+    private static final class Cliente {
+        private final SseEmitter emitter;
+        private final Deque<Set<ResponseBodyEmitter.DataWithMediaType>> pendentes = new ArrayDeque<>();
+        private boolean ativo;      // false até a fotografia inicial estar na fila
+        private boolean agendado;   // há um envio em andamento no pool
+        
+        private Cliente(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
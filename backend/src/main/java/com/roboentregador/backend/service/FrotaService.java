@@ -0,0 +1,80 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.RoboDTO;
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.repository.RoboRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Serviço de gerenciamento da frota de robôs
+ * Mantém o registro e o heartbeat sincronizados
+ */
+@Service
+public class FrotaService {
+
+    private final RoboRepository roboRepository;
+    private final MonitorSaudeService monitorSaudeService;
+    private final EventosService eventosService;
+    
+    @Autowired
+    public FrotaService(RoboRepository roboRepository, MonitorSaudeService monitorSaudeService,
+                        EventosService eventosService) {
+        this.roboRepository = roboRepository;
+        this.monitorSaudeService = monitorSaudeService;
+        this.eventosService = eventosService;
+    }
+    
+    public List<RoboDTO> listarRobos() {
+        return roboRepository.findAll().stream()
+                .map(FrotaService::converterParaDTO)
+                .collect(Collectors.toList());
+    }
+    
+    public Optional<RoboDTO> buscarRoboPorId(String id) {
+        return roboRepository.findById(id)
+                .map(FrotaService::converterParaDTO);
+    }
+    
+    /**
+     * Registra um robô (ou substitui o endereço de um existente) e inicia o seu heartbeat
+     */
+    public RoboDTO registrarRobo(RoboDTO dto) {
+        int portaCanal = dto.getPortaCanal() != null ? dto.getPortaCanal() : roboRepository.getPortaCanalPadrao();
+        Robo robo = roboRepository.save(new Robo(dto.getId(), dto.getHost(), dto.getPorta(), portaCanal));
+        monitorSaudeService.monitorar(robo);
+        eventosService.publicar("frota", listarRobos());
+        return converterParaDTO(robo);
+    }
+    
+    /**
+     * Remove um robô da frota; o heartbeat dele termina na próxima verificação
+     */
+    public boolean removerRobo(String id) {
+        if (!roboRepository.existsById(id)) {
+            return false;
+        }
+        roboRepository.deleteById(id);
+        eventosService.publicar("frota", listarRobos());
+        return true;
+    }
+    
+    /**
+     * Usado também pelo heartbeat para publicar o estado do robô no canal de eventos
+     */
+    static RoboDTO converterParaDTO(Robo robo) {
+        return new RoboDTO(
+                robo.getId(),
+                robo.getHost(),
+                robo.getPorta(),
+                robo.getPortaCanal(),
+                robo.getEstado(),
+                robo.getComandoAtual(),
+                robo.getSaude()
+        );
+    }
+}
@@ -0,0 +1,457 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.ProgramaMotor;
+import com.roboentregador.backend.model.RotaCompacta;
+import com.roboentregador.backend.model.TabelaSimbolos;
+import com.roboentregador.backend.repository.ArestaRepository;
+import com.roboentregador.backend.repository.RotaRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Gera catálogos de rotas alternativas a partir do grafo, em vez de escrevê-las à mão
+ * - todos os caminhos simples entre dois nós (busca em profundidade com fork/join)
+ * - os k menores caminhos (algoritmo de Yen, com os desvios calculados em paralelo)
+ * Também confere se as distâncias declaradas no catálogo batem com as arestas
+ * Depende do MapaService para rodar depois da carga de um snapshot (que já traz rotas pré-calculadas)
+ */
+@Service
+@DependsOn("mapaService")
+public class GeradorRotasService {
+
+    private static final Logger log = LoggerFactory.getLogger(GeradorRotasService.class);
+    
+    private static final double TOLERANCIA_CM = 0.01;
+    
+    // Profundidade até onde a busca de caminhos simples se divide em subtarefas
+    private static final int PROFUNDIDADE_PARALELA = 4;
+    
+    @Value("${rotas.geracao.pares:A-G}")
+    private String paresIniciais;
+    
+    @Value("${rotas.geracao.k:10}")
+    private int kInicial;
+    
+    @Value("${rotas.geracao.limite-caminhos:100000}")
+    private int limiteCaminhos;
+    
+    private final ArestaRepository arestaRepository;
+    private final RotaRepository rotaRepository;
+    private final CaminhoService caminhoService;
+    private final CompiladorRotasService compiladorRotasService;
+    
+    // Bloqueios de cada desvio do Yen, reaproveitados por thread (os desvios rodam em paralelo)
+    private final ThreadLocal<Bloqueios> bloqueios = ThreadLocal.withInitial(Bloqueios::new);
+    
+    @Autowired
+    public GeradorRotasService(ArestaRepository arestaRepository, RotaRepository rotaRepository,
+                               CaminhoService caminhoService, CompiladorRotasService compiladorRotasService) {
+        this.arestaRepository = arestaRepository;
+        this.rotaRepository = rotaRepository;
+        this.caminhoService = caminhoService;
+        this.compiladorRotasService = compiladorRotasService;
+    }
+    
+    /**
+     * Valida o catálogo inicial e completa-o com as rotas geradas para rotas.geracao.pares
+     */
+    @PostConstruct
+    public void inicializar() {
+        for (String problema : validarCatalogo()) {
+            log.warn("Catálogo de rotas: {}", problema);
+        }
+        
+        for (String par : paresIniciais.split(",")) {
+            String[] nos = par.trim().split("-");
+            if (nos.length == 2) {
+                int novas = gerarRotas(nos[0].trim(), nos[1].trim(), kInicial, false).size();
+                log.info("Rotas {}: {} no catálogo", par.trim(), novas);
+            }
+        }
+    }
+    
+    /**
+     * Gera rotas entre dois nós e as inclui no catálogo
+     * Caminhos que já existem no catálogo (mesma sequência de nós) são reaproveitados
+     * @param todos true para todos os caminhos simples, false para os k menores
+     * @return as rotas do catálogo correspondentes aos caminhos gerados, em ordem de distância
+     */
+    public List<RotaCompacta> gerarRotas(String origem, String destino, int k, boolean todos) {
+        Grafo grafo = arestaRepository.getGrafo();
+        int o = grafo.indiceDe(origem);
+        int d = grafo.indiceDe(destino);
+        if (o < 0 || d < 0) {
+            return List.of();
+        }
+        
+        List<Caminho> caminhos = todos
+                ? caminhosSimples(grafo, o, d, limiteCaminhos)
+                : kMenoresCaminhos(grafo, o, d, k);
+        
+        return salvarNoCatalogo(caminhos);
+    }
+    
+    /**
+     * Enumera todos os caminhos simples de origem até destino, ordenados por distância
+     * Os primeiros níveis da busca viram subtarefas do ForkJoinPool comum
+     * @param limite número máximo de caminhos (grafos densos têm quantidade exponencial)
+     */
+    public List<Caminho> caminhosSimples(Grafo grafo, int origem, int destino, int limite) {
+        boolean[] visitados = new boolean[grafo.numeroDeNos()];
+        visitados[origem] = true;
+        
+        BuscaCaminhos busca = new BuscaCaminhos(grafo, destino, new int[]{origem}, visitados, 0.0,
+                new AtomicInteger(limite));
+        List<Caminho> caminhos = ForkJoinPool.commonPool().invoke(busca);
+        
+        caminhos.sort(Comparator.comparingDouble(Caminho::getDistancia));
+        return caminhos;
+    }
+    
+    /**
+     * Calcula os k menores caminhos simples (algoritmo de Yen)
+     * Para cada caminho aceito, os desvios a partir de cada nó são independentes
+     * e são calculados em paralelo
+     */
+    public List<Caminho> kMenoresCaminhos(Grafo grafo, int origem, int destino, int k) {
+        List<Caminho> aceitos = new ArrayList<>();
+        Caminho menor = caminhoService.calcularCaminho(grafo, origem, destino);
+        if (menor == null || k <= 0) {
+            return aceitos;
+        }
+        aceitos.add(menor);
+        
+        PriorityQueue<Caminho> candidatos = new PriorityQueue<>(Comparator.comparingDouble(Caminho::getDistancia));
+        Set<String> vistos = new HashSet<>();
+        vistos.add(Arrays.toString(menor.nos()));
+        
+        while (aceitos.size() < k) {
+            int[] anterior = aceitos.get(aceitos.size() - 1).nos();
+            double[] distanciaRaiz = distanciasAcumuladas(grafo, anterior);
+            List<int[]> caminhosAceitos = aceitos.stream().map(Caminho::nos).collect(Collectors.toList());
+            
+            List<Caminho> desvios = IntStream.range(0, anterior.length - 1)
+                    .parallel()
+                    .mapToObj(i -> calcularDesvio(grafo, anterior, i, distanciaRaiz[i], caminhosAceitos, destino))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            
+            for (Caminho desvio : desvios) {
+                if (vistos.add(Arrays.toString(desvio.nos()))) {
+                    candidatos.add(desvio);
+                }
+            }
+            
+            if (candidatos.isEmpty()) {
+                break;
+            }
+            aceitos.add(candidatos.poll());
+        }
+        
+        return aceitos;
+    }
+    
+    /**
+     * Confere o catálogo contra as arestas do grafo
+     * @return descrição de cada inconsistência (lista vazia se tudo bate)
+     */
+    public List<String> validarCatalogo() {
+        Grafo grafo = arestaRepository.getGrafo();
+        List<String> problemas = new ArrayList<>();
+        
+        for (RotaCompacta rota : rotaRepository.findAll()) {
+            List<String> nos = rota.getNosPercorridos();
+            List<String> arestas = rota.getArestasPercorridas();
+            
+            for (int i = 0; i + 1 < nos.size(); i++) {
+                int u = grafo.indiceDe(nos.get(i));
+                int v = grafo.indiceDe(nos.get(i + 1));
+                if (u < 0 || v < 0 || grafo.entrada(u, v) < 0) {
+                    problemas.add(String.format("%s: não existe aresta %s→%s", rota.getNome(), nos.get(i), nos.get(i + 1)));
+                } else if (i < arestas.size() && !arestas.get(i).equals(grafo.idPercorrido(u, v))) {
+                    problemas.add(String.format("%s: aresta %s não corresponde ao trecho %s→%s",
+                            rota.getNome(), arestas.get(i), nos.get(i), nos.get(i + 1)));
+                }
+            }
+            
+            double calculada = arestaRepository.calcularDistanciaTotal(nos);
+            if (Math.abs(calculada - rota.getDistanciaTotal()) > TOLERANCIA_CM) {
+                problemas.add(String.format("%s: distância declarada %.1fcm, pelas arestas %.1fcm",
+                        rota.getNome(), rota.getDistanciaTotal(), calculada));
+            }
+        }
+        
+        return problemas;
+    }
+    
+    /**
+     * Um passo do algoritmo de Yen: desvio a partir do i-ésimo nó do último caminho aceito
+     */
+    private Caminho calcularDesvio(Grafo grafo, int[] anterior, int i, double distanciaRaiz,
+                                   List<int[]> aceitos, int destino) {
+        int noDesvio = anterior[i];
+        Bloqueios bloqueio = bloqueios.get();
+        bloqueio.preparar(grafo.numeroDeNos(), grafo.numeroDeEntradas());
+        
+        Caminho desvio;
+        try {
+            // A raiz (exceto o nó de desvio) não pode ser revisitada: o caminho continua simples
+            for (int j = 0; j < i; j++) {
+                bloqueio.bloquearNo(anterior[j]);
+            }
+            
+            // Bloqueia a continuação de todo caminho aceito que compartilha esta raiz
+            for (int[] aceito : aceitos) {
+                if (aceito.length > i + 1 && Arrays.equals(aceito, 0, i + 1, anterior, 0, i + 1)) {
+                    int entrada = grafo.entrada(aceito[i], aceito[i + 1]);
+                    if (entrada >= 0) {
+                        bloqueio.bloquearEntrada(entrada);
+                    }
+                }
+            }
+            
+            desvio = caminhoService.calcularCaminho(grafo, noDesvio, destino, bloqueio.nos, bloqueio.entradas);
+        } finally {
+            bloqueio.limpar();
+        }
+        if (desvio == null) {
+            return null;
+        }
+        
+        int[] nosDesvio = desvio.nos();
+        int[] nos = new int[i + nosDesvio.length];
+        System.arraycopy(anterior, 0, nos, 0, i);
+        System.arraycopy(nosDesvio, 0, nos, i, nosDesvio.length);
+        return new Caminho(grafo, nos, distanciaRaiz + desvio.getDistancia());
+    }
+    
+    /**
+     * distancias[i] = distância percorrida do início do caminho até o nó na posição i
+     */
+    private static double[] distanciasAcumuladas(Grafo grafo, int[] nos) {
+        double[] distancias = new double[nos.length];
+        for (int i = 1; i < nos.length; i++) {
+            distancias[i] = distancias[i - 1] + grafo.peso(grafo.entrada(nos[i - 1], nos[i]));
+        }
+        return distancias;
+    }
+    
+    /**
+     * Inclui os caminhos no catálogo, reaproveitando rotas com a mesma sequência de nós
+     */
+    private synchronized List<RotaCompacta> salvarNoCatalogo(List<Caminho> caminhos) {
+        Map<List<String>, RotaCompacta> existentes = new HashMap<>();
+        long maiorId = 0;
+        for (RotaCompacta rota : rotaRepository.findAll()) {
+            existentes.putIfAbsent(List.copyOf(rota.getNosPercorridos()), rota);
+            maiorId = Math.max(maiorId, rota.getId());
+        }
+        
+        TabelaSimbolos simbolos = rotaRepository.getSimbolos();
+        List<RotaCompacta> resultado = new ArrayList<>(caminhos.size());
+        
+        for (Caminho caminho : caminhos) {
+            List<String> nomes = caminho.nomesDosNos();
+            RotaCompacta rota = existentes.get(nomes);
+            
+            if (rota == null) {
+                long id = ++maiorId;
+                // Sem trajeto gravado no firmware: guarda as instruções compiladas do caminho (o id do
+                // programa é dado na execução, por CompiladorRotasService.compilar(RotaCompacta))
+                long[] instrucoes = compiladorRotasService.compilar(caminho.getGrafo(), caminho.nos(), 0)
+                        .map(ProgramaMotor::getInstrucoes)
+                        .orElse(new long[0]);
+                rota = rotaRepository.save(new RotaCompacta(
+                        id,
+                        "Rota " + id,
+                        null,
+                        simbolos,
+                        internar(simbolos, nomes),
+                        internar(simbolos, caminho.idsDasArestas()),
+                        instrucoes,
+                        caminho.getDistancia()));
+                existentes.put(nomes, rota);
+            }
+            resultado.add(rota);
+        }
+        
+        return resultado;
+    }
+    
+    private static int[] internar(TabelaSimbolos simbolos, List<String> nomes) {
+        int[] indices = new int[nomes.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = simbolos.internar(nomes.get(i));
+        }
+        return indices;
+    }
+    
+    /**
+     * Busca em profundidade de caminhos simples
+     * Nos primeiros níveis cada vizinho vira uma subtarefa com sua própria cópia dos visitados;
+     * abaixo disso a busca continua sequencial, com backtracking no mesmo array
+     */
+    private static final class BuscaCaminhos extends RecursiveTask<List<Caminho>> {
+        private final Grafo grafo;
+        private final int destino;
+        private final int[] prefixo;
+        private final boolean[] visitados;
+        private final double distancia;
+        private final AtomicInteger restantes;
+        
+        BuscaCaminhos(Grafo grafo, int destino, int[] prefixo, boolean[] visitados,
+                      double distancia, AtomicInteger restantes) {
+            this.grafo = grafo;
+            this.destino = destino;
+            this.prefixo = prefixo;
+            this.visitados = visitados;
+            this.distancia = distancia;
+            this.restantes = restantes;
+        }
+        
+        @Override
+        protected List<Caminho> compute() {
+            List<Caminho> encontrados = new ArrayList<>();
+            int u = prefixo[prefixo.length - 1];
+            
+            if (u == destino) {
+                if (restantes.getAndDecrement() > 0) {
+                    encontrados.add(new Caminho(grafo, prefixo, distancia));
+                }
+                return encontrados;
+            }
+            
+            if (prefixo.length > PROFUNDIDADE_PARALELA) {
+                int[] pilha = Arrays.copyOf(prefixo, grafo.numeroDeNos());
+                buscarSequencial(pilha, prefixo.length, distancia, encontrados);
+                return encontrados;
+            }
+            
+            List<BuscaCaminhos> subtarefas = new ArrayList<>();
+            for (int e = grafo.inicioAdjacencia(u); e < grafo.fimAdjacencia(u); e++) {
+                int v = grafo.vizinho(e);
+                if (visitados[v]) {
+                    continue;
+                }
+                int[] novoPrefixo = Arrays.copyOf(prefixo, prefixo.length + 1);
+                novoPrefixo[prefixo.length] = v;
+                boolean[] novosVisitados = visitados.clone();
+                novosVisitados[v] = true;
+                subtarefas.add(new BuscaCaminhos(grafo, destino, novoPrefixo, novosVisitados,
+                        distancia + grafo.peso(e), restantes));
+            }
+            
+            for (BuscaCaminhos subtarefa : invokeAll(subtarefas)) {
+                encontrados.addAll(subtarefa.join());
+            }
+            return encontrados;
+        }
+        
+        /**
+         * Continua a busca a partir do fim da pilha com backtracking em uma pilha explícita
+         * (a profundidade chega ao número de nós, alta demais para recursão em mapas grandes)
+         * @param base tamanho do prefixo já fixado pela subtarefa; seus nós continuam visitados
+         */
+        private void buscarSequencial(int[] pilha, int base, double acumulada, List<Caminho> encontrados) {
+            int[] proxima = new int[pilha.length];           // próxima entrada de adjacência de cada nível
+            double[] distancias = new double[pilha.length];  // distância acumulada até o nó de cada nível
+            distancias[base - 1] = acumulada;
+            proxima[base - 1] = grafo.inicioAdjacencia(pilha[base - 1]);
+            int tamanho = base;
+            
+            while (tamanho >= base && restantes.get() > 0) {
+                int nivel = tamanho - 1;
+                int u = pilha[nivel];
+                int e = proxima[nivel];
+                if (e >= grafo.fimAdjacencia(u)) {
+                    if (nivel >= base) {
+                        visitados[u] = false;
+                    }
+                    tamanho--;
+                    continue;
+                }
+                proxima[nivel] = e + 1;
+                
+                int v = grafo.vizinho(e);
+                if (visitados[v]) {
+                    continue;
+                }
+                double distancia = distancias[nivel] + grafo.peso(e);
+                pilha[tamanho] = v;
+                if (v == destino) {
+                    if (restantes.getAndDecrement() > 0) {
+                        encontrados.add(new Caminho(grafo, Arrays.copyOf(pilha, tamanho + 1), distancia));
+                    }
+                    continue;
+                }
+                visitados[v] = true;
+                distancias[tamanho] = distancia;
+                proxima[tamanho] = grafo.inicioAdjacencia(v);
+                tamanho++;
+            }
+        }
+    }
+    
+    /**
+     * Nós e entradas bloqueados de um desvio do Yen
+     * Os arrays são do tamanho do grafo e reaproveitados; só as posições marcadas são desfeitas no fim
+     */
+    private static final class Bloqueios {
+        private boolean[] nos = new boolean[0];
+        private boolean[] entradas = new boolean[0];
+        private int[] nosMarcados = new int[0];
+        private int[] entradasMarcadas = new int[0];
+        private int totalNos;
+        private int totalEntradas;
+        
+        void preparar(int n, int m) {
+            if (nos.length < n) {
+                nos = new boolean[n];
+                nosMarcados = new int[n];
+            }
+            if (entradas.length < m) {
+                entradas = new boolean[m];
+                entradasMarcadas = new int[m];
+            }
+        }
+        
+        void bloquearNo(int v) {
+            if (!nos[v]) {
+                nos[v] = true;
+                nosMarcados[totalNos++] = v;
+            }
+        }
+        
+        void bloquearEntrada(int e) {
+            if (!entradas[e]) {
+                entradas[e] = true;
+                entradasMarcadas[totalEntradas++] = e;
+            }
+        }
+        
+        void limpar() {
+            for (int i = 0; i < totalNos; i++) {
+                nos[nosMarcados[i]] = false;
+            }
+            for (int i = 0; i < totalEntradas; i++) {
+                entradas[entradasMarcadas[i]] = false;
+            }
+            totalNos = 0;
+            totalEntradas = 0;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.EventoExecucaoDTO;
+import com.roboentregador.backend.dto.RegistroHistoricoDTO;
+import com.roboentregador.backend.model.DiarioExecucoes;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Histórico de execuções em disco (GET /api/historico), gravado em um DiarioExecucoes
+ * - registrar nunca bloqueia: o registro entra em uma fila e uma única thread grava em lotes,
+ *   com um fsync a cada historico.fsync-ms no máximo (não um por registro); fila cheia descarta e conta
+ * - segmentos mais antigos que historico.retencao-horas ou além de historico.tamanho-maximo-mb são apagados
+ * - consultas e reproduções leem o disco sob demanda, então o histórico não ocupa o heap
+ * Desativado com historico.pasta vazio
+ */
+@Service
+public class HistoricoService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoricoService.class);
+    
+    private static final int LOTE = 1024;
+    private static final long ESPERA_MAXIMA_REPRODUCAO_MS = 5000;
+    private static final long TIMEOUT_REPRODUCAO_MS = 3_600_000;
+    
+    @Value("${historico.pasta:}")
+    private String pasta;
+    
+    @Value("${historico.tamanho-segmento-mb:16}")
+    private long tamanhoSegmentoMb;
+    
+    @Value("${historico.retencao-horas:168}")
+    private long retencaoHoras;
+    
+    @Value("${historico.tamanho-maximo-mb:1024}")
+    private long tamanhoMaximoMb;
+    
+    @Value("${historico.fsync-ms:50}")
+    private long fsyncMs;
+    
+    @Value("${historico.fila:65536}")
+    private int capacidadeFila;
+    
+    @Value("${historico.limite-reproducoes:4}")
+    private int limiteReproducoes;
+    
+    private final EventosService eventosService;
+    private final MeterRegistry registry;
+    private final AtomicLong gravados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong sincronizacoes = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicInteger reproducoes = new AtomicInteger();
+    
+    private BlockingQueue<RegistroHistoricoDTO> fila;
+    private DiarioExecucoes diario;
+    private Thread escritor;
+    private ScheduledExecutorService agendador;
+    private volatile boolean executando;
+    
+    @Autowired
+    public HistoricoService(EventosService eventosService, MeterRegistry registry) {
+        this.eventosService = eventosService;
+        this.registry = registry;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        if (pasta == null || pasta.isBlank()) {
+            return;
+        }
+        Path caminho = Paths.get(pasta).toAbsolutePath();
+        try {
+            diario = DiarioExecucoes.abrir(caminho, tamanhoSegmentoMb * 1024 * 1024);
+        } catch (IOException e) {
+            log.warn("Histórico de execuções desativado: {}", e.getMessage());
+            return;
+        }
+        fila = new ArrayBlockingQueue<>(capacidadeFila);
+        
+        FunctionCounter.builder("historico.registros", gravados, AtomicLong::get)
+                .description("Registros gravados no histórico de execuções")
+                .register(registry);
+        FunctionCounter.builder("historico.descartados", descartados, AtomicLong::get)
+                .description("Registros descartados com a fila do histórico cheia")
+                .register(registry);
+        FunctionCounter.builder("historico.fsyncs", sincronizacoes, AtomicLong::get)
+                .description("Sincronizações do histórico com o disco")
+                .register(registry);
+        Gauge.builder("historico.fila", fila, BlockingQueue::size)
+                .description("Registros aguardando gravação no histórico")
+                .register(registry);
+        Gauge.builder("historico.bytes", diario, DiarioExecucoes::getTamanhoTotal)
+                .description("Tamanho do histórico em disco")
+                .register(registry);
+        
+        // Fim dos trajetos chega pelos eventos de execução
+        eventosService.assinar(evento -> {
+            if (evento.dados() instanceof EventoExecucaoDTO execucao) {
+                registrar(new RegistroHistoricoDTO(execucao.getInstante(), "trajeto", execucao.getRoboId(),
+                        execucao.getComando(), execucao.getEstado(), null, null));
+            }
+        });
+        
+        executando = true;
+        escritor = new Thread(this::escrever, "historico-escrita");
+        escritor.setDaemon(true);
+        escritor.start();
+        
+        agendador = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "historico-agendador");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::aplicarRetencao, 0, 1, TimeUnit.MINUTES);
+        log.info("Histórico de execuções em {} ({} segmentos, {} KiB)", caminho, diario.getNumeroDeSegmentos(),
+                diario.getTamanhoTotal() / 1024);
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        if (diario == null) {
+            return;
+        }
+        agendador.shutdownNow();
+        // Sem interrupt: interromper uma thread no meio de uma escrita fecha o FileChannel
+        executando = false;
+        try {
+            escritor.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Registra um envio para a ESP8266 (mesma classificação de resultado da métrica robo.comando.latencia)
+     * @param erro exceção do envio (null se houve resposta HTTP)
+     */
+    public void registrarComando(String roboId, String comando, boolean sucesso, Throwable erro, long nanos) {
+        registrar(new RegistroHistoricoDTO(System.currentTimeMillis(), "comando", roboId, comando,
+                MetricasService.resultado(sucesso, erro), null, nanos / 1e6));
+    }
+    
+    /**
+     * Registra uma execução pedida (rota do catálogo, caminho ou trajeto)
+     * Resultado: "sucesso", "sem_robo" (nenhum robô livre) ou "falha" (o robô não aceitou o comando)
+     * @param rotaId null fora do catálogo
+     */
+    public void registrarExecucao(Long rotaId, String roboId, String comando, boolean sucesso) {
+        registrar(new RegistroHistoricoDTO(System.currentTimeMillis(), "execucao", roboId, comando,
+                sucesso ? "sucesso" : roboId != null ? "falha" : "sem_robo", rotaId, null));
+    }
+    
+    /**
+     * Registra uma rota sem trajeto gravado que também não pôde ser compilada
+     */
+    public void registrarRotaNaoCompilavel(Long rotaId) {
+        registrar(new RegistroHistoricoDTO(System.currentTimeMillis(), "execucao", null, null,
+                "nao_compilavel", rotaId, null));
+    }
+    
+    private void registrar(RegistroHistoricoDTO registro) {
+        if (fila != null && !fila.offer(registro)) {
+            descartados.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Registros de um período em ordem de gravação, lidos do disco à medida que o cursor avança
+     * O chamador deve fechar o cursor
+     * @return vazio se o histórico estiver desativado
+     */
+    public Optional<DiarioExecucoes.Cursor> consultar(long desde, long ate, String roboId, String tipo) {
+        return diario != null ? Optional.of(diario.consultar(desde, ate, roboId, tipo)) : Optional.empty();
+    }
+    
+    /**
+     * Reproduz um período como Server-Sent Events, um evento por registro (nome = tipo),
+     * respeitando os intervalos originais divididos por velocidade (0 = o mais rápido possível);
+     * pausas maiores que 5 s de reprodução são encurtadas para esse limite
+     * @return vazio se o histórico estiver desativado ou o limite de reproduções simultâneas foi atingido
+     */
+    public Optional<SseEmitter> reproduzir(long desde, long ate, String roboId, String tipo, double velocidade) {
+        if (diario == null) {
+            return Optional.empty();
+        }
+        if (reproducoes.incrementAndGet() > limiteReproducoes) {
+            reproducoes.decrementAndGet();
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(TIMEOUT_REPRODUCAO_MS);
+        Reproducao reproducao = new Reproducao(emitter, diario.consultar(desde, ate, roboId, tipo), velocidade);
+        emitter.onCompletion(reproducao::encerrar);
+        emitter.onTimeout(reproducao::encerrar);
+        emitter.onError(erro -> reproducao.encerrar());
+        agendador.execute(reproducao::agendarProximo);
+        return Optional.of(emitter);
+    }
+    
+    /**
+     * Pasta, tamanho em disco e contadores de gravação
+     */
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("ativo", diario != null);
+        if (diario != null) {
+            estatisticas.put("pasta", Paths.get(pasta).toAbsolutePath().toString());
+            estatisticas.put("segmentos", diario.getNumeroDeSegmentos());
+            estatisticas.put("bytes", diario.getTamanhoTotal());
+            estatisticas.put("primeiroInstante", diario.getPrimeiroInstante());
+            estatisticas.put("pendentes", fila.size());
+        }
+        estatisticas.put("gravados", gravados.get());
+        estatisticas.put("descartados", descartados.get());
+        estatisticas.put("fsyncs", sincronizacoes.get());
+        estatisticas.put("falhas", falhas.get());
+        estatisticas.put("reproducoes", reproducoes.get());
+        return estatisticas;
+    }
+    
+    /**
+     * Laço da thread de escrita: junta o que estiver na fila em um lote, anexa ao diário e
+     * sincroniza quando passou historico.fsync-ms do último fsync ou a fila esvaziou
+     */
+    private void escrever() {
+        List<RegistroHistoricoDTO> lote = new ArrayList<>(LOTE);
+        long ultimaSincronizacao = System.nanoTime();
+        boolean pendente = false;
+        while (executando || !fila.isEmpty()) {
+            try {
+                long decorridoMs = (System.nanoTime() - ultimaSincronizacao) / 1_000_000;
+                long esperaMs = pendente ? Math.max(0, fsyncMs - decorridoMs) : 200;
+                RegistroHistoricoDTO primeiro = fila.poll(esperaMs, TimeUnit.MILLISECONDS);
+                if (primeiro != null) {
+                    lote.add(primeiro);
+                    fila.drainTo(lote, LOTE - 1);
+                    diario.anexar(lote);
+                    gravados.addAndGet(lote.size());
+                    lote.clear();
+                    pendente = true;
+                }
+                if (pendente && (primeiro == null
+                        || System.nanoTime() - ultimaSincronizacao >= fsyncMs * 1_000_000)) {
+                    diario.sincronizar();
+                    sincronizacoes.incrementAndGet();
+                    ultimaSincronizacao = System.nanoTime();
+                    pendente = false;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                falhas.incrementAndGet();
+                descartados.addAndGet(lote.size());
+                lote.clear();
+                log.error("Erro ao gravar o histórico: {}", e.getMessage());
+            }
+        }
+        try {
+            diario.close();
+        } catch (IOException e) {
+            log.error("Erro ao fechar o histórico: {}", e.getMessage());
+        }
+    }
+    
+    private void aplicarRetencao() {
+        try {
+            long limite = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retencaoHoras);
+            int apagados = diario.apagarAntigos(limite, tamanhoMaximoMb * 1024 * 1024);
+            if (apagados > 0) {
+                log.info("Retenção do histórico: {} segmentos apagados", apagados);
+            }
+        } catch (IOException e) {
+            log.warn("Retenção do histórico falhou: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Uma reprodução em andamento: lê um registro por vez e agenda o envio do seguinte
+     */
+    private final class Reproducao {
+        private final SseEmitter emitter;
+        private final DiarioExecucoes.Cursor cursor;
+        private final double velocidade;
+        private long anterior = -1;
+        private volatile boolean encerrada;
+        
+        private Reproducao(SseEmitter emitter, DiarioExecucoes.Cursor cursor, double velocidade) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.velocidade = velocidade;
+        }
+        
+        private void agendarProximo() {
+            if (encerrada) {
+                return;
+            }
+            RegistroHistoricoDTO registro;
+            try {
+                if (!cursor.hasNext()) {
+                    emitter.complete();
+                    encerrar();
+                    return;
+                }
+                registro = cursor.next();
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+                encerrar();
+                return;
+            }
+            long atrasoMs = anterior < 0 || velocidade <= 0 ? 0
+                    : Math.min(ESPERA_MAXIMA_REPRODUCAO_MS, (long) ((registro.getInstante() - anterior) / velocidade));
+            anterior = registro.getInstante();
+            try {
+                agendador.schedule(() -> enviar(registro), Math.max(0, atrasoMs), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                encerrar(); // agendador encerrado
+            }
+        }
+        
+        private void enviar(RegistroHistoricoDTO registro) {
+            if (encerrada) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(registro.getTipo()).data(registro));
+            } catch (IOException | IllegalStateException e) {
+                encerrar();
+                return;
+            }
+            agendarProximo();
+        }
+        
+        private synchronized void encerrar() {
+            if (!encerrada) {
+                encerrada = true;
+                cursor.close();
+                reproducoes.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.roboentregador.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Resultados de execuções pedidas com o cabeçalho Idempotency-Key
+ * A primeira requisição com uma chave executa normalmente; as repetições com a mesma chave e a mesma
+ * operação (retry do cliente, reenvio de formulário) recebem o resultado original, ou aguardam o mesmo
+ * Future se ele ainda não completou, sem enviar nada ao robô. Execuções que terminam com exceção
+ * não ficam guardadas, para que uma nova tentativa possa executar de fato
+ * Limites: idempotencia.capacidade chaves e idempotencia.ttl-segundos a partir do primeiro pedido;
+ * como o TTL é o mesmo para todas, a ordem de inserção é a ordem de expiração e as vencidas saem do início
+ */
+@Service
+public class IdempotenciaService {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+    
+    @Value("${idempotencia.ttl-segundos:600}")
+    private long ttlSegundos;
+    
+    @Value("${idempotencia.capacidade:10000}")
+    private int capacidade;
+    
+    private final MeterRegistry registry;
+    private final LinkedHashMap<String, Entrada> resultados = new LinkedHashMap<>();   // protegido por ele mesmo
+    private Counter repeticoes;
+    private long ttlNanos;
+    
+    @Autowired
+    public IdempotenciaService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        repeticoes = Counter.builder("idempotencia.repeticoes")
+                .description("Requisições respondidas com o resultado guardado de uma Idempotency-Key")
+                .register(registry);
+        Gauge.builder("idempotencia.chaves", this, IdempotenciaService::getTamanho)
+                .description("Idempotency-Keys guardadas")
+                .register(registry);
+    }
+    
+    /**
+     * Executa a ação uma única vez por chave e operação dentro do TTL
+     * @param operacao identifica o pedido (ex: "rota:3:robo-1"): a mesma chave em outra operação é independente
+     * @param chave valor do cabeçalho Idempotency-Key; null ou vazio executa sem guardar
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executar(String operacao, String chave, Supplier<CompletableFuture<T>> acao) {
+        if (chave == null || chave.isBlank()) {
+            return acao.get();
+        }
+        
+        String id = operacao + "|" + chave;
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        Entrada entrada = new Entrada(resultado, System.nanoTime());
+        Entrada existente;
+        synchronized (resultados) {
+            removerVencidas(entrada.instante());
+            existente = resultados.putIfAbsent(id, entrada);
+            if (existente == null && resultados.size() > capacidade) {
+                Iterator<Entrada> maisAntiga = resultados.values().iterator();
+                maisAntiga.next();
+                maisAntiga.remove();
+            }
+        }
+        if (existente != null) {
+            repeticoes.increment();
+            log.debug("Repetição da Idempotency-Key {} em {}: devolvendo o resultado original", chave, operacao);
+            return (CompletableFuture<T>) existente.resultado().copy();
+        }
+        
+        CompletableFuture<T> execucao;
+        try {
+            execucao = acao.get();
+        } catch (RuntimeException e) {
+            execucao = CompletableFuture.failedFuture(e);
+        }
+        execucao.whenComplete((valor, erro) -> {
+            if (erro != null) {
+                synchronized (resultados) {
+                    resultados.remove(id, entrada);
+                }
+                resultado.completeExceptionally(erro);
+            } else {
+                resultado.complete(valor);
+            }
+        });
+        return resultado.copy();
+    }
+    
+    public int getTamanho() {
+        synchronized (resultados) {
+            return resultados.size();
+        }
+    }
+    
+    private void removerVencidas(long agora) {
+        Iterator<Entrada> entradas = resultados.values().iterator();
+        while (entradas.hasNext() && agora - entradas.next().instante() >= ttlNanos) {
+            entradas.remove();
+        }
+    }
+    
+    private record Entrada(CompletableFuture<?> resultado, long instante) {
+    }
+}
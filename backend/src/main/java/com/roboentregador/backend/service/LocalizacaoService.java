@@ -0,0 +1,88 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.NoProximoDTO;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.IndiceEspacial;
+import com.roboentregador.backend.model.Posicao;
+import com.roboentregador.backend.repository.ArestaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Localização de pontos da planta no mapa: nó e aresta mais próximos de (x, y)
+ * Usa um IndiceEspacial do grafo atual, reconstruído na primeira consulta depois de uma troca
+ * (a troca é detectada pela referência de getGrafo(), como na matriz de distâncias)
+ */
+@Service
+public class LocalizacaoService {
+
+    private final ArestaRepository arestaRepository;
+    
+    private volatile IndiceEspacial indice;
+    
+    @Autowired
+    public LocalizacaoService(ArestaRepository arestaRepository) {
+        this.arestaRepository = arestaRepository;
+    }
+    
+    /**
+     * Índice do grafo atual
+     * Duas consultas simultâneas logo após uma troca podem construir o índice juntas; vale o último
+     */
+    public IndiceEspacial obterIndice() {
+        Grafo grafo = arestaRepository.getGrafo();
+        IndiceEspacial atual = indice;
+        if (atual == null || atual.getGrafo() != grafo) {
+            atual = IndiceEspacial.construir(grafo);
+            indice = atual;
+        }
+        return atual;
+    }
+    
+    /**
+     * Nome do nó posicionado mais próximo do ponto
+     * @return vazio se nenhum nó do mapa tem posição
+     */
+    public Optional<String> noMaisProximo(double x, double y) {
+        IndiceEspacial atual = obterIndice();
+        int no = atual.noMaisProximo(x, y);
+        return no >= 0 ? Optional.of(atual.getGrafo().nomeDe(no)) : Optional.empty();
+    }
+    
+    /**
+     * Nó e aresta mais próximos do ponto
+     * A aresta é devolvida no sentido em que foi cadastrada (a fração é medida a partir da origem dela)
+     * @return vazio se nenhum nó do mapa tem posição
+     */
+    public Optional<NoProximoDTO> localizar(double x, double y) {
+        IndiceEspacial atual = obterIndice();
+        Grafo grafo = atual.getGrafo();
+        int no = atual.noMaisProximo(x, y);
+        if (no < 0) {
+            return Optional.empty();
+        }
+        
+        NoProximoDTO resposta = new NoProximoDTO();
+        resposta.setPonto(new Posicao(x, y));
+        resposta.setNo(grafo.nomeDe(no));
+        resposta.setPosicaoNo(new Posicao(grafo.x(no), grafo.y(no)));
+        resposta.setDistanciaNo(Math.hypot(grafo.x(no) - x, grafo.y(no) - y));
+        
+        IndiceEspacial.ArestaProxima aresta = atual.arestaMaisProxima(x, y);
+        if (aresta != null) {
+            String id = grafo.idPercorrido(aresta.origem(), aresta.destino());
+            double fracao = aresta.fracao();
+            if (arestaRepository.findById(id).isEmpty()) {
+                id = grafo.idPercorrido(aresta.destino(), aresta.origem());
+                fracao = 1 - fracao;
+            }
+            resposta.setAresta(id);
+            resposta.setProjecao(new Posicao(aresta.x(), aresta.y()));
+            resposta.setFracao(fracao);
+            resposta.setDistanciaAresta(aresta.distancia());
+        }
+        return Optional.of(resposta);
+    }
+}
@@ -0,0 +1,247 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.SnapshotMapa;
+import com.roboentregador.backend.repository.ArestaRepository;
+import com.roboentregador.backend.repository.RotaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga e recarga a quente do mapa a partir de um SnapshotMapa (mapa.arquivo no application.properties)
+ * - na inicialização, o snapshot substitui o mapa e o catálogo embutidos (antes da geração de rotas)
+ * - um WatchService observa a pasta do arquivo; quando ele muda, o snapshot novo é lido e validado
+ *   (tamanho e CRC32) e só então trocado nos repositórios, sem parar as requisições em andamento
+ * - um snapshot inválido é ignorado e o mapa atual continua valendo
+ * Para publicar um mapa novo, grave-o com outro nome e renomeie por cima (mv é atômico na mesma pasta)
+ */
+@Service
+public class MapaService {
+
+    private static final Logger log = LoggerFactory.getLogger(MapaService.class);
+    
+    @Value("${mapa.arquivo:}")
+    private String arquivo;
+    
+    @Value("${mapa.observar:true}")
+    private boolean observar;
+    
+    @Value("${mapa.espera-ms:250}")
+    private long esperaMs;
+    
+    private final ArestaRepository arestaRepository;
+    private final RotaRepository rotaRepository;
+    private final EventosService eventosService;
+    
+    private Path caminho;
+    private Thread observador;
+    private volatile WatchService watchService;
+    
+    // Estado da última carga (escrito sob o lock de carregar())
+    private volatile long versaoCarregada = -1;
+    private volatile long crcCarregado = -1;
+    private Grafo grafoCarregado;           // mapa e catálogo logo após a carga, para saber se
+    private long versaoCatalogoCarregado;   // foram alterados pela API depois dela
+    private volatile Instant carregadoEm;
+    private volatile double duracaoUltimaCargaMs;
+    private volatile long recargas;
+    private volatile long falhas;
+    private volatile String ultimoErro;
+    
+    @Autowired
+    public MapaService(ArestaRepository arestaRepository, RotaRepository rotaRepository, EventosService eventosService) {
+        this.arestaRepository = arestaRepository;
+        this.rotaRepository = rotaRepository;
+        this.eventosService = eventosService;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        if (arquivo == null || arquivo.isBlank()) {
+            return;
+        }
+        caminho = Paths.get(arquivo).toAbsolutePath();
+        
+        if (Files.exists(caminho)) {
+            carregar();
+        } else {
+            log.info("Snapshot {} ainda não existe: usando o mapa embutido", caminho);
+        }
+        
+        if (observar) {
+            try {
+                watchService = caminho.getFileSystem().newWatchService();
+                caminho.getParent().register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                log.warn("Recarga automática do mapa desativada: {}", e.getMessage());
+                return;
+            }
+            observador = new Thread(this::observar, "mapa-observador");
+            observador.setDaemon(true);
+            observador.start();
+        }
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        if (watchService != null) {
+            try {
+                watchService.close(); // desbloqueia o take()
+            } catch (IOException ignorada) {
+                // encerrando de qualquer forma
+            }
+        }
+    }
+    
+    /**
+     * Lê o snapshot configurado e troca o mapa e o catálogo se ele for válido e diferente do atual
+     * @return true se o mapa foi trocado
+     */
+    public synchronized boolean carregar() {
+        if (caminho == null) {
+            return false;
+        }
+        long inicio = System.nanoTime();
+        SnapshotMapa snapshot;
+        try {
+            snapshot = SnapshotMapa.ler(caminho);
+        } catch (IOException | RuntimeException e) {
+            falhas++;
+            ultimoErro = e.getMessage();
+            log.warn("Snapshot do mapa ignorado, mantendo o mapa atual: {}", e.getMessage());
+            return false;
+        }
+        
+        // Mesmo conteúdo e nada alterado desde então (ex: o arquivo que acabamos de exportar):
+        // não invalida os caches à toa
+        if (snapshot.getVersao() == versaoCarregada && snapshot.getCrc() == crcCarregado
+                && arestaRepository.getGrafo() == grafoCarregado && rotaRepository.getVersao() == versaoCatalogoCarregado) {
+            return false;
+        }
+        
+        // Grafo antes do catálogo: por um instante uma rota antiga pode ver o grafo novo,
+        // o que as buscas já tratam como nó ou aresta inexistente
+        arestaRepository.substituir(snapshot.getArestas(), snapshot.getPosicoes(), snapshot.getGrafo());
+        rotaRepository.substituir(snapshot.getRotas(), snapshot.getSimbolos());
+        
+        duracaoUltimaCargaMs = (System.nanoTime() - inicio) / 1e6;
+        marcarCarregado(snapshot);
+        recargas++;
+        ultimoErro = null;
+        log.info("Mapa versão {} carregado em {} ms: {} nós, {} arestas, {} rotas",
+                snapshot.getVersao(), String.format("%.2f", duracaoUltimaCargaMs), snapshot.getGrafo().numeroDeNos(),
+                snapshot.getGrafo().numeroDeArestas(), snapshot.getRotas().size());
+        eventosService.publicar("mapa", estatisticas());
+        return true;
+    }
+    
+    /**
+     * Snapshot do mapa e do catálogo atuais
+     * @param versao versão gravada no arquivo; null = instante atual em ms
+     */
+    public byte[] exportar(Long versao) {
+        return SnapshotMapa.gravar(versao != null ? versao : System.currentTimeMillis(),
+                arestaRepository.findAll(), arestaRepository.findAllPosicoes(), rotaRepository.findAll());
+    }
+    
+    /**
+     * Grava o mapa atual no arquivo configurado (em outro nome e renomeando por cima, para o
+     * observador nunca ver um arquivo pela metade) e o marca como carregado
+     * @throws IllegalStateException se mapa.arquivo não estiver configurado
+     */
+    public synchronized Map<String, Object> salvar(Long versao) throws IOException {
+        if (caminho == null) {
+            throw new IllegalStateException("mapa.arquivo não configurado");
+        }
+        byte[] conteudo = exportar(versao);
+        Path temporario = caminho.resolveSibling(caminho.getFileName() + ".tmp");
+        Files.write(temporario, conteudo);
+        try {
+            Files.move(temporario, caminho, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporario, caminho, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // O arquivo já reflete o mapa atual: só registra versão e CRC, para a recarga
+        // disparada pelo próprio arquivo reconhecer o conteúdo e não trocar nada
+        marcarCarregado(SnapshotMapa.ler(caminho));
+        return estatisticas();
+    }
+    
+    private void marcarCarregado(SnapshotMapa snapshot) {
+        versaoCarregada = snapshot.getVersao();
+        crcCarregado = snapshot.getCrc();
+        grafoCarregado = arestaRepository.getGrafo();
+        versaoCatalogoCarregado = rotaRepository.getVersao();
+        carregadoEm = Instant.now();
+    }
+    
+    /**
+     * Arquivo observado, versão carregada e contadores de recarga
+     */
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("arquivo", caminho != null ? caminho.toString() : null);
+        estatisticas.put("observando", observador != null && observador.isAlive());
+        estatisticas.put("versao", versaoCarregada >= 0 ? versaoCarregada : null);
+        estatisticas.put("carregadoEm", carregadoEm != null ? carregadoEm.toString() : null);
+        estatisticas.put("duracaoUltimaCargaMs", duracaoUltimaCargaMs);
+        estatisticas.put("nos", arestaRepository.getGrafo().numeroDeNos());
+        estatisticas.put("arestas", arestaRepository.getGrafo().numeroDeArestas());
+        estatisticas.put("rotas", rotaRepository.findAll().size());
+        estatisticas.put("recargas", recargas);
+        estatisticas.put("falhas", falhas);
+        estatisticas.put("ultimoErro", ultimoErro);
+        return estatisticas;
+    }
+    
+    /**
+     * Laço do observador: a cada evento do arquivo, espera esperaMs sem novos eventos
+     * (cópias por cima geram vários MODIFY seguidos) e então recarrega
+     */
+    private void observar() {
+        Path nome = caminho.getFileName();
+        try {
+            while (true) {
+                WatchKey chave = watchService.take();
+                boolean alterado = doArquivo(chave, nome);
+                while (alterado) {
+                    WatchKey proxima = watchService.poll(esperaMs, TimeUnit.MILLISECONDS);
+                    if (proxima == null) {
+                        break;
+                    }
+                    doArquivo(proxima, nome);
+                }
+                if (alterado) {
+                    carregar();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // backend encerrando
+        }
+    }
+    
+    private static boolean doArquivo(WatchKey chave, Path nome) {
+        boolean alterado = false;
+        for (WatchEvent<?> evento : chave.pollEvents()) {
+            // OVERFLOW: eventos perdidos, então o arquivo pode ter mudado
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW || nome.equals(evento.context())) {
+                alterado = true;
+            }
+        }
+        chave.reset();
+        return alterado;
+    }
+}
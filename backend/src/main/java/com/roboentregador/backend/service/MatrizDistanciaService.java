@@ -0,0 +1,249 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.MatrizDistancias;
+import com.roboentregador.backend.repository.ArestaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Cache de distâncias mínimas entre todos os pares de nós
+ * - Grafos com até grafo.matriz.limite-nos nós: matriz N² de distâncias e anteriores
+ *   em arrays primitivos, construída em segundo plano (uma busca por origem, em paralelo)
+ * - Grafos maiores: linhas calculadas sob demanda e guardadas num LRU limitado
+ * Quando as arestas mudam, a matriz antiga deixa de ser usada na hora e as consultas
+ * passam para as linhas sob demanda do grafo novo até a reconstrução terminar
+ */
+@Service
+public class MatrizDistanciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatrizDistanciaService.class);
+    
+    @Value("${grafo.matriz.limite-nos:2048}")
+    private int limiteNos;
+    
+    @Value("${grafo.matriz.linhas-cache:256}")
+    private int linhasCache;
+    
+    private final ArestaRepository arestaRepository;
+    private final CaminhoService caminhoService;
+    private final ExecutorService construtor;
+    
+    private volatile MatrizCompleta completa;
+    private final AtomicReference<Grafo> emConstrucao = new AtomicReference<>();
+    private final AtomicReference<LinhasSobDemanda> sobDemanda = new AtomicReference<>();
+    
+    @Autowired
+    public MatrizDistanciaService(ArestaRepository arestaRepository, CaminhoService caminhoService) {
+        this.arestaRepository = arestaRepository;
+        this.caminhoService = caminhoService;
+        this.construtor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "matriz-distancias");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        construtor.shutdownNow();
+    }
+    
+    /**
+     * Retorna as distâncias do grafo atual
+     * Nunca bloqueia esperando a matriz completa: enquanto ela não existe,
+     * responde com linhas sob demanda e agenda a construção
+     */
+    public MatrizDistancias obterMatriz() {
+        Grafo grafo = arestaRepository.getGrafo();
+        MatrizCompleta atual = completa;
+        if (atual != null && atual.getGrafo() == grafo) {
+            return atual;
+        }
+        
+        agendarAtualizacao();
+        return linhasDo(grafo);
+    }
+    
+    /**
+     * Agenda a reconstrução da matriz completa se o grafo mudou e cabe no limite
+     */
+    public void agendarAtualizacao() {
+        Grafo grafo = arestaRepository.getGrafo();
+        MatrizCompleta atual = completa;
+        if (grafo.numeroDeNos() > limiteNos || (atual != null && atual.getGrafo() == grafo)) {
+            return;
+        }
+        
+        Grafo anterior = emConstrucao.get();
+        if (anterior != grafo && emConstrucao.compareAndSet(anterior, grafo)) {
+            construtor.execute(() -> construir(grafo));
+        }
+    }
+    
+    /**
+     * Distância mínima entre dois nós pelo nome
+     * @return vazio se algum nó não existir ou não houver ligação
+     */
+    public OptionalDouble distancia(String origem, String destino) {
+        MatrizDistancias matriz = obterMatriz();
+        int o = matriz.getGrafo().indiceDe(origem);
+        int d = matriz.getGrafo().indiceDe(destino);
+        if (o < 0 || d < 0) {
+            return OptionalDouble.empty();
+        }
+        
+        double distancia = matriz.distancia(o, d);
+        return Double.isInfinite(distancia) ? OptionalDouble.empty() : OptionalDouble.of(distancia);
+    }
+    
+    /**
+     * Caminho mínimo entre dois nós, reconstruído pelos anteriores da matriz
+     */
+    public Optional<Caminho> caminho(String origem, String destino) {
+        MatrizDistancias matriz = obterMatriz();
+        int o = matriz.getGrafo().indiceDe(origem);
+        int d = matriz.getGrafo().indiceDe(destino);
+        if (o < 0 || d < 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(matriz.caminho(o, d));
+    }
+    
+    private void construir(Grafo grafo) {
+        if (arestaRepository.getGrafo() != grafo) {
+            return; // o grafo mudou de novo; a construção mais nova já foi agendada
+        }
+        
+        int n = grafo.numeroDeNos();
+        double[] distancias = new double[n * n];
+        int[] anteriores = new int[n * n];
+        
+        IntStream.range(0, n).parallel().forEach(origem -> {
+            double[] linha = new double[n];
+            int[] anterior = new int[n];
+            caminhoService.calcularArvore(grafo, origem, linha, anterior);
+            System.arraycopy(linha, 0, distancias, origem * n, n);
+            System.arraycopy(anterior, 0, anteriores, origem * n, n);
+        });
+        
+        completa = new MatrizCompleta(grafo, distancias, anteriores);
+        log.info("Matriz de distâncias pronta: {} nós", n);
+    }
+    
+    private LinhasSobDemanda linhasDo(Grafo grafo) {
+        while (true) {
+            LinhasSobDemanda atual = sobDemanda.get();
+            if (atual != null && atual.getGrafo() == grafo) {
+                return atual;
+            }
+            LinhasSobDemanda nova = new LinhasSobDemanda(grafo, linhasCache, caminhoService);
+            if (sobDemanda.compareAndSet(atual, nova)) {
+                return nova;
+            }
+        }
+    }
+    
+    /**
+     * Matriz N² completa: consulta O(1) por índice
+     */
+    private static final class MatrizCompleta implements MatrizDistancias {
+        private final Grafo grafo;
+        private final int n;
+        private final double[] distancias;
+        private final int[] anteriores;
+        
+        MatrizCompleta(Grafo grafo, double[] distancias, int[] anteriores) {
+            this.grafo = grafo;
+            this.n = grafo.numeroDeNos();
+            this.distancias = distancias;
+            this.anteriores = anteriores;
+        }
+        
+        @Override
+        public Grafo getGrafo() {
+            return grafo;
+        }
+        
+        @Override
+        public double distancia(int origem, int destino) {
+            return distancias[origem * n + destino];
+        }
+        
+        @Override
+        public int anterior(int origem, int destino) {
+            return anteriores[origem * n + destino];
+        }
+    }
+    
+    /**
+     * Linhas da matriz calculadas sob demanda, com no máximo "capacidade" linhas em memória
+     */
+    private static final class LinhasSobDemanda implements MatrizDistancias {
+        private final Grafo grafo;
+        private final CaminhoService caminhoService;
+        private final Map<Integer, Linha> linhas;
+        
+        LinhasSobDemanda(Grafo grafo, int capacidade, CaminhoService caminhoService) {
+            this.grafo = grafo;
+            this.caminhoService = caminhoService;
+            this.linhas = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Linha> maisAntiga) {
+                    return size() > capacidade;
+                }
+            };
+        }
+        
+        @Override
+        public Grafo getGrafo() {
+            return grafo;
+        }
+        
+        @Override
+        public double distancia(int origem, int destino) {
+            return linha(origem).distancias[destino];
+        }
+        
+        @Override
+        public int anterior(int origem, int destino) {
+            return linha(origem).anteriores[destino];
+        }
+        
+        private Linha linha(int origem) {
+            synchronized (linhas) {
+                Linha linha = linhas.get(origem);
+                if (linha != null) {
+                    return linha;
+                }
+            }
+            
+            // Calcula fora do lock; se duas threads calcularem a mesma linha, o resultado é igual
+            int n = grafo.numeroDeNos();
+            Linha nova = new Linha(new double[n], new int[n]);
+            caminhoService.calcularArvore(grafo, origem, nova.distancias, nova.anteriores);
+            
+            synchronized (linhas) {
+                linhas.put(origem, nova);
+            }
+            return nova;
+        }
+        
+        private record Linha(double[] distancias, int[] anteriores) {
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.EventoExecucaoDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Métricas de negócio publicadas no Micrometer (GET /actuator/prometheus)
+ * Centraliza os nomes e as tags para manter a cardinalidade limitada:
+ * - robo.comando.latencia: envio de comando/programa por robô, comando, canal (http, binario ou nenhum) e resultado
+ *   (sucesso, falha = recusado pela ESP8266, timeout, erro = falha de conexão, rejeitado = circuito aberto)
+ * - robo.comando.reenvios: reenvios de comandos idempotentes (STOP) sem resposta no tempo normal do robô
+ * - robo.circuito.transicoes: aberturas e fechamentos do circuito de cada robô
+ * - robo.status.latencia: consulta de status do heartbeat por robô, canal e resultado
+ * - rota.execucoes: execuções pedidas por rota do catálogo e resultado
+ * - robo.trajeto.duracao: do envio até o fim do trajeto, por robô e desfecho (a partir dos eventos)
+ * - tempos.aprendizados: trajetos concluídos usados ("aprendida") ou descartados pelo aprendizado de tempos
+ * Percentis e histogramas são configurados em management.metrics.distribution.* no application.properties
+ */
+@Service
+public class MetricasService {
+
+    private final MeterRegistry registry;
+    private final EventosService eventosService;
+    private final Map<String, Long> iniciosTrajeto = new ConcurrentHashMap<>(); // robô → instante do início
+    
+    @Autowired
+    public MetricasService(MeterRegistry registry, EventosService eventosService) {
+        this.registry = registry;
+        this.eventosService = eventosService;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        eventosService.assinar(evento -> {
+            if (evento.dados() instanceof EventoExecucaoDTO execucao) {
+                registrarTrajeto(execucao);
+            }
+        });
+    }
+    
+    /**
+     * Registra o tempo de um envio para a ESP8266
+     * @param canal "http", "binario" (conexão persistente do CanalBinario) ou "nenhum" (recusado pelo circuito)
+     * @param erro exceção do envio (null se houve resposta)
+     */
+    public void registrarComando(String roboId, String comando, String canal, boolean sucesso, Throwable erro,
+                                 long nanos) {
+        Timer.builder("robo.comando.latencia")
+                .description("Tempo de envio de comandos e programas para a ESP8266")
+                .tag("robo", roboId)
+                .tag("comando", normalizarComando(comando))
+                .tag("canal", canal)
+                .tag("resultado", resultado(sucesso, erro))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Registra o tempo de uma consulta de status do heartbeat
+     */
+    public void registrarStatus(String roboId, String canal, Throwable erro, long nanos) {
+        Timer.builder("robo.status.latencia")
+                .description("Tempo de resposta do GET /status (ou STATUS do canal binário) da ESP8266")
+                .tag("robo", roboId)
+                .tag("canal", canal)
+                .tag("resultado", resultado(erro == null, erro))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Conta um reenvio de comando feito antes da resposta do primeiro envio
+     */
+    public void registrarReenvio(String roboId, String comando) {
+        Counter.builder("robo.comando.reenvios")
+                .description("Reenvios de comandos idempotentes sem resposta no tempo normal do robô")
+                .tag("robo", roboId)
+                .tag("comando", normalizarComando(comando))
+                .register(registry)
+                .increment();
+    }
+    
+    /**
+     * Conta uma mudança do circuito de um robô ("aberto" ou "fechado")
+     */
+    public void registrarCircuito(String roboId, String estado) {
+        Counter.builder("robo.circuito.transicoes")
+                .description("Aberturas e fechamentos do circuito de cada ESP8266")
+                .tag("robo", roboId)
+                .tag("estado", estado)
+                .register(registry)
+                .increment();
+    }
+    
+    /**
+     * Conta uma execução de rota do catálogo
+     * Resultado: "sucesso", "sem_robo" (nenhum robô livre) ou "falha" (o robô não aceitou o comando)
+     */
+    public void registrarExecucaoRota(Long rotaId, boolean sucesso, boolean comRobo) {
+        contarExecucao(rotaId, sucesso ? "sucesso" : comRobo ? "falha" : "sem_robo");
+    }
+    
+    /**
+     * Conta uma rota sem trajeto gravado que também não pôde ser compilada
+     */
+    public void registrarRotaNaoCompilavel(Long rotaId) {
+        contarExecucao(rotaId, "nao_compilavel");
+    }
+    
+    private void contarExecucao(Long rotaId, String resultado) {
+        Counter.builder("rota.execucoes")
+                .description("Execuções de rotas do catálogo")
+                .tag("rota", String.valueOf(rotaId))
+                .tag("resultado", resultado)
+                .register(registry)
+                .increment();
+    }
+    
+    /**
+     * Conta um trajeto concluído oferecido ao aprendizado de tempos ("aprendida" ou "descartada")
+     */
+    public void registrarAprendizado(String resultado) {
+        Counter.builder("tempos.aprendizados")
+                .description("Trajetos concluídos usados ou descartados pelo aprendizado dos tempos de percurso")
+                .tag("resultado", resultado)
+                .register(registry)
+                .increment();
+    }
+    
+    private void registrarTrajeto(EventoExecucaoDTO execucao) {
+        if (execucao.getEstado().equals("iniciada")) {
+            iniciosTrajeto.put(execucao.getRoboId(), execucao.getInstante());
+            return;
+        }
+        Long inicio = iniciosTrajeto.remove(execucao.getRoboId());
+        if (inicio != null) {
+            Timer.builder("robo.trajeto.duracao")
+                    .description("Duração dos trajetos, do envio até o robô parar")
+                    .tag("robo", execucao.getRoboId())
+                    .tag("desfecho", execucao.getEstado())
+                    .register(registry)
+                    .record(Math.max(0, execucao.getInstante() - inicio), TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Programas compilados têm id variável: todos entram na mesma série
+     */
+    private static String normalizarComando(String comando) {
+        return comando.startsWith("PROGRAMA_") ? "PROGRAMA" : comando;
+    }
+    
+    /**
+     * Classificação do resultado de um envio, compartilhada com o histórico de execuções
+     */
+    static String resultado(boolean sucesso, Throwable erro) {
+        if (erro == null) {
+            return sucesso ? "sucesso" : "falha";
+        }
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        if (causa instanceof CircuitoAbertoException) {
+            return "rejeitado";
+        }
+        return causa instanceof HttpTimeoutException || causa instanceof TimeoutException ? "timeout" : "erro";
+    }
+}
@@ -0,0 +1,170 @@
+package com.roboentregador.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roboentregador.backend.dto.EventoExecucaoDTO;
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.model.SaudeRobo;
+import com.roboentregador.backend.repository.RoboRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heartbeat em segundo plano que consulta GET /status da ESP8266 de cada robô
+ * Mantém em cada Robo a última SaudeRobo, para que os endpoints de status
+ * respondam sem fazer nenhuma chamada de rede
+ * O intervalo dobra a cada falha consecutiva (com jitter) até o máximo configurado
+ * Mudanças de estado observadas aqui são publicadas no canal de eventos (/api/eventos)
+ */
+@Service
+public class MonitorSaudeService {
+
+    private static final int FALHAS_PARA_LIBERAR = 3;
+    
+    @Value("${esp8266.monitor.intervalo:2000}")
+    private long intervaloBase;
+    
+    @Value("${esp8266.monitor.intervalo-maximo:30000}")
+    private long intervaloMaximo;
+    
+    private final Esp8266Service esp8266Service;
+    private final RoboRepository roboRepository;
+    private final EventosService eventosService;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService agendador;
+    
+    @Autowired
+    public MonitorSaudeService(Esp8266Service esp8266Service, RoboRepository roboRepository,
+                               EventosService eventosService) {
+        this.esp8266Service = esp8266Service;
+        this.roboRepository = roboRepository;
+        this.eventosService = eventosService;
+        this.objectMapper = new ObjectMapper();
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "monitor-esp8266");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        roboRepository.findAll().forEach(this::monitorar);
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+    
+    /**
+     * Inicia o heartbeat de um robô (usado também para robôs registrados em tempo de execução)
+     */
+    public void monitorar(Robo robo) {
+        agendador.execute(() -> verificar(robo));
+    }
+    
+    /**
+     * Executa uma verificação e agenda a próxima ao receber a resposta
+     * O ciclo termina sozinho quando o robô é removido (ou substituído) no registro
+     */
+    private void verificar(Robo robo) {
+        if (roboRepository.findById(robo.getId()).orElse(null) != robo) {
+            return;
+        }
+        
+        long inicio = System.nanoTime();
+        long agora = System.currentTimeMillis();
+        
+        CompletableFuture<String> consulta;
+        try {
+            consulta = esp8266Service.consultarStatusAsync(robo);
+        } catch (RuntimeException e) {
+            consulta = CompletableFuture.failedFuture(e); // ex: host inválido na configuração
+        }
+        
+        consulta.whenComplete((corpo, erro) -> {
+            SaudeRobo anterior = robo.getSaude();
+            SaudeRobo nova;
+            
+            if (erro == null) {
+                long rtt = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                nova = new SaudeRobo(true, lerExecutando(corpo), System.currentTimeMillis(), rtt,
+                        agora, 0, intervaloBase);
+            } else {
+                int falhas = anterior.getFalhasConsecutivas() + 1;
+                nova = new SaudeRobo(false, false, anterior.getUltimoContato(), anterior.getRttMs(),
+                        agora, falhas, calcularBackoff(falhas));
+            }
+            
+            String resumoAnterior = resumir(robo);
+            robo.setSaude(nova);
+            
+            // Trajeto concluído (a consulta começou depois do despacho e o firmware está parado)
+            // ou robô perdido: libera a reserva para não prendê-lo para sempre
+            String comando = robo.getComandoAtual();
+            if (nova.isConectado() && !nova.isExecutando()) {
+                if (robo.liberarReservaAnterior(agora)) {
+                    publicarExecucao(robo, comando, "concluida");
+                }
+            } else if (!nova.isConectado() && nova.getFalhasConsecutivas() >= FALHAS_PARA_LIBERAR) {
+                if (robo.liberarReservaIniciadaAntes(agora)) {
+                    publicarExecucao(robo, comando, "perdida");
+                }
+            }
+            
+            // Só mudanças visíveis viram evento; o RTT de cada verificação não interessa aos painéis
+            if (!resumir(robo).equals(resumoAnterior)) {
+                eventosService.publicar("robo", FrotaService.converterParaDTO(robo));
+            }
+            
+            agendar(robo, nova.getProximaVerificacaoMs());
+        });
+    }
+    
+    private void publicarExecucao(Robo robo, String comando, String estado) {
+        eventosService.publicar("execucao", new EventoExecucaoDTO(robo.getId(), comando, estado,
+                System.currentTimeMillis()));
+    }
+    
+    private static String resumir(Robo robo) {
+        return robo.getEstado() + "|" + robo.getComandoAtual() + "|" + robo.getSaude().getFalhasConsecutivas();
+    }
+    
+    private void agendar(Robo robo, long atraso) {
+        if (!agendador.isShutdown()) {
+            agendador.schedule(() -> verificar(robo), atraso, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Backoff exponencial com jitter de até 20% para não sincronizar as tentativas
+     */
+    private long calcularBackoff(int falhas) {
+        long intervalo = intervaloBase << Math.min(falhas, 16);
+        intervalo = Math.min(intervalo, intervaloMaximo);
+        long jitter = ThreadLocalRandom.current().nextLong(intervalo / 5 + 1);
+        return Math.min(intervalo + jitter, intervaloMaximo);
+    }
+    
+    /**
+     * Interpreta o JSON do firmware: {"status":"executando","conectado":true}
+     */
+    private boolean lerExecutando(String corpo) {
+        try {
+            JsonNode json = objectMapper.readTree(corpo);
+            return "executando".equals(json.path("status").asText());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.OtimizacaoRequestDTO;
+import com.roboentregador.backend.dto.OtimizacaoResponseDTO;
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.MatrizDistancias;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Escolhe a ordem de visita de várias paradas de entrega (problema do caixeiro-viajante)
+ * - até otimizador.held-karp.limite paradas: programação dinâmica de Held-Karp, resultado exato
+ * - acima disso: vizinho mais próximo seguido de busca local 2-opt/Or-opt com perturbações,
+ *   uma busca independente por núcleo, até esgotar o orçamento de tempo
+ * As distâncias entre paradas vêm da MatrizDistancias; o robô pode terminar em qualquer
+ * parada ou voltar à origem; o tempo estimado do trajeto escolhido vem dos tempos aprendidos (TemposService)
+ */
+@Service
+public class OtimizadorEntregasService {
+
+    private static final double EPSILON = 1e-9;
+    
+    // Acima disso a tabela do Held-Karp (2^m · m) passa de dezenas de MB
+    private static final int LIMITE_HELD_KARP_MAXIMO = 16;
+    
+    @Value("${otimizador.held-karp.limite:13}")
+    private int limiteHeldKarp;
+    
+    @Value("${otimizador.tempo-limite:200}")
+    private long tempoLimitePadrao;
+    
+    @Value("${otimizador.tempo-limite-maximo:5000}")
+    private long tempoLimiteMaximo;
+    
+    private final MatrizDistanciaService matrizDistanciaService;
+    private final TemposService temposService;
+    
+    @Autowired
+    public OtimizadorEntregasService(MatrizDistanciaService matrizDistanciaService, TemposService temposService) {
+        this.matrizDistanciaService = matrizDistanciaService;
+        this.temposService = temposService;
+    }
+    
+    /**
+     * Otimiza a ordem das paradas
+     * @return vazio se algum nó não existir ou alguma parada for inalcançável
+     */
+    public Optional<OtimizacaoResponseDTO> otimizar(OtimizacaoRequestDTO pedido) {
+        long inicio = System.nanoTime();
+        MatrizDistancias matriz = matrizDistanciaService.obterMatriz();
+        Grafo grafo = matriz.getGrafo();
+        
+        int[] pontos = indexarPontos(grafo, pedido);
+        if (pontos == null) {
+            return Optional.empty();
+        }
+        
+        double[] distancias = calcularDistancias(matriz, pontos);
+        if (distancias == null) {
+            return Optional.empty();
+        }
+        
+        Problema problema = new Problema(pontos.length, distancias, pedido.isRetornarAOrigem());
+        int[] inicial = problema.vizinhoMaisProximo(0, null);
+        Solucao solucao;
+        
+        if (pontos.length - 1 <= Math.min(limiteHeldKarp, LIMITE_HELD_KARP_MAXIMO)) {
+            solucao = problema.heldKarp();
+        } else {
+            long orcamento = pedido.getTempoLimiteMs() != null ? pedido.getTempoLimiteMs() : tempoLimitePadrao;
+            orcamento = Math.max(1, Math.min(orcamento, tempoLimiteMaximo));
+            solucao = problema.buscaLocalParalela(inicial, inicio + orcamento * 1_000_000L);
+        }
+        
+        double custo = problema.custo(solucao.ordem);
+        double limiteInferior = solucao.otima ? custo : problema.arvoreGeradoraMinima();
+        double gap = limiteInferior > 0 ? (custo - limiteInferior) / limiteInferior * 100.0 : 0.0;
+        
+        Caminho trajeto = concatenar(matriz, pontos, solucao.ordem, pedido.isRetornarAOrigem());
+        List<String> ordem = new ArrayList<>(pontos.length + 1);
+        for (int ponto : solucao.ordem) {
+            ordem.add(grafo.nomeDe(pontos[ponto]));
+        }
+        if (pedido.isRetornarAOrigem() && pontos.length > 1) {
+            ordem.add(grafo.nomeDe(pontos[0]));
+        }
+        
+        return Optional.of(new OtimizacaoResponseDTO(
+                ordem,
+                trajeto.nomesDosNos(),
+                trajeto.idsDasArestas(),
+                trajeto.getDistancia(),
+                "cm",
+                temposService.estimar(trajeto),
+                solucao.otima ? "held-karp" : "2-opt/or-opt",
+                solucao.otima,
+                problema.custo(inicial),
+                limiteInferior,
+                gap,
+                solucao.iteracoes,
+                (System.nanoTime() - inicio) / 1_000_000.0
+        ));
+    }
+    
+    /**
+     * Índices no grafo da origem (posição 0) e das paradas, sem repetições
+     * @return null se algum nó não existir
+     */
+    private static int[] indexarPontos(Grafo grafo, OtimizacaoRequestDTO pedido) {
+        LinkedHashSet<String> nomes = new LinkedHashSet<>();
+        if (pedido.getOrigem() != null && !pedido.getOrigem().isBlank()) {
+            nomes.add(pedido.getOrigem());
+        }
+        nomes.addAll(pedido.getParadas());
+        
+        int[] pontos = new int[nomes.size()];
+        int i = 0;
+        for (String nome : nomes) {
+            pontos[i] = grafo.indiceDe(nome);
+            if (pontos[i++] < 0) {
+                return null;
+            }
+        }
+        return pontos;
+    }
+    
+    /**
+     * Submatriz de distâncias entre os pontos (n x n, por linha)
+     * @return null se algum par não tiver ligação
+     */
+    private static double[] calcularDistancias(MatrizDistancias matriz, int[] pontos) {
+        int n = pontos.length;
+        double[] distancias = new double[n * n];
+        
+        // Com linhas sob demanda, cada origem é um Dijkstra: calcula as linhas em paralelo
+        IntStream.range(0, n).parallel().forEach(a -> {
+            for (int b = 0; b < n; b++) {
+                distancias[a * n + b] = matriz.distancia(pontos[a], pontos[b]);
+            }
+        });
+        
+        for (double distancia : distancias) {
+            if (Double.isInfinite(distancia)) {
+                return null;
+            }
+        }
+        return distancias;
+    }
+    
+    /**
+     * Junta os caminhos mínimos entre paradas consecutivas num único trajeto
+     */
+    private static Caminho concatenar(MatrizDistancias matriz, int[] pontos, int[] ordem, boolean fechar) {
+        int trechos = fechar && ordem.length > 1 ? ordem.length : ordem.length - 1;
+        List<Integer> nos = new ArrayList<>();
+        nos.add(pontos[ordem[0]]);
+        double distancia = 0;
+        
+        for (int i = 0; i < trechos; i++) {
+            int de = pontos[ordem[i]];
+            int para = pontos[ordem[(i + 1) % ordem.length]];
+            Caminho trecho = matriz.caminho(de, para);
+            for (int j = 1; j < trecho.tamanho(); j++) {
+                nos.add(trecho.no(j));
+            }
+            distancia += trecho.getDistancia();
+        }
+        
+        return new Caminho(matriz.getGrafo(), nos.stream().mapToInt(Integer::intValue).toArray(), distancia);
+    }
+    
+    /**
+     * Ordem de visita (índices em pontos, começando pela origem 0)
+     */
+    private record Solucao(int[] ordem, boolean otima, long iteracoes) {
+    }
+    
+    /**
+     * Instância do problema: n pontos, o ponto 0 é a origem fixa
+     * Com ciclo aberto o último trecho (volta à origem) custa zero
+     */
+    private static final class Problema {
+        private final int n;
+        private final double[] distancias;
+        private final boolean fechado;
+        
+        Problema(int n, double[] distancias, boolean fechado) {
+            this.n = n;
+            this.distancias = distancias;
+            this.fechado = fechado;
+        }
+        
+        double d(int a, int b) {
+            return distancias[a * n + b];
+        }
+        
+        /**
+         * Custo do trecho que sai do ponto na posição i da ordem
+         */
+        double saida(int[] ordem, int i) {
+            if (i + 1 < ordem.length) {
+                return d(ordem[i], ordem[i + 1]);
+            }
+            return fechado ? d(ordem[i], ordem[0]) : 0.0;
+        }
+        
+        /**
+         * Ponto seguinte à posição i (-1 no fim de um ciclo aberto)
+         */
+        int seguinte(int[] ordem, int i) {
+            if (i + 1 < ordem.length) {
+                return ordem[i + 1];
+            }
+            return fechado ? ordem[0] : -1;
+        }
+        
+        double d(int a, int b, boolean aberto) {
+            return aberto ? 0.0 : d(a, b);
+        }
+        
+        double custo(int[] ordem) {
+            double total = 0;
+            for (int i = 0; i < ordem.length; i++) {
+                total += saida(ordem, i);
+            }
+            return total;
+        }
+        
+        /**
+         * Held-Karp: custo[S][j] = menor trajeto que sai da origem, visita o conjunto S e termina em j
+         * O(2^m · m²) em tempo e O(2^m · m) em memória, com m = n - 1 paradas
+         */
+        Solucao heldKarp() {
+            int m = n - 1;
+            if (m == 0) {
+                return new Solucao(new int[]{0}, true, 0);
+            }
+            
+            int conjuntos = 1 << m;
+            double[] custo = new double[conjuntos * m];
+            byte[] anterior = new byte[conjuntos * m];
+            Arrays.fill(custo, Double.POSITIVE_INFINITY);
+            
+            for (int j = 0; j < m; j++) {
+                custo[(1 << j) * m + j] = d(0, j + 1);
+                anterior[(1 << j) * m + j] = -1;
+            }
+            
+            long estados = 0;
+            for (int s = 1; s < conjuntos; s++) {
+                for (int j = 0; j < m; j++) {
+                    double base = custo[s * m + j];
+                    if ((s & (1 << j)) == 0 || base == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    estados++;
+                    for (int k = 0; k < m; k++) {
+                        if ((s & (1 << k)) != 0) {
+                            continue;
+                        }
+                        int proximo = (s | (1 << k)) * m + k;
+                        double novo = base + d(j + 1, k + 1);
+                        if (novo < custo[proximo]) {
+                            custo[proximo] = novo;
+                            anterior[proximo] = (byte) j;
+                        }
+                    }
+                }
+            }
+            
+            int completo = conjuntos - 1;
+            int ultimo = 0;
+            double melhor = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < m; j++) {
+                double total = custo[completo * m + j] + (fechado ? d(j + 1, 0) : 0.0);
+                if (total < melhor) {
+                    melhor = total;
+                    ultimo = j;
+                }
+            }
+            
+            int[] ordem = new int[n];
+            for (int s = completo, j = ultimo, i = m; i >= 1; i--) {
+                ordem[i] = j + 1;
+                int antes = anterior[s * m + j];
+                s &= ~(1 << j);
+                j = antes;
+            }
+            return new Solucao(ordem, true, estados);
+        }
+        
+        /**
+         * Construção gulosa: sempre visita o ponto mais próximo ainda não visitado
+         * Com aleatorio != null, o primeiro passo é sorteado para diversificar as buscas paralelas
+         */
+        int[] vizinhoMaisProximo(int primeiro, SplittableRandom aleatorio) {
+            int[] ordem = new int[n];
+            boolean[] visitado = new boolean[n];
+            ordem[0] = primeiro;
+            visitado[primeiro] = true;
+            
+            for (int i = 1; i < n; i++) {
+                int atual = ordem[i - 1];
+                int escolhido = -1;
+                if (i == 1 && aleatorio != null) {
+                    escolhido = 1 + aleatorio.nextInt(n - 1);
+                } else {
+                    double menor = Double.POSITIVE_INFINITY;
+                    for (int v = 0; v < n; v++) {
+                        if (!visitado[v] && d(atual, v) < menor) {
+                            menor = d(atual, v);
+                            escolhido = v;
+                        }
+                    }
+                }
+                ordem[i] = escolhido;
+                visitado[escolhido] = true;
+            }
+            return ordem;
+        }
+        
+        /**
+         * Busca local iterada, uma por núcleo, cada uma com seu ponto de partida e semente
+         * Devolve a melhor solução encontrada até o prazo (em System.nanoTime)
+         */
+        Solucao buscaLocalParalela(int[] inicial, long prazo) {
+            int buscas = Math.max(1, Runtime.getRuntime().availableProcessors());
+            
+            List<Solucao> resultados = IntStream.range(0, buscas)
+                    .parallel()
+                    .mapToObj(b -> {
+                        SplittableRandom aleatorio = new SplittableRandom(b * 0x9E3779B97F4A7C15L + n);
+                        int[] partida = b == 0 ? inicial.clone() : vizinhoMaisProximo(0, aleatorio);
+                        return buscaLocalIterada(partida, aleatorio, prazo);
+                    })
+                    .toList();
+            
+            Solucao melhor = resultados.get(0);
+            long iteracoes = 0;
+            for (Solucao resultado : resultados) {
+                iteracoes += resultado.iteracoes;
+                if (custo(resultado.ordem) < custo(melhor.ordem)) {
+                    melhor = resultado;
+                }
+            }
+            return new Solucao(melhor.ordem, false, iteracoes);
+        }
+        
+        private Solucao buscaLocalIterada(int[] ordem, SplittableRandom aleatorio, long prazo) {
+            otimizarLocalmente(ordem, prazo);
+            int[] melhor = ordem.clone();
+            double melhorCusto = custo(melhor);
+            long iteracoes = 1;
+            
+            while (System.nanoTime() < prazo) {
+                int[] candidata = perturbar(melhor, aleatorio);
+                otimizarLocalmente(candidata, prazo);
+                iteracoes++;
+                
+                double custoCandidata = custo(candidata);
+                if (custoCandidata < melhorCusto - EPSILON) {
+                    melhor = candidata;
+                    melhorCusto = custoCandidata;
+                }
+            }
+            return new Solucao(melhor, false, iteracoes);
+        }
+        
+        /**
+         * Aplica movimentos 2-opt e Or-opt até não haver melhoria (ou acabar o prazo)
+         */
+        void otimizarLocalmente(int[] ordem, long prazo) {
+            boolean melhorou = true;
+            while (melhorou && System.nanoTime() < prazo) {
+                melhorou = doisOpt(ordem) | orOpt(ordem);
+            }
+        }
+        
+        /**
+         * 2-opt: inverte o trecho ordem[i..j] quando isso encurta o trajeto
+         */
+        boolean doisOpt(int[] ordem) {
+            boolean melhorou = false;
+            for (int i = 1; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int a = ordem[i - 1];
+                    int b = ordem[i];
+                    int c = ordem[j];
+                    int e = seguinte(ordem, j);
+                    double delta = d(a, c) + d(b, e, e < 0) - d(a, b) - d(c, e, e < 0);
+                    if (delta < -EPSILON) {
+                        inverter(ordem, i, j);
+                        melhorou = true;
+                    }
+                }
+            }
+            return melhorou;
+        }
+        
+        /**
+         * Or-opt: move um bloco de 1 a 3 paradas consecutivas para outra posição,
+         * na mesma orientação ou invertido
+         */
+        boolean orOpt(int[] ordem) {
+            boolean melhorou = false;
+            for (int tamanho = 1; tamanho <= 3; tamanho++) {
+                for (int i = 1; i + tamanho <= n; i++) {
+                    int fim = i + tamanho - 1;
+                    int a = ordem[i - 1];
+                    int primeiro = ordem[i];
+                    int ultimo = ordem[fim];
+                    int b = seguinte(ordem, fim);
+                    double ganho = d(a, primeiro) + d(ultimo, b, b < 0) - d(a, b, b < 0);
+                    
+                    for (int p = 0; p < n; p++) {
+                        if (p >= i - 1 && p <= fim) {
+                            continue;
+                        }
+                        int c = ordem[p];
+                        int e = seguinte(ordem, p);
+                        double base = d(c, e, e < 0);
+                        double direto = d(c, primeiro) + d(ultimo, e, e < 0) - base;
+                        double invertido = d(c, ultimo) + d(primeiro, e, e < 0) - base;
+                        
+                        if (Math.min(direto, invertido) - ganho < -EPSILON) {
+                            moverBloco(ordem, i, fim, p, invertido < direto);
+                            melhorou = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            return melhorou;
+        }
+        
+        /**
+         * Double-bridge: troca dois trechos de lugar, um salto que 2-opt sozinho não desfaz
+         */
+        int[] perturbar(int[] ordem, SplittableRandom aleatorio) {
+            int[] cortes = {
+                    1 + aleatorio.nextInt(n - 1),
+                    1 + aleatorio.nextInt(n - 1),
+                    1 + aleatorio.nextInt(n - 1)
+            };
+            Arrays.sort(cortes);
+            int p1 = cortes[0], p2 = cortes[1], p3 = cortes[2];
+            
+            int[] nova = new int[n];
+            System.arraycopy(ordem, 0, nova, 0, p1);
+            System.arraycopy(ordem, p2, nova, p1, p3 - p2);
+            System.arraycopy(ordem, p1, nova, p1 + p3 - p2, p2 - p1);
+            System.arraycopy(ordem, p3, nova, p3, n - p3);
+            return nova;
+        }
+        
+        /**
+         * Árvore geradora mínima dos pontos (Prim, O(n²))
+         * Todo trajeto que visita os pontos contém uma árvore geradora, então é um limite inferior
+         */
+        double arvoreGeradoraMinima() {
+            double[] menor = new double[n];
+            boolean[] naArvore = new boolean[n];
+            Arrays.fill(menor, Double.POSITIVE_INFINITY);
+            menor[0] = 0;
+            double total = 0;
+            
+            for (int passo = 0; passo < n; passo++) {
+                int u = -1;
+                for (int v = 0; v < n; v++) {
+                    if (!naArvore[v] && (u < 0 || menor[v] < menor[u])) {
+                        u = v;
+                    }
+                }
+                naArvore[u] = true;
+                total += menor[u];
+                for (int v = 0; v < n; v++) {
+                    if (!naArvore[v] && d(u, v) < menor[v]) {
+                        menor[v] = d(u, v);
+                    }
+                }
+            }
+            return total;
+        }
+        
+        private static void inverter(int[] ordem, int i, int j) {
+            while (i < j) {
+                int troca = ordem[i];
+                ordem[i++] = ordem[j];
+                ordem[j--] = troca;
+            }
+        }
+        
+        /**
+         * Retira ordem[i..fim] e o reinsere logo depois da posição p (índice na ordem original)
+         */
+        private void moverBloco(int[] ordem, int i, int fim, int p, boolean inverterBloco) {
+            int[] bloco = Arrays.copyOfRange(ordem, i, fim + 1);
+            if (inverterBloco) {
+                inverter(bloco, 0, bloco.length - 1);
+            }
+            
+            int[] nova = new int[n];
+            int k = 0;
+            for (int x = 0; x < n; x++) {
+                if (x >= i && x <= fim) {
+                    continue;
+                }
+                nova[k++] = ordem[x];
+                if (x == p) {
+                    for (int ponto : bloco) {
+                        nova[k++] = ponto;
+                    }
+                }
+            }
+            System.arraycopy(nova, 0, ordem, 0, n);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.roboentregador.backend.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estado de resiliência de uma ESP8266 (um por endereço): timeout adaptativo e disjuntor
+ *
+ * Timeout: estimativa do RTT como no TCP (RFC 6298), média suavizada mais 4 desvios, limitada entre
+ * o mínimo e o máximo configurados. Cada timeout seguido dobra o valor (sem usar a amostra, que é
+ * ambígua) até a próxima resposta. Sem nenhuma amostra ainda, vale o máximo
+ * A estimativa é separada por meio (HTTP e canal binário): o canal responde em menos de 1 ms e
+ * puxaria para baixo o timeout do HTTP, e o HTTP lento alongaria o do canal
+ *
+ * Disjuntor:
+ * - FECHADO: tudo passa; falhasParaAbrir falhas seguidas (timeout ou conexão recusada) abrem o circuito
+ * - ABERTO: os envios falham na hora com CircuitoAbertoException, sem tocar a rede
+ * - MEIO_ABERTO: passado o tempo de abertura, um único envio de sonda passa; se responder o circuito fecha,
+ *   se falhar abre de novo com o dobro do tempo (até o máximo)
+ * Recusas da ESP8266 (HTTP 409, código EXECUTANDO) contam como resposta: o robô está alcançável
+ */
+final class ResilienciaRobo {
+
+    enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+    
+    /**
+     * Meio do envio, com a tag usada nas métricas
+     */
+    enum Meio {
+        HTTP("http"), CANAL("binario");
+        
+        final String tag;
+        
+        Meio(String tag) {
+            this.tag = tag;
+        }
+    }
+    
+    private static final int RECUOS_MAXIMOS = 6;
+    
+    private final long timeoutMinimoNanos;
+    private final long timeoutMaximoNanos;
+    private final int falhasParaAbrir;
+    private final long aberturaMinimaNanos;
+    private final long aberturaMaximaNanos;
+    
+    // Protegidos por this
+    private final Estimativa http = new Estimativa();
+    private final Estimativa canal = new Estimativa();
+    private Estado estado = Estado.FECHADO;
+    private int falhasSeguidas;
+    private long abertura;
+    private long aberturaAte;
+    private boolean sondando;
+    
+    ResilienciaRobo(long timeoutMinimoMs, long timeoutMaximoMs, int falhasParaAbrir,
+                    long aberturaMinimaMs, long aberturaMaximaMs) {
+        this.timeoutMinimoNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMinimoMs);
+        this.timeoutMaximoNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMinimoMs, timeoutMaximoMs));
+        this.falhasParaAbrir = Math.max(1, falhasParaAbrir);
+        this.aberturaMinimaNanos = TimeUnit.MILLISECONDS.toNanos(aberturaMinimaMs);
+        this.aberturaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(aberturaMinimaMs, aberturaMaximaMs));
+        this.abertura = aberturaMinimaNanos;
+    }
+    
+    /**
+     * Decide se um envio pode sair agora; quem recebe true deve informar o desfecho
+     * com registrarResposta ou registrarFalha
+     */
+    synchronized boolean permitir() {
+        switch (estado) {
+            case FECHADO:
+                return true;
+            case ABERTO:
+                if (System.nanoTime() - aberturaAte < 0) {
+                    return false;
+                }
+                estado = Estado.MEIO_ABERTO;
+                sondando = true;
+                return true;
+            default:
+                if (sondando) {
+                    return false;
+                }
+                sondando = true;
+                return true;
+        }
+    }
+    
+    /**
+     * A ESP8266 respondeu (aceitando ou recusando) depois de rttNanos
+     * @return true se o circuito fechou agora
+     */
+    synchronized boolean registrarResposta(Meio meio, long rttNanos) {
+        estimativa(meio).amostrar(rttNanos);
+        falhasSeguidas = 0;
+        sondando = false;
+        abertura = aberturaMinimaNanos;
+        boolean fechou = estado != Estado.FECHADO;
+        estado = Estado.FECHADO;
+        return fechou;
+    }
+    
+    /**
+     * Resposta de um envio que não passou por permitir() (ex: reenvio do STOP): a amostra de RTT
+     * vale, mas o disjuntor não é alterado
+     */
+    synchronized void registrarAmostra(Meio meio, long rttNanos) {
+        estimativa(meio).amostrar(rttNanos);
+    }
+    
+    /**
+     * O envio não teve resposta
+     * @param timeout true se esgotou o tempo (dobra o próximo timeout do meio)
+     * @return true se o circuito abriu agora
+     */
+    synchronized boolean registrarFalha(Meio meio, boolean timeout) {
+        if (timeout) {
+            estimativa(meio).recuar();
+        }
+        falhasSeguidas++;
+        if (estado == Estado.MEIO_ABERTO) {
+            abertura = Math.min(abertura * 2, aberturaMaximaNanos);
+            abrir();
+            return true;
+        }
+        if (estado == Estado.FECHADO && falhasSeguidas >= falhasParaAbrir) {
+            abrir();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Um envio permitido que não chegou a sair (ex: endereço inválido): libera a vaga de sonda
+     */
+    synchronized void cancelar() {
+        sondando = false;
+    }
+    
+    private void abrir() {
+        estado = Estado.ABERTO;
+        sondando = false;
+        aberturaAte = System.nanoTime() + abertura;
+    }
+    
+    /**
+     * Timeout do próximo envio pelo meio
+     */
+    synchronized long getTimeoutMs(Meio meio) {
+        return estimativa(meio).timeoutMs();
+    }
+    
+    /**
+     * Espera antes de repetir um envio idempotente ainda sem resposta: RTT suavizado mais 2 desvios
+     * do meio do primeiro envio, onde fica a cauda das respostas normais; sem amostras, metade do timeout
+     */
+    synchronized long getAtrasoReenvioMs(Meio meio) {
+        return estimativa(meio).atrasoReenvioMs();
+    }
+    
+    synchronized long getAberturaMs() {
+        return TimeUnit.NANOSECONDS.toMillis(abertura);
+    }
+    
+    synchronized int getFalhasSeguidas() {
+        return falhasSeguidas;
+    }
+    
+    private Estimativa estimativa(Meio meio) {
+        return meio == Meio.CANAL ? canal : http;
+    }
+    
+    /**
+     * RTT suavizado, desvio e recuo de um meio (protegida pelo lock do ResilienciaRobo)
+     */
+    private final class Estimativa {
+        private double rttSuavizado = -1;   // ns; negativo = sem amostras
+        private double rttDesvio;
+        private int recuos;
+        
+        void amostrar(long rttNanos) {
+            if (rttSuavizado < 0) {
+                rttSuavizado = rttNanos;
+                rttDesvio = rttNanos / 2.0;
+            } else {
+                rttDesvio = 0.75 * rttDesvio + 0.25 * Math.abs(rttSuavizado - rttNanos);
+                rttSuavizado = 0.875 * rttSuavizado + 0.125 * rttNanos;
+            }
+            recuos = 0;
+        }
+        
+        void recuar() {
+            if (recuos < RECUOS_MAXIMOS) {
+                recuos++;
+            }
+        }
+        
+        long timeoutMs() {
+            long base = rttSuavizado < 0 ? timeoutMaximoNanos : (long) (rttSuavizado + 4 * rttDesvio);
+            long limitado = Math.max(timeoutMinimoNanos, Math.min(base, timeoutMaximoNanos));
+            return TimeUnit.NANOSECONDS.toMillis(Math.min(limitado << recuos, timeoutMaximoNanos));
+        }
+        
+        long atrasoReenvioMs() {
+            long timeoutMs = timeoutMs();
+            if (rttSuavizado < 0) {
+                return timeoutMs / 2;
+            }
+            long atraso = TimeUnit.NANOSECONDS.toMillis((long) (rttSuavizado + 2 * rttDesvio));
+            return Math.max(1, Math.min(atraso, timeoutMs / 2));
+        }
+    }
+}
@@ -3,13 +3,16 @@ package com.roboentregador.backend.service;
 import com.roboentregador.backend.dto.ExecucaoResponseDTO;
 import com.roboentregador.backend.dto.RotaDTO;
 import com.roboentregador.backend.dto.RotaResumoDTO;
-import com.roboentregador.backend.model.Rota;
+import com.roboentregador.backend.log.ContextoLog;
+import com.roboentregador.backend.model.ProgramaMotor;
+import com.roboentregador.backend.model.RotaCompacta;
 import com.roboentregador.backend.repository.RotaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -21,18 +24,33 @@ import java.util.stream.Collectors;
  */
 @Service
 public class RotaService {
-    
+
     private final RotaRepository rotaRepository;
-    private final Esp8266Service esp8266Service;
+    private final DespachoService despachoService;
+    private final GeradorRotasService geradorRotasService;
+    private final CompiladorRotasService compiladorRotasService;
+    private final CaminhoService caminhoService;
+    private final MetricasService metricasService;
+    private final HistoricoService historicoService;
+    private final TemposService temposService;
     
     /**
      * Construtor com injeção de dependência
      * Demonstra o princípio de Inversão de Dependência (SOLID)
      */
     @Autowired
-    public RotaService(RotaRepository rotaRepository, Esp8266Service esp8266Service) {
+    public RotaService(RotaRepository rotaRepository, DespachoService despachoService,
+                       GeradorRotasService geradorRotasService, CompiladorRotasService compiladorRotasService,
+                       CaminhoService caminhoService, MetricasService metricasService,
+                       HistoricoService historicoService, TemposService temposService) {
         this.rotaRepository = rotaRepository;
-        this.esp8266Service = esp8266Service;
+        this.despachoService = despachoService;
+        this.geradorRotasService = geradorRotasService;
+        this.compiladorRotasService = compiladorRotasService;
+        this.caminhoService = caminhoService;
+        this.metricasService = metricasService;
+        this.historicoService = historicoService;
+        this.temposService = temposService;
     }
     
     /**
@@ -56,47 +74,150 @@ public class RotaService {
      * Executa uma rota específica
      * Demonstra POLIMORFISMO: chama o método executar() que é implementado
      * de forma diferente em cada classe concreta
+     * O envio é assíncrono: o Future completa quando a ESP8266 responder
+     * @param roboId robô desejado, ou null para usar o primeiro robô livre da frota
      */
-    public ExecucaoResponseDTO executarRota(Long id) {
-        Optional<Rota> rotaOpt = rotaRepository.findById(id);
+    public CompletableFuture<ExecucaoResponseDTO> executarRota(Long id, String roboId) {
+        Optional<RotaCompacta> rotaOpt = rotaRepository.findById(id);
         
         if (rotaOpt.isEmpty()) {
-            return new ExecucaoResponseDTO(
+            return CompletableFuture.completedFuture(new ExecucaoResponseDTO(
                     false,
                     "Rota não encontrada",
                     null,
                     id,
-                    null
-            );
+                    null,
+                    null,
+                    ExecucaoResponseDTO.Situacao.INEXECUTAVEL
+            ));
         }
         
-        Rota rota = rotaOpt.get();
-        
-        // Aqui ocorre o POLIMORFISMO: cada rota executa de forma diferente
-        String comando = rota.executar();
-        
-        // Envia o comando para a ESP8266
-        boolean sucesso = esp8266Service.enviarComando(comando);
+        RotaCompacta rota = rotaOpt.get();
         
+        // Rota no MDC durante o despacho: os logs do envio à ESP8266 a levam junto
+        try (ContextoLog.Escopo escopo = ContextoLog.abrir(null, String.valueOf(rota.getId()), null)) {
+            // O comando veio do executar() POLIMÓRFICO de cada rota, resolvido ao compactá-la
+            String comando = rota.getComando();
+            
+            if (comando == null) {
+                // Rota sem trajeto gravado no firmware: compila e envia o programa de motor
+                return compiladorRotasService.compilar(rota)
+                        .map(programa -> executarPrograma(programa, rota.getId(), rota.getNome(), roboId,
+                                rota.getNosPercorridos())
+                                .thenApply(resposta -> contarExecucao(rota.getId(), resposta)))
+                        .orElseGet(() -> {
+                            metricasService.registrarRotaNaoCompilavel(rota.getId());
+                            historicoService.registrarRotaNaoCompilavel(rota.getId());
+                            return CompletableFuture.completedFuture(new ExecucaoResponseDTO(
+                                    false,
+                                    "Rota sem trajeto gravado no firmware e não compilável",
+                                    null,
+                                    rota.getId(),
+                                    rota.getNome(),
+                                    null,
+                                    ExecucaoResponseDTO.Situacao.INEXECUTAVEL
+                            ));
+                        });
+            }
+            
+            // Envia o comando para um robô livre da frota
+            return despachoService.despachar(comando, roboId)
+                    .thenApply(despacho -> criarResposta(despacho, comando, rota.getId(), rota.getNome(),
+                            rota.getNosPercorridos()))
+                    .thenApply(resposta -> contarExecucao(rota.getId(), resposta));
+        }
+    }
+    
+    /**
+     * Compila uma rota do catálogo no programa de motor que seria enviado ao robô
+     */
+    public Optional<ProgramaMotor> compilarRota(Long id) {
+        return rotaRepository.findById(id).flatMap(compiladorRotasService::compilar);
+    }
+    
+    /**
+     * Calcula o caminho mínimo entre dois nós, compila e envia como programa de motor
+     * Permite percorrer qualquer caminho do grafo sem uma rota no catálogo
+     * @return vazio se não houver caminho ou ele não puder ser compilado
+     */
+    public Optional<CompletableFuture<ExecucaoResponseDTO>> executarCaminho(String origem, String destino,
+                                                                            String roboId) {
+        return caminhoService.calcularCaminho(origem, destino)
+                .flatMap(caminho -> compiladorRotasService.compilar(caminho)
+                        .map(programa -> executarPrograma(programa, null, "Caminho " + origem + " → " + destino,
+                                roboId, caminho.nomesDosNos())));
+    }
+    
+    /**
+     * Compila uma sequência de nós (ex: trajeto de várias paradas) e a envia como programa de motor
+     * @return vazio se o trajeto não puder ser compilado
+     */
+    public Optional<CompletableFuture<ExecucaoResponseDTO>> executarTrajeto(List<String> nos, int programaId,
+                                                                            String nome, String roboId) {
+        return compiladorRotasService.compilar(nos, programaId)
+                .map(programa -> executarPrograma(programa, null, nome, roboId, nos));
+    }
+    
+    private CompletableFuture<ExecucaoResponseDTO> executarPrograma(ProgramaMotor programa, Long rotaId,
+                                                                    String nome, String roboId, List<String> nos) {
+        return despachoService.despacharPrograma(programa, roboId)
+                .thenApply(despacho -> criarResposta(despacho, programa.getComando(), rotaId, nome, nos));
+    }
+    
+    /**
+     * Conta a execução de uma rota do catálogo na métrica rota.execucoes
+     */
+    private ExecucaoResponseDTO contarExecucao(Long rotaId, ExecucaoResponseDTO resposta) {
+        metricasService.registrarExecucaoRota(rotaId, resposta.isSucesso(), resposta.getRoboId() != null);
+        return resposta;
+    }
+    
+    /**
+     * Monta a resposta da execução; um trajeto iniciado passa a ser acompanhado pelo aprendizado de tempos
+     */
+    private ExecucaoResponseDTO criarResposta(DespachoService.Despacho despacho, String comando,
+                                              Long rotaId, String nome, List<String> nos) {
+        if (despacho.sucesso()) {
+            temposService.acompanhar(despacho.robo(), comando, nos);
+        }
+        historicoService.registrarExecucao(rotaId, despacho.robo() != null ? despacho.robo().getId() : null,
+                comando, despacho.sucesso());
         return new ExecucaoResponseDTO(
-                sucesso,
-                sucesso ? "Rota executada com sucesso!" : "Erro ao enviar comando para ESP8266",
+                despacho.sucesso(),
+                despacho.robo() == null ? "Nenhum robô disponível" :
+                        despacho.sucesso() ? "Rota executada com sucesso!" : "Erro ao enviar comando para ESP8266",
                 comando,
-                rota.getId(),
-                rota.getNome()
+                rotaId,
+                nome,
+                despacho.robo() != null ? despacho.robo().getId() : null,
+                despacho.robo() == null ? ExecucaoResponseDTO.Situacao.ROBO_OCUPADO :
+                        despacho.sucesso() ? ExecucaoResponseDTO.Situacao.INICIADA
+                                : ExecucaoResponseDTO.Situacao.FALHA_ENVIO
         );
     }
     
+    /**
+     * Gera rotas entre dois nós a partir do grafo e as inclui no catálogo
+     * @param todos true para todos os caminhos simples, false para os k menores
+     */
+    public List<RotaResumoDTO> gerarRotas(String origem, String destino, int k, boolean todos) {
+        return geradorRotasService.gerarRotas(origem, destino, k, todos).stream()
+                .map(this::converterParaResumoDTO)
+                .collect(Collectors.toList());
+    }
+    
     /**
      * Converte Rota para RotaDTO
+     * As listas são visões sobre os arrays da rota compacta, sem cópia
+     * O tempo estimado vem dos tempos de percurso aprendidos (TemposService)
      */
-    private RotaDTO converterParaDTO(Rota rota) {
+    private RotaDTO converterParaDTO(RotaCompacta rota) {
         return new RotaDTO(
                 rota.getId(),
                 rota.getNome(),
                 rota.getDistanciaTotal(),
                 "cm",
-                rota.calcularTempoTotal(),
+                temposService.estimar(rota),
                 rota.getNosPercorridos(),
                 rota.getArestasPercorridas(),
                 rota.getInstrucoes()
@@ -106,14 +227,14 @@ public class RotaService {
     /**
      * Converte Rota para RotaResumoDTO
      */
-    private RotaResumoDTO converterParaResumoDTO(Rota rota) {
+    private RotaResumoDTO converterParaResumoDTO(RotaCompacta rota) {
         return new RotaResumoDTO(
                 rota.getId(),
                 rota.getNome(),
                 rota.getDistanciaTotal(),
                 "cm",
-                rota.calcularTempoTotal(),
-                rota.getNosPercorridos().size(),
+                temposService.estimar(rota),
+                rota.getNumeroDeNos(),
                 rota.getNosPercorridos(),
                 rota.getArestasPercorridas()
         );
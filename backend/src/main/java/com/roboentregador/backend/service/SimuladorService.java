@@ -0,0 +1,98 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.RoboDTO;
+import com.roboentregador.backend.simulador.FrotaSimulada;
+import com.roboentregador.backend.simulador.ParametrosSimulador;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frota de ESP8266 simuladas dentro do próprio backend, para testes de carga e de integração sem hardware
+ * Com simulador.robos > 0, inicia os robôs "sim-1" … "sim-n" no loopback e os registra na frota;
+ * a partir daí despacho, fila de entregas, heartbeat e métricas funcionam como com robôs reais
+ */
+@Service
+public class SimuladorService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimuladorService.class);
+    
+    @Value("${simulador.robos:0}")
+    private int robos;
+    
+    @Value("${simulador.porta-inicial:9301}")
+    private int portaInicial;
+    
+    @Value("${simulador.latencia-ms:5}")
+    private int latenciaMs;
+    
+    @Value("${simulador.jitter-ms:0}")
+    private int jitterMs;
+    
+    @Value("${simulador.perda:0}")
+    private double perda;
+    
+    @Value("${simulador.conexoes:4}")
+    private int conexoes;
+    
+    @Value("${simulador.escala-tempo:1}")
+    private double escalaTempo;
+    
+    private final FrotaService frotaService;
+    private FrotaSimulada frota;
+    
+    @Autowired
+    public SimuladorService(FrotaService frotaService) {
+        this.frotaService = frotaService;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        if (robos <= 0) {
+            return;
+        }
+        ParametrosSimulador parametros = new ParametrosSimulador(latenciaMs, jitterMs, perda, conexoes, escalaTempo);
+        try {
+            frota = FrotaSimulada.iniciar(robos, portaInicial, parametros);
+        } catch (IOException e) {
+            log.warn("Simulador desativado, portas a partir de {} indisponíveis: {}", portaInicial, e.getMessage());
+            return;
+        }
+        
+        frota.getRobos().forEach(robo -> {
+            RoboDTO dto = new RoboDTO();
+            dto.setId(robo.getId());
+            dto.setHost("127.0.0.1");
+            dto.setPorta(robo.getPorta());
+            dto.setPortaCanal(robo.getPortaCanal());
+            frotaService.registrarRobo(dto);
+        });
+        log.info("{} ESP8266 simuladas na frota: {}", robos, parametros);
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        if (frota != null) {
+            frota.close();
+        }
+    }
+    
+    /**
+     * Parâmetros e contadores de cada robô simulado (vazio com o simulador desativado)
+     */
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("ativo", frota != null);
+        estatisticas.put("robos", frota != null ? frota.estatisticas() : List.of());
+        return estatisticas;
+    }
+}
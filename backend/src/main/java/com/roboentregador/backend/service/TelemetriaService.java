@@ -0,0 +1,331 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.AmostraTelemetriaDTO;
+import com.roboentregador.backend.dto.JanelaTelemetriaDTO;
+import com.roboentregador.backend.model.AnelTelemetria;
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.repository.RoboRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recebe a telemetria dos robôs (posição, estado dos motores e tempos do firmware)
+ * - entrada em lote por HTTP (POST /api/telemetria/{roboId}) ou por datagramas UDP na porta telemetria.udp.porta
+ * - cada robô tem um AnelTelemetria de capacidade fixa: memória limitada, gravação sem locks
+ * - consultas agregam as amostras em janelas de tempo (downsampling) no momento da leitura
+ *
+ * Datagrama UDP (big-endian), 4 + 24·N bytes:
+ * - byte 0: versão (1)
+ * - bytes 1-2: porta HTTP do robô (identifica o robô junto com o IP de origem)
+ * - byte 3: número de amostras N
+ * - N amostras de 24 bytes: millis do robô (uint32) | x, y, rumo (float32, NaN = desconhecido)
+ *   | pwm (uint16) | ciclo em µs (uint16) | passo (int16, -1 = parado) | direção (uint8) | reservado
+ * O relógio do robô não é sincronizado: a última amostra recebe o instante do recebimento
+ * e as demais são posicionadas pela diferença de millis em relação a ela
+ */
+@Service
+public class TelemetriaService {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetriaService.class);
+    
+    public static final int VERSAO_DATAGRAMA = 1;
+    public static final int TAMANHO_CABECALHO_DATAGRAMA = 4;
+    public static final int TAMANHO_AMOSTRA_DATAGRAMA = 24;
+    
+    @Value("${telemetria.capacidade-por-robo:8192}")
+    private int capacidade;
+    
+    @Value("${telemetria.udp.porta:5005}")
+    private int portaUdp;
+    
+    private final RoboRepository roboRepository;
+    private final Map<String, AnelTelemetria> aneis = new ConcurrentHashMap<>();
+    private final Map<String, InetAddress> enderecos = new ConcurrentHashMap<>(); // host do robô → IP
+    private final AtomicLong datagramasDescartados = new AtomicLong();
+    
+    private DatagramSocket socket;
+    private Thread receptor;
+    
+    @Autowired
+    public TelemetriaService(RoboRepository roboRepository) {
+        this.roboRepository = roboRepository;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        if (portaUdp <= 0) {
+            return;
+        }
+        try {
+            socket = new DatagramSocket(portaUdp);
+        } catch (SocketException e) {
+            log.warn("Telemetria UDP desativada, porta {} indisponível: {}", portaUdp, e.getMessage());
+            return;
+        }
+        receptor = new Thread(this::receber, "telemetria-udp");
+        receptor.setDaemon(true);
+        receptor.start();
+        log.info("Telemetria UDP na porta {}", portaUdp);
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        if (socket != null) {
+            socket.close(); // desbloqueia o receive()
+        }
+    }
+    
+    /**
+     * Grava um lote de amostras enviado por HTTP
+     * @return número de amostras gravadas, ou vazio se o robô não existir
+     */
+    public Optional<Integer> registrar(String roboId, List<AmostraTelemetriaDTO> amostras) {
+        if (!roboRepository.existsById(roboId)) {
+            return Optional.empty();
+        }
+        
+        AnelTelemetria anel = anelDe(roboId);
+        long agora = System.currentTimeMillis();
+        for (AmostraTelemetriaDTO amostra : amostras) {
+            anel.gravar(amostra.getInstante() != null && amostra.getInstante() > 0 ? amostra.getInstante() : agora,
+                    paraFloat(amostra.getX()), paraFloat(amostra.getY()), paraFloat(amostra.getRumo()),
+                    amostra.getDirecao(), amostra.getPwm(), amostra.getPasso(), amostra.getCicloUs());
+        }
+        return Optional.of(amostras.size());
+    }
+    
+    /**
+     * Agrega as amostras de [desde, ate) em janelas de "intervalo" ms (só as janelas com amostras)
+     * @return vazio se o robô não existir
+     */
+    public Optional<List<JanelaTelemetriaDTO>> consultar(String roboId, long desde, long ate, long intervalo) {
+        if (!roboRepository.existsById(roboId)) {
+            return Optional.empty();
+        }
+        AnelTelemetria anel = aneis.get(roboId);
+        if (anel == null) {
+            return Optional.of(List.of());
+        }
+        
+        int janelas = (int) ((ate - desde + intervalo - 1) / intervalo);
+        Acumulador acumulador = new Acumulador(janelas);
+        anel.ler(desde, ate, amostra -> acumulador.somar((int) ((amostra.getInstante() - desde) / intervalo), amostra));
+        
+        List<JanelaTelemetriaDTO> resultado = new ArrayList<>();
+        for (int j = 0; j < janelas; j++) {
+            if (acumulador.amostras[j] > 0) {
+                resultado.add(acumulador.janela(j, desde + j * intervalo));
+            }
+        }
+        return Optional.of(resultado);
+    }
+    
+    /**
+     * Amostra mais recente do robô
+     */
+    public Optional<AmostraTelemetriaDTO> ultima(String roboId) {
+        AnelTelemetria anel = aneis.get(roboId);
+        return anel != null ? Optional.ofNullable(anel.ultima()) : Optional.empty();
+    }
+    
+    /**
+     * Volume recebido por robô e datagramas descartados (formato inválido ou robô desconhecido)
+     */
+    public Map<String, Object> estatisticas() {
+        List<Map<String, Object>> robos = new ArrayList<>();
+        aneis.forEach((roboId, anel) -> {
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("roboId", roboId);
+            dados.put("recebidas", anel.getRecebidas());
+            dados.put("capacidade", anel.capacidade());
+            dados.put("sobrescritas", Math.max(0, anel.getRecebidas() - anel.capacidade()));
+            robos.add(dados);
+        });
+        
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("portaUdp", socket != null ? portaUdp : null);
+        resultado.put("datagramasDescartados", datagramasDescartados.get());
+        resultado.put("robos", robos);
+        return resultado;
+    }
+    
+    private void receber() {
+        byte[] buffer = new byte[TAMANHO_CABECALHO_DATAGRAMA + 255 * TAMANHO_AMOSTRA_DATAGRAMA];
+        DatagramPacket pacote = new DatagramPacket(buffer, buffer.length);
+        
+        while (!socket.isClosed()) {
+            try {
+                pacote.setLength(buffer.length);
+                socket.receive(pacote);
+                if (!processarDatagrama(pacote)) {
+                    datagramasDescartados.incrementAndGet();
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    log.error("Erro na telemetria UDP: {}", e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private boolean processarDatagrama(DatagramPacket pacote) {
+        ByteBuffer dados = ByteBuffer.wrap(pacote.getData(), pacote.getOffset(), pacote.getLength());
+        if (dados.remaining() < TAMANHO_CABECALHO_DATAGRAMA || dados.get() != VERSAO_DATAGRAMA) {
+            return false;
+        }
+        int porta = Short.toUnsignedInt(dados.getShort());
+        int n = Byte.toUnsignedInt(dados.get());
+        if (n == 0 || dados.remaining() != n * TAMANHO_AMOSTRA_DATAGRAMA) {
+            return false;
+        }
+        
+        Robo robo = localizar(pacote.getAddress(), porta);
+        if (robo == null) {
+            return false;
+        }
+        
+        AnelTelemetria anel = anelDe(robo.getId());
+        long agora = System.currentTimeMillis();
+        long ultimoMillis = Integer.toUnsignedLong(dados.getInt(dados.position() + (n - 1) * TAMANHO_AMOSTRA_DATAGRAMA));
+        for (int k = 0; k < n; k++) {
+            long millis = Integer.toUnsignedLong(dados.getInt());
+            float x = dados.getFloat();
+            float y = dados.getFloat();
+            float rumo = dados.getFloat();
+            int pwm = Short.toUnsignedInt(dados.getShort());
+            int ciclo = Short.toUnsignedInt(dados.getShort());
+            int passo = dados.getShort();
+            int direcao = Byte.toUnsignedInt(dados.get());
+            dados.get(); // reservado
+            
+            long atraso = (ultimoMillis - millis) & 0xFFFFFFFFL; // millis() do robô dá a volta em ~49 dias
+            anel.gravar(agora - atraso, x, y, rumo, direcao, pwm, passo, ciclo);
+        }
+        return true;
+    }
+    
+    /**
+     * Robô cujo host resolve para o IP de origem e cuja porta HTTP é a informada no datagrama
+     */
+    private Robo localizar(InetAddress origem, int porta) {
+        for (Robo robo : roboRepository.findAll()) {
+            if (robo.getPorta() == porta && origem.equals(resolver(robo.getHost()))) {
+                return robo;
+            }
+        }
+        return null;
+    }
+    
+    private InetAddress resolver(String host) {
+        InetAddress endereco = enderecos.get(host);
+        if (endereco == null) {
+            try {
+                endereco = InetAddress.getByName(host);
+                enderecos.put(host, endereco);
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+        return endereco;
+    }
+    
+    /**
+     * Buffer do robô, criado na primeira amostra; buffers de robôs removidos da frota são descartados
+     */
+    private AnelTelemetria anelDe(String roboId) {
+        AnelTelemetria anel = aneis.get(roboId);
+        if (anel == null) {
+            aneis.keySet().removeIf(id -> !roboRepository.existsById(id));
+            anel = aneis.computeIfAbsent(roboId, id -> new AnelTelemetria(capacidade));
+        }
+        return anel;
+    }
+    
+    private static float paraFloat(Double valor) {
+        return valor != null ? valor.floatValue() : Float.NaN;
+    }
+    
+    /**
+     * Somas por janela usadas no downsampling
+     */
+    private static final class Acumulador {
+        private final int[] amostras;
+        private final double[] somaX;
+        private final double[] somaY;
+        private final int[] comPosicao;
+        private final double[] somaPwm;
+        private final double[] somaCiclo;
+        private final int[] cicloMaximo;
+        private final long[] ultimoInstante;
+        private final AmostraTelemetriaDTO[] ultimas;
+        
+        private Acumulador(int janelas) {
+            amostras = new int[janelas];
+            somaX = new double[janelas];
+            somaY = new double[janelas];
+            comPosicao = new int[janelas];
+            somaPwm = new double[janelas];
+            somaCiclo = new double[janelas];
+            cicloMaximo = new int[janelas];
+            ultimoInstante = new long[janelas];
+            ultimas = new AmostraTelemetriaDTO[janelas];
+        }
+        
+        private void somar(int j, AmostraTelemetriaDTO amostra) {
+            amostras[j]++;
+            if (amostra.getX() != null && amostra.getY() != null) {
+                somaX[j] += amostra.getX();
+                somaY[j] += amostra.getY();
+                comPosicao[j]++;
+            }
+            somaPwm[j] += amostra.getPwm();
+            somaCiclo[j] += amostra.getCicloUs();
+            cicloMaximo[j] = Math.max(cicloMaximo[j], amostra.getCicloUs());
+            
+            // A amostra lida é reutilizada pelo buffer: guarda uma cópia da mais recente da janela
+            if (ultimas[j] == null || amostra.getInstante() >= ultimoInstante[j]) {
+                ultimoInstante[j] = amostra.getInstante();
+                AmostraTelemetriaDTO ultima = ultimas[j] != null ? ultimas[j] : new AmostraTelemetriaDTO();
+                ultima.setRumo(amostra.getRumo() != null ? amostra.getRumo() : ultima.getRumo());
+                ultima.setDirecao(amostra.getDirecao());
+                ultima.setPasso(amostra.getPasso());
+                ultimas[j] = ultima;
+            }
+        }
+        
+        private JanelaTelemetriaDTO janela(int j, long inicio) {
+            return new JanelaTelemetriaDTO(
+                    inicio,
+                    amostras[j],
+                    comPosicao[j] > 0 ? somaX[j] / comPosicao[j] : null,
+                    comPosicao[j] > 0 ? somaY[j] / comPosicao[j] : null,
+                    ultimas[j].getRumo(),
+                    ultimas[j].getDirecao(),
+                    ultimas[j].getPasso(),
+                    somaPwm[j] / amostras[j],
+                    somaCiclo[j] / amostras[j],
+                    cicloMaximo[j]
+            );
+        }
+    }
+}
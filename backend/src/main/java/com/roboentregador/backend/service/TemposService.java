@@ -0,0 +1,323 @@
+package com.roboentregador.backend.service;
+
+import com.roboentregador.backend.dto.EventoExecucaoDTO;
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.model.EstimadorTempo;
+import com.roboentregador.backend.model.Grafo;
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.model.RotaCompacta;
+import com.roboentregador.backend.model.TemposGrafo;
+import com.roboentregador.backend.repository.ArestaRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tempos reais de percurso aprendidos com as execuções, por trecho (aresta em um sentido) e por lado de giro
+ * - cada trajeto enviado a um robô é acompanhado do envio até o heartbeat ver o robô parado
+ *   (evento "execucao" concluida); trajetos parados (STOP) ou perdidos não contam
+ * - a duração medida é repartida entre os trechos e giros na proporção do tempo que cada um tem na estimativa
+ *   atual, e cada parte vira uma amostra do seu EstimadorTempo (média exponencial, desvio e quantil)
+ * - sem amostras, um trecho vale peso · robo.calibracao.ms-por-cm e um giro, graus · ms-por-grau:
+ *   a mesma conta do compilador de rotas
+ * A duração medida inclui as pausas do firmware entre os passos e tem a resolução do heartbeat
+ * (esp8266.monitor.intervalo); execuções em que a razão medido / estimado passa de tempos.razao-maxima
+ * (ex: robô levado à mão, trajeto de outro comando) são descartadas
+ * As amostras de todos os robôs alimentam os mesmos estimadores; busca e tempoEstimado usam as médias,
+ * reunidas em um TemposGrafo reconstruído na primeira consulta depois de um aprendizado ou troca do grafo
+ */
+@Service
+public class TemposService {
+
+    private static final Logger log = LoggerFactory.getLogger(TemposService.class);
+    
+    private static final int LIMITE_CACHE_ROTAS = 65_536;
+    
+    @Value("${robo.calibracao.ms-por-cm:100}")
+    private double msPorCm;
+    
+    @Value("${robo.calibracao.ms-por-grau:5.6}")
+    private double msPorGrau;
+    
+    @Value("${robo.calibracao.angulo-minimo:10}")
+    private double anguloMinimo;
+    
+    @Value("${robo.calibracao.rumo-inicial:90}")
+    private double rumoInicial;
+    
+    @Value("${tempos.alfa:0.2}")
+    private double alfa;
+    
+    @Value("${tempos.quantil:0.9}")
+    private double quantil;
+    
+    @Value("${tempos.razao-maxima:5}")
+    private double razaoMaxima;
+    
+    private final ArestaRepository arestaRepository;
+    private final EventosService eventosService;
+    private final MetricasService metricasService;
+    
+    // Estimadores por trecho (pelos nomes, sobrevivem à troca do grafo) e por lado do giro; protegidos por this
+    private final Map<Trecho, EstimadorTempo> trechos = new HashMap<>();
+    private EstimadorTempo giroEsquerda;
+    private EstimadorTempo giroDireita;
+    private volatile long versao;
+    
+    private final Map<String, Acompanhamento> acompanhados = new ConcurrentHashMap<>(); // robô → trajeto
+    private volatile Estado estado;
+    
+    @Autowired
+    public TemposService(ArestaRepository arestaRepository, EventosService eventosService,
+                         MetricasService metricasService) {
+        this.arestaRepository = arestaRepository;
+        this.eventosService = eventosService;
+        this.metricasService = metricasService;
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        synchronized (this) {
+            giroEsquerda = new EstimadorTempo(msPorGrau, alfa, quantil);
+            giroDireita = new EstimadorTempo(msPorGrau, alfa, quantil);
+        }
+        
+        eventosService.assinar(evento -> {
+            if (evento.dados() instanceof EventoExecucaoDTO execucao && !execucao.getEstado().equals("iniciada")) {
+                encerrar(execucao);
+            }
+        });
+    }
+    
+    private record Trecho(String origem, String destino) {
+    }
+    
+    private record Acompanhamento(String comando, long inicio, List<String> nos) {
+    }
+    
+    /**
+     * Tempos do grafo na versão atual dos estimadores, com as durações de rotas já calculadas
+     */
+    private record Estado(TemposGrafo tempos, long versao, Map<RotaCompacta, Integer> rotas) {
+    }
+    
+    /**
+     * Tempos do grafo atual
+     * Duas consultas simultâneas logo após uma mudança podem reconstruí-los juntas; vale o último
+     */
+    public TemposGrafo obterTempos() {
+        return obterEstado().tempos();
+    }
+    
+    private Estado obterEstado() {
+        Grafo grafo = arestaRepository.getGrafo();
+        Estado atual = estado;
+        if (atual == null || atual.tempos().getGrafo() != grafo || atual.versao() != versao) {
+            atual = construir(grafo);
+            estado = atual;
+        }
+        return atual;
+    }
+    
+    private synchronized Estado construir(Grafo grafo) {
+        double[] tempos = new double[grafo.numeroDeEntradas()];
+        for (int e = 0; e < tempos.length; e++) {
+            tempos[e] = grafo.peso(e) * msPorCm;
+        }
+        trechos.forEach((trecho, estimador) -> {
+            int entrada = entrada(grafo, trecho.origem(), trecho.destino());
+            if (entrada >= 0) {
+                tempos[entrada] = estimador.getMedia();
+            }
+        });
+        TemposGrafo temposGrafo = new TemposGrafo(grafo, tempos, giroEsquerda.getMedia(), giroDireita.getMedia(),
+                anguloMinimo, rumoInicial);
+        return new Estado(temposGrafo, versao, new ConcurrentHashMap<>());
+    }
+    
+    /**
+     * Duração estimada de uma sequência de nós pelo nome, em ms
+     * @return vazio se algum nó não existir ou dois nós consecutivos não forem vizinhos
+     */
+    public OptionalInt estimar(List<String> nos) {
+        return estimar(obterTempos(), nos);
+    }
+    
+    /**
+     * Duração estimada de um caminho calculado, em ms
+     * Um caminho de um grafo que já foi trocado é estimado pelos nomes ou, sem eles, pela calibração
+     */
+    public int estimar(Caminho caminho) {
+        TemposGrafo tempos = obterTempos();
+        if (caminho.getGrafo() == tempos.getGrafo()) {
+            return (int) Math.round(tempos.estimar(caminho.nos()));
+        }
+        return estimar(tempos, caminho.nomesDosNos()).orElse((int) Math.round(caminho.getDistancia() * msPorCm));
+    }
+    
+    /**
+     * Duração estimada de uma rota do catálogo, em ms, calculada uma vez por versão dos tempos
+     * Rotas fora do grafo atual ficam com o tempo total gravado nelas
+     */
+    public int estimar(RotaCompacta rota) {
+        Estado atual = obterEstado();
+        Integer duracao = atual.rotas().get(rota);
+        if (duracao == null) {
+            duracao = estimar(atual.tempos(), rota.getNosPercorridos()).orElse(rota.getTempoTotal());
+            if (atual.rotas().size() >= LIMITE_CACHE_ROTAS) {
+                atual.rotas().clear();
+            }
+            atual.rotas().put(rota, duracao);
+        }
+        return duracao;
+    }
+    
+    private static OptionalInt estimar(TemposGrafo tempos, List<String> nomes) {
+        int[] nos = indices(tempos.getGrafo(), nomes);
+        double total = nos != null ? tempos.estimar(nos) : Double.NaN;
+        return Double.isNaN(total) ? OptionalInt.empty() : OptionalInt.of((int) Math.round(total));
+    }
+    
+    /**
+     * Passa a acompanhar o trajeto que o robô acabou de iniciar; o fim dele vira um aprendizado
+     */
+    public void acompanhar(Robo robo, String comando, List<String> nos) {
+        acompanhados.put(robo.getId(), new Acompanhamento(comando, robo.getInicioExecucao(), List.copyOf(nos)));
+    }
+    
+    private void encerrar(EventoExecucaoDTO execucao) {
+        Acompanhamento trajeto = acompanhados.get(execucao.getRoboId());
+        if (trajeto == null || !trajeto.comando().equals(execucao.getComando())
+                || !acompanhados.remove(execucao.getRoboId(), trajeto)) {
+            return;
+        }
+        if (execucao.getEstado().equals("concluida")) {
+            aprender(trajeto.nos(), execucao.getInstante() - trajeto.inicio());
+        }
+    }
+    
+    /**
+     * Reparte a duração medida de um trajeto entre os seus trechos e giros
+     * @return false se o trajeto não existir no grafo atual ou a duração for descartada
+     */
+    public synchronized boolean aprender(List<String> nomes, double duracao) {
+        TemposGrafo tempos = obterTempos();
+        Grafo grafo = tempos.getGrafo();
+        int[] nos = indices(grafo, nomes);
+        if (nos == null || nos.length < 2 || Double.isNaN(tempos.estimar(nos)) || !(duracao > 0)) {
+            metricasService.registrarAprendizado("descartada");
+            return false;
+        }
+        
+        double[] giros = tempos.giros(nos);
+        double estimada = tempos.estimar(nos);
+        double razao = duracao / estimada;
+        if (!(razao >= 1 / razaoMaxima && razao <= razaoMaxima)) {
+            log.debug("Duração descartada: {} ms medidos para {} ms estimados em {}", Math.round(duracao),
+                    Math.round(estimada), nomes);
+            metricasService.registrarAprendizado("descartada");
+            return false;
+        }
+        
+        for (int i = 0; i + 1 < nos.length; i++) {
+            int entrada = grafo.entrada(nos[i], nos[i + 1]);
+            double calibrado = grafo.peso(entrada) * msPorCm;
+            trechos.computeIfAbsent(new Trecho(nomes.get(i), nomes.get(i + 1)),
+                    trecho -> new EstimadorTempo(calibrado, alfa, quantil))
+                    .registrar(tempos.tempo(entrada) * razao);
+            if (giros[i] > 0) {
+                giroEsquerda.registrar(tempos.getMsPorGrauEsquerda() * razao);
+            } else if (giros[i] < 0) {
+                giroDireita.registrar(tempos.getMsPorGrauDireita() * razao);
+            }
+        }
+        versao++;
+        metricasService.registrarAprendizado("aprendida");
+        return true;
+    }
+    
+    /**
+     * Descarta o que foi aprendido (ex: depois de recalibrar os robôs) e volta à calibração
+     */
+    public synchronized void esquecer() {
+        trechos.clear();
+        giroEsquerda = new EstimadorTempo(msPorGrau, alfa, quantil);
+        giroDireita = new EstimadorTempo(msPorGrau, alfa, quantil);
+        versao++;
+    }
+    
+    /**
+     * Muda a cada execução aprendida e a cada esquecer(): as estimativas de tempo das rotas podem ter mudado
+     */
+    public long getVersao() {
+        return versao;
+    }
+    
+    /**
+     * Estimativas aprendidas por trecho e por lado de giro, ao lado do valor da calibração
+     */
+    public synchronized Map<String, Object> estatisticas() {
+        Grafo grafo = arestaRepository.getGrafo();
+        List<Map<String, Object>> lista = new ArrayList<>();
+        trechos.entrySet().stream()
+                .sorted(Comparator.comparing(entrada -> entrada.getKey().origem() + entrada.getKey().destino()))
+                .forEach(entrada -> {
+                    int e = entrada(grafo, entrada.getKey().origem(), entrada.getKey().destino());
+                    Map<String, Object> dados = descrever(entrada.getValue(), e >= 0 ? grafo.peso(e) * msPorCm : null);
+                    dados.put("id", entrada.getKey().origem() + entrada.getKey().destino());
+                    lista.add(dados);
+                });
+        
+        Map<String, Object> giros = new LinkedHashMap<>();
+        giros.put("esquerda", descrever(giroEsquerda, msPorGrau));
+        giros.put("direita", descrever(giroDireita, msPorGrau));
+        
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("trajetosAcompanhados", acompanhados.size());
+        resultado.put("trechos", lista);
+        resultado.put("girosMsPorGrau", giros);
+        return resultado;
+    }
+    
+    private Map<String, Object> descrever(EstimadorTempo estimador, Double calibrado) {
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("calibrado", calibrado);
+        dados.put("media", estimador.getMedia());
+        dados.put("quantil" + Math.round(quantil * 100), estimador.getQuantil());
+        dados.put("desvio", estimador.getDesvio());
+        dados.put("amostras", estimador.getAmostras());
+        return dados;
+    }
+    
+    private static int entrada(Grafo grafo, String origem, String destino) {
+        int u = grafo.indiceDe(origem);
+        int v = grafo.indiceDe(destino);
+        return u >= 0 && v >= 0 ? grafo.entrada(u, v) : -1;
+    }
+    
+    /**
+     * Índices dos nós pelo nome (null se algum não existir)
+     */
+    private static int[] indices(Grafo grafo, List<String> nomes) {
+        int[] nos = new int[nomes.size()];
+        for (int i = 0; i < nos.length; i++) {
+            nos[i] = grafo.indiceDe(nomes.get(i));
+            if (nos[i] < 0) {
+                return null;
+            }
+        }
+        return nos;
+    }
+}
@@ -0,0 +1,112 @@
+package com.roboentregador.backend.simulador;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Conjunto de ESP8266 simuladas em portas consecutivas, compartilhando um agendador
+ * Usada pelo SimuladorService (dentro do backend) ou sozinha pelo main(), em outro processo:
+ * java -cp benchmarks/target/benchmarks.jar com.roboentregador.backend.simulador.FrotaSimulada \
+ *      --robos=20 --porta=9301 --latencia=5 --jitter=2 --perda=0.01 --conexoes=4 --escala=10
+ * O main imprime o valor de frota.robos para registrar a frota no backend
+ */
+public final class FrotaSimulada implements AutoCloseable {
+
+    private final List<SimuladorEsp8266> robos;
+    private final ScheduledExecutorService agendador;
+    
+    private FrotaSimulada(List<SimuladorEsp8266> robos, ScheduledExecutorService agendador) {
+        this.robos = robos;
+        this.agendador = agendador;
+    }
+    
+    /**
+     * Inicia n robôs "sim-1" … "sim-n" no loopback
+     * @param portaInicial porta do primeiro robô (os demais em sequência); 0 = portas livres quaisquer
+     */
+    public static FrotaSimulada iniciar(int n, int portaInicial, ParametrosSimulador parametros) throws IOException {
+        ScheduledExecutorService agendador = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                    Thread thread = new Thread(r, "simulador-esp8266");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        
+        List<SimuladorEsp8266> robos = new ArrayList<>();
+        try {
+            for (int i = 0; i < n; i++) {
+                int porta = portaInicial == 0 ? 0 : portaInicial + i;
+                SimuladorEsp8266 robo = new SimuladorEsp8266("sim-" + (i + 1),
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), parametros, agendador);
+                robo.iniciar();
+                robos.add(robo);
+            }
+        } catch (IOException e) {
+            robos.forEach(SimuladorEsp8266::parar);
+            agendador.shutdownNow();
+            throw e;
+        }
+        return new FrotaSimulada(Collections.unmodifiableList(robos), agendador);
+    }
+    
+    public List<SimuladorEsp8266> getRobos() {
+        return robos;
+    }
+    
+    /**
+     * Valor para a propriedade frota.robos do backend, com a porta do canal binário de cada robô
+     * (ex: "sim-1=127.0.0.1:9301:41234,sim-2=127.0.0.1:9302:41235")
+     */
+    public String descreverFrota() {
+        return robos.stream()
+                .map(robo -> robo.getId() + "=127.0.0.1:" + robo.getPorta() + ":" + robo.getPortaCanal())
+                .collect(Collectors.joining(","));
+    }
+    
+    public List<Map<String, Object>> estatisticas() {
+        return robos.stream().map(SimuladorEsp8266::estatisticas).collect(Collectors.toList());
+    }
+    
+    @Override
+    public void close() {
+        robos.forEach(SimuladorEsp8266::parar);
+        agendador.shutdownNow();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int n = 1;
+        int porta = 9301;
+        ParametrosSimulador parametros = new ParametrosSimulador();
+        for (String arg : args) {
+            String[] partes = arg.replaceFirst("^--", "").split("=", 2);
+            String valor = partes.length > 1 ? partes[1] : "";
+            switch (partes[0]) {
+                case "robos" -> n = Integer.parseInt(valor);
+                case "porta" -> porta = Integer.parseInt(valor);
+                case "latencia" -> parametros.setLatenciaMs(Integer.parseInt(valor));
+                case "jitter" -> parametros.setJitterMs(Integer.parseInt(valor));
+                case "perda" -> parametros.setPerda(Double.parseDouble(valor));
+                case "conexoes" -> parametros.setConexoes(Integer.parseInt(valor));
+                case "escala" -> parametros.setEscalaTempo(Double.parseDouble(valor));
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + arg);
+            }
+        }
+        
+        FrotaSimulada frota = iniciar(n, porta, parametros);
+        System.out.println("🤖 " + n + " ESP8266 simuladas: " + parametros);
+        System.out.println("frota.robos=" + frota.descreverFrota());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            frota.estatisticas().forEach(System.out::println);
+            frota.close();
+        }));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,19 @@
+package com.roboentregador.backend.simulador;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Condições de rede e de tempo de uma ESP8266 simulada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParametrosSimulador {
+    private int latenciaMs = 5;         // atraso até responder cada requisição
+    private int jitterMs = 0;           // variação uniforme de ± jitterMs sobre a latência
+    private double perda = 0.0;         // fração de requisições que nunca recebem resposta (0 a 1)
+    private int conexoes = 4;           // requisições simultâneas aceitas; as demais têm a conexão fechada
+    private double escalaTempo = 1.0;   // aceleração dos trajetos (10 = dez vezes mais rápido que o robô real)
+}
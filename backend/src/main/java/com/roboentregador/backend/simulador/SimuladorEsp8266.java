@@ -0,0 +1,426 @@
+package com.roboentregador.backend.simulador;
+
+import com.roboentregador.backend.model.ProtocoloCanal;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ESP8266 simulada: servidor HTTP embutido com a mesma API e o mesmo comportamento do firmware.ino
+ * - POST /executar {"comando":"ROTA_n"|"STOP"}: inicia uma das rotas gravadas ou interrompe o trajeto
+ * - POST /programa: programa de motor binário (mesmo formato e limites de carregarPrograma)
+ * - GET /status: {"status":"executando"|"parado","conectado":true}
+ * - canal binário (ProtocoloCanal) em outra porta TCP, com os mesmos opcodes de firmware.ino
+ * Os trajetos seguem as tabelas de Comando {direcao, duracao} do firmware, com a pausa de 1s
+ * depois de cada passo; o estado é calculado a partir do instante de início, sem threads por robô
+ * Latência, jitter, perda e limite de conexões simultâneas vêm de ParametrosSimulador
+ * (no canal binário a perda descarta o quadro sem resposta e não há limite de conexões)
+ */
+public class SimuladorEsp8266 {
+
+    static {
+        // Sem TCP_NODELAY o HttpServer do JDK espera o ACK atrasado (~40 ms) entre cabeçalhos e corpo
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+    
+    // Tabelas de firmware.ino (rota1 … rota7): {direcao, duracao em ms}
+    // Direção: 0=Frente, 1=Ré, 2=Direita, 3=Esquerda, 4=Parar
+    private static final int[][][] ROTAS = {
+            {{3, 125}, {0, 650}, {2, 100}, {0, 935}, {2, 95}, {0, 550}},
+            {{2, 125}, {0, 910}, {3, 145}, {0, 900}, {3, 115}, {0, 800}},
+            {{3, 125}, {0, 725}, {2, 80}, {0, 150}, {2, 130}, {0, 590}, {3, 220}, {0, 800}, {2, 200}, {0, 500}},
+            {{2, 150}, {0, 1100}, {3, 280}, {0, 2300}, {2, 270}, {0, 720}},
+            {{0, 4900}, {3, 600}, {0, 6000}, {3, 700}, {0, 6200}, {2, 600}, {0, 6100}, {3, 500}, {0, 5500}},
+            {{0, 6500}, {3, 600}, {0, 6200}, {3, 700}, {0, 6000}, {2, 600}, {0, 6450}, {3, 500}, {0, 4400}},
+            {{0, 4900}, {2, 500}, {0, 6450}, {2, 700}, {0, 4500}, {3, 700}, {0, 6200}, {2, 600}, {0, 6100},
+                    {3, 500}, {0, 5500}}
+    };
+    
+    private static final int PAUSA_ENTRE_PASSOS = 1000;       // ms, como no loop() do firmware
+    private static final int VERSAO_PROGRAMA = 1;
+    private static final int MAX_PASSOS_PROGRAMA = 128;
+    private static final int TAMANHO_MAX_PROGRAMA = 5 + 3 * MAX_PASSOS_PROGRAMA;
+    private static final long ESPERA_PERDA_MS = 30_000;        // requisição perdida: conexão fechada sem resposta
+    
+    private final String id;
+    private final ParametrosSimulador parametros;
+    private final ScheduledExecutorService agendador;
+    private final HttpServer servidor;
+    private final ServerSocketChannel servidorCanal;
+    private final Set<SocketChannel> conexoesCanal = ConcurrentHashMap.newKeySet();
+    
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicLong recebidas = new AtomicLong();
+    private final AtomicLong perdidas = new AtomicLong();
+    private final AtomicLong recusadas = new AtomicLong();
+    private final AtomicLong trajetos = new AtomicLong();
+    
+    // Estado do trajeto (equivale a trajetoRodando/comandosRota do firmware), protegido por this
+    private int[][] trajeto;
+    private String nomeTrajeto;
+    private long inicioTrajeto;
+    private long duracaoTrajeto;     // ms simulados, com as pausas
+    
+    /**
+     * Cria o servidor sem iniciá-lo; o canal binário fica em uma porta livre do mesmo endereço
+     * @param endereco porta 0 escolhe uma porta livre
+     * @param agendador usado para atrasar as respostas; pode ser compartilhado por toda a frota simulada
+     */
+    public SimuladorEsp8266(String id, InetSocketAddress endereco, ParametrosSimulador parametros,
+                            ScheduledExecutorService agendador) throws IOException {
+        this.id = id;
+        this.parametros = parametros;
+        this.agendador = agendador;
+        this.servidor = HttpServer.create(endereco, 64);
+        this.servidor.createContext("/", this::receber);
+        this.servidor.setExecutor(agendador);
+        this.servidorCanal = ServerSocketChannel.open().bind(new InetSocketAddress(endereco.getAddress(), 0));
+    }
+    
+    public void iniciar() {
+        servidor.start();
+        Thread aceitacao = new Thread(this::aceitarCanal, id + "-canal");
+        aceitacao.setDaemon(true);
+        aceitacao.start();
+    }
+    
+    public void parar() {
+        servidor.stop(0);
+        fecharSilenciosamente(servidorCanal);
+        conexoesCanal.forEach(SimuladorEsp8266::fecharSilenciosamente);
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+    
+    public int getPortaCanal() {
+        return servidorCanal.socket().getLocalPort();
+    }
+    
+    /**
+     * true enquanto há um trajeto em andamento (o que GET /status responde)
+     */
+    public synchronized boolean isExecutando() {
+        atualizar();
+        return trajeto != null;
+    }
+    
+    /**
+     * Contadores de requisições e o estado atual, para acompanhar um teste de carga
+     */
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("id", id);
+        estatisticas.put("porta", getPorta());
+        estatisticas.put("portaCanal", getPortaCanal());
+        synchronized (this) {
+            atualizar();
+            estatisticas.put("estado", trajeto != null ? "executando" : "parado");
+            estatisticas.put("trajeto", nomeTrajeto);
+        }
+        estatisticas.put("recebidas", recebidas.get());
+        estatisticas.put("perdidas", perdidas.get());
+        estatisticas.put("recusadas", recusadas.get());
+        estatisticas.put("emAndamento", emAndamento.get());
+        estatisticas.put("trajetos", trajetos.get());
+        return estatisticas;
+    }
+    
+    /**
+     * Aplica as condições de rede antes de tratar a requisição
+     * Perda: a requisição fica sem resposta (o cliente esgota o timeout)
+     * Limite de conexões: acima dele a conexão é fechada na hora, como a ESP8266 sem sockets livres
+     */
+    private void receber(HttpExchange troca) {
+        recebidas.incrementAndGet();
+        if (parametros.getPerda() > 0 && ThreadLocalRandom.current().nextDouble() < parametros.getPerda()) {
+            perdidas.incrementAndGet();
+            agendador.schedule(troca::close, ESPERA_PERDA_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        if (emAndamento.incrementAndGet() > parametros.getConexoes()) {
+            emAndamento.decrementAndGet();
+            recusadas.incrementAndGet();
+            troca.close();
+            return;
+        }
+        agendador.schedule(() -> responder(troca), atraso(), TimeUnit.MILLISECONDS);
+    }
+    
+    private void responder(HttpExchange troca) {
+        try {
+            byte[] corpo = troca.getRequestBody().readAllBytes();
+            String caminho = troca.getRequestURI().getPath();
+            String metodo = troca.getRequestMethod();
+            
+            troca.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            if (metodo.equals("OPTIONS")) {
+                troca.getResponseHeaders().set("Access-Control-Allow-Methods", "POST, GET, OPTIONS");
+                troca.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
+                troca.sendResponseHeaders(200, -1);
+            } else if (metodo.equals("POST") && caminho.equals("/executar")) {
+                enviar(troca, executar(new String(corpo, StandardCharsets.UTF_8)));
+            } else if (metodo.equals("POST") && caminho.equals("/programa")) {
+                enviar(troca, carregarPrograma(corpo));
+            } else if (metodo.equals("GET") && caminho.equals("/status")) {
+                enviar(troca, new Resposta(200, "{\"status\":\"" + (isExecutando() ? "executando" : "parado")
+                        + "\",\"conectado\":true}"));
+            } else {
+                enviar(troca, new Resposta(404, "{\"error\":\"nao encontrado\"}"));
+            }
+        } catch (IOException e) {
+            // Cliente desistiu antes da resposta
+        } finally {
+            troca.close();
+            emAndamento.decrementAndGet();
+        }
+    }
+    
+    /**
+     * POST /executar: mesma busca por substring do firmware (ROTA_1 … ROTA_7, depois STOP)
+     * Uma rota pedida com outro trajeto em andamento é ignorada, mas a resposta continua 200
+     */
+    private Resposta executar(String corpo) {
+        for (int i = 1; i <= ROTAS.length; i++) {
+            if (corpo.contains("ROTA_" + i)) {
+                iniciarTrajeto(ROTAS[i - 1], "ROTA_" + i);
+                return new Resposta(200, "{\"status\":\"ok\",\"rota\":\"ROTA_" + i + "\"}");
+            }
+        }
+        if (corpo.contains("STOP")) {
+            synchronized (this) {
+                trajeto = null;
+            }
+            return new Resposta(200, "{\"status\":\"ok\",\"acao\":\"STOP\"}");
+        }
+        return new Resposta(400, "{\"error\":\"comando desconhecido\"}");
+    }
+    
+    /**
+     * POST /programa: versão (1) | id (2) | N passos (2) | N × 3 bytes (direção nos 3 bits altos, duração em ms)
+     */
+    private Resposta carregarPrograma(byte[] dados) {
+        if (dados.length > TAMANHO_MAX_PROGRAMA) {
+            return new Resposta(413, "{\"error\":\"programa grande demais\"}");
+        }
+        if (isExecutando()) {
+            return new Resposta(409, "{\"error\":\"executando\"}");
+        }
+        
+        int passos = dados.length < 5 ? 0 : ((dados[3] & 0xFF) << 8) | (dados[4] & 0xFF);
+        if (dados.length < 5 || dados[0] != VERSAO_PROGRAMA || passos == 0 || passos > MAX_PASSOS_PROGRAMA
+                || dados.length != 5 + 3 * passos) {
+            return new Resposta(400, "{\"error\":\"programa invalido\"}");
+        }
+        
+        int[][] programa = new int[passos][];
+        for (int i = 0; i < passos; i++) {
+            int p = 5 + 3 * i;
+            int passo = ((dados[p] & 0xFF) << 16) | ((dados[p + 1] & 0xFF) << 8) | (dados[p + 2] & 0xFF);
+            programa[i] = new int[]{passo >>> 21, passo & 0x1FFFFF};
+            if (programa[i][0] > 4) {
+                return new Resposta(400, "{\"error\":\"programa invalido\"}");
+            }
+        }
+        
+        int idPrograma = ((dados[1] & 0xFF) << 8) | (dados[2] & 0xFF);
+        iniciarTrajeto(programa, "PROGRAMA_" + idPrograma);
+        return new Resposta(200, "{\"status\":\"ok\",\"programa\":" + idPrograma + ",\"passos\":" + passos + "}");
+    }
+    
+    /**
+     * Uma thread por conexão do canal, como o único cliente que a ESP8266 atende (o backend)
+     */
+    private void aceitarCanal() {
+        while (servidorCanal.isOpen()) {
+            try {
+                SocketChannel conexao = servidorCanal.accept();
+                conexao.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                conexoesCanal.add(conexao);
+                Thread leitor = new Thread(() -> atenderCanal(conexao), id + "-canal-leitor");
+                leitor.setDaemon(true);
+                leitor.start();
+            } catch (IOException e) {
+                return;   // servidor parado
+            }
+        }
+    }
+    
+    /**
+     * Lê os pedidos e agenda cada resposta com a latência simulada, como as requisições HTTP
+     * Quadro inválido fecha a conexão, como no firmware
+     */
+    private void atenderCanal(SocketChannel conexao) {
+        ByteBuffer cabecalho = ByteBuffer.allocate(ProtocoloCanal.TAMANHO_QUADRO);
+        try {
+            while (lerCompleto(conexao, cabecalho.clear())) {
+                int opcode = cabecalho.get(1) & 0xFF;
+                int sequencia = cabecalho.getShort(2) & 0xFFFF;
+                int argumento = cabecalho.getShort(4) & 0xFFFF;
+                int tamanho = cabecalho.getShort(6) & 0xFFFF;
+                if ((cabecalho.get(0) & 0xFF) != ProtocoloCanal.MAGICO) {
+                    return;
+                }
+                if (tamanho > TAMANHO_MAX_PROGRAMA) {
+                    responderCanal(conexao, ProtocoloCanal.resposta(opcode, sequencia, ProtocoloCanal.GRANDE_DEMAIS,
+                            isExecutando(), 0));
+                    return;
+                }
+                byte[] carga = new byte[tamanho];
+                if (!lerCompleto(conexao, ByteBuffer.wrap(carga))) {
+                    return;
+                }
+                
+                recebidas.incrementAndGet();
+                if (parametros.getPerda() > 0 && ThreadLocalRandom.current().nextDouble() < parametros.getPerda()) {
+                    perdidas.incrementAndGet();
+                    continue;
+                }
+                agendador.schedule(() -> responderCanal(conexao, processarQuadro(opcode, sequencia, argumento, carga)),
+                        atraso(), TimeUnit.MILLISECONDS);
+            }
+        } catch (IOException e) {
+            // Backend fechou a conexão
+        } finally {
+            conexoesCanal.remove(conexao);
+            fecharSilenciosamente(conexao);
+        }
+    }
+    
+    /**
+     * Mesmas ações de /executar e /programa, escolhidas pelo opcode
+     */
+    private ByteBuffer processarQuadro(int opcode, int sequencia, int argumento, byte[] carga) {
+        int codigo = ProtocoloCanal.OK;
+        int valor = 0;
+        switch (opcode) {
+            case ProtocoloCanal.ROTA -> {
+                if (argumento >= 1 && argumento <= ROTAS.length) {
+                    iniciarTrajeto(ROTAS[argumento - 1], "ROTA_" + argumento);
+                    valor = argumento;
+                } else {
+                    codigo = ProtocoloCanal.DESCONHECIDO;
+                }
+            }
+            case ProtocoloCanal.STOP -> {
+                synchronized (this) {
+                    trajeto = null;
+                }
+            }
+            case ProtocoloCanal.STATUS -> {
+            }
+            case ProtocoloCanal.PROGRAMA -> {
+                codigo = switch (carregarPrograma(carga).codigo()) {
+                    case 200 -> ProtocoloCanal.OK;
+                    case 409 -> ProtocoloCanal.EXECUTANDO;
+                    case 413 -> ProtocoloCanal.GRANDE_DEMAIS;
+                    default -> ProtocoloCanal.INVALIDO;
+                };
+                valor = codigo == ProtocoloCanal.OK ? ((carga[3] & 0xFF) << 8) | (carga[4] & 0xFF) : 0;
+            }
+            default -> codigo = ProtocoloCanal.DESCONHECIDO;
+        }
+        return ProtocoloCanal.resposta(opcode, sequencia, codigo, isExecutando(), valor);
+    }
+    
+    private static boolean lerCompleto(SocketChannel conexao, ByteBuffer destino) throws IOException {
+        while (destino.hasRemaining()) {
+            if (conexao.read(destino) < 0) {
+                return false;
+            }
+        }
+        destino.flip();
+        return true;
+    }
+    
+    private static void responderCanal(SocketChannel conexao, ByteBuffer resposta) {
+        try {
+            synchronized (conexao) {
+                while (resposta.hasRemaining()) {
+                    conexao.write(resposta);
+                }
+            }
+        } catch (IOException e) {
+            // Backend desistiu da conexão
+        }
+    }
+    
+    private static void fecharSilenciosamente(Channel canal) {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // Já fechado
+        }
+    }
+    
+    private synchronized void iniciarTrajeto(int[][] passos, String nome) {
+        atualizar();
+        if (trajeto != null) {
+            return;
+        }
+        long duracao = 0;
+        for (int[] passo : passos) {
+            duracao += passo[1] + PAUSA_ENTRE_PASSOS;
+        }
+        trajeto = passos;
+        nomeTrajeto = nome;
+        inicioTrajeto = System.nanoTime();
+        duracaoTrajeto = duracao;
+        trajetos.incrementAndGet();
+    }
+    
+    /**
+     * Encerra o trajeto quando o tempo simulado passa da soma dos passos e pausas
+     */
+    private void atualizar() {
+        if (trajeto != null) {
+            double decorrido = (System.nanoTime() - inicioTrajeto) / 1e6 * parametros.getEscalaTempo();
+            if (decorrido >= duracaoTrajeto) {
+                trajeto = null;
+            }
+        }
+    }
+    
+    private long atraso() {
+        int jitter = parametros.getJitterMs();
+        int variacao = jitter > 0 ? ThreadLocalRandom.current().nextInt(-jitter, jitter + 1) : 0;
+        return Math.max(0, parametros.getLatenciaMs() + variacao);
+    }
+    
+    private static void enviar(HttpExchange troca, Resposta resposta) throws IOException {
+        byte[] json = resposta.json().getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json");
+        troca.sendResponseHeaders(resposta.codigo(), json.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(json);
+        }
+    }
+    
+    private record Resposta(int codigo, String json) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.roboentregador.backend.model;
+
+import com.roboentregador.backend.dto.RegistroHistoricoDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Registros gravados e lidos de volta, consultas filtradas, troca de segmento e recuperação de um fim cortado
+ */
+class DiarioExecucoesTest {
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void gravaELeDeVolta() throws IOException {
+        List<RegistroHistoricoDTO> registros = List.of(
+                new RegistroHistoricoDTO(1000, "comando", "robo-1", "ROTA_1", "sucesso", null, 12.345),
+                new RegistroHistoricoDTO(1001, "execucao", "robo-2", "PROGRAMA_8", "sem_robo", 8L, null),
+                new RegistroHistoricoDTO(1002, "trajeto", null, "STOP", "parada", null, null));
+
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            diario.anexar(registros);
+
+            assertEquals(registros, ler(diario, 0, Long.MAX_VALUE, null, null));
+            assertEquals(List.of(registros.get(1)), ler(diario, 0, Long.MAX_VALUE, "robo-2", null));
+            assertEquals(List.of(registros.get(2)), ler(diario, 0, Long.MAX_VALUE, null, "trajeto"));
+            assertEquals(List.of(registros.get(0), registros.get(1)), ler(diario, 1000, 1001, null, null));
+            assertEquals(1000L, (long) diario.getPrimeiroInstante());
+        }
+    }
+
+    @Test
+    void textosLongosSaoCortadosNoLimiteDoCampo() throws IOException {
+        String longo = "x".repeat(300);
+
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            diario.anexar(List.of(new RegistroHistoricoDTO(5, "comando", "robo-1", longo, "falha", null, 0.0)));
+
+            assertEquals("x".repeat(255), ler(diario, 0, Long.MAX_VALUE, null, null).get(0).getComando());
+        }
+    }
+
+    @Test
+    void todosOsResultadosConhecidosVoltamIguais() throws IOException {
+        List<RegistroHistoricoDTO> registros = new ArrayList<>();
+        for (String resultado : DiarioExecucoes.RESULTADOS) {
+            registros.add(new RegistroHistoricoDTO(registros.size(), "comando", "robo-1", "STOP", resultado, null, 1.0));
+        }
+
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            diario.anexar(registros);
+
+            assertEquals(registros, ler(diario, 0, Long.MAX_VALUE, null, null));
+            assertTrue(DiarioExecucoes.RESULTADOS.contains("rejeitado"));
+        }
+    }
+
+    @Test
+    void consultaAtravessaSegmentosEReabre() throws IOException {
+        List<RegistroHistoricoDTO> registros = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            registros.add(new RegistroHistoricoDTO(i, "comando", "robo-" + (i % 3), "ROTA_" + (1 + i % 7),
+                    "sucesso", null, (double) i));
+        }
+
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 4096)) {
+            for (RegistroHistoricoDTO registro : registros) {
+                diario.anexar(List.of(registro));
+            }
+            assertTrue(diario.getNumeroDeSegmentos() > 1);
+        }
+
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 4096)) {
+            assertEquals(registros, ler(diario, 0, Long.MAX_VALUE, null, null));
+            assertEquals(registros.subList(100, 201), ler(diario, 100, 200, null, null));
+            assertEquals(registros.stream().filter(r -> r.getRoboId().equals("robo-1")).toList(),
+                    ler(diario, 0, Long.MAX_VALUE, "robo-1", null));
+        }
+    }
+
+    @Test
+    void descartaORegistroCortadoNoFimEContinuaGravando() throws IOException {
+        RegistroHistoricoDTO primeiro = new RegistroHistoricoDTO(10, "comando", "robo-1", "ROTA_1", "sucesso", null, 1.0);
+        RegistroHistoricoDTO segundo = new RegistroHistoricoDTO(20, "comando", "robo-1", "ROTA_2", "sucesso", null, 2.0);
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            diario.anexar(List.of(primeiro, segundo));
+        }
+
+        // Queda no meio da gravação do segundo registro
+        Path segmento = unicoSegmento();
+        long tamanho = Files.size(segmento);
+        try (var canal = Files.newByteChannel(segmento, StandardOpenOption.WRITE)) {
+            canal.truncate(tamanho - 5);
+        }
+
+        RegistroHistoricoDTO terceiro = new RegistroHistoricoDTO(30, "trajeto", "robo-2", "ROTA_3", "concluida", null, null);
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            assertEquals(List.of(primeiro), ler(diario, 0, Long.MAX_VALUE, null, null));
+            diario.anexar(List.of(terceiro));
+            assertEquals(List.of(primeiro, terceiro), ler(diario, 0, Long.MAX_VALUE, null, null));
+        }
+    }
+
+    @Test
+    void descartaRegistroComCrcInvalido() throws IOException {
+        RegistroHistoricoDTO primeiro = new RegistroHistoricoDTO(10, "comando", "robo-1", "ROTA_1", "sucesso", null, 1.0);
+        RegistroHistoricoDTO segundo = new RegistroHistoricoDTO(20, "comando", "robo-1", "ROTA_2", "sucesso", null, 2.0);
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            diario.anexar(List.of(primeiro, segundo));
+        }
+
+        // Um bit trocado no comando do último registro (os 4 bytes finais são o CRC32C)
+        Path segmento = unicoSegmento();
+        byte[] dados = Files.readAllBytes(segmento);
+        dados[dados.length - 5] ^= 0x01;
+        Files.write(segmento, dados);
+
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            assertEquals(List.of(primeiro), ler(diario, 0, Long.MAX_VALUE, null, null));
+        }
+    }
+
+    @Test
+    void ignoraArquivoSemCabecalhoDeSegmento() throws IOException {
+        Files.write(pasta.resolve("historico-000000000001.log"), new byte[]{1, 2, 3});
+
+        try (DiarioExecucoes diario = DiarioExecucoes.abrir(pasta, 1 << 20)) {
+            RegistroHistoricoDTO registro = new RegistroHistoricoDTO(1, "comando", "robo-1", "STOP", "sucesso", null, 0.5);
+            diario.anexar(List.of(registro));
+
+            assertEquals(List.of(registro), ler(diario, 0, Long.MAX_VALUE, null, null));
+        }
+    }
+
+    private Path unicoSegmento() throws IOException {
+        try (Stream<Path> arquivos = Files.list(pasta)) {
+            List<Path> segmentos = arquivos.filter(arquivo -> arquivo.toString().endsWith(".log")).toList();
+            assertEquals(1, segmentos.size());
+            return segmentos.get(0);
+        }
+    }
+
+    private static List<RegistroHistoricoDTO> ler(DiarioExecucoes diario, long desde, long ate, String roboId,
+                                                  String tipo) {
+        List<RegistroHistoricoDTO> lidos = new ArrayList<>();
+        try (DiarioExecucoes.Cursor cursor = diario.consultar(desde, ate, roboId, tipo)) {
+            cursor.forEachRemaining(lidos::add);
+        }
+        return lidos;
+    }
+}
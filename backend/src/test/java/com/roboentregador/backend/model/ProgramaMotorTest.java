@@ -0,0 +1,136 @@
+package com.roboentregador.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Formato binário do programa de motor, lido de volta com as mesmas regras de carregarPrograma do firmware
+ */
+class ProgramaMotorTest {
+
+    private static final int FRENTE = Instrucao.codigoDirecao("FRENTE");
+    private static final int ESQUERDA = Instrucao.codigoDirecao("ESQUERDA");
+
+    @Test
+    void codificaELeDeVolta() {
+        long[] instrucoes = {
+                RotaCompacta.empacotar(FRENTE, 120, 2400),
+                RotaCompacta.empacotar(ESQUERDA, 0, 450),
+                RotaCompacta.empacotar(FRENTE, 80, 1600)
+        };
+        ProgramaMotor programa = new ProgramaMotor(42, instrucoes);
+
+        byte[] dados = programa.codificar();
+
+        assertEquals(ProgramaMotor.TAMANHO_CABECALHO + 3 * ProgramaMotor.TAMANHO_PASSO, dados.length);
+        assertEquals(ProgramaMotor.VERSAO, dados[0]);
+        assertEquals(42, idDe(dados));
+        assertArrayEquals(new int[][]{{FRENTE, 2400}, {ESQUERDA, 450}, {FRENTE, 1600}}, lerComoFirmware(dados));
+        assertEquals("PROGRAMA_42", programa.getComando());
+        assertEquals(4450, programa.getDuracaoTotal());
+    }
+
+    @Test
+    void divideOsPassosMaisLongosQueOCampoDeDuracao() {
+        int duracao = 2 * ProgramaMotor.MAX_DURACAO_PASSO + 5;
+        ProgramaMotor programa = new ProgramaMotor(1, new long[]{RotaCompacta.empacotar(FRENTE, 0, duracao)});
+
+        int[][] passos = lerComoFirmware(programa.codificar());
+
+        assertEquals(3, programa.getNumeroDePassos());
+        assertArrayEquals(new int[][]{
+                {FRENTE, ProgramaMotor.MAX_DURACAO_PASSO},
+                {FRENTE, ProgramaMotor.MAX_DURACAO_PASSO},
+                {FRENTE, 5}
+        }, passos);
+        assertEquals(duracao, programa.getDuracaoTotal());
+    }
+
+    @Test
+    void passoDeDuracaoZeroOcupaUmPasso() {
+        ProgramaMotor programa = new ProgramaMotor(0, new long[]{RotaCompacta.empacotar(ESQUERDA, 0, 0)});
+
+        assertArrayEquals(new int[][]{{ESQUERDA, 0}}, lerComoFirmware(programa.codificar()));
+    }
+
+    @Test
+    void aceitaIdsDe16BitsERecusaOsDemais() {
+        long[] instrucoes = {RotaCompacta.empacotar(FRENTE, 10, 200)};
+
+        assertEquals(0, idDe(new ProgramaMotor(0, instrucoes).codificar()));
+        assertEquals(ProgramaMotor.ID_MAXIMO, idDe(new ProgramaMotor(ProgramaMotor.ID_MAXIMO, instrucoes).codificar()));
+        assertThrows(IllegalArgumentException.class, () -> new ProgramaMotor(ProgramaMotor.ID_MAXIMO + 1, instrucoes));
+        assertThrows(IllegalArgumentException.class, () -> new ProgramaMotor(-1, instrucoes));
+    }
+
+    @Test
+    void limiteDePassosDoFirmware() {
+        long[] cheio = new long[ProgramaMotor.MAX_PASSOS];
+        Arrays.fill(cheio, RotaCompacta.empacotar(FRENTE, 10, 200));
+        ProgramaMotor cabe = new ProgramaMotor(7, cheio);
+        ProgramaMotor naoCabe = new ProgramaMotor(7, Arrays.copyOf(cheio, cheio.length + 1));
+
+        assertTrue(cabe.cabeNoFirmware());
+        assertEquals(ProgramaMotor.MAX_PASSOS, lerComoFirmware(cabe.codificar()).length);
+        assertFalse(naoCabe.cabeNoFirmware());
+        assertNull(lerComoFirmware(naoCabe.codificar()));
+    }
+
+    @Test
+    void firmwareRecusaProgramasCorrompidos() {
+        byte[] valido = new ProgramaMotor(3, new long[]{
+                RotaCompacta.empacotar(FRENTE, 10, 200),
+                RotaCompacta.empacotar(ESQUERDA, 0, 90)
+        }).codificar();
+        assertNotNull(lerComoFirmware(valido));
+
+        // Cortado no meio de um passo e só o cabeçalho
+        assertNull(lerComoFirmware(Arrays.copyOf(valido, valido.length - 1)));
+        assertNull(lerComoFirmware(Arrays.copyOf(valido, ProgramaMotor.TAMANHO_CABECALHO)));
+        assertNull(lerComoFirmware(Arrays.copyOf(valido, 3)));
+
+        byte[] versao = valido.clone();
+        versao[0] = 2;
+        assertNull(lerComoFirmware(versao));
+
+        byte[] contagem = valido.clone();
+        contagem[4] = 3;   // declara mais passos que os bytes enviados
+        assertNull(lerComoFirmware(contagem));
+
+        byte[] direcao = valido.clone();
+        direcao[ProgramaMotor.TAMANHO_CABECALHO] = (byte) 0xE0;   // direção 7
+        assertNull(lerComoFirmware(direcao));
+    }
+
+    private static int idDe(byte[] dados) {
+        return ((dados[1] & 0xFF) << 8) | (dados[2] & 0xFF);
+    }
+
+    /**
+     * Mesmas verificações de carregarPrograma (firmware.ino)
+     * @return {direção, duração} de cada passo, ou null se o firmware recusaria o programa
+     */
+    private static int[][] lerComoFirmware(byte[] dados) {
+        if (dados.length < ProgramaMotor.TAMANHO_CABECALHO || dados[0] != ProgramaMotor.VERSAO) {
+            return null;
+        }
+        int passos = ((dados[3] & 0xFF) << 8) | (dados[4] & 0xFF);
+        if (passos == 0 || passos > ProgramaMotor.MAX_PASSOS
+                || dados.length != ProgramaMotor.TAMANHO_CABECALHO + ProgramaMotor.TAMANHO_PASSO * passos) {
+            return null;
+        }
+        int[][] programa = new int[passos][];
+        for (int i = 0; i < passos; i++) {
+            int p = ProgramaMotor.TAMANHO_CABECALHO + ProgramaMotor.TAMANHO_PASSO * i;
+            int passo = ((dados[p] & 0xFF) << 16) | ((dados[p + 1] & 0xFF) << 8) | (dados[p + 2] & 0xFF);
+            programa[i] = new int[]{passo >>> 21, passo & 0x1FFFFF};
+            if (programa[i][0] > 4) {
+                return null;
+            }
+        }
+        return programa;
+    }
+}
@@ -0,0 +1,110 @@
+package com.roboentregador.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Quadros do canal binário nos dois sentidos, incluindo os bytes exatos que o firmware lê e escreve
+ */
+class ProtocoloCanalTest {
+
+    @Test
+    void pedidoSemCargaTemOitoBytes() {
+        ByteBuffer pedido = ProtocoloCanal.pedido(ProtocoloCanal.ROTA, 0x1234, 5, null);
+
+        assertArrayEquals(new byte[]{'R', 1, 0x12, 0x34, 0, 5, 0, 0}, bytes(pedido));
+    }
+
+    @Test
+    void pedidoDeProgramaLevaOProgramaComoCarga() {
+        byte[] programa = new ProgramaMotor(300, new long[]{
+                RotaCompacta.empacotar(Instrucao.codigoDirecao("FRENTE"), 50, 1000)
+        }).codificar();
+
+        byte[] quadro = bytes(ProtocoloCanal.pedido(ProtocoloCanal.PROGRAMA, 1, 300, programa));
+
+        assertEquals(ProtocoloCanal.TAMANHO_QUADRO + programa.length, quadro.length);
+        assertEquals(ProtocoloCanal.PROGRAMA, quadro[1]);
+        assertEquals(300, u16(quadro, 4));
+        assertEquals(programa.length, u16(quadro, 6));
+        byte[] carga = new byte[programa.length];
+        System.arraycopy(quadro, ProtocoloCanal.TAMANHO_QUADRO, carga, 0, carga.length);
+        assertArrayEquals(programa, carga);
+    }
+
+    @Test
+    void sequenciaEArgumentoUsamOs16BitsInteiros() {
+        byte[] quadro = bytes(ProtocoloCanal.pedido(ProtocoloCanal.STATUS, 0xFFFF, 0xFFFF, null));
+
+        assertEquals(0xFFFF, u16(quadro, 2));
+        assertEquals(0xFFFF, u16(quadro, 4));
+    }
+
+    @Test
+    void respostaLidaDeVolta() {
+        ByteBuffer resposta = ProtocoloCanal.resposta(ProtocoloCanal.PROGRAMA, 0xFFFE, ProtocoloCanal.EXECUTANDO,
+                true, 0xABCD);
+
+        ProtocoloCanal.Resposta lida = ProtocoloCanal.lerResposta(resposta);
+
+        assertEquals(new ProtocoloCanal.Resposta(ProtocoloCanal.PROGRAMA, 0xFFFE, ProtocoloCanal.EXECUTANDO, true, 0xABCD),
+                lida);
+        assertFalse(lida.isOk());
+        assertFalse(resposta.hasRemaining());
+    }
+
+    @Test
+    void leARespostaComoOFirmwareEscreve() {
+        // responderCanal: 'R' | opcode | 0x80 | sequência | código | executando | valor
+        ByteBuffer quadro = ByteBuffer.wrap(new byte[]{'R', (byte) 0x81, 0x00, 0x07, 0, 1, 0x00, 0x03});
+
+        ProtocoloCanal.Resposta lida = ProtocoloCanal.lerResposta(quadro);
+
+        assertEquals(ProtocoloCanal.ROTA, lida.opcode());
+        assertEquals(7, lida.sequencia());
+        assertTrue(lida.isOk());
+        assertTrue(lida.executando());
+        assertEquals(3, lida.valor());
+    }
+
+    @Test
+    void recusaQuadrosQueNaoSaoRespostas() {
+        ByteBuffer semMagico = ByteBuffer.wrap(new byte[]{'X', (byte) 0x81, 0, 1, 0, 0, 0, 0});
+        ByteBuffer pedido = ProtocoloCanal.pedido(ProtocoloCanal.STOP, 1, 0, null);
+
+        assertThrows(IllegalArgumentException.class, () -> ProtocoloCanal.lerResposta(semMagico));
+        assertThrows(IllegalArgumentException.class, () -> ProtocoloCanal.lerResposta(pedido));
+    }
+
+    @Test
+    void respostaIncompletaNaoELida() {
+        ByteBuffer cortada = ByteBuffer.wrap(new byte[]{'R', (byte) 0x83, 0, 1, 0});
+
+        assertThrows(BufferUnderflowException.class, () -> ProtocoloCanal.lerResposta(cortada));
+    }
+
+    @Test
+    void traduzSoOsComandosQueOFirmwareConhecePeloOpcode() {
+        assertEquals(ProtocoloCanal.STOP << 16, ProtocoloCanal.traduzirComando("STOP"));
+        assertEquals((ProtocoloCanal.ROTA << 16) | 1, ProtocoloCanal.traduzirComando("ROTA_1"));
+        assertEquals((ProtocoloCanal.ROTA << 16) | 7, ProtocoloCanal.traduzirComando("ROTA_7"));
+        assertEquals(-1, ProtocoloCanal.traduzirComando("ROTA_0"));
+        assertEquals(-1, ProtocoloCanal.traduzirComando("ROTA_8"));
+        assertEquals(-1, ProtocoloCanal.traduzirComando("ROTA_10"));
+        assertEquals(-1, ProtocoloCanal.traduzirComando("PROGRAMA_3"));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] dados = new byte[buffer.remaining()];
+        buffer.duplicate().get(dados);
+        return dados;
+    }
+
+    private static int u16(byte[] dados, int posicao) {
+        return ((dados[posicao] & 0xFF) << 8) | (dados[posicao + 1] & 0xFF);
+    }
+}
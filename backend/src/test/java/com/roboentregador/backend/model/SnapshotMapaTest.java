@@ -0,0 +1,137 @@
+package com.roboentregador.backend.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gravação e leitura do snapshot binário do mapa, e a recusa de arquivos incompletos ou corrompidos
+ */
+class SnapshotMapaTest {
+
+    @TempDir
+    Path pasta;
+
+    private static final List<Aresta> ARESTAS = List.of(
+            new Aresta("A", "B", 100),
+            new Aresta("B", "C", 50.5),
+            new Aresta("A", "C", 180));
+
+    private static final Map<String, Posicao> POSICOES = Map.of(
+            "A", new Posicao(0, 0),
+            "B", new Posicao(0, 100),
+            "C", new Posicao(50, 100));
+
+    @Test
+    void gravaELeDeVolta() throws IOException {
+        TabelaSimbolos simbolos = new TabelaSimbolos();
+        RotaCompacta rota = new RotaCompacta(9L, "Rota 9", "ROTA_1", simbolos,
+                internar(simbolos, "A", "B", "C"), internar(simbolos, "AB", "BC"),
+                new long[]{RotaCompacta.empacotar(0, 100, 2000), RotaCompacta.empacotar(2, 0, 300)}, 150.5);
+
+        SnapshotMapa lido = SnapshotMapa.ler(gravar(SnapshotMapa.gravar(77L, ARESTAS, POSICOES, List.of(rota))));
+
+        assertEquals(77L, lido.getVersao());
+        assertEquals(ARESTAS, lido.getArestas());
+        assertEquals(POSICOES, lido.getPosicoes());
+
+        Grafo grafo = lido.getGrafo();
+        Grafo original = Grafo.construir(ARESTAS, POSICOES);
+        assertEquals(original.numeroDeNos(), grafo.numeroDeNos());
+        assertEquals(original.numeroDeEntradas(), grafo.numeroDeEntradas());
+        for (int u = 0; u < grafo.numeroDeNos(); u++) {
+            assertEquals(original.nomeDe(u), grafo.nomeDe(u));
+            for (int v = 0; v < grafo.numeroDeNos(); v++) {
+                int entrada = grafo.entrada(u, v);
+                assertEquals(original.entrada(u, v), entrada);
+                if (entrada >= 0) {
+                    assertEquals(original.peso(entrada), grafo.peso(entrada));
+                }
+            }
+        }
+
+        assertEquals(1, lido.getRotas().size());
+        RotaCompacta lida = lido.getRotas().get(0);
+        assertEquals(9L, (long) lida.getId());
+        assertEquals("Rota 9", lida.getNome());
+        assertEquals("ROTA_1", lida.getComando());
+        assertEquals(150.5, lida.getDistanciaTotal());
+        assertEquals(List.of("A", "B", "C"), lida.getNosPercorridos());
+        assertEquals(List.of("AB", "BC"), lida.getArestasPercorridas());
+        assertEquals(rota.getInstrucoes(), lida.getInstrucoes());
+    }
+
+    @Test
+    void mapaSemPosicoesNemRotas() throws IOException {
+        SnapshotMapa lido = SnapshotMapa.ler(gravar(SnapshotMapa.gravar(1L, ARESTAS, Map.of(), List.of())));
+
+        assertTrue(lido.getPosicoes().isEmpty());
+        assertTrue(lido.getRotas().isEmpty());
+        assertFalse(lido.getGrafo().temEstimativa());
+    }
+
+    @Test
+    void gravaRotaLongaQueFazOBufferCrescer() throws IOException {
+        // 1001 nós (4004 bytes) fazem o buffer crescer até um tamanho fora do alinhamento de 8 bytes
+        String[] nos = new String[1001];
+        for (int i = 0; i < nos.length; i++) {
+            nos[i] = i % 2 == 0 ? "A" : "B";
+        }
+        TabelaSimbolos simbolos = new TabelaSimbolos();
+        RotaCompacta rota = new RotaCompacta(3L, "Vai e volta", null, simbolos, internar(simbolos, nos),
+                internar(simbolos, "AB"), new long[]{RotaCompacta.empacotar(0, 100, 2000)}, 100_000);
+
+        SnapshotMapa lido = SnapshotMapa.ler(gravar(SnapshotMapa.gravar(1L, ARESTAS, POSICOES, List.of(rota))));
+
+        assertEquals(List.of(nos), lido.getRotas().get(0).getNosPercorridos());
+        assertEquals(List.of("AB"), lido.getRotas().get(0).getArestasPercorridas());
+    }
+
+    @Test
+    void recusaArquivoIncompleto() throws IOException {
+        byte[] dados = SnapshotMapa.gravar(1L, ARESTAS, POSICOES, List.of());
+
+        assertThrows(IOException.class, () -> SnapshotMapa.ler(gravar(Arrays.copyOf(dados, dados.length - 8))));
+        assertThrows(IOException.class, () -> SnapshotMapa.ler(gravar(Arrays.copyOf(dados, 63))));
+        assertThrows(IOException.class, () -> SnapshotMapa.ler(gravar(new byte[0])));
+    }
+
+    @Test
+    void recusaArquivoCorrompido() throws IOException {
+        byte[] dados = SnapshotMapa.gravar(1L, ARESTAS, POSICOES, List.of());
+
+        byte[] corpo = dados.clone();
+        corpo[corpo.length - 1] ^= 0x01;
+        assertThrows(IOException.class, () -> SnapshotMapa.ler(gravar(corpo)));
+
+        byte[] magic = dados.clone();
+        magic[0] = 'X';
+        assertThrows(IOException.class, () -> SnapshotMapa.ler(gravar(magic)));
+
+        byte[] formato = dados.clone();
+        formato[4] = (byte) (SnapshotMapa.FORMATO + 1);
+        assertThrows(IOException.class, () -> SnapshotMapa.ler(gravar(formato)));
+    }
+
+    private Path gravar(byte[] dados) throws IOException {
+        Path arquivo = Files.createTempFile(pasta, "mapa", ".bin");
+        Files.write(arquivo, dados);
+        return arquivo;
+    }
+
+    private static int[] internar(TabelaSimbolos simbolos, String... nomes) {
+        int[] indices = new int[nomes.length];
+        for (int i = 0; i < nomes.length; i++) {
+            indices[i] = simbolos.internar(nomes[i]);
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,87 @@
+package com.roboentregador.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roboentregador.backend.model.Aresta;
+import com.roboentregador.backend.model.Posicao;
+import com.roboentregador.backend.repository.ArestaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Cenários compartilhados pelos benchmarks: grafos em grade e um contexto Spring mínimo
+ * O contexto registra só os beans pedidos (sem auto-configuração, servidor web ou Actuator),
+ * então os serviços medidos são os mesmos do backend, com as mesmas dependências
+ */
+final class Cenarios {
+
+    static final String PREFIXO = "N";
+    
+    private Cenarios() {
+    }
+    
+    /**
+     * Grade lado × lado com uma aresta entre cada par de vizinhos
+     * As distâncias variam entre 50 e 100 cm (semente fixa: o mesmo grafo em todas as execuções)
+     * Nós: N0 (canto inferior esquerdo) até N(lado²-1) (canto oposto)
+     */
+    static void carregarGrade(ArestaRepository arestaRepository, int lado) {
+        Random aleatorio = new Random(42);
+        List<Aresta> arestas = new ArrayList<>();
+        Map<String, Posicao> posicoes = new HashMap<>();
+        for (int linha = 0; linha < lado; linha++) {
+            for (int coluna = 0; coluna < lado; coluna++) {
+                String no = no(linha * lado + coluna);
+                posicoes.put(no, new Posicao(coluna * 75.0, linha * 75.0));
+                if (coluna + 1 < lado) {
+                    ligar(arestas, no, no(linha * lado + coluna + 1), 50 + aleatorio.nextInt(51));
+                }
+                if (linha + 1 < lado) {
+                    ligar(arestas, no, no((linha + 1) * lado + coluna), 50 + aleatorio.nextInt(51));
+                }
+            }
+        }
+        arestaRepository.salvarTodas(arestas, posicoes);
+    }
+    
+    /**
+     * Lado da menor grade com pelo menos o número de nós pedido
+     */
+    static int lado(int nos) {
+        return (int) Math.ceil(Math.sqrt(nos));
+    }
+    
+    static String no(int indice) {
+        return PREFIXO + indice;
+    }
+    
+    /**
+     * Cria o contexto com os componentes indicados, um MeterRegistry em memória
+     * e o ObjectMapper com os padrões do Spring Boot
+     */
+    static AnnotationConfigApplicationContext contexto(Map<String, Object> propriedades, Class<?>... componentes) {
+        AnnotationConfigApplicationContext contexto = new AnnotationConfigApplicationContext();
+        contexto.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", propriedades));
+        contexto.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        contexto.registerBean(ObjectMapper.class, Cenarios::objectMapper);
+        contexto.register(componentes);
+        contexto.refresh();
+        return contexto;
+    }
+    
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+    
+    private static void ligar(List<Aresta> arestas, String a, String b, double distancia) {
+        arestas.add(new Aresta(a, b, distancia));
+    }
+}
@@ -0,0 +1,98 @@
+package com.roboentregador.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compara dois resultados do JMH em JSON (-rf json) entre versões
+ * Uso: java -cp target/benchmarks.jar com.roboentregador.benchmarks.CompararResultados base.json novo.json [limiar%]
+ * Cada benchmark é identificado por nome, modo e parâmetros; é regressão quando piora mais que o
+ * limiar (padrão 10%) e a diferença também é maior que a soma das margens de erro das duas medições
+ * Termina com código 1 se houver alguma regressão, para poder barrar um build
+ */
+public final class CompararResultados {
+
+    private CompararResultados() {
+    }
+    
+    record Medicao(String unidade, double valor, double erro, boolean maiorEhMelhor) {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: CompararResultados <base.json> <novo.json> [limiar%]");
+            System.exit(2);
+        }
+        double limiar = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        
+        Map<String, Medicao> base = ler(new File(args[0]));
+        Map<String, Medicao> novo = ler(new File(args[1]));
+        
+        int regressoes = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Base", "Novo", "Variação");
+        for (Map.Entry<String, Medicao> entrada : novo.entrySet()) {
+            Medicao antes = base.get(entrada.getKey());
+            Medicao depois = entrada.getValue();
+            if (antes == null) {
+                System.out.printf("%-90s %14s %14s %9s%n", entrada.getKey(), "-", formatar(depois), "novo");
+                continue;
+            }
+            
+            double variacao = (depois.valor() - antes.valor()) / antes.valor() * 100;
+            double piora = depois.maiorEhMelhor() ? -variacao : variacao;
+            boolean significativa = Math.abs(depois.valor() - antes.valor()) > antes.erro() + depois.erro();
+            String marca = "";
+            if (significativa && piora > limiar) {
+                marca = "  ⚠️ REGRESSÃO";
+                regressoes++;
+            } else if (significativa && piora < -limiar) {
+                marca = "  ✅ melhora";
+            }
+            System.out.printf("%-90s %14s %14s %+8.1f%%%s%n",
+                    entrada.getKey(), formatar(antes), formatar(depois), variacao, marca);
+        }
+        for (String chave : base.keySet()) {
+            if (!novo.containsKey(chave)) {
+                System.out.printf("%-90s %14s %14s %9s%n", chave, formatar(base.get(chave)), "-", "removido");
+            }
+        }
+        
+        System.out.println();
+        System.out.println(regressoes == 0
+                ? "Nenhuma regressão acima de " + limiar + "%"
+                : regressoes + " regressão(ões) acima de " + limiar + "%");
+        System.exit(regressoes == 0 ? 0 : 1);
+    }
+    
+    /**
+     * Lê o JSON do JMH: chave "Classe.metodo [modo] param=valor,..." → medição principal
+     */
+    static Map<String, Medicao> ler(File arquivo) throws IOException {
+        Map<String, Medicao> medicoes = new TreeMap<>();
+        for (JsonNode resultado : new ObjectMapper().readTree(arquivo)) {
+            String benchmark = resultado.path("benchmark").asText();
+            String nome = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+            String modo = resultado.path("mode").asText();
+            
+            StringJoiner parametros = new StringJoiner(",");
+            resultado.path("params").fields().forEachRemaining(p -> parametros.add(p.getKey() + "=" + p.getValue().asText()));
+            
+            JsonNode metrica = resultado.path("primaryMetric");
+            double erro = metrica.path("scoreError").asDouble(0);
+            medicoes.put(nome + " [" + modo + "] " + parametros, new Medicao(
+                    metrica.path("scoreUnit").asText(),
+                    metrica.path("score").asDouble(),
+                    Double.isNaN(erro) ? 0 : erro,
+                    modo.equals("thrpt")));
+        }
+        return medicoes;
+    }
+    
+    private static String formatar(Medicao medicao) {
+        return String.format("%.3f %s", medicao.valor(), medicao.unidade());
+    }
+}
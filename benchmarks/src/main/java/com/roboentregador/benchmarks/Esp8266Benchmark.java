@@ -0,0 +1,116 @@
+package com.roboentregador.benchmarks;
+
+import com.roboentregador.backend.model.Robo;
+import com.roboentregador.backend.service.Esp8266Service;
+import com.roboentregador.backend.service.EventosService;
+import com.roboentregador.backend.service.HistoricoService;
+import com.roboentregador.backend.service.MetricasService;
+import com.roboentregador.backend.simulador.ParametrosSimulador;
+import com.roboentregador.backend.simulador.SimuladorEsp8266;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envio de comandos pelo Esp8266Service até uma ESP8266 simulada no mesmo processo
+ * O stub responde 200 a POST /executar sem atraso: o tempo medido é o do cliente
+ * (serialização do corpo, HttpClient, métricas e tratamento da resposta) mais o loopback
+ * Em SampleTime o JSON de resultado traz os percentis (p0.50, p0.99, ...) de cada envio
+ * canal=binario envia pelo canal binário a uma SimuladorEsp8266 sem latência simulada
+ * (o primeiro envio ainda vai por HTTP enquanto a conexão abre, durante o aquecimento)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class Esp8266Benchmark {
+
+    private static final byte[] RESPOSTA = "{\"status\":\"executando\"}".getBytes(StandardCharsets.UTF_8);
+    
+    @Param({"http", "binario"})
+    public String canal;
+    
+    private HttpServer stub;
+    private ExecutorService executorStub;
+    private ScheduledExecutorService agendadorSimulador;
+    private SimuladorEsp8266 simulador;
+    private AnnotationConfigApplicationContext contexto;
+    private Esp8266Service esp8266Service;
+    private Robo robo;
+    
+    @Setup
+    public void preparar() throws IOException {
+        // Sem TCP_NODELAY o HttpServer do JDK espera o ACK atrasado (~40 ms) entre cabeçalhos e corpo
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        executorStub = Executors.newFixedThreadPool(8);
+        stub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        stub.createContext("/executar", Esp8266Benchmark::responder);
+        stub.setExecutor(executorStub);
+        stub.start();
+        
+        contexto = Cenarios.contexto(Map.of(), EventosService.class, MetricasService.class, HistoricoService.class,
+                Esp8266Service.class);
+        esp8266Service = contexto.getBean(Esp8266Service.class);
+        
+        int portaCanal = 0;
+        if (canal.equals("binario")) {
+            agendadorSimulador = Executors.newScheduledThreadPool(4);
+            simulador = new SimuladorEsp8266("bench", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    new ParametrosSimulador(0, 0, 0.0, 64, 1.0), agendadorSimulador);
+            simulador.iniciar();
+            portaCanal = simulador.getPortaCanal();
+        }
+        robo = new Robo("bench", "127.0.0.1", stub.getAddress().getPort(), portaCanal);
+    }
+    
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+        if (simulador != null) {
+            simulador.parar();
+            agendadorSimulador.shutdownNow();
+        }
+        stub.stop(0);
+        executorStub.shutdownNow();
+    }
+    
+    @Benchmark
+    public boolean enviarComando() {
+        return esp8266Service.enviarComandoAsync(robo, "ROTA_1").join();
+    }
+    
+    /**
+     * Vários despachos simultâneos para o mesmo robô, como em uma fila de entregas cheia
+     */
+    @Benchmark
+    @Threads(8)
+    public boolean enviarComandoConcorrente() {
+        return esp8266Service.enviarComandoAsync(robo, "ROTA_1").join();
+    }
+    
+    private static void responder(HttpExchange troca) throws IOException {
+        try (InputStream corpo = troca.getRequestBody()) {
+            corpo.readAllBytes();
+        }
+        troca.getResponseHeaders().set("Content-Type", "application/json");
+        troca.sendResponseHeaders(200, RESPOSTA.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(RESPOSTA);
+        }
+    }
+}
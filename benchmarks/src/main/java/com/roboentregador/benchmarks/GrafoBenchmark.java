@@ -0,0 +1,92 @@
+package com.roboentregador.benchmarks;
+
+import com.roboentregador.backend.model.Caminho;
+import com.roboentregador.backend.repository.ArestaRepository;
+import com.roboentregador.backend.service.CaminhoService;
+import com.roboentregador.backend.service.EventosService;
+import com.roboentregador.backend.service.LocalizacaoService;
+import com.roboentregador.backend.service.MetricasService;
+import com.roboentregador.backend.service.TemposService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Roteamento sobre o grafo compacto
+ * - calcularDistanciaTotal: soma das arestas de um caminho já conhecido (usada ao montar os DTOs)
+ * - calcularCaminho: A* pelos tempos de percurso (ainda os da calibração) de um canto ao outro da grade
+ * - noMaisProximo: nó mais próximo de um ponto no meio da planta, pelo índice espacial
+ * nos = 7 mede o grafo padrão da planta (A-G); os demais, uma grade com pelo menos esse número de nós
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class GrafoBenchmark {
+
+    @Param({"7", "1000", "10000", "100000"})
+    private int nos;
+    
+    private AnnotationConfigApplicationContext contexto;
+    private ArestaRepository arestaRepository;
+    private CaminhoService caminhoService;
+    private LocalizacaoService localizacaoService;
+    private String origem;
+    private String destino;
+    private List<String> caminho;
+    private double x;
+    private double y;
+    
+    @Setup
+    public void preparar() {
+        contexto = Cenarios.contexto(Map.of(), ArestaRepository.class, EventosService.class, MetricasService.class,
+                TemposService.class, CaminhoService.class, LocalizacaoService.class);
+        arestaRepository = contexto.getBean(ArestaRepository.class);
+        caminhoService = contexto.getBean(CaminhoService.class);
+        localizacaoService = contexto.getBean(LocalizacaoService.class);
+        
+        if (nos <= 7) {
+            origem = "A";
+            destino = "G";
+            x = 10;
+            y = 70;
+        } else {
+            int lado = Cenarios.lado(nos);
+            Cenarios.carregarGrade(arestaRepository, lado);
+            origem = Cenarios.no(0);
+            destino = Cenarios.no(lado * lado - 1);
+            x = lado * 75.0 / 2 + 20;
+            y = lado * 75.0 / 2 + 30;
+        }
+        
+        caminho = caminhoService.calcularCaminho(origem, destino)
+                .orElseThrow(() -> new IllegalStateException("Sem caminho entre " + origem + " e " + destino))
+                .nomesDosNos();
+    }
+    
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+    
+    @Benchmark
+    public double calcularDistanciaTotal() {
+        return arestaRepository.calcularDistanciaTotal(caminho);
+    }
+    
+    @Benchmark
+    public Optional<Caminho> calcularCaminho() {
+        return caminhoService.calcularCaminho(origem, destino);
+    }
+    
+    @Benchmark
+    public Optional<String> noMaisProximo() {
+        return localizacaoService.noMaisProximo(x, y);
+    }
+}
@@ -0,0 +1,97 @@
+package com.roboentregador.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roboentregador.backend.dto.RotaDTO;
+import com.roboentregador.backend.dto.RotaResumoDTO;
+import com.roboentregador.backend.model.RotaCompacta;
+import com.roboentregador.backend.repository.ArestaRepository;
+import com.roboentregador.backend.repository.RoboRepository;
+import com.roboentregador.backend.repository.RotaRepository;
+import com.roboentregador.backend.service.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão do catálogo de rotas em DTOs e serialização JSON, como nos endpoints GET /api/rotas
+ * Os serviços vêm de um contexto Spring com os mesmos beans do backend; o catálogo é completado
+ * com as k menores rotas entre os cantos de uma grade 16 × 16 (com instruções compiladas)
+ * - listarRotasResumo: GET /api/rotas
+ * - converterParaDTO: GET /api/rotas/{id} (via buscarRotaPorId, percorrendo o catálogo)
+ * - serializarRotaDTO / serializarResumos: Jackson com a configuração padrão do Spring Boot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class RotaServiceBenchmark {
+
+    private static final int LADO_GRADE = 16;
+    
+    @Param({"10", "100", "1000"})
+    private int rotas;
+    
+    private AnnotationConfigApplicationContext contexto;
+    private RotaService rotaService;
+    private ObjectMapper objectMapper;
+    private Long[] ids;
+    private int proximo;
+    private RotaDTO rotaMaisLonga;
+    private List<RotaResumoDTO> resumos;
+    
+    @Setup
+    public void preparar() {
+        contexto = Cenarios.contexto(Map.of("rotas.geracao.pares", ""),
+                ArestaRepository.class, RotaRepository.class, RoboRepository.class,
+                EventosService.class, MetricasService.class, HistoricoService.class, Esp8266Service.class,
+                DespachoService.class, TemposService.class, CaminhoService.class, CompiladorRotasService.class,
+                MapaService.class, GeradorRotasService.class, RotaService.class);
+        
+        Cenarios.carregarGrade(contexto.getBean(ArestaRepository.class), LADO_GRADE);
+        List<RotaCompacta> geradas = contexto.getBean(GeradorRotasService.class)
+                .gerarRotas(Cenarios.no(0), Cenarios.no(LADO_GRADE * LADO_GRADE - 1), rotas, false);
+        if (geradas.size() < rotas) {
+            throw new IllegalStateException("Foram geradas só " + geradas.size() + " de " + rotas + " rotas");
+        }
+        
+        rotaService = contexto.getBean(RotaService.class);
+        objectMapper = Cenarios.objectMapper();
+        resumos = rotaService.listarRotasResumo();
+        ids = resumos.stream().map(RotaResumoDTO::getId).toArray(Long[]::new);
+        rotaMaisLonga = rotaService.buscarRotaPorId(geradas.get(geradas.size() - 1).getId()).orElseThrow();
+    }
+    
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+    
+    @Benchmark
+    public List<RotaResumoDTO> listarRotasResumo() {
+        return rotaService.listarRotasResumo();
+    }
+    
+    @Benchmark
+    public Optional<RotaDTO> converterParaDTO() {
+        Long id = ids[proximo];
+        proximo = proximo + 1 == ids.length ? 0 : proximo + 1;
+        return rotaService.buscarRotaPorId(id);
+    }
+    
+    @Benchmark
+    public byte[] serializarRotaDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(rotaMaisLonga);
+    }
+    
+    @Benchmark
+    public byte[] serializarResumos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(resumos);
+    }
+}
@@ -0,0 +1,75 @@
+package com.roboentregador.carga;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Gerador de carga da API REST do backend
+ * Uso: java -jar carga/target/carga.jar <cenario.json> [--url=http://host:8080] [--saida=resultados]
+ * Termina com código 0 se todos os SLOs do cenário foram atendidos, 1 se algum foi violado
+ * e 2 para erros de uso ou de cenário
+ */
+public final class Carga {
+
+    private Carga() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Uso: java -jar carga.jar <cenario.json> [--url=http://localhost:8080] [--saida=resultados]");
+            System.exit(2);
+        }
+        
+        ObjectMapper objectMapper = new ObjectMapper().enable(JsonParser.Feature.ALLOW_COMMENTS);
+        Cenario cenario = objectMapper.readValue(new File(args[0]), Cenario.class);
+        Path saida = Path.of("resultados");
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--url=")) {
+                cenario.setUrl(args[i].substring("--url=".length()));
+            } else if (args[i].startsWith("--saida=")) {
+                saida = Path.of(args[i].substring("--saida=".length()));
+            } else {
+                System.err.println("Opção desconhecida: " + args[i]);
+                System.exit(2);
+            }
+        }
+        
+        String problema = validar(cenario);
+        if (problema != null) {
+            System.err.println("❌ Cenário inválido: " + problema);
+            System.exit(2);
+        }
+        
+        System.out.println("🚀 Cenário " + cenario.getNome() + " contra " + cenario.getUrl());
+        GeradorCarga gerador = new GeradorCarga(cenario);
+        double segundosMedidos = gerador.executar();
+        
+        Relatorio relatorio = new Relatorio(cenario, gerador, segundosMedidos);
+        relatorio.imprimir(System.out);
+        relatorio.gravar(saida);
+        System.out.println("📁 Histogramas e resumo em " + saida.toAbsolutePath());
+        System.exit(relatorio.aprovado() ? 0 : 1);
+    }
+    
+    private static String validar(Cenario cenario) {
+        if (cenario.getNome() == null || cenario.getNome().isBlank()) {
+            return "nome obrigatório";
+        }
+        if (cenario.getFases().isEmpty()) {
+            return "nenhuma fase";
+        }
+        if (cenario.getRequisicoes().isEmpty()
+                || cenario.getRequisicoes().stream().mapToInt(Cenario.Requisicao::getPeso).sum() <= 0) {
+            return "nenhuma requisição com peso positivo";
+        }
+        for (Cenario.Requisicao requisicao : cenario.getRequisicoes()) {
+            if (requisicao.getNome() == null || requisicao.getCaminho() == null) {
+                return "toda requisição precisa de nome e caminho";
+            }
+        }
+        return null;
+    }
+}
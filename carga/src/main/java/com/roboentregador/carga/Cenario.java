@@ -0,0 +1,70 @@
+package com.roboentregador.carga;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cenário de carga lido de um arquivo JSON (pasta cenarios/)
+ * Modelo aberto: cada fase dispara requisições a uma taxa constante, independente das respostas,
+ * então um backend lento acumula requisições em voo em vez de reduzir a carga
+ */
+@Data
+@NoArgsConstructor
+public class Cenario {
+    private String nome;
+    private String url = "http://localhost:8080";
+    private int timeoutMs = 5000;
+    private int maximoEmVoo = 10_000;                       // acima disso a requisição é descartada e conta como erro
+    private List<Fase> fases = new ArrayList<>();
+    private List<Requisicao> requisicoes = new ArrayList<>();
+    private Map<String, Slo> slos = new LinkedHashMap<>();  // nome da requisição (ou "*" para o total) → SLO
+    
+    /**
+     * Trecho do cenário com taxa de chegada constante
+     * Fases de aquecimento não entram nos histogramas nem na verificação dos SLOs
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Fase {
+        private double taxa;                // requisições por segundo
+        private int duracaoS;
+        private boolean aquecimento;
+    }
+    
+    /**
+     * Requisição sorteada pelo peso a cada chegada
+     * O caminho aceita intervalos como /api/rotas/{1-7}/executar (um número sorteado por requisição)
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Requisicao {
+        private String nome;
+        private String metodo = "GET";
+        private String caminho;
+        private String corpo;                       // JSON enviado com Content-Type application/json
+        private int peso = 1;
+        private List<Integer> statusEsperados;      // vazio = qualquer 2xx
+    }
+    
+    /**
+     * Limites verificados ao final; campos nulos não são verificados
+     * Latências em ms; erros é a fração máxima de respostas inesperadas, falhas e descartes;
+     * vazaoMinima é a taxa mínima de respostas por segundo nas fases medidas
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Slo {
+        private Double p50Ms;
+        private Double p90Ms;
+        private Double p99Ms;
+        private Double p999Ms;
+        private Double maximoMs;
+        private Double erros;
+        private Double vazaoMinima;
+    }
+}
@@ -0,0 +1,271 @@
+package com.roboentregador.carga;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Executa um cenário em modelo aberto (taxa de chegada constante por fase)
+ * Uma única thread agenda as chegadas nos instantes previstos e dispara cada requisição com
+ * HttpClient.sendAsync, sem bloquear; as respostas são tratadas pelo executor do cliente
+ * A latência é medida a partir do instante previsto (não do envio real), então atrasos do próprio
+ * gerador ou filas no backend aparecem no histograma em vez de serem omitidos (coordinated omission)
+ */
+final class GeradorCarga {
+
+    private static final Pattern INTERVALO = Pattern.compile("\\{(\\d+)-(\\d+)}");
+    private static final long ATRASO_TOLERADO_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    private final Cenario cenario;
+    private final HttpClient cliente;
+    private final ExecutorService executorRespostas;
+    private final List<Alvo> alvos = new ArrayList<>();
+    private final int[] pesosAcumulados;
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private final LongAdder disparosAtrasados = new LongAdder();
+    
+    /**
+     * Estado e resultados de uma requisição do cenário (latências em microssegundos)
+     */
+    static final class Alvo {
+        final Cenario.Requisicao requisicao;
+        final Recorder medido = new Recorder(3);
+        final Recorder aquecimento = new Recorder(3);
+        final Histogram histograma = new Histogram(3);
+        final LongAdder respostas = new LongAdder();
+        final LongAdder inesperadas = new LongAdder();
+        final LongAdder falhas = new LongAdder();
+        final LongAdder descartadas = new LongAdder();
+        final Map<Integer, LongAdder> status = new ConcurrentHashMap<>();
+        
+        private final List<String> trechos = new ArrayList<>();    // texto fixo entre os intervalos
+        private final List<int[]> intervalos = new ArrayList<>();
+        
+        Alvo(Cenario.Requisicao requisicao) {
+            this.requisicao = requisicao;
+            Matcher matcher = INTERVALO.matcher(requisicao.getCaminho());
+            int fim = 0;
+            while (matcher.find()) {
+                trechos.add(requisicao.getCaminho().substring(fim, matcher.start()));
+                intervalos.add(new int[]{Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))});
+                fim = matcher.end();
+            }
+            trechos.add(requisicao.getCaminho().substring(fim));
+        }
+        
+        String caminho() {
+            if (intervalos.isEmpty()) {
+                return trechos.get(0);
+            }
+            StringBuilder caminho = new StringBuilder(trechos.get(0));
+            for (int i = 0; i < intervalos.size(); i++) {
+                int[] intervalo = intervalos.get(i);
+                caminho.append(ThreadLocalRandom.current().nextInt(intervalo[0], intervalo[1] + 1));
+                caminho.append(trechos.get(i + 1));
+            }
+            return caminho.toString();
+        }
+        
+        boolean esperado(int codigo) {
+            List<Integer> esperados = requisicao.getStatusEsperados();
+            return esperados == null || esperados.isEmpty() ? codigo / 100 == 2 : esperados.contains(codigo);
+        }
+        
+        /**
+         * Respostas com status inesperado, falhas (timeout, conexão) e descartes
+         */
+        long erros() {
+            return inesperadas.sum() + falhas.sum() + descartadas.sum();
+        }
+        
+        long tentativas() {
+            return respostas.sum() + falhas.sum() + descartadas.sum();
+        }
+    }
+    
+    GeradorCarga(Cenario cenario) {
+        this.cenario = cenario;
+        this.executorRespostas = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread thread = new Thread(r, "carga-respostas");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(cenario.getTimeoutMs()))
+                .executor(executorRespostas)
+                .build();
+        
+        this.pesosAcumulados = new int[cenario.getRequisicoes().size()];
+        int total = 0;
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            Cenario.Requisicao requisicao = cenario.getRequisicoes().get(i);
+            alvos.add(new Alvo(requisicao));
+            total += Math.max(0, requisicao.getPeso());
+            pesosAcumulados[i] = total;
+        }
+    }
+    
+    List<Alvo> getAlvos() {
+        return alvos;
+    }
+    
+    /**
+     * Chegadas que saíram mais de 10 ms depois do previsto: se for alto, o gerador
+     * (e não o backend) limitou a taxa e o resultado não deve ser usado
+     */
+    long getDisparosAtrasados() {
+        return disparosAtrasados.sum();
+    }
+    
+    /**
+     * Executa todas as fases e espera as requisições em voo
+     * @return duração total das fases medidas em segundos
+     */
+    double executar() throws InterruptedException {
+        ScheduledExecutorService progresso = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "carga-progresso");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long inicioCenario = System.nanoTime();
+        progresso.scheduleAtFixedRate(() -> relatarIntervalo(inicioCenario), 1, 1, TimeUnit.SECONDS);
+        
+        double segundosMedidos = 0;
+        try {
+            for (Cenario.Fase fase : cenario.getFases()) {
+                System.out.printf("▶️ Fase: %.0f req/s por %d s%s%n", fase.getTaxa(), fase.getDuracaoS(),
+                        fase.isAquecimento() ? " (aquecimento)" : "");
+                executarFase(fase);
+                if (!fase.isAquecimento()) {
+                    segundosMedidos += fase.getDuracaoS();
+                }
+            }
+            
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cenario.getTimeoutMs() + 1000L);
+            while (emVoo.get() > 0 && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+        } finally {
+            progresso.shutdownNow();
+            progresso.awaitTermination(1, TimeUnit.SECONDS);
+            relatarIntervalo(inicioCenario);
+            executorRespostas.shutdownNow();
+        }
+        return segundosMedidos;
+    }
+    
+    private void executarFase(Cenario.Fase fase) {
+        if (fase.getTaxa() <= 0 || fase.getDuracaoS() <= 0) {
+            return;
+        }
+        double intervalo = 1e9 / fase.getTaxa();
+        long total = Math.round(fase.getTaxa() * fase.getDuracaoS());
+        long inicio = System.nanoTime();
+        boolean medir = !fase.isAquecimento();
+        
+        for (long chegada = 0; chegada < total; chegada++) {
+            long previsto = inicio + (long) (chegada * intervalo);
+            long espera = previsto - System.nanoTime();
+            while (espera > 0) {
+                LockSupport.parkNanos(espera);
+                espera = previsto - System.nanoTime();
+            }
+            if (-espera > ATRASO_TOLERADO_NANOS) {
+                disparosAtrasados.increment();
+            }
+            disparar(sortear(), previsto, medir);
+        }
+    }
+    
+    private Alvo sortear() {
+        int sorteio = ThreadLocalRandom.current().nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (sorteio < pesosAcumulados[i]) {
+                return alvos.get(i);
+            }
+        }
+        return alvos.get(alvos.size() - 1);
+    }
+    
+    private void disparar(Alvo alvo, long previsto, boolean medir) {
+        if (emVoo.incrementAndGet() > cenario.getMaximoEmVoo()) {
+            emVoo.decrementAndGet();
+            if (medir) {
+                alvo.descartadas.increment();
+            }
+            return;
+        }
+        
+        Cenario.Requisicao requisicao = alvo.requisicao;
+        HttpRequest.Builder pedido = HttpRequest.newBuilder()
+                .uri(URI.create(cenario.getUrl() + alvo.caminho()))
+                .timeout(Duration.ofMillis(cenario.getTimeoutMs()));
+        if (requisicao.getCorpo() != null) {
+            pedido.header("Content-Type", "application/json")
+                    .method(requisicao.getMetodo(), HttpRequest.BodyPublishers.ofString(requisicao.getCorpo()));
+        } else {
+            pedido.method(requisicao.getMetodo(), HttpRequest.BodyPublishers.noBody());
+        }
+        
+        cliente.sendAsync(pedido.build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((resposta, erro) -> {
+                    emVoo.decrementAndGet();
+                    long latenciaUs = Math.max(1, (System.nanoTime() - previsto) / 1000);
+                    if (!medir) {
+                        alvo.aquecimento.recordValue(latenciaUs);
+                        return;
+                    }
+                    if (erro != null) {
+                        alvo.falhas.increment();
+                        return;
+                    }
+                    alvo.medido.recordValue(latenciaUs);
+                    alvo.respostas.increment();
+                    alvo.status.computeIfAbsent(resposta.statusCode(), codigo -> new LongAdder()).increment();
+                    if (!alvo.esperado(resposta.statusCode())) {
+                        alvo.inesperadas.increment();
+                    }
+                });
+    }
+    
+    /**
+     * Linha de progresso com as respostas do último segundo; acumula o intervalo medido nos histogramas
+     */
+    private void relatarIntervalo(long inicioCenario) {
+        Histogram intervalo = new Histogram(3);
+        for (Alvo alvo : alvos) {
+            Histogram medido = alvo.medido.getIntervalHistogram();
+            alvo.histograma.add(medido);
+            intervalo.add(medido);
+            intervalo.add(alvo.aquecimento.getIntervalHistogram());
+        }
+        System.out.printf("   t=%4ds  respostas=%6d  p50=%8.2f ms  p99=%8.2f ms  max=%8.2f ms  em voo=%d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicioCenario),
+                intervalo.getTotalCount(),
+                intervalo.getValueAtPercentile(50) / 1000.0,
+                intervalo.getValueAtPercentile(99) / 1000.0,
+                intervalo.getMaxValue() / 1000.0,
+                emVoo.get());
+    }
+}
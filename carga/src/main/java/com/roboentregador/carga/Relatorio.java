@@ -0,0 +1,160 @@
+package com.roboentregador.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumo de uma execução: tabela no console, verificação dos SLOs e arquivos de resultado
+ * - <cenario>-<requisicao>.hgrm: distribuição de percentis no formato do HdrHistogram (em ms),
+ *   que pode ser plotada no HdrHistogram plotter para comparar execuções
+ * - <cenario>.json: percentis, contagens e o resultado de cada SLO
+ */
+final class Relatorio {
+
+    static final String TOTAL = "*";
+    
+    private final Cenario cenario;
+    private final double segundosMedidos;
+    private final long disparosAtrasados;
+    private final Map<String, Resumo> resumos = new LinkedHashMap<>();
+    private final Map<String, Histogram> histogramas = new LinkedHashMap<>();
+    private final List<String> violacoes = new ArrayList<>();
+    
+    /**
+     * Números de uma requisição (ou do total); latências em ms
+     */
+    record Resumo(long respostas, long erros, double taxaErros, double vazao, Map<Integer, Long> status,
+                  double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maximoMs) {
+    }
+    
+    Relatorio(Cenario cenario, GeradorCarga gerador, double segundosMedidos) {
+        this.cenario = cenario;
+        this.segundosMedidos = segundosMedidos;
+        this.disparosAtrasados = gerador.getDisparosAtrasados();
+        
+        Histogram total = new Histogram(3);
+        long respostas = 0;
+        long tentativas = 0;
+        long erros = 0;
+        Map<Integer, Long> status = new TreeMap<>();
+        for (GeradorCarga.Alvo alvo : gerador.getAlvos()) {
+            Map<Integer, Long> statusAlvo = new TreeMap<>();
+            alvo.status.forEach((codigo, contagem) -> statusAlvo.put(codigo, contagem.sum()));
+            statusAlvo.forEach((codigo, contagem) -> status.merge(codigo, contagem, Long::sum));
+            
+            String nome = alvo.requisicao.getNome();
+            histogramas.put(nome, alvo.histograma);
+            resumos.put(nome, resumir(alvo.histograma, alvo.respostas.sum(), alvo.tentativas(), alvo.erros(), statusAlvo));
+            total.add(alvo.histograma);
+            respostas += alvo.respostas.sum();
+            tentativas += alvo.tentativas();
+            erros += alvo.erros();
+        }
+        histogramas.put(TOTAL, total);
+        resumos.put(TOTAL, resumir(total, respostas, tentativas, erros, status));
+        
+        verificarSlos();
+    }
+    
+    boolean aprovado() {
+        return violacoes.isEmpty();
+    }
+    
+    void imprimir(PrintStream saida) {
+        saida.println();
+        saida.printf("📊 %s: %.0f s medidos%n", cenario.getNome(), segundosMedidos);
+        saida.printf("%-22s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "Requisição", "Respostas", "Req/s", "Erros", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Máx ms");
+        resumos.forEach((nome, resumo) -> saida.printf("%-22s %9d %9.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                nome.equals(TOTAL) ? "(total)" : nome, resumo.respostas(), resumo.vazao(), resumo.taxaErros() * 100,
+                resumo.p50Ms(), resumo.p90Ms(), resumo.p99Ms(), resumo.p999Ms(), resumo.maximoMs()));
+        saida.println("Status: " + resumos.get(TOTAL).status());
+        
+        if (disparosAtrasados > 0) {
+            saida.println("⚠️ " + disparosAtrasados + " chegadas saíram com mais de 10 ms de atraso: "
+                    + "o gerador não sustentou a taxa pedida");
+        }
+        saida.println();
+        if (violacoes.isEmpty()) {
+            saida.println("✅ Todos os SLOs atendidos");
+        } else {
+            violacoes.forEach(violacao -> saida.println("❌ " + violacao));
+        }
+    }
+    
+    /**
+     * Grava os histogramas (.hgrm) e o resumo em JSON na pasta indicada
+     */
+    void gravar(Path pasta) throws IOException {
+        Files.createDirectories(pasta);
+        for (Map.Entry<String, Histogram> entrada : histogramas.entrySet()) {
+            String nome = entrada.getKey().equals(TOTAL) ? "total" : entrada.getKey();
+            Path arquivo = pasta.resolve(cenario.getNome() + "-" + nome + ".hgrm");
+            try (PrintStream saida = new PrintStream(Files.newOutputStream(arquivo))) {
+                entrada.getValue().outputPercentileDistribution(saida, 1000.0);
+            }
+        }
+        
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("cenario", cenario.getNome());
+        json.put("url", cenario.getUrl());
+        json.put("segundosMedidos", segundosMedidos);
+        json.put("disparosAtrasados", disparosAtrasados);
+        json.put("requisicoes", resumos);
+        json.put("slos", cenario.getSlos());
+        json.put("violacoes", violacoes);
+        json.put("aprovado", aprovado());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(pasta.resolve(cenario.getNome() + ".json").toFile(), json);
+    }
+    
+    private Resumo resumir(Histogram histograma, long respostas, long tentativas, long erros, Map<Integer, Long> status) {
+        return new Resumo(respostas, erros,
+                tentativas == 0 ? 0 : (double) erros / tentativas,
+                segundosMedidos == 0 ? 0 : respostas / segundosMedidos,
+                status,
+                histograma.getValueAtPercentile(50) / 1000.0,
+                histograma.getValueAtPercentile(90) / 1000.0,
+                histograma.getValueAtPercentile(99) / 1000.0,
+                histograma.getValueAtPercentile(99.9) / 1000.0,
+                histograma.getMaxValue() / 1000.0);
+    }
+    
+    private void verificarSlos() {
+        cenario.getSlos().forEach((nome, slo) -> {
+            Resumo resumo = resumos.get(nome);
+            if (resumo == null) {
+                violacoes.add("SLO para requisição inexistente: " + nome);
+                return;
+            }
+            String rotulo = nome.equals(TOTAL) ? "total" : nome;
+            verificar(rotulo, "p50", resumo.p50Ms(), slo.getP50Ms(), "ms");
+            verificar(rotulo, "p90", resumo.p90Ms(), slo.getP90Ms(), "ms");
+            verificar(rotulo, "p99", resumo.p99Ms(), slo.getP99Ms(), "ms");
+            verificar(rotulo, "p99.9", resumo.p999Ms(), slo.getP999Ms(), "ms");
+            verificar(rotulo, "máximo", resumo.maximoMs(), slo.getMaximoMs(), "ms");
+            verificar(rotulo, "erros", resumo.taxaErros(), slo.getErros(), "");
+            if (slo.getVazaoMinima() != null && resumo.vazao() < slo.getVazaoMinima()) {
+                violacoes.add(String.format("%s: vazão %.1f req/s abaixo do mínimo %.1f",
+                        rotulo, resumo.vazao(), slo.getVazaoMinima()));
+            }
+        });
+    }
+    
+    private void verificar(String rotulo, String medida, double valor, Double limite, String unidade) {
+        if (limite != null && valor > limite) {
+            violacoes.add(String.format("%s: %s = %.3f%s acima do limite %.3f%s", rotulo, medida, valor, unidade, limite, unidade));
+        }
+    }
+}
@@ -2,7 +2,7 @@
  * Robô Entregador Autônomo - Firmware ESP8266
  * ExpoTech 2025 - UNIFECAF
  * 
- * Recebe comandos de rotas via Interface Web (HTTP)
+ * Recebe comandos de rotas via Interface Web (HTTP) ou pelo canal binário TCP do backend
  * Executa movimentos baseados nas 7 rotas do grafo
  * 
  * Hardware:
@@ -14,6 +14,7 @@
 #include <ESP8266WiFi.h>
 #include <ESPAsyncTCP.h>
 #include <ESPAsyncWebServer.h>
+#include <WiFiUdp.h>
 #include <FS.h>
 
 // ========== CONFIGURAÇÃO WIFI ==========
@@ -29,7 +30,8 @@ const int pinMotor2F = 0;   // D3 - Motor 2 Frente
 const int pinMotor2T = 2;   // D4 - Motor 2 Trás
 
 // ========== SERVIDOR WEB ==========
-AsyncWebServer server(80);
+const int PORTA_HTTP = 80;   // Também enviada na telemetria para o backend identificar o robô
+AsyncWebServer server(PORTA_HTTP);
 
 // ========== SISTEMA DE EXECUÇÃO ==========
 bool executando = false;
@@ -53,6 +55,46 @@ struct Comando {
 int totalComandos = 0;
 Comando* comandosRota = nullptr;
 
+// ========== PROGRAMA RECEBIDO DO BACKEND ==========
+// Rotas compiladas pelo backend chegam em POST /programa, sem precisar regravar o firmware
+// Formato binário (big-endian): versão (1 byte) | id (2 bytes) | N passos (2 bytes)
+// seguido de N passos de 3 bytes: direção nos 3 bits altos, duração em ms nos 21 bits baixos
+const int VERSAO_PROGRAMA = 1;
+const int MAX_PASSOS_PROGRAMA = 128;
+const size_t TAMANHO_MAX_PROGRAMA = 5 + 3 * MAX_PASSOS_PROGRAMA;
+Comando programa[MAX_PASSOS_PROGRAMA];
+uint8_t bufferPrograma[TAMANHO_MAX_PROGRAMA];
+
+// ========== TELEMETRIA PARA O BACKEND ==========
+// Amostras de estado dos motores e do loop enviadas por UDP em lotes (TelemetriaService no backend)
+// Datagrama (big-endian): versão (1) | porta HTTP (2) | N (1) | N amostras de 24 bytes:
+// millis (4) | x, y, rumo (float, NaN = desconhecido) | pwm (2) | ciclo µs (2) | passo (2) | direção (1) | 0 (1)
+const char* telemetriaHost = "";                  // IP do backend ("" desativa a telemetria)
+const int telemetriaPorta = 5005;
+const unsigned long INTERVALO_TELEMETRIA = 100;   // ms entre amostras
+const int AMOSTRAS_POR_DATAGRAMA = 5;
+const int TAMANHO_AMOSTRA = 24;
+WiFiUDP udpTelemetria;
+uint8_t bufferTelemetria[4 + AMOSTRAS_POR_DATAGRAMA * TAMANHO_AMOSTRA];
+int amostrasNoBuffer = 0;
+unsigned long proximaAmostra = 0;
+int direcaoAtual = 4;
+unsigned long duracaoCicloUs = 0;
+
+// ========== CANAL BINÁRIO COM O BACKEND ==========
+// Conexão TCP persistente (Esp8266Service no backend) com quadros de tamanho fixo, sem HTTP nem JSON
+// Pedido (8 bytes, big-endian): 'R' | opcode | sequência (2) | argumento (2) | tamanho da carga (2)
+//   opcode 1 = ROTA (argumento 1 a 7), 2 = STOP, 3 = STATUS, 4 = PROGRAMA (carga no formato de POST /programa)
+// Resposta (8 bytes): 'R' | opcode + 0x80 | sequência (2) | código | executando (0/1) | valor (2)
+//   código 0 = ok, 1 = comando desconhecido, 2 = programa inválido, 3 = executando, 4 = grande demais
+const int PORTA_CANAL = 8266;
+const uint8_t MAGICO_CANAL = 'R';
+const size_t TAMANHO_QUADRO = 8;
+AsyncServer servidorCanal(PORTA_CANAL);
+AsyncClient* clienteCanal = nullptr;
+uint8_t bufferCanal[TAMANHO_QUADRO + TAMANHO_MAX_PROGRAMA];
+size_t recebidosCanal = 0;
+
 // ========== DEFINIÇÃO DAS ROTAS ==========
 // Baseado nas distâncias reais do grafo (velocidade ~10cm/s)
 
@@ -193,6 +235,7 @@ void controlMotor(int direcao) {
 
 // Função para compatibilidade com as rotas
 void controlar_motores(int direcao) {
+  direcaoAtual = direcao;
   // Mapeia os comandos das rotas para o sistema do seu colega
   switch (direcao) {
     case 0: // Frente
@@ -280,6 +323,24 @@ void executarProximoComando() {
   }
 }
 
+// Decodifica o programa binário para o array de passos
+// Retorna o número de passos, ou -1 se o formato for inválido
+int carregarPrograma(const uint8_t* dados, size_t tamanho) {
+  if (tamanho < 5 || dados[0] != VERSAO_PROGRAMA) return -1;
+
+  int passos = (dados[3] << 8) | dados[4];
+  if (passos == 0 || passos > MAX_PASSOS_PROGRAMA || tamanho != 5 + 3 * (size_t) passos) return -1;
+
+  for (int i = 0; i < passos; i++) {
+    const uint8_t* p = dados + 5 + 3 * i;
+    uint32_t passo = ((uint32_t) p[0] << 16) | ((uint32_t) p[1] << 8) | p[2];
+    programa[i].direcao = passo >> 21;
+    programa[i].duracao = passo & 0x1FFFFF;
+    if (programa[i].direcao > 4) return -1;
+  }
+  return passos;
+}
+
 // ========== CONFIGURAÇÃO DAS ROTAS WEB ==========
 
 void configurarRotasWeb() {
@@ -361,6 +422,52 @@ server.on("/executar", HTTP_POST, [](AsyncWebServerRequest * request) {}, NULL,
     }
 });
 
+// Endpoint para receber e executar um programa compilado pelo backend (corpo binário)
+server.on("/programa", HTTP_POST, [](AsyncWebServerRequest * request) {}, NULL,
+  [](AsyncWebServerRequest * request, uint8_t *data, size_t len, size_t index, size_t total) {
+
+    // O corpo pode chegar em vários pedaços: acumula até ter os 'total' bytes
+    if (total > TAMANHO_MAX_PROGRAMA) {
+      if (index == 0) {
+        AsyncWebServerResponse *response = request->beginResponse(413, "application/json", "{\"error\":\"programa grande demais\"}");
+        response->addHeader("Access-Control-Allow-Origin", "*");
+        request->send(response);
+      }
+      return;
+    }
+    memcpy(bufferPrograma + index, data, len);
+    if (index + len < total) return;
+
+    // Não sobrescreve o programa que está sendo executado
+    if (trajetoRodando) {
+      AsyncWebServerResponse *response = request->beginResponse(409, "application/json", "{\"error\":\"executando\"}");
+      response->addHeader("Access-Control-Allow-Origin", "*");
+      request->send(response);
+      return;
+    }
+
+    int passos = carregarPrograma(bufferPrograma, total);
+    if (passos < 0) {
+      AsyncWebServerResponse *response = request->beginResponse(400, "application/json", "{\"error\":\"programa invalido\"}");
+      response->addHeader("Access-Control-Allow-Origin", "*");
+      request->send(response);
+      return;
+    }
+
+    int id = (bufferPrograma[1] << 8) | bufferPrograma[2];
+    Serial.print("Recebido programa ");
+    Serial.print(id);
+    Serial.print(" (");
+    Serial.print(total);
+    Serial.println(" bytes)");
+
+    iniciarRota(programa, passos, "PROGRAMA " + String(id));
+    String json = "{\"status\":\"ok\",\"programa\":" + String(id) + ",\"passos\":" + String(passos) + "}";
+    AsyncWebServerResponse *response = request->beginResponse(200, "application/json", json);
+    response->addHeader("Access-Control-Allow-Origin", "*");
+    request->send(response);
+});
+
 // Endpoint OPTIONS para CORS preflight
 server.on("/executar", HTTP_OPTIONS, [](AsyncWebServerRequest * request) {
     AsyncWebServerResponse *response = request->beginResponse(200);
@@ -380,6 +487,176 @@ server.on("/executar", HTTP_OPTIONS, [](AsyncWebServerRequest * request) {
 
 }
 
+// ========== CANAL BINÁRIO ==========
+
+// Rotas gravadas indexadas pelo argumento do opcode ROTA: sem busca de texto por comando
+Comando* const ROTAS_CANAL[] = {rota1, rota2, rota3, rota4, rota5, rota6, rota7};
+const int PASSOS_ROTAS_CANAL[] = {
+  sizeof(rota1) / sizeof(Comando), sizeof(rota2) / sizeof(Comando), sizeof(rota3) / sizeof(Comando),
+  sizeof(rota4) / sizeof(Comando), sizeof(rota5) / sizeof(Comando), sizeof(rota6) / sizeof(Comando),
+  sizeof(rota7) / sizeof(Comando)
+};
+
+void responderCanal(AsyncClient* cliente, const uint8_t* pedido, uint8_t codigo, uint16_t valor) {
+  uint8_t resposta[TAMANHO_QUADRO];
+  resposta[0] = MAGICO_CANAL;
+  resposta[1] = pedido[1] | 0x80;
+  resposta[2] = pedido[2];
+  resposta[3] = pedido[3];
+  resposta[4] = codigo;
+  resposta[5] = trajetoRodando ? 1 : 0;
+  resposta[6] = valor >> 8;
+  resposta[7] = valor;
+  cliente->write((const char*) resposta, TAMANHO_QUADRO);
+}
+
+// Mesmas ações de POST /executar e POST /programa, decididas pelo opcode
+void processarQuadro(AsyncClient* cliente, const uint8_t* quadro, size_t carga) {
+  uint16_t argumento = (quadro[4] << 8) | quadro[5];
+  switch (quadro[1]) {
+    case 1:
+      if (argumento < 1 || argumento > 7) {
+        responderCanal(cliente, quadro, 1, argumento);
+        return;
+      }
+      if (trajetoRodando) {
+        responderCanal(cliente, quadro, 3, argumento);
+        return;
+      }
+      iniciarRota(ROTAS_CANAL[argumento - 1], PASSOS_ROTAS_CANAL[argumento - 1], "ROTA " + String(argumento));
+      responderCanal(cliente, quadro, 0, argumento);
+      return;
+    case 2:
+      pararTrajeto();
+      responderCanal(cliente, quadro, 0, 0);
+      return;
+    case 3:
+      responderCanal(cliente, quadro, 0, trajetoRodando ? trajetoIndex : 0);
+      return;
+    case 4: {
+      if (trajetoRodando) {
+        responderCanal(cliente, quadro, 3, 0);
+        return;
+      }
+      int passos = carregarPrograma(quadro + TAMANHO_QUADRO, carga);
+      if (passos < 0) {
+        responderCanal(cliente, quadro, 2, 0);
+        return;
+      }
+      iniciarRota(programa, passos, "PROGRAMA " + String(argumento));
+      responderCanal(cliente, quadro, 0, passos);
+      return;
+    }
+    default:
+      responderCanal(cliente, quadro, 1, 0);
+  }
+}
+
+// Os bytes chegam em pedaços de tamanho qualquer: acumula e trata cada quadro completo
+// Quadro inválido fecha a conexão (o backend reconecta); close() sem "now" porque estamos no callback do cliente
+void receberCanal(AsyncClient* cliente, const uint8_t* dados, size_t tamanho) {
+  while (tamanho > 0) {
+    size_t esperado = TAMANHO_QUADRO;
+    if (recebidosCanal >= TAMANHO_QUADRO) {
+      esperado += (bufferCanal[6] << 8) | bufferCanal[7];
+    }
+    size_t copiar = min(tamanho, esperado - recebidosCanal);
+    memcpy(bufferCanal + recebidosCanal, dados, copiar);
+    recebidosCanal += copiar;
+    dados += copiar;
+    tamanho -= copiar;
+
+    if (recebidosCanal == TAMANHO_QUADRO) {
+      size_t carga = (bufferCanal[6] << 8) | bufferCanal[7];
+      if (bufferCanal[0] != MAGICO_CANAL || carga > TAMANHO_MAX_PROGRAMA) {
+        if (bufferCanal[0] == MAGICO_CANAL) {
+          responderCanal(cliente, bufferCanal, 4, 0);
+        }
+        clienteCanal = nullptr;
+        cliente->close();
+        return;
+      }
+      esperado = TAMANHO_QUADRO + carga;
+    }
+    if (recebidosCanal == esperado) {
+      processarQuadro(cliente, bufferCanal, esperado - TAMANHO_QUADRO);
+      recebidosCanal = 0;
+    }
+  }
+}
+
+// Um único backend por vez: uma conexão nova substitui a anterior
+void configurarCanal() {
+  servidorCanal.setNoDelay(true);
+  servidorCanal.onClient([](void* arg, AsyncClient* cliente) {
+    if (clienteCanal != nullptr) {
+      clienteCanal->close(true);
+    }
+    clienteCanal = cliente;
+    recebidosCanal = 0;
+    cliente->setNoDelay(true);
+    cliente->onData([](void* arg, AsyncClient* c, void* dados, size_t tamanho) {
+      if (c == clienteCanal) {
+        receberCanal(c, (const uint8_t*) dados, tamanho);
+      }
+    }, nullptr);
+    cliente->onDisconnect([](void* arg, AsyncClient* c) {
+      if (c == clienteCanal) {
+        clienteCanal = nullptr;
+      }
+      delete c;
+    }, nullptr);
+    Serial.println("Backend conectado ao canal binario");
+  }, nullptr);
+  servidorCanal.begin();
+}
+
+// ========== TELEMETRIA ==========
+
+void escreverU16(uint8_t* destino, uint16_t valor) {
+  destino[0] = valor >> 8;
+  destino[1] = valor;
+}
+
+void escreverU32(uint8_t* destino, uint32_t valor) {
+  destino[0] = valor >> 24;
+  destino[1] = valor >> 16;
+  destino[2] = valor >> 8;
+  destino[3] = valor;
+}
+
+// Grava uma amostra no lote e envia o datagrama quando ele enche
+void registrarTelemetria(unsigned long agora) {
+  if (telemetriaHost[0] == '\0') return;
+
+  uint8_t* amostra = bufferTelemetria + 4 + amostrasNoBuffer * TAMANHO_AMOSTRA;
+  float desconhecido = NAN;
+  uint32_t bitsNaN;
+  memcpy(&bitsNaN, &desconhecido, sizeof(bitsNaN));
+  bool motorLigado = direcaoAtual != 4;
+
+  escreverU32(amostra, agora);
+  escreverU32(amostra + 4, bitsNaN);    // x: o firmware não tem odometria
+  escreverU32(amostra + 8, bitsNaN);    // y
+  escreverU32(amostra + 12, bitsNaN);   // rumo
+  escreverU16(amostra + 16, motorLigado ? pwmEsquerdo : 0);
+  escreverU16(amostra + 18, duracaoCicloUs > 65535 ? 65535 : duracaoCicloUs);
+  escreverU16(amostra + 20, trajetoRodando ? trajetoIndex : -1);
+  amostra[22] = direcaoAtual;
+  amostra[23] = 0;
+  amostrasNoBuffer++;
+
+  if (amostrasNoBuffer == AMOSTRAS_POR_DATAGRAMA) {
+    bufferTelemetria[0] = 1;
+    escreverU16(bufferTelemetria + 1, PORTA_HTTP);
+    bufferTelemetria[3] = amostrasNoBuffer;
+    udpTelemetria.beginPacket(telemetriaHost, telemetriaPorta);
+    udpTelemetria.write(bufferTelemetria, 4 + amostrasNoBuffer * TAMANHO_AMOSTRA);
+    udpTelemetria.endPacket();
+    amostrasNoBuffer = 0;
+  }
+}
+
 // ========== SETUP ==========
 
 void setup() {
@@ -427,13 +704,18 @@ void setup() {
   configurarRotasWeb();
   
   server.begin();
-  Serial.println("✅ Servidor HTTP iniciado na porta 80");
+  Serial.print("✅ Servidor HTTP iniciado na porta ");
+  Serial.println(PORTA_HTTP);
+  configurarCanal();
+  Serial.print("Canal binario na porta ");
+  Serial.println(PORTA_CANAL);
   Serial.println("=== PRONTO PARA RECEBER COMANDOS ===\n");
 }
 
 // ========== LOOP PRINCIPAL ==========
 
 void loop() {
+  unsigned long inicioCiclo = micros();
   unsigned long agora = millis();
   
   // Verifica se terminou um comando
@@ -456,5 +738,11 @@ void loop() {
     executarProximoComando();
   }
   
+  if (agora >= proximaAmostra) {
+    proximaAmostra = agora + INTERVALO_TELEMETRIA;
+    registrarTelemetria(agora);
+  }
+  
+  duracaoCicloUs = micros() - inicioCiclo;
   delay(10);
 }
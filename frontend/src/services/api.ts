@@ -285,3 +285,49 @@ export async function pararRobo(): Promise<RotaDiretaResponse | null> {
     return null;
   }
 }
+
+/**
+ * ========================================
+ * EVENTOS EM TEMPO REAL (SSE)
+ * ========================================
+ */
+
+export interface EventoExecucao {
+  roboId: string;
+  comando: string;
+  estado: "iniciada" | "concluida" | "parada" | "perdida";
+  instante: number;
+}
+
+export interface EventosHandlers {
+  frota?: (robos: any[]) => void;
+  filas?: (filas: any[]) => void;
+  robo?: (robo: any) => void;
+  execucao?: (execucao: EventoExecucao) => void;
+  entrega?: (entrega: any) => void;
+}
+
+/**
+ * Assina o canal /api/eventos no lugar do polling dos endpoints de status
+ * O EventSource reconecta sozinho e envia Last-Event-ID para receber os eventos perdidos
+ * Retorna a função que encerra a assinatura
+ */
+export function assinarEventos(handlers: EventosHandlers): () => void {
+  const fonte = new EventSource(`${API_BASE_URL}/eventos`);
+
+  (Object.keys(handlers) as (keyof EventosHandlers)[]).forEach((tipo) => {
+    fonte.addEventListener(tipo, (evento) => {
+      try {
+        handlers[tipo]?.(JSON.parse((evento as MessageEvent).data));
+      } catch (error) {
+        console.error(`Erro ao processar evento ${tipo}:`, error);
+      }
+    });
+  });
+
+  fonte.onerror = () => {
+    console.warn("⚠️ Conexão de eventos perdida, reconectando...");
+  };
+
+  return () => fonte.close();
+}